@@ -0,0 +1,95 @@
+package com.apag.p2plus.management.plugins.mrp.model;
+
+import com.apag.p2plus.management.plugins.mrp.perf.StubData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads every value of a configuration through the generic and the typed
+ * accessors, from plain items and from the compact {@link ConfigValues} form
+ * kept in the cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigItemAccessBenchmark {
+
+  @Param({"100", "10000"})
+  private int size;
+
+  private List<ConfigItem> items;
+  private ConfigValues values;
+
+  @Setup
+  public void setUp() {
+    items = StubData.configItems(size, 0);
+    values = ConfigValues.of(ConfigSchema.of(items), items);
+  }
+
+  @Benchmark
+  public void getValue(Blackhole blackhole) {
+    for (ConfigItem item : items) {
+      blackhole.consume(item.getValue());
+    }
+  }
+
+  @Benchmark
+  public void typedAccessors(Blackhole blackhole) {
+    for (ConfigItem item : items) {
+      consumeTyped(item, blackhole);
+    }
+  }
+
+  @Benchmark
+  public void compactTypedAccessors(Blackhole blackhole) {
+    for (int i = 0; i < values.size(); i++) {
+      consumeTyped(values.get(i), blackhole);
+    }
+  }
+
+  @Benchmark
+  public void compactLookupByName(Blackhole blackhole) {
+    for (ConfigItem item : items) {
+      blackhole.consume(values.get(item.getName()));
+    }
+  }
+
+  private static void consumeTyped(ConfigItem item, Blackhole blackhole) {
+    switch (item.getValueType()) {
+      case BOOLEAN:
+        blackhole.consume(item.booleanValue());
+        break;
+      case INT:
+        blackhole.consume(item.intValue());
+        break;
+      case LONG:
+        blackhole.consume(item.longValue());
+        break;
+      case DOUBLE:
+        blackhole.consume(item.doubleValue());
+        break;
+      case DURATION:
+        blackhole.consume(item.durationMillis());
+        break;
+      default:
+        blackhole.consume(item.getValue());
+        break;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.perf.StubData;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (de)serialization of configuration and scenario lists at the sizes
+ * seen in production: a typical configuration, a large one, and the scenario
+ * list of a large installation. Configurations are read both with data
+ * binding and with the streaming reader the services use, in JSON and in the
+ * Smile wire format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+  private static final TypeReference<List<Scenario>> SCENARIO_LIST = new TypeReference<>() { };
+  private static final TypeReference<List<ConfigItem>> CONFIG_ITEM_LIST = new TypeReference<>() { };
+
+  @Param({"100", "10000"})
+  private int size;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private List<ConfigItem> configItems;
+  private byte[] configItemsJson;
+  private byte[] configItemsSmile;
+  private List<Scenario> scenarios;
+  private byte[] scenariosJson;
+
+  @Setup
+  public void setUp() {
+    configItems = StubData.configItems(size, 0);
+    configItemsJson = StubConfigClient.toJson(configItems);
+    try {
+      configItemsSmile = WireFormat.SMILE.getMapper().writeValueAsBytes(configItems);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    scenarios = StubData.scenarios(size);
+    scenariosJson = StubConfigClient.toJson(scenarios);
+  }
+
+  @Benchmark
+  public byte[] writeConfigItems() throws IOException {
+    return mapper.writeValueAsBytes(configItems);
+  }
+
+  @Benchmark
+  public List<ConfigItem> readConfigItems() throws IOException {
+    return mapper.readValue(configItemsJson, CONFIG_ITEM_LIST);
+  }
+
+  @Benchmark
+  public List<ConfigItem> streamConfigItems() throws IOException {
+    return ConfigItemStreamReader.read(new ByteArrayInputStream(configItemsJson), null);
+  }
+
+  @Benchmark
+  public byte[] writeConfigItemsSmile() throws IOException {
+    return WireFormat.SMILE.getMapper().writeValueAsBytes(configItems);
+  }
+
+  @Benchmark
+  public List<ConfigItem> streamConfigItemsSmile() throws IOException {
+    return ConfigItemStreamReader.read(new ByteArrayInputStream(configItemsSmile), WireFormat.SMILE, null);
+  }
+
+  @Benchmark
+  public byte[] writeScenarios() throws IOException {
+    return mapper.writeValueAsBytes(scenarios);
+  }
+
+  @Benchmark
+  public List<Scenario> readScenarios() throws IOException {
+    return mapper.readValue(scenariosJson, SCENARIO_LIST);
+  }
+}
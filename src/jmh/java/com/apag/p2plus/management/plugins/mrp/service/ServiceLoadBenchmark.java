@@ -0,0 +1,111 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.perf.StubData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load paths of the services against the {@link StubConfigClient}: cache hits
+ * of {@code loadConfig} and {@code loadConfigAsync}, and misses that go through
+ * the executor, endpoint limiter, conditional GET handling and parsing. The
+ * snapshot is kept in memory only, and invalidating an entry drops its snapshot
+ * section, so a miss is not answered from it. With the "pool"
+ * executor loads run on the default load executor like in the application,
+ * with "direct" on the benchmark thread, which leaves out the thread hand-off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceLoadBenchmark {
+
+  private static final String TECHNICAL_KEY = "technical";
+  private static final String SCENARIO_ID = "Scenario_1";
+
+  @Param({"100", "10000"})
+  private int size;
+
+  @Param({"pool", "direct"})
+  private String executorType;
+
+  private ExecutorService executor;
+  private WriteBehindQueue writeQueue;
+  private TechnicalConfigService technicalConfigService;
+  private OperationalConfigService operationalConfigService;
+
+  @Setup
+  public void setUp() {
+    StubConfigClient client = new StubConfigClient(StubData.scenarios(100),
+        StubData.configItems(size, 0), StubData.configItems(size, 1));
+    executor = LoadExecutors.newDefaultExecutor();
+    Executor loadExecutor = executorType.equals("direct") ? Runnable::run : executor;
+    MetricsRegistry metrics = new MetricsRegistry(false);
+    writeQueue = new WriteBehindQueue(loadExecutor, new SaveSettings(0, 0, 0), metrics);
+    ServiceContext context = new ServiceContext(client, loadExecutor, new EndpointLimiter(4),
+        new CacheSettings(100, TimeUnit.HOURS.toMillis(1), 0), new SnapshotStore(null), metrics, writeQueue,
+        new CircuitBreakerRegistry(CircuitBreakerSettings.fromSystemProperties(), metrics),
+        new AdaptiveTimeout(false, 3, 1000, 15_000, 20, metrics));
+    technicalConfigService = new TechnicalConfigService(context);
+    operationalConfigService = new OperationalConfigService(context);
+    technicalConfigService.load();
+    operationalConfigService.load(SCENARIO_ID);
+  }
+
+  @TearDown
+  public void tearDown() {
+    technicalConfigService.close();
+    operationalConfigService.close();
+    writeQueue.close();
+    executor.shutdownNow();
+  }
+
+  @Benchmark
+  public List<ConfigItem> cachedLoad() {
+    return technicalConfigService.load();
+  }
+
+  @Benchmark
+  public List<ConfigItem> cachedLoadAsync() {
+    return technicalConfigService.loadAsync().join();
+  }
+
+  @Benchmark
+  public List<ConfigItem> uncachedLoad() {
+    technicalConfigService.invalidate(TECHNICAL_KEY);
+    return technicalConfigService.load();
+  }
+
+  @Benchmark
+  public List<ConfigItem> uncachedLoadAsync() {
+    technicalConfigService.invalidate(TECHNICAL_KEY);
+    return technicalConfigService.loadAsync().join();
+  }
+
+  /**
+   * Includes interning the schema and compacting the values for the cache
+   */
+  @Benchmark
+  public List<ConfigItem> uncachedOperationalLoad() {
+    operationalConfigService.invalidate(SCENARIO_ID);
+    return operationalConfigService.load(SCENARIO_ID);
+  }
+}
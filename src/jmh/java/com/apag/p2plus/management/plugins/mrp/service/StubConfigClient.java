@@ -0,0 +1,127 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process {@link MRPConfigClient} answering from prepared JSON bodies, so
+ * benchmarks measure the service layer including response parsing without
+ * network and server time. Responses carry no validators, so every load that
+ * reaches the client reads a full body. Saves are discarded.
+ */
+public class StubConfigClient implements MRPConfigClient {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final TypeReference<List<Scenario>> SCENARIO_LIST = new TypeReference<>() { };
+  private static final TypeReference<List<ConfigItem>> CONFIG_ITEM_LIST = new TypeReference<>() { };
+
+  private final byte[] scenariosJson;
+  private final byte[] technicalJson;
+  private final byte[] operationalJson;
+
+  /**
+   * @param operationalConfig configuration returned for every scenario
+   */
+  public StubConfigClient(List<Scenario> scenarios, List<ConfigItem> technicalConfig, List<ConfigItem> operationalConfig) {
+    this.scenariosJson = toJson(scenarios);
+    this.technicalJson = toJson(technicalConfig);
+    this.operationalJson = toJson(operationalConfig);
+  }
+
+  static byte[] toJson(Object value) {
+    try {
+      return MAPPER.writeValueAsBytes(value);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static <V> V fromJson(byte[] json, TypeReference<V> type) {
+    try {
+      return MAPPER.readValue(json, type);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Response ok(byte[] json) {
+    return Response.ok(new ByteArrayInputStream(json), MediaType.APPLICATION_JSON_TYPE).build();
+  }
+
+  @Override
+  public List<Scenario> getScenarios() {
+    return fromJson(scenariosJson, SCENARIO_LIST);
+  }
+
+  @Override
+  public Response getScenarioPage(int offset, int limit, String search) {
+    // Behaves like a server without paging support
+    return ok(scenariosJson);
+  }
+
+  @Override
+  public Response getScenariosConditional(String ifNoneMatch, String ifModifiedSince) {
+    return ok(scenariosJson);
+  }
+
+  @Override
+  public List<ConfigItem> getTechnicalConfig() {
+    return fromJson(technicalJson, CONFIG_ITEM_LIST);
+  }
+
+  @Override
+  public Response getTechnicalConfigConditional(String ifNoneMatch, String ifModifiedSince) {
+    return ok(technicalJson);
+  }
+
+  @Override
+  public List<ConfigItem> getOperationalConfig(String scenarioId) {
+    return fromJson(operationalJson, CONFIG_ITEM_LIST);
+  }
+
+  @Override
+  public Response getOperationalConfigConditional(String scenarioId, String ifNoneMatch, String ifModifiedSince) {
+    return ok(operationalJson);
+  }
+
+  @Override
+  public Map<String, List<ConfigItem>> getOperationalConfigs(List<String> scenarioIds) {
+    Map<String, List<ConfigItem>> configs = new LinkedHashMap<>();
+    for (String scenarioId : scenarioIds) {
+      configs.put(scenarioId, getOperationalConfig(scenarioId));
+    }
+    return configs;
+  }
+
+  @Override
+  public void saveTechnicalConfig(List<ConfigItem> configItems) {
+  }
+
+  @Override
+  public void patchTechnicalConfig(List<ConfigItem> changedItems) {
+  }
+
+  @Override
+  public void saveOperationalConfig(String scenarioId, List<ConfigItem> configItems) {
+  }
+
+  @Override
+  public void patchOperationalConfig(String scenarioId, List<ConfigItem> changedItems) {
+  }
+
+  @Override
+  public Response createScenario(Scenario scenario) {
+    return Response.status(Response.Status.CREATED).build();
+  }
+}
@@ -1,5 +1,7 @@
 package com.apag.p2plus.management.plugins.mrp;
 
+import com.apag.p2plus.management.plugins.mrp.cli.MRPConfigCli;
+import com.apag.p2plus.management.plugins.mrp.ui.EdtWatchdog;
 import com.apag.p2plus.management.plugins.mrp.ui.MRPConfigPanel;
 import com.apag.p2plus.management.plugins.mrp.service.ServiceFactory;
 import org.slf4j.Logger;
@@ -9,6 +11,7 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main application class for MRP Configuration Prototype
@@ -19,11 +22,19 @@ public class MRPConfigApplication extends JFrame {
   private static final String APPLICATION_TITLE = "MRP Config Prototype";
   private static final int DEFAULT_WIDTH = 1024;
   private static final int DEFAULT_HEIGHT = 768;
+  // Shared by running commands and queued saves when the window is closed
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+  // Closing faster than this exits without showing the saving dialog
+  private static final int SAVING_DIALOG_DELAY_MILLIS = 300;
 
   private MRPConfigPanel mainPanel;
+  private EdtWatchdog edtWatchdog;
+  private boolean closing;
 
   public MRPConfigApplication() {
     logger.info("Starting MRP Configuration Application");
+    edtWatchdog = EdtWatchdog.fromSystemProperties(ServiceFactory.getMetricsRegistry());
+    edtWatchdog.start();
     initializeFrame();
     createComponents();
     setupEventHandlers();
@@ -31,7 +42,7 @@ public class MRPConfigApplication extends JFrame {
 
   private void initializeFrame() {
     setTitle(APPLICATION_TITLE);
-    setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
     setSize(DEFAULT_WIDTH, DEFAULT_HEIGHT);
     setLocationRelativeTo(null);
 
@@ -47,7 +58,10 @@ public class MRPConfigApplication extends JFrame {
     mainPanel = new MRPConfigPanel(
         ServiceFactory.getScenarioService(),
         ServiceFactory.getTechnicalConfigService(),
-        ServiceFactory.getOperationalConfigService()
+        ServiceFactory.getOperationalConfigService(),
+        ServiceFactory.getScenarioPrefetcher(),
+        ServiceFactory.getMetricsRegistry(),
+        ServiceFactory.getCircuitBreakers()
     );
     
     add(mainPanel, BorderLayout.CENTER);
@@ -69,20 +83,65 @@ public class MRPConfigApplication extends JFrame {
     addWindowListener(new WindowAdapter() {
       @Override
       public void windowClosing(WindowEvent e) {
-        logger.info("Application closing");
-        cleanup();
-        System.exit(0);
+        if (!closing) {
+          closing = true;
+          logger.info("Application closing");
+          cleanup();
+        }
       }
     });
   }
 
+  /**
+   * Stops the UI and lets running commands and queued saves finish on a
+   * background thread within one shared deadline, then exits. The EDT stays
+   * free meanwhile and shows a dialog if this takes noticeable time.
+   */
   private void cleanup() {
+    edtWatchdog.close();
     if (mainPanel != null) {
       mainPanel.cleanup();
     }
+    JDialog savingDialog = createSavingDialog();
+    Timer dialogTimer = new Timer(SAVING_DIALOG_DELAY_MILLIS, e -> savingDialog.setVisible(true));
+    dialogTimer.setRepeats(false);
+    dialogTimer.start();
+
+    Thread shutdown = new Thread(() -> {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+      try {
+        if (mainPanel != null) {
+          mainPanel.closeCommands(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        ServiceFactory.shutdown(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } catch (RuntimeException e) {
+        logger.error("Error during shutdown", e);
+      } finally {
+        System.exit(0);
+      }
+    }, "mrp-shutdown");
+    shutdown.start();
   }
 
+  private JDialog createSavingDialog() {
+    JProgressBar progressBar = new JProgressBar();
+    progressBar.setIndeterminate(true);
+    JOptionPane pane = new JOptionPane(new Object[] {"Saving changes...", progressBar},
+        JOptionPane.INFORMATION_MESSAGE, JOptionPane.DEFAULT_OPTION, null, new Object[0]);
+    JDialog dialog = pane.createDialog(this, "Saving");
+    dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+    return dialog;
+  }
+
+  /**
+   * Starts the UI, or runs a headless command if arguments are given, see {@link MRPConfigCli}
+   */
   public static void main(String[] args) {
+    if (args.length > 0) {
+      MRPConfigCli.main(args);
+      return;
+    }
+
     // Configure Swing for better performance
     System.setProperty("swing.aatext", "true");
     System.setProperty("awt.useSystemAAFontSettings", "on");
@@ -0,0 +1,173 @@
+package com.apag.p2plus.management.plugins.mrp.cli;
+
+import com.apag.p2plus.management.plugins.mrp.service.LoadExecutors;
+import com.apag.p2plus.management.plugins.mrp.service.RetryPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs an operation for many keys in parallel. Operations are started at no
+ * more than the configured rate. If the server is overloaded (429, 502, 503,
+ * 504) or the connection fails, the operation is retried with exponential
+ * backoff; a Retry-After header pauses all workers for the requested time.
+ * Operations that are not idempotent are only retried if the failure shows
+ * that the server did not process them.
+ * Progress is printed about once per second and a failed key does not stop
+ * the others.
+ */
+class BulkPipeline {
+
+  private static final Logger logger = LoggerFactory.getLogger(BulkPipeline.class);
+  private static final RetryPolicy RETRY_POLICY = new RetryPolicy(500, 30_000, false);
+  private static final long PROGRESS_INTERVAL_MILLIS = 1000;
+
+  private final int parallelism;
+  private final RateLimiter rateLimiter;
+  private final int maxAttempts;
+  private final PrintStream out;
+
+  /**
+   * @param parallelism number of operations running at the same time
+   * @param rate maximum operations started per second, 0 for no limit
+   * @param maxAttempts attempts per key for retryable errors
+   * @param out receives progress lines
+   */
+  BulkPipeline(int parallelism, double rate, int maxAttempts, PrintStream out) {
+    this.parallelism = parallelism;
+    this.rateLimiter = new RateLimiter(rate);
+    this.maxAttempts = maxAttempts;
+    this.out = out;
+  }
+
+  /**
+   * Runs an idempotent operation for all keys and waits until all of them are done
+   */
+  BulkResult run(String action, List<String> keys, Operation operation) throws InterruptedException {
+    return run(action, keys, true, operation);
+  }
+
+  /**
+   * Runs the operation for all keys and waits until all of them are done
+   *
+   * @param idempotent whether the operation may be repeated if it is unknown
+   *                   whether the server received it, see {@link RetryPolicy}
+   */
+  BulkResult run(String action, List<String> keys, boolean idempotent, Operation operation) throws InterruptedException {
+    long start = System.nanoTime();
+    Map<String, String> failures = new ConcurrentHashMap<>();
+    Progress progress = new Progress(action, keys.size());
+    CountDownLatch done = new CountDownLatch(keys.size());
+    ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, parallelism),
+        LoadExecutors.daemonThreadFactory("mrp-bulk"));
+    try {
+      for (String key : keys) {
+        workers.execute(() -> {
+          try {
+            String failure = runWithRetries(key, idempotent, operation);
+            if (failure != null) {
+              failures.put(key, failure);
+            }
+            progress.completed(failure == null);
+          } finally {
+            done.countDown();
+          }
+        });
+      }
+      done.await();
+    } finally {
+      workers.shutdownNow();
+    }
+    progress.print();
+
+    Map<String, String> orderedFailures = new LinkedHashMap<>();
+    for (String key : keys) {
+      if (failures.containsKey(key)) {
+        orderedFailures.put(key, failures.get(key));
+      }
+    }
+    return new BulkResult(action, keys.size(), orderedFailures, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  /**
+   * @return null if the operation succeeded, otherwise the failure message
+   */
+  private String runWithRetries(String key, boolean idempotent, Operation operation) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        rateLimiter.acquire();
+        operation.run(key);
+        return null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return "Interrupted";
+      } catch (Exception e) {
+        long delayMillis = RETRY_POLICY.delayMillis(e, attempt, idempotent);
+        if (delayMillis < 0 || attempt >= maxAttempts) {
+          logger.debug("'{}' failed after {} attempts", key, attempt, e);
+          return describe(e);
+        }
+        logger.debug("'{}' failed ({}), retrying in {} ms", key, describe(e), delayMillis);
+        rateLimiter.pause(delayMillis);
+      }
+    }
+  }
+
+  static String describe(Throwable throwable) {
+    Throwable cause = throwable;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+  }
+
+  /**
+   * Operation run for one key
+   */
+  @FunctionalInterface
+  interface Operation {
+    void run(String key) throws Exception;
+  }
+
+  private class Progress {
+
+    private final String action;
+    private final int total;
+    private final long start = System.nanoTime();
+    private int completed;
+    private int failed;
+    private long lastPrintNanos = start;
+
+    Progress(String action, int total) {
+      this.action = action;
+      this.total = total;
+    }
+
+    synchronized void completed(boolean success) {
+      completed++;
+      if (!success) {
+        failed++;
+      }
+      long now = System.nanoTime();
+      if (now - lastPrintNanos >= TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MILLIS)) {
+        lastPrintNanos = now;
+        print();
+      }
+    }
+
+    synchronized void print() {
+      double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+      out.printf("%s: %d/%d done, %d failed, %.1f/s%n", action, completed, total, failed, completed / seconds);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.apag.p2plus.management.plugins.mrp.cli;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk operation: how many scenarios succeeded and why the
+ * others failed
+ */
+class BulkResult {
+
+  private final String action;
+  private final int total;
+  private final Map<String, String> failures;
+  private final long elapsedMillis;
+
+  /**
+   * @param failures failure message by key, in processing order
+   */
+  BulkResult(String action, int total, Map<String, String> failures, long elapsedMillis) {
+    this.action = action;
+    this.total = total;
+    this.failures = Collections.unmodifiableMap(failures);
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  int getSucceeded() {
+    return total - failures.size();
+  }
+
+  Map<String, String> getFailures() {
+    return failures;
+  }
+
+  boolean hasFailures() {
+    return !failures.isEmpty();
+  }
+
+  void print(PrintStream out) {
+    out.printf("%s: %d of %d succeeded in %.1f s%n", action, getSucceeded(), total, elapsedMillis / 1000.0);
+    failures.forEach((key, message) -> out.printf("  FAILED %s: %s%n", key, message));
+  }
+}
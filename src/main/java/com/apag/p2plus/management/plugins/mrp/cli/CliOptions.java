@@ -0,0 +1,158 @@
+package com.apag.p2plus.management.plugins.mrp.cli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Command line of the headless mode: a command, its arguments and
+ * {@code --name=value} options
+ */
+class CliOptions {
+
+  static final int DEFAULT_PARALLELISM = 4;
+  static final double DEFAULT_RATE = 20;
+  static final int DEFAULT_ATTEMPTS = 3;
+
+  private final String command;
+  private final List<String> arguments;
+  private Set<String> scenarioIds;
+  private String search;
+  private int parallelism = DEFAULT_PARALLELISM;
+  private double rate = DEFAULT_RATE;
+  private int attempts = DEFAULT_ATTEMPTS;
+  private boolean dryRun;
+  private boolean technical;
+
+  private CliOptions(String command, List<String> arguments) {
+    this.command = command;
+    this.arguments = arguments;
+  }
+
+  /**
+   * @throws IllegalArgumentException if the command line is invalid
+   */
+  static CliOptions parse(String[] args) {
+    if (args.length == 0) {
+      throw new IllegalArgumentException("No command given");
+    }
+    CliOptions options = new CliOptions(args[0], new ArrayList<>());
+    for (String arg : Arrays.asList(args).subList(1, args.length)) {
+      if (!arg.startsWith("--")) {
+        options.arguments.add(arg);
+        continue;
+      }
+      int separator = arg.indexOf('=');
+      String name = separator > 0 ? arg.substring(2, separator) : arg.substring(2);
+      String value = separator > 0 ? arg.substring(separator + 1) : null;
+      switch (name) {
+        case "scenarios":
+          options.scenarioIds = new LinkedHashSet<>(Arrays.asList(required(name, value).split(",")));
+          break;
+        case "search":
+          options.search = required(name, value);
+          break;
+        case "parallelism":
+          options.parallelism = positiveInt(name, value);
+          break;
+        case "rate":
+          options.rate = nonNegativeDouble(name, value);
+          break;
+        case "retries":
+          options.attempts = positiveInt(name, value);
+          break;
+        case "dry-run":
+          options.dryRun = true;
+          break;
+        case "technical":
+          options.technical = true;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+    return options;
+  }
+
+  private static String required(String name, String value) {
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException("Option --" + name + " needs a value");
+    }
+    return value.trim();
+  }
+
+  private static int positiveInt(String name, String value) {
+    try {
+      int parsed = Integer.parseInt(required(name, value));
+      if (parsed > 0) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new IllegalArgumentException("Option --" + name + " needs a positive number");
+  }
+
+  private static double nonNegativeDouble(String name, String value) {
+    try {
+      double parsed = Double.parseDouble(required(name, value));
+      if (parsed >= 0) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new IllegalArgumentException("Option --" + name + " needs a number of at least 0");
+  }
+
+  String getCommand() {
+    return command;
+  }
+
+  List<String> getArguments() {
+    return Collections.unmodifiableList(arguments);
+  }
+
+  /**
+   * Returns the IDs of the scenarios to process, or null for all
+   */
+  Set<String> getScenarioIds() {
+    return scenarioIds;
+  }
+
+  /**
+   * Returns the term scenario IDs or names must contain, or null
+   */
+  String getSearch() {
+    return search;
+  }
+
+  int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Returns the maximum number of scenarios started per second, 0 for no limit
+   */
+  double getRate() {
+    return rate;
+  }
+
+  /**
+   * Returns the attempts per scenario for retryable errors
+   */
+  int getAttempts() {
+    return attempts;
+  }
+
+  boolean isDryRun() {
+    return dryRun;
+  }
+
+  boolean isTechnical() {
+    return technical;
+  }
+}
@@ -0,0 +1,82 @@
+package com.apag.p2plus.management.plugins.mrp.cli;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.ValueType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Differences between the current and a target version of a configuration,
+ * matched by item name. Items that exist only in the current version are
+ * reported but never removed.
+ */
+class ConfigDiff {
+
+  private static final String MASKED = "******";
+
+  private final List<ConfigItem> changedItems;
+  private final List<String> lines;
+
+  private ConfigDiff(List<ConfigItem> changedItems, List<String> lines) {
+    this.changedItems = changedItems;
+    this.lines = lines;
+  }
+
+  static ConfigDiff between(List<ConfigItem> current, List<ConfigItem> target) {
+    Map<String, ConfigItem> targetByName = new LinkedHashMap<>();
+    for (ConfigItem item : target) {
+      targetByName.put(item.getName(), item);
+    }
+
+    List<ConfigItem> changed = new ArrayList<>();
+    List<String> lines = new ArrayList<>();
+    for (ConfigItem item : current) {
+      ConfigItem targetItem = targetByName.remove(item.getName());
+      if (targetItem == null) {
+        lines.add("- " + item.getName() + " (only on server, kept)");
+      } else if (!Objects.equals(item.getValue(), targetItem.getValue())
+          || !Objects.equals(item.getType(), targetItem.getType())) {
+        changed.add(targetItem);
+        lines.add("~ " + item.getName() + ": " + format(item) + " -> " + format(targetItem));
+      }
+    }
+    for (ConfigItem added : targetByName.values()) {
+      changed.add(added);
+      lines.add("+ " + added.getName() + ": " + format(added));
+    }
+    return new ConfigDiff(changed, lines);
+  }
+
+  private static String format(ConfigItem item) {
+    if (item.getValueType() == ValueType.PASSWORD && item.getValue() != null) {
+      return MASKED;
+    }
+    return String.valueOf(item.getValue());
+  }
+
+  /**
+   * Returns whether saving the target would change the current configuration
+   */
+  boolean hasChanges() {
+    return !changedItems.isEmpty();
+  }
+
+  /**
+   * Target items whose value or type differs, and target items that are new
+   */
+  List<ConfigItem> getChangedItems() {
+    return Collections.unmodifiableList(changedItems);
+  }
+
+  /**
+   * One line per difference: ~ changed, + only in the target, - only in the current version
+   */
+  List<String> getLines() {
+    return Collections.unmodifiableList(lines);
+  }
+}
@@ -0,0 +1,86 @@
+package com.apag.p2plus.management.plugins.mrp.cli;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Files of an export in the JSON format of the REST API:
+ * <pre>
+ * scenarios.json
+ * technical.json
+ * operational/&lt;URL-encoded scenario ID&gt;.json
+ * </pre>
+ */
+class ExportDirectory {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+  private static final TypeReference<List<Scenario>> SCENARIO_LIST = new TypeReference<>() { };
+  private static final TypeReference<List<ConfigItem>> CONFIG_ITEM_LIST = new TypeReference<>() { };
+
+  private final Path root;
+
+  ExportDirectory(Path root) {
+    this.root = root;
+  }
+
+  Path getRoot() {
+    return root;
+  }
+
+  List<Scenario> readScenarios() throws IOException {
+    Path file = root.resolve("scenarios.json");
+    if (!Files.isRegularFile(file)) {
+      throw new IOException("No export found in " + root + " (scenarios.json missing)");
+    }
+    return MAPPER.readValue(file.toFile(), SCENARIO_LIST);
+  }
+
+  void writeScenarios(List<Scenario> scenarios) throws IOException {
+    write(root.resolve("scenarios.json"), scenarios);
+  }
+
+  /**
+   * Returns the exported technical configuration, or null if it was not exported
+   */
+  List<ConfigItem> readTechnical() throws IOException {
+    return readItems(root.resolve("technical.json"));
+  }
+
+  void writeTechnical(List<ConfigItem> items) throws IOException {
+    write(root.resolve("technical.json"), items);
+  }
+
+  /**
+   * Returns the exported operational configuration of a scenario, or null if it was not exported
+   */
+  List<ConfigItem> readOperational(String scenarioId) throws IOException {
+    return readItems(operationalFile(scenarioId));
+  }
+
+  void writeOperational(String scenarioId, List<ConfigItem> items) throws IOException {
+    write(operationalFile(scenarioId), items);
+  }
+
+  private Path operationalFile(String scenarioId) {
+    return root.resolve("operational").resolve(URLEncoder.encode(scenarioId, StandardCharsets.UTF_8) + ".json");
+  }
+
+  private static List<ConfigItem> readItems(Path file) throws IOException {
+    return Files.isRegularFile(file) ? MAPPER.readValue(file.toFile(), CONFIG_ITEM_LIST) : null;
+  }
+
+  private static void write(Path file, Object value) throws IOException {
+    Files.createDirectories(file.getParent());
+    MAPPER.writeValue(file.toFile(), value);
+  }
+}
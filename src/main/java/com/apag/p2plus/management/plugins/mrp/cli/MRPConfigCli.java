@@ -0,0 +1,373 @@
+package com.apag.p2plus.management.plugins.mrp.cli;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.service.OperationalConfigService;
+import com.apag.p2plus.management.plugins.mrp.service.ScenarioService;
+import com.apag.p2plus.management.plugins.mrp.service.ServiceFactory;
+import com.apag.p2plus.management.plugins.mrp.service.TechnicalConfigService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Headless entry point for exporting, importing, comparing and bulk editing
+ * scenarios and their configurations. Uses the same services as the UI, but
+ * loads strictly from the server: a failed request fails the scenario instead
+ * of acting on snapshot or fallback data. Scenarios are processed by a
+ * {@link BulkPipeline}; failed scenarios are listed at the end and make the
+ * command exit with {@value #EXIT_FAILED}.
+ */
+public final class MRPConfigCli {
+
+  private static final Logger logger = LoggerFactory.getLogger(MRPConfigCli.class);
+
+  static final int EXIT_OK = 0;
+  static final int EXIT_FAILED = 1;
+  static final int EXIT_USAGE = 2;
+
+  // Key of the technical configuration among the scenario IDs
+  private static final String TECHNICAL_KEY = "<technical>";
+  private static final String USAGE = String.join(System.lineSeparator(),
+      "Usage: MRPConfigApplication <command> [arguments] [options]",
+      "Commands:",
+      "  export <dir>              Write scenarios, technical and operational configurations to <dir>",
+      "  diff <dir>                Show how an export differs from the server",
+      "  import <dir>              Create missing scenarios and save the differences of an export",
+      "  set <name>=<value>...     Set configuration values in the operational configuration of all selected scenarios",
+      "Options:",
+      "  --scenarios=<id>,<id>     Only process these scenarios",
+      "  --search=<term>           Only process scenarios whose ID or name contains the term",
+      "  --technical               set: change the technical configuration instead",
+      "  --dry-run                 import, set: show the changes without saving them",
+      "  --parallelism=<n>         Scenarios processed at the same time (default " + CliOptions.DEFAULT_PARALLELISM + ")",
+      "  --rate=<n>                Scenarios started per second, 0 for no limit (default " + (int) CliOptions.DEFAULT_RATE + ")",
+      "  --retries=<n>             Attempts per scenario if the server is overloaded or unreachable (default "
+          + CliOptions.DEFAULT_ATTEMPTS + ")");
+
+  private final CliOptions options;
+  private final PrintStream out;
+  private final ScenarioService scenarioService;
+  private final TechnicalConfigService technicalConfigService;
+  private final OperationalConfigService operationalConfigService;
+  private final BulkPipeline pipeline;
+
+  MRPConfigCli(CliOptions options, PrintStream out, ScenarioService scenarioService,
+               TechnicalConfigService technicalConfigService, OperationalConfigService operationalConfigService) {
+    this.options = options;
+    this.out = out;
+    this.scenarioService = scenarioService;
+    this.technicalConfigService = technicalConfigService;
+    this.operationalConfigService = operationalConfigService;
+    this.pipeline = new BulkPipeline(options.getParallelism(), options.getRate(), options.getAttempts(), out);
+  }
+
+  public static void main(String[] args) {
+    System.exit(run(args, System.out));
+  }
+
+  /**
+   * Runs a command with the services of the {@link ServiceFactory} and shuts them down afterwards
+   *
+   * @return the exit code: {@value #EXIT_OK} on success, {@value #EXIT_FAILED} if
+   *         anything failed, {@value #EXIT_USAGE} for an invalid command line
+   */
+  public static int run(String[] args, PrintStream out) {
+    try {
+      CliOptions options = CliOptions.parse(args);
+      return new MRPConfigCli(options, out, ServiceFactory.getScenarioService(),
+          ServiceFactory.getTechnicalConfigService(), ServiceFactory.getOperationalConfigService()).execute();
+    } catch (IllegalArgumentException e) {
+      out.println(e.getMessage());
+      out.println(USAGE);
+      return EXIT_USAGE;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      out.println("Interrupted");
+      return EXIT_FAILED;
+    } catch (Exception e) {
+      logger.debug("Command failed", e);
+      out.println("Error: " + BulkPipeline.describe(e));
+      return EXIT_FAILED;
+    } finally {
+      ServiceFactory.shutdown();
+    }
+  }
+
+  int execute() throws Exception {
+    switch (options.getCommand()) {
+      case "export":
+        return export(directory());
+      case "diff":
+        return synchronize(directory(), "diff", false);
+      case "import":
+        return synchronize(directory(), "import", !options.isDryRun());
+      case "set":
+        return set(assignments());
+      default:
+        throw new IllegalArgumentException("Unknown command: " + options.getCommand());
+    }
+  }
+
+  private ExportDirectory directory() {
+    if (options.getArguments().size() != 1) {
+      throw new IllegalArgumentException(options.getCommand() + " needs exactly one directory");
+    }
+    return new ExportDirectory(Paths.get(options.getArguments().get(0)));
+  }
+
+  private Map<String, String> assignments() {
+    Map<String, String> assignments = new LinkedHashMap<>();
+    for (String argument : options.getArguments()) {
+      int separator = argument.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("Expected <name>=<value>, got: " + argument);
+      }
+      assignments.put(argument.substring(0, separator), argument.substring(separator + 1));
+    }
+    if (assignments.isEmpty()) {
+      throw new IllegalArgumentException("set needs at least one <name>=<value>");
+    }
+    return assignments;
+  }
+
+  private int export(ExportDirectory directory) throws Exception {
+    List<Scenario> scenarios = select(scenarioService.loadFromServer());
+    directory.writeScenarios(scenarios);
+    out.printf("Exporting %d scenarios to %s%n", scenarios.size(), directory.getRoot());
+
+    BulkResult technical = pipeline.run("export technical", List.of(TECHNICAL_KEY),
+        key -> directory.writeTechnical(technicalConfigService.loadFromServer()));
+    BulkResult operational = pipeline.run("export operational", ids(scenarios),
+        scenarioId -> directory.writeOperational(scenarioId, operationalConfigService.loadFromServer(scenarioId)));
+    return report(technical, operational);
+  }
+
+  /**
+   * Compares an export with the server and, if requested, creates missing
+   * scenarios and saves the changed items. Items that exist only on the
+   * server are kept.
+   */
+  private int synchronize(ExportDirectory directory, String action, boolean save) throws Exception {
+    List<Scenario> scenarios = select(directory.readScenarios());
+    Set<String> existingIds = ConcurrentHashMap.newKeySet();
+    existingIds.addAll(ids(scenarioService.loadFromServer()));
+    Map<String, List<String>> changes = new ConcurrentHashMap<>();
+    List<BulkResult> results = new ArrayList<>();
+
+    List<ConfigItem> technicalTarget = directory.readTechnical();
+    if (technicalTarget != null) {
+      results.add(pipeline.run(action + " technical", List.of(TECHNICAL_KEY), key -> {
+        ConfigDiff diff = ConfigDiff.between(technicalConfigService.loadFromServer(), technicalTarget);
+        if (save && diff.hasChanges()) {
+          technicalConfigService.saveTechnicalChanges(diff.getChangedItems());
+        }
+        changes.put(key, diff.getLines());
+      }));
+    }
+
+    Map<String, Scenario> scenariosById = new LinkedHashMap<>();
+    scenarios.forEach(scenario -> scenariosById.put(scenario.getScenarioId(), scenario));
+    List<String> missingIds = new ArrayList<>();
+    for (String scenarioId : scenariosById.keySet()) {
+      if (!existingIds.contains(scenarioId)) {
+        missingIds.add(scenarioId);
+      }
+    }
+    List<String> operationalIds = ids(scenarios);
+    if (save && !missingIds.isEmpty()) {
+      Set<String> attemptedIds = ConcurrentHashMap.newKeySet();
+      // A POST is not idempotent: only retried if the server did not process it
+      results.add(pipeline.run(action + " create", missingIds, false,
+          scenarioId -> createScenario(scenariosById.get(scenarioId), attemptedIds, existingIds)));
+      operationalIds.removeIf(scenarioId -> !existingIds.contains(scenarioId));
+    }
+    results.add(pipeline.run(action + " operational", operationalIds, scenarioId -> {
+      List<String> lines = new ArrayList<>();
+      if (missingIds.contains(scenarioId)) {
+        lines.add("+ scenario (missing on server)");
+      }
+      List<ConfigItem> target = directory.readOperational(scenarioId);
+      if (target != null) {
+        boolean exists = existingIds.contains(scenarioId);
+        List<ConfigItem> current = exists ? operationalConfigService.loadFromServer(scenarioId) : List.of();
+        ConfigDiff diff = ConfigDiff.between(current, target);
+        if (save && diff.hasChanges()) {
+          operationalConfigService.saveOperationalChanges(scenarioId, diff.getChangedItems());
+        }
+        lines.addAll(diff.getLines());
+      }
+      changes.put(scenarioId, lines);
+    }));
+
+    List<String> keys = new ArrayList<>();
+    keys.add(TECHNICAL_KEY);
+    keys.addAll(scenariosById.keySet());
+    printChanges(keys, changes, save ? "changed" : "differ");
+    return report(results.toArray(new BulkResult[0]));
+  }
+
+  /**
+   * Creates a missing scenario. A retry first checks whether the scenario
+   * exists, as the failed attempt may have created it, e.g. if the server
+   * answered 502 or 504 after forwarding the request.
+   *
+   * @param attemptedIds IDs a create request was already sent for
+   */
+  private void createScenario(Scenario scenario, Set<String> attemptedIds, Set<String> existingIds) {
+    String scenarioId = scenario.getScenarioId();
+    if (!attemptedIds.add(scenarioId) && ids(scenarioService.loadFromServer()).contains(scenarioId)) {
+      logger.debug("Scenario '{}' was created by an earlier attempt", scenarioId);
+      existingIds.add(scenarioId);
+      return;
+    }
+    if (!scenarioService.createScenario(scenario)) {
+      throw new IllegalStateException("Scenario could not be created");
+    }
+    existingIds.add(scenarioId);
+  }
+
+  /**
+   * Loads all selected configurations first and fails with a usage error if
+   * an assigned name matches no item in any of them, so a misspelled name
+   * saves nothing. The configurations are then changed with the loaded items;
+   * a retry loads them again.
+   */
+  private int set(Map<String, String> assignments) throws Exception {
+    boolean technical = options.isTechnical();
+    List<String> keys = technical ? List.of(TECHNICAL_KEY) : ids(select(scenarioService.loadFromServer()));
+    Map<String, List<ConfigItem>> loaded = new ConcurrentHashMap<>();
+    BulkResult loadResult = pipeline.run(technical ? "load technical" : "load", keys,
+        key -> loaded.put(key, loadCurrent(key)));
+    if (!loaded.isEmpty()) {
+      Set<String> unknownNames = new LinkedHashSet<>(assignments.keySet());
+      for (List<ConfigItem> items : loaded.values()) {
+        for (ConfigItem item : items) {
+          unknownNames.remove(item.getName());
+        }
+      }
+      if (!unknownNames.isEmpty()) {
+        throw new IllegalArgumentException("No selected configuration has the items: " + String.join(", ", unknownNames));
+      }
+    }
+
+    boolean save = !options.isDryRun();
+    List<String> loadedKeys = new ArrayList<>();
+    for (String key : keys) {
+      if (loaded.containsKey(key)) {
+        loadedKeys.add(key);
+      }
+    }
+    Map<String, List<String>> changes = new ConcurrentHashMap<>();
+    BulkResult setResult = pipeline.run(technical ? "set technical" : "set", loadedKeys, key -> {
+      List<ConfigItem> current = loaded.remove(key);
+      if (current == null) {
+        current = loadCurrent(key);
+      }
+      ConfigDiff diff = ConfigDiff.between(current, assign(current, assignments));
+      if (save && diff.hasChanges()) {
+        if (technical) {
+          technicalConfigService.saveTechnicalChanges(diff.getChangedItems());
+        } else {
+          operationalConfigService.saveOperationalChanges(key, diff.getChangedItems());
+        }
+      }
+      changes.put(key, diff.getLines());
+    });
+    printChanges(loadedKeys, changes, save ? "changed" : "would change");
+    return report(loadResult, setResult);
+  }
+
+  private List<ConfigItem> loadCurrent(String key) {
+    return TECHNICAL_KEY.equals(key) ? technicalConfigService.loadFromServer() : operationalConfigService.loadFromServer(key);
+  }
+
+  /**
+   * Returns the items with the assigned values; items that are not assigned stay unchanged
+   */
+  private static List<ConfigItem> assign(List<ConfigItem> items, Map<String, String> assignments) {
+    List<ConfigItem> assigned = new ArrayList<>(items.size());
+    for (ConfigItem item : items) {
+      String value = assignments.get(item.getName());
+      if (value == null) {
+        assigned.add(item);
+      } else if (!item.getValueType().isValid(value)) {
+        throw new IllegalArgumentException("Invalid value '" + value + "' for " + item.getType()
+            + " item '" + item.getName() + "'");
+      } else {
+        assigned.add(item.withValue(value));
+      }
+    }
+    return assigned;
+  }
+
+  private List<Scenario> select(List<Scenario> scenarios) {
+    Set<String> requestedIds = options.getScenarioIds();
+    String search = options.getSearch() != null ? options.getSearch().toLowerCase(Locale.ROOT) : null;
+    List<Scenario> selected = new ArrayList<>();
+    Set<String> unknownIds = requestedIds != null ? new LinkedHashSet<>(requestedIds) : Set.of();
+    for (Scenario scenario : scenarios) {
+      if (requestedIds != null) {
+        if (!requestedIds.contains(scenario.getScenarioId())) {
+          continue;
+        }
+        unknownIds.remove(scenario.getScenarioId());
+      }
+      if (search != null && !contains(scenario.getScenarioId(), search) && !contains(scenario.getDescription(), search)) {
+        continue;
+      }
+      selected.add(scenario);
+    }
+    if (!unknownIds.isEmpty()) {
+      out.println("Unknown scenarios skipped: " + String.join(", ", unknownIds));
+    }
+    return selected;
+  }
+
+  private static boolean contains(String text, String lowerTerm) {
+    return text != null && text.toLowerCase(Locale.ROOT).contains(lowerTerm);
+  }
+
+  private static List<String> ids(List<Scenario> scenarios) {
+    List<String> ids = new ArrayList<>(scenarios.size());
+    for (Scenario scenario : scenarios) {
+      ids.add(scenario.getScenarioId());
+    }
+    return ids;
+  }
+
+  private void printChanges(List<String> keys, Map<String, List<String>> changes, String verb) {
+    int changed = 0;
+    for (String key : keys) {
+      List<String> lines = changes.get(key);
+      if (lines == null || lines.isEmpty()) {
+        continue;
+      }
+      changed++;
+      out.println(key.equals(TECHNICAL_KEY) ? "technical:" : "scenario " + key + ":");
+      for (String line : lines) {
+        out.println("  " + line);
+      }
+    }
+    out.printf("%d configurations %s%n", changed, verb);
+  }
+
+  private int report(BulkResult... results) {
+    boolean failed = false;
+    for (BulkResult result : results) {
+      result.print(out);
+      failed |= result.hasFailures();
+    }
+    return failed ? EXIT_FAILED : EXIT_OK;
+  }
+}
@@ -0,0 +1,44 @@
+package com.apag.p2plus.management.plugins.mrp.cli;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out the start of operations to a maximum rate. A pause requested by
+ * the server, e.g. via Retry-After, delays all following operations.
+ */
+class RateLimiter {
+
+  // 0 if the rate is not limited
+  private final long intervalNanos;
+  private long nextPermitNanos = System.nanoTime();
+
+  /**
+   * @param permitsPerSecond maximum operations started per second, 0 or less for no limit
+   */
+  RateLimiter(double permitsPerSecond) {
+    this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+  }
+
+  /**
+   * Waits until the next operation may start
+   */
+  void acquire() throws InterruptedException {
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      long permit = Math.max(now, nextPermitNanos);
+      nextPermitNanos = permit + intervalNanos;
+      waitNanos = permit - now;
+    }
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+
+  /**
+   * Starts no further operation within the given time
+   */
+  synchronized void pause(long millis) {
+    nextPermitNanos = Math.max(nextPermitNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+}
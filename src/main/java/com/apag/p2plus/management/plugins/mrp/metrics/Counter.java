@@ -0,0 +1,25 @@
+package com.apag.p2plus.management.plugins.mrp.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic event counter, e.g. errors or fallbacks
+ */
+public class Counter implements CounterMBean {
+
+  private final LongAdder count = new LongAdder();
+
+  public void increment() {
+    count.increment();
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount();
+  }
+}
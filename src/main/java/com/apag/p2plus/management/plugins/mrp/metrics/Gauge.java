@@ -0,0 +1,25 @@
+package com.apag.p2plus.management.plugins.mrp.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Current value read on demand, e.g. the size of a cache
+ */
+public class Gauge implements GaugeMBean {
+
+  private final LongSupplier supplier;
+
+  public Gauge(LongSupplier supplier) {
+    this.supplier = supplier;
+  }
+
+  @Override
+  public long getValue() {
+    return supplier.getAsLong();
+  }
+
+  @Override
+  public String toString() {
+    return "value=" + getValue();
+  }
+}
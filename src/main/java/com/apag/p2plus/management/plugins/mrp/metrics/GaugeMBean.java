@@ -0,0 +1,9 @@
+package com.apag.p2plus.management.plugins.mrp.metrics;
+
+/**
+ * JMX view of a {@link Gauge}
+ */
+public interface GaugeMBean {
+
+  long getValue();
+}
@@ -0,0 +1,93 @@
+package com.apag.p2plus.management.plugins.mrp.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of values such as payload sizes. Count, sum, min and max
+ * cover all values; percentiles are computed over the most recent
+ * {@value #WINDOW_SIZE} values, so they follow changes in behaviour.
+ */
+public class Histogram implements HistogramMBean {
+
+  static final int WINDOW_SIZE = 1024;
+
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+  private final long[] window = new long[WINDOW_SIZE];
+  private int next;
+  private int filled;
+
+  public void update(long value) {
+    count.increment();
+    sum.add(value);
+    min.accumulate(value);
+    max.accumulate(value);
+    synchronized (window) {
+      window[next] = value;
+      next = (next + 1) % WINDOW_SIZE;
+      filled = Math.min(filled + 1, WINDOW_SIZE);
+    }
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public long getMin() {
+    return getCount() > 0 ? min.get() : 0;
+  }
+
+  @Override
+  public long getMax() {
+    return getCount() > 0 ? max.get() : 0;
+  }
+
+  @Override
+  public double getMean() {
+    long n = getCount();
+    return n > 0 ? (double) sum.sum() / n : 0;
+  }
+
+  @Override
+  public long getP50() {
+    return percentile(50);
+  }
+
+  @Override
+  public long getP95() {
+    return percentile(95);
+  }
+
+  @Override
+  public long getP99() {
+    return percentile(99);
+  }
+
+  /**
+   * Returns the nearest-rank percentile of the recent values, 0 if there are none
+   */
+  public long percentile(double percentile) {
+    long[] values;
+    synchronized (window) {
+      values = Arrays.copyOf(window, filled);
+    }
+    if (values.length == 0) {
+      return 0;
+    }
+    Arrays.sort(values);
+    int rank = (int) Math.ceil(percentile / 100 * values.length);
+    return values[Math.max(0, Math.min(values.length, rank) - 1)];
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", min=" + getMin() + ", max=" + getMax()
+        + ", mean=" + String.format("%.1f", getMean()) + ", p50=" + getP50() + ", p99=" + getP99();
+  }
+}
@@ -0,0 +1,21 @@
+package com.apag.p2plus.management.plugins.mrp.metrics;
+
+/**
+ * JMX view of a {@link Histogram}
+ */
+public interface HistogramMBean {
+
+  long getCount();
+
+  long getMin();
+
+  long getMax();
+
+  double getMean();
+
+  long getP50();
+
+  long getP95();
+
+  long getP99();
+}
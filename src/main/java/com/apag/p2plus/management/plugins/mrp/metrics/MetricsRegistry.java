@@ -0,0 +1,152 @@
+package com.apag.p2plus.management.plugins.mrp.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Named counters, gauges, histograms and timers of the application. Metrics
+ * are created on first use and, if enabled, published as MBeans in the
+ * platform MBean server under {@value #JMX_DOMAIN}, e.g.
+ * {@code com.apag.p2plus.mrp:type=Timer,name=http.operational.GET}, where
+ * JConsole, VisualVM or any JMX exporter can read them.
+ * JMX publishing can be disabled with -Dmrp.metrics.jmx=false.
+ */
+public class MetricsRegistry implements AutoCloseable {
+
+  public static final String JMX_DOMAIN = "com.apag.p2plus.mrp";
+
+  private static final Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+
+  private final Map<String, Object> metrics = new ConcurrentHashMap<>();
+  private final MBeanServer mBeanServer;
+
+  /**
+   * @param publishJmx whether metrics are registered in the platform MBean server
+   */
+  public MetricsRegistry(boolean publishJmx) {
+    this.mBeanServer = publishJmx ? ManagementFactory.getPlatformMBeanServer() : null;
+  }
+
+  /**
+   * Creates a registry configured by system properties
+   */
+  public static MetricsRegistry fromSystemProperties() {
+    return new MetricsRegistry(Boolean.parseBoolean(System.getProperty("mrp.metrics.jmx", "true")));
+  }
+
+  public Counter counter(String name) {
+    return getOrCreate(name, Counter.class, Counter::new);
+  }
+
+  public Histogram histogram(String name) {
+    return getOrCreate(name, Histogram.class, Histogram::new);
+  }
+
+  public Timer timer(String name) {
+    return getOrCreate(name, Timer.class, Timer::new);
+  }
+
+  /**
+   * Registers a gauge, replacing an earlier one of the same name
+   */
+  public void gauge(String name, LongSupplier supplier) {
+    Object existing = metrics.get(name);
+    if (existing != null && !(existing instanceof Gauge)) {
+      throw new IllegalArgumentException("Metric '" + name + "' is not a Gauge");
+    }
+    Gauge gauge = new Gauge(supplier);
+    metrics.put(name, gauge);
+    publish(name, gauge);
+  }
+
+  /**
+   * Runs the action and records its duration in the named timer
+   */
+  public void time(String name, Runnable action) {
+    long start = System.nanoTime();
+    try {
+      action.run();
+    } finally {
+      timer(name).recordSince(start);
+    }
+  }
+
+  /**
+   * Returns all metrics by name
+   */
+  public SortedMap<String, Object> getMetrics() {
+    return new TreeMap<>(metrics);
+  }
+
+  private <M> M getOrCreate(String name, Class<M> type, Supplier<M> factory) {
+    Object metric = metrics.get(name);
+    if (metric == null) {
+      boolean[] created = new boolean[1];
+      metric = metrics.computeIfAbsent(name, key -> {
+        created[0] = true;
+        return factory.get();
+      });
+      if (created[0]) {
+        publish(name, metric);
+      }
+    }
+    if (!type.isInstance(metric)) {
+      throw new IllegalArgumentException("Metric '" + name + "' is not a " + type.getSimpleName());
+    }
+    return type.cast(metric);
+  }
+
+  private void publish(String name, Object metric) {
+    if (mBeanServer == null) {
+      return;
+    }
+    try {
+      ObjectName objectName = objectName(name, metric);
+      if (mBeanServer.isRegistered(objectName)) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+      mBeanServer.registerMBean(metric, objectName);
+    } catch (JMException e) {
+      logger.warn("Could not publish metric '{}' via JMX: {}", name, e.getMessage());
+    }
+  }
+
+  private static ObjectName objectName(String name, Object metric) throws JMException {
+    String value = name.matches("[\\w.\\-]+") ? name : ObjectName.quote(name);
+    return new ObjectName(JMX_DOMAIN + ":type=" + metric.getClass().getSimpleName() + ",name=" + value);
+  }
+
+  /**
+   * Removes the published MBeans, e.g. on shutdown
+   */
+  @Override
+  public void close() {
+    if (logger.isDebugEnabled()) {
+      getMetrics().forEach((name, metric) -> logger.debug("{}: {}", name, metric));
+    }
+    if (mBeanServer == null) {
+      return;
+    }
+    for (Map.Entry<String, Object> entry : metrics.entrySet()) {
+      try {
+        ObjectName objectName = objectName(entry.getKey(), entry.getValue());
+        if (mBeanServer.isRegistered(objectName)) {
+          mBeanServer.unregisterMBean(objectName);
+        }
+      } catch (JMException e) {
+        logger.debug("Could not unregister metric '{}': {}", entry.getKey(), e.getMessage());
+      }
+    }
+  }
+}
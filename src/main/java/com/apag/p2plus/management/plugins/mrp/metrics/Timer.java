@@ -0,0 +1,76 @@
+package com.apag.p2plus.management.plugins.mrp.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durations of an operation, e.g. the requests to one endpoint, recorded in
+ * nanoseconds and published in milliseconds
+ */
+public class Timer implements TimerMBean {
+
+  private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Histogram durations = new Histogram();
+  private final long createdNanos = System.nanoTime();
+
+  public void record(long nanos) {
+    durations.update(nanos);
+  }
+
+  /**
+   * Records the time since the given {@link System#nanoTime()}
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  @Override
+  public long getCount() {
+    return durations.getCount();
+  }
+
+  /**
+   * Average number of recorded operations per second since the timer was created
+   */
+  @Override
+  public double getMeanRatePerSecond() {
+    double seconds = (System.nanoTime() - createdNanos) / 1e9;
+    return seconds > 0 ? getCount() / seconds : 0;
+  }
+
+  @Override
+  public double getMinMillis() {
+    return durations.getMin() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getMaxMillis() {
+    return durations.getMax() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getMeanMillis() {
+    return durations.getMean() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP50Millis() {
+    return durations.getP50() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP95Millis() {
+    return durations.getP95() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP99Millis() {
+    return durations.getP99() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d, mean=%.2f ms, p50=%.2f ms, p99=%.2f ms, max=%.2f ms",
+        getCount(), getMeanMillis(), getP50Millis(), getP99Millis(), getMaxMillis());
+  }
+}
@@ -0,0 +1,23 @@
+package com.apag.p2plus.management.plugins.mrp.metrics;
+
+/**
+ * JMX view of a {@link Timer}; durations in milliseconds
+ */
+public interface TimerMBean {
+
+  long getCount();
+
+  double getMeanRatePerSecond();
+
+  double getMinMillis();
+
+  double getMaxMillis();
+
+  double getMeanMillis();
+
+  double getP50Millis();
+
+  double getP95Millis();
+
+  double getP99Millis();
+}
@@ -1,14 +1,31 @@
 package com.apag.p2plus.management.plugins.mrp.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Duration;
+import java.util.Objects;
+
 /**
- * Represents a configuration item with name, type, value and description
+ * Represents a configuration item with name, type, value and description.
+ * The value is parsed once according to its {@link ValueType} when it is set:
+ * booleans, numbers and durations are kept as primitive bits without boxing,
+ * strings that hold an integer (e.g. a batch size sent as "1000") additionally
+ * keep their parsed number. The typed accessors read these directly. Values
+ * whose JSON form the bits cannot reproduce, such as a number received as
+ * text, are kept as well, so items are written back in the JSON shape they
+ * were read in.
  */
 public class ConfigItem {
 
   private String name;
   private String type;
+  // Non-primitive values, primitive values not in their canonical JSON form and values that could not be parsed
   private Object value;
   private String description;
+  private ValueType valueType = ValueType.STRING;
+  // Parsed value of primitive types; valid if typed is set
+  private long bits;
+  private boolean typed;
 
   /**
    * Default constructor for JSON deserialization
@@ -19,8 +36,22 @@ public class ConfigItem {
   public ConfigItem(String name, String type, Object value, String description) {
     this.name = name;
     this.type = type;
-    this.value = value;
+    this.valueType = ValueType.of(type);
+    this.description = description;
+    assign(value);
+  }
+
+  /**
+   * Creates an item from already parsed state, see {@link ConfigValues}
+   */
+  ConfigItem(String name, String type, ValueType valueType, String description, long bits, boolean typed, Object value) {
+    this.name = name;
+    this.type = type;
+    this.valueType = valueType;
     this.description = description;
+    this.bits = bits;
+    this.typed = typed;
+    this.value = value;
   }
 
   public String getName() {
@@ -36,15 +67,31 @@ public class ConfigItem {
   }
 
   public void setType(String type) {
+    Object current = getValue();
     this.type = type;
+    this.valueType = ValueType.of(type);
+    assign(current);
   }
 
+  @JsonIgnore
+  public ValueType getValueType() {
+    return valueType;
+  }
+
+  /**
+   * Returns the value in its JSON form: Boolean, Integer, Long or Double for
+   * primitive types, the original text or milliseconds for durations, and the
+   * received value otherwise
+   */
   public Object getValue() {
+    if (typed && value == null) {
+      return valueType.fromBits(bits);
+    }
     return value;
   }
 
   public void setValue(Object value) {
-    this.value = value;
+    assign(value);
   }
 
   public String getDescription() {
@@ -55,18 +102,202 @@ public class ConfigItem {
     this.description = description;
   }
 
+  private void assign(Object raw) {
+    bits = 0;
+    typed = false;
+    value = raw;
+    if (raw == null) {
+      return;
+    }
+    if (valueType.isPrimitive()) {
+      try {
+        bits = valueType.toBits(raw);
+        typed = true;
+        // Text such as "100" or "30s" is kept, so it is sent back unchanged
+        value = isCanonical(raw) ? null : raw;
+      } catch (IllegalArgumentException | ArithmeticException e) {
+        // Keep the raw value; typed accessors report it as invalid
+      }
+    } else if (valueType == ValueType.STRING && raw instanceof String && isInteger((String) raw)) {
+      bits = Long.parseLong((String) raw);
+      typed = true;
+    } else if (valueType == ValueType.STRING && (raw instanceof Integer || raw instanceof Long)) {
+      bits = ((Number) raw).longValue();
+      typed = true;
+    }
+  }
+
+  /**
+   * Returns whether the value rebuilt from the bits has the same JSON form as the raw value
+   */
+  private boolean isCanonical(Object raw) {
+    if (raw.equals(valueType.fromBits(bits))) {
+      return true;
+    }
+    // Integers of another width are written as the same JSON number
+    boolean integral = raw instanceof Integer || raw instanceof Long || raw instanceof Short || raw instanceof Byte;
+    return integral && valueType != ValueType.BOOLEAN && valueType != ValueType.DOUBLE;
+  }
+
+  /**
+   * Returns a copy of this item with a new value, e.g. user input, in the JSON
+   * form of the current value: as text if the value was received as text,
+   * otherwise typed. Input that is invalid for the type is kept as entered.
+   */
+  public ConfigItem withValue(Object input) {
+    Object newValue = input;
+    if (input != null && valueType.isPrimitive()) {
+      Object current = getValue();
+      boolean text = current instanceof String || (valueType == ValueType.DURATION && !(current instanceof Number));
+      if (text) {
+        newValue = input.toString();
+      } else {
+        try {
+          newValue = valueType.fromBits(valueType.toBits(input));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+          // Reported as invalid by the typed accessors
+        }
+      }
+    }
+    return new ConfigItem(name, type, newValue, description);
+  }
+
+  long bits() {
+    return bits;
+  }
+
+  boolean isTyped() {
+    return typed;
+  }
+
+  Object rawValue() {
+    return value;
+  }
+
+  private static boolean isInteger(String text) {
+    int length = text.length();
+    if (length == 0 || length > 18) {
+      return false;
+    }
+    for (int i = text.charAt(0) == '-' && length > 1 ? 1 : 0; i < length; i++) {
+      char c = text.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether a value is present and valid for the item's type
+   */
+  public boolean hasValidValue() {
+    return typed || (value != null && !valueType.isPrimitive());
+  }
+
+  /**
+   * Returns the value of a boolean item
+   */
+  public boolean booleanValue() {
+    if (typed && valueType == ValueType.BOOLEAN) {
+      return bits != 0;
+    }
+    throw invalidValue("boolean");
+  }
+
+  /**
+   * Returns the value of an int, long or integer string item
+   */
+  public int intValue() {
+    long longValue = longValue();
+    if (longValue != (int) longValue) {
+      throw invalidValue("int");
+    }
+    return (int) longValue;
+  }
+
+  /**
+   * Returns the value of an int, long or integer string item
+   */
+  public long longValue() {
+    if (typed && (valueType == ValueType.INT || valueType == ValueType.LONG || valueType == ValueType.STRING)) {
+      return bits;
+    }
+    throw invalidValue("long");
+  }
+
+  /**
+   * Returns the value of a numeric item
+   */
+  public double doubleValue() {
+    if (typed && valueType == ValueType.DOUBLE) {
+      return Double.longBitsToDouble(bits);
+    }
+    if (typed && valueType != ValueType.BOOLEAN && valueType != ValueType.DURATION) {
+      return bits;
+    }
+    if (valueType == ValueType.STRING && value != null) {
+      try {
+        return Double.parseDouble(value.toString());
+      } catch (NumberFormatException e) {
+        // reported below
+      }
+    }
+    throw invalidValue("double");
+  }
+
+  /**
+   * Returns the value of a duration item in milliseconds
+   */
+  public long durationMillis() {
+    if (typed && valueType == ValueType.DURATION) {
+      return bits;
+    }
+    throw invalidValue("duration");
+  }
+
+  /**
+   * Returns the value of a duration item
+   */
+  public Duration durationValue() {
+    return Duration.ofMillis(durationMillis());
+  }
+
+  /**
+   * Returns the value of an enum or string item as constant of the given enum
+   */
+  public <E extends Enum<E>> E enumValue(Class<E> enumType) {
+    if (value != null && (valueType == ValueType.ENUM || valueType == ValueType.STRING)) {
+      try {
+        return Enum.valueOf(enumType, value.toString());
+      } catch (IllegalArgumentException e) {
+        // reported below
+      }
+    }
+    throw invalidValue(enumType.getSimpleName());
+  }
+
+  private IllegalStateException invalidValue(String expected) {
+    return new IllegalStateException("Value of '" + name + "' (" + type + ") is not a valid " + expected + ": " + getValue());
+  }
+
   /**
    * Helper method to get value as String
    */
+  @JsonIgnore
   public String getValueAsString() {
-    return value != null ? value.toString() : "";
+    Object current = getValue();
+    return current != null ? current.toString() : "";
   }
 
   /**
    * Helper method to get value as Boolean
    */
+  @JsonIgnore
   public boolean getValueAsBoolean() {
-    if (value instanceof Boolean) {
+    if (typed && valueType == ValueType.BOOLEAN) {
+      return bits != 0;
+    } else if (value instanceof Boolean) {
       return (Boolean) value;
     } else if (value instanceof String) {
       return Boolean.parseBoolean((String) value);
@@ -74,13 +305,31 @@ public class ConfigItem {
     return false;
   }
 
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) return true;
+    if (obj == null || getClass() != obj.getClass()) return false;
+    ConfigItem other = (ConfigItem) obj;
+    return typed == other.typed
+        && bits == other.bits
+        && Objects.equals(name, other.name)
+        && Objects.equals(type, other.type)
+        && Objects.equals(value, other.value)
+        && Objects.equals(description, other.description);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, type, bits, value, description);
+  }
+
   @Override
   public String toString() {
     return "ConfigItem{" +
            "name='" + name + '\'' +
            ", type='" + type + '\'' +
-           ", value=" + value +
+           ", value=" + getValue() +
            ", description='" + description + '\'' +
            '}';
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package com.apag.p2plus.management.plugins.mrp.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable layout of a configuration: the names, types and descriptions of
+ * its items in order. Configurations of different scenarios usually share one
+ * schema, so only their values need to be stored per scenario, see
+ * {@link ConfigValues}.
+ */
+public final class ConfigSchema {
+
+  private final String[] names;
+  private final String[] types;
+  private final String[] descriptions;
+  private final ValueType[] valueTypes;
+  private final Map<String, Integer> indexByName;
+  private final int hash;
+
+  private ConfigSchema(String[] names, String[] types, String[] descriptions) {
+    this.names = names;
+    this.types = types;
+    this.descriptions = descriptions;
+    this.valueTypes = new ValueType[names.length];
+    this.indexByName = new HashMap<>(names.length * 4 / 3 + 1);
+    for (int i = 0; i < names.length; i++) {
+      valueTypes[i] = ValueType.of(types[i]);
+      indexByName.putIfAbsent(names[i], i);
+    }
+    this.hash = 31 * (31 * Arrays.hashCode(names) + Arrays.hashCode(types)) + Arrays.hashCode(descriptions);
+  }
+
+  /**
+   * Creates the schema describing the given items
+   */
+  public static ConfigSchema of(List<ConfigItem> items) {
+    int size = items.size();
+    String[] names = new String[size];
+    String[] types = new String[size];
+    String[] descriptions = new String[size];
+    for (int i = 0; i < size; i++) {
+      ConfigItem item = items.get(i);
+      names[i] = item.getName();
+      types[i] = item.getType();
+      descriptions[i] = item.getDescription();
+    }
+    return new ConfigSchema(names, types, descriptions);
+  }
+
+  /**
+   * Returns a copy of this schema whose strings are replaced by the canonical
+   * instances returned by the pool
+   */
+  public ConfigSchema withStrings(UnaryOperator<String> pool) {
+    String[] pooledNames = new String[names.length];
+    String[] pooledTypes = new String[names.length];
+    String[] pooledDescriptions = new String[names.length];
+    for (int i = 0; i < names.length; i++) {
+      pooledNames[i] = pool.apply(names[i]);
+      pooledTypes[i] = pool.apply(types[i]);
+      pooledDescriptions[i] = pool.apply(descriptions[i]);
+    }
+    return new ConfigSchema(pooledNames, pooledTypes, pooledDescriptions);
+  }
+
+  public int size() {
+    return names.length;
+  }
+
+  /**
+   * Returns the index of the item with the given name, or -1 if there is none
+   */
+  public int indexOf(String name) {
+    Integer index = indexByName.get(name);
+    return index != null ? index : -1;
+  }
+
+  public String getName(int index) {
+    return names[index];
+  }
+
+  public String getType(int index) {
+    return types[index];
+  }
+
+  public ValueType getValueType(int index) {
+    return valueTypes[index];
+  }
+
+  public String getDescription(int index) {
+    return descriptions[index];
+  }
+
+  /**
+   * Returns whether the items match this schema in order
+   */
+  public boolean describes(List<ConfigItem> items) {
+    if (items.size() != names.length) {
+      return false;
+    }
+    for (int i = 0; i < names.length; i++) {
+      ConfigItem item = items.get(i);
+      if (!Objects.equals(names[i], item.getName())
+          || !Objects.equals(types[i], item.getType())
+          || !Objects.equals(descriptions[i], item.getDescription())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) return true;
+    if (obj == null || getClass() != obj.getClass()) return false;
+    ConfigSchema other = (ConfigSchema) obj;
+    return hash == other.hash
+        && Arrays.equals(names, other.names)
+        && Arrays.equals(types, other.types)
+        && Arrays.equals(descriptions, other.descriptions);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return "ConfigSchema{" +
+           "size=" + names.length +
+           ", names=" + Arrays.toString(names) +
+           '}';
+  }
+}
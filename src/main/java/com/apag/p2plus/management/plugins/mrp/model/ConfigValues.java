@@ -0,0 +1,99 @@
+package com.apag.p2plus.management.plugins.mrp.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact, immutable list of configuration items. Names, types and
+ * descriptions live in a shared {@link ConfigSchema}; per configuration only
+ * dense value columns are kept: primitive values as bits, other values as
+ * references. {@link #get(int)} returns a lightweight {@link ConfigItem} view,
+ * so instances can be used wherever a list of items is expected.
+ */
+public final class ConfigValues extends AbstractList<ConfigItem> implements RandomAccess {
+
+  private final ConfigSchema schema;
+  private final long[] bits;
+  private final BitSet typed;
+  // Value references; null if no item needs one (e.g. all values are primitive)
+  private final Object[] values;
+
+  private ConfigValues(ConfigSchema schema, long[] bits, BitSet typed, Object[] values) {
+    this.schema = schema;
+    this.bits = bits;
+    this.typed = typed;
+    this.values = values;
+  }
+
+  /**
+   * Stores the values of the items in the layout of the schema
+   *
+   * @throws IllegalArgumentException if the schema does not describe the items
+   */
+  public static ConfigValues of(ConfigSchema schema, List<ConfigItem> items) {
+    if (!schema.describes(items)) {
+      throw new IllegalArgumentException("Schema does not match the configuration items");
+    }
+    int size = items.size();
+    long[] bits = new long[size];
+    BitSet typed = new BitSet(size);
+    Object[] values = null;
+    for (int i = 0; i < size; i++) {
+      ConfigItem item = items.get(i);
+      bits[i] = item.bits();
+      if (item.isTyped()) {
+        typed.set(i);
+      }
+      Object value = item.rawValue();
+      if (value != null) {
+        if (values == null) {
+          values = new Object[size];
+        }
+        values[i] = value;
+      }
+    }
+    return new ConfigValues(schema, bits, typed, values);
+  }
+
+  public ConfigSchema getSchema() {
+    return schema;
+  }
+
+  @Override
+  public int size() {
+    return bits.length;
+  }
+
+  @Override
+  public ConfigItem get(int index) {
+    return new ConfigItem(schema.getName(index), schema.getType(index), schema.getValueType(index),
+        schema.getDescription(index), bits[index], typed.get(index), values != null ? values[index] : null);
+  }
+
+  /**
+   * Returns the item with the given name, or null if there is none
+   */
+  public ConfigItem get(String name) {
+    int index = schema.indexOf(name);
+    return index >= 0 ? get(index) : null;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof ConfigValues && ((ConfigValues) obj).schema == schema) {
+      ConfigValues other = (ConfigValues) obj;
+      return Arrays.equals(bits, other.bits)
+          && typed.equals(other.typed)
+          && Arrays.equals(values, other.values);
+    }
+    return super.equals(obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+}
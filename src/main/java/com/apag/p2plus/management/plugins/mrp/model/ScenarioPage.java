@@ -0,0 +1,47 @@
+package com.apag.p2plus.management.plugins.mrp.model;
+
+import java.util.List;
+
+/**
+ * One page of a scenario list together with the total number of matching scenarios
+ */
+public class ScenarioPage {
+
+  private final List<Scenario> scenarios;
+  private final int offset;
+  private final int total;
+
+  public ScenarioPage(List<Scenario> scenarios, int offset, int total) {
+    this.scenarios = scenarios;
+    this.offset = offset;
+    this.total = total;
+  }
+
+  public List<Scenario> getScenarios() {
+    return scenarios;
+  }
+
+  public int getOffset() {
+    return offset;
+  }
+
+  public int getTotal() {
+    return total;
+  }
+
+  /**
+   * Returns whether further scenarios follow this page
+   */
+  public boolean hasMore() {
+    return offset + scenarios.size() < total;
+  }
+
+  @Override
+  public String toString() {
+    return "ScenarioPage{" +
+           "offset=" + offset +
+           ", size=" + scenarios.size() +
+           ", total=" + total +
+           '}';
+  }
+}
@@ -0,0 +1,172 @@
+package com.apag.p2plus.management.plugins.mrp.model;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Value types of configuration items. The type name sent by the API is mapped
+ * once to a value type, which parses raw JSON values into their typed form.
+ * Unknown type names are treated as {@link #STRING}.
+ */
+public enum ValueType {
+
+  STRING,
+  PASSWORD,
+  BOOLEAN,
+  INT,
+  LONG,
+  DOUBLE,
+  ENUM,
+  DURATION;
+
+  /**
+   * Maps an API type name (case-insensitive) to a value type
+   */
+  public static ValueType of(String type) {
+    if (type == null) {
+      return STRING;
+    }
+    switch (type.toLowerCase(Locale.ROOT)) {
+      case "password":
+        return PASSWORD;
+      case "boolean":
+        return BOOLEAN;
+      case "int":
+      case "integer":
+        return INT;
+      case "long":
+        return LONG;
+      case "double":
+      case "number":
+        return DOUBLE;
+      case "enum":
+        return ENUM;
+      case "duration":
+        return DURATION;
+      default:
+        return STRING;
+    }
+  }
+
+  /**
+   * Returns whether values of this type are kept as primitive bits
+   */
+  public boolean isPrimitive() {
+    return this == BOOLEAN || this == INT || this == LONG || this == DOUBLE || this == DURATION;
+  }
+
+  /**
+   * Converts a raw value of this type into its primitive bits: booleans as 0/1,
+   * integers as their value, doubles as raw IEEE 754 bits and durations in
+   * milliseconds
+   *
+   * @throws IllegalArgumentException if the value is not valid for this type
+   */
+  public long toBits(Object raw) {
+    switch (this) {
+      case BOOLEAN:
+        return parseBoolean(raw) ? 1L : 0L;
+      case INT:
+        return raw instanceof Number ? Math.toIntExact(((Number) raw).longValue()) : Integer.parseInt(text(raw));
+      case LONG:
+        return raw instanceof Number ? ((Number) raw).longValue() : Long.parseLong(text(raw));
+      case DOUBLE:
+        return Double.doubleToRawLongBits(raw instanceof Number ? ((Number) raw).doubleValue() : Double.parseDouble(text(raw)));
+      case DURATION:
+        return raw instanceof Number ? ((Number) raw).longValue() : parseDurationMillis(text(raw));
+      default:
+        throw new IllegalArgumentException(this + " values are not primitive");
+    }
+  }
+
+  /**
+   * Converts primitive bits back into the boxed value used in JSON. Durations
+   * are returned in milliseconds.
+   */
+  public Object fromBits(long bits) {
+    switch (this) {
+      case BOOLEAN:
+        return bits != 0;
+      case INT:
+        return (int) bits;
+      case LONG:
+        return bits;
+      case DOUBLE:
+        return Double.longBitsToDouble(bits);
+      case DURATION:
+        return bits;
+      default:
+        throw new IllegalArgumentException(this + " values are not primitive");
+    }
+  }
+
+  /**
+   * Checks whether a raw value, e.g. user input, is valid for this type
+   */
+  public boolean isValid(Object raw) {
+    if (!isPrimitive() || raw == null) {
+      return true;
+    }
+    try {
+      toBits(raw);
+      return true;
+    } catch (IllegalArgumentException | ArithmeticException e) {
+      return false;
+    }
+  }
+
+  private static String text(Object raw) {
+    return raw.toString().trim();
+  }
+
+  private static boolean parseBoolean(Object raw) {
+    if (raw instanceof Boolean) {
+      return (Boolean) raw;
+    }
+    String text = text(raw);
+    if ("true".equalsIgnoreCase(text)) {
+      return true;
+    }
+    if ("false".equalsIgnoreCase(text) || text.isEmpty()) {
+      return false;
+    }
+    throw new IllegalArgumentException("Not a boolean: " + text);
+  }
+
+  /**
+   * Parses ISO-8601 durations (PT30S), plain milliseconds (500) and the
+   * short forms 500ms, 30s, 5m, 1h and 2d
+   */
+  static long parseDurationMillis(String text) {
+    try {
+      if (text.regionMatches(true, 0, "P", 0, 1)) {
+        return Duration.parse(text).toMillis();
+      }
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Not a duration: " + text, e);
+    }
+    String lower = text.toLowerCase(Locale.ROOT);
+    if (lower.endsWith("ms")) {
+      return Long.parseLong(lower.substring(0, lower.length() - 2).trim());
+    }
+    long unitMillis;
+    switch (lower.isEmpty() ? ' ' : lower.charAt(lower.length() - 1)) {
+      case 's':
+        unitMillis = 1000L;
+        break;
+      case 'm':
+        unitMillis = 60_000L;
+        break;
+      case 'h':
+        unitMillis = 3_600_000L;
+        break;
+      case 'd':
+        unitMillis = 86_400_000L;
+        break;
+      default:
+        return Long.parseLong(lower);
+    }
+    return Math.multiplyExact(Long.parseLong(lower.substring(0, lower.length() - 1).trim()), unitMillis);
+  }
+}
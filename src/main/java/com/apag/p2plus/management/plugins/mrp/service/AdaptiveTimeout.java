@@ -0,0 +1,146 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.apag.p2plus.management.plugins.mrp.metrics.Timer;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derives the read timeout of a request from the latencies observed for it:
+ * the 99th percentile of the recent successful (2xx) responses recorded by the
+ * HTTP metrics filter, multiplied by a safety factor and kept between a minimum
+ * and the configured read timeout. A server that stopped answering is detected
+ * within a few times its usual latency instead of the full read timeout. Until
+ * enough requests were observed, the configured timeout is used. The timeout
+ * applies to requests sent on the current thread within {@link #call}. A
+ * request that times out is recorded with the timeout as its latency, so a
+ * slowing server widens the timeout instead of only its faster requests being
+ * observed.
+ * Configured with -Dmrp.timeout.adaptive (default true), -Dmrp.timeout.multiplier
+ * (default 3), -Dmrp.timeout.minMillis (default 1000) and -Dmrp.timeout.minSamples (default 20).
+ */
+public class AdaptiveTimeout {
+
+  private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+  private final boolean enabled;
+  private final double multiplier;
+  private final long minMillis;
+  private final long maxMillis;
+  private final int minSamples;
+  private final MetricsRegistry metrics;
+
+  /**
+   * @param multiplier factor applied to the 99th percentile latency
+   * @param minMillis lower limit of the timeout
+   * @param maxMillis upper limit of the timeout and timeout used without enough samples
+   * @param minSamples requests that must have been observed before the timeout adapts
+   */
+  public AdaptiveTimeout(boolean enabled, double multiplier, long minMillis, long maxMillis, int minSamples,
+                         MetricsRegistry metrics) {
+    this.enabled = enabled;
+    this.multiplier = multiplier;
+    this.minMillis = Math.min(minMillis, maxMillis);
+    this.maxMillis = maxMillis;
+    this.minSamples = minSamples;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Creates adaptive timeouts configured by system properties
+   *
+   * @param maxMillis configured read timeout of the HTTP client
+   */
+  public static AdaptiveTimeout fromSystemProperties(long maxMillis, MetricsRegistry metrics) {
+    return new AdaptiveTimeout(
+        Boolean.parseBoolean(System.getProperty("mrp.timeout.adaptive", "true")),
+        SettingsSupport.doubleProperty("mrp.timeout.multiplier", 3),
+        SettingsSupport.longProperty("mrp.timeout.minMillis", 1000),
+        maxMillis,
+        SettingsSupport.intProperty("mrp.timeout.minSamples", 20),
+        metrics
+    );
+  }
+
+  /**
+   * Returns the timeout for the request whose successful responses are recorded by the timer
+   *
+   * @param latencyMetric name of the HTTP timer, e.g. "http.technical.GET"
+   */
+  public long getTimeoutMillis(String latencyMetric) {
+    if (!enabled) {
+      return maxMillis;
+    }
+    Timer timer = metrics.timer(HttpMetricsFilter.successTimer(latencyMetric));
+    if (timer.getCount() < minSamples) {
+      return maxMillis;
+    }
+    long timeout = Math.round(timer.getP99Millis() * multiplier);
+    return Math.max(minMillis, Math.min(maxMillis, timeout));
+  }
+
+  /**
+   * Runs the call with the timeout of the request applied to the requests it sends
+   */
+  public <R> R call(String latencyMetric, CancellationToken.CheckedSupplier<R> call) throws Exception {
+    long timeoutMillis = getTimeoutMillis(latencyMetric);
+    try {
+      return callWithTimeout(timeoutMillis, call);
+    } catch (Exception e) {
+      if (enabled && isReadTimeout(e)) {
+        metrics.timer(HttpMetricsFilter.successTimer(latencyMetric)).record(TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Returns whether the failure is a request that got no response within its
+   * timeout; connect timeouts do not count
+   */
+  static boolean isReadTimeout(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof HttpConnectTimeoutException) {
+        return false;
+      }
+      if (cause instanceof SocketTimeoutException || cause instanceof HttpTimeoutException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs the call with the given timeout applied to the requests it sends,
+   * e.g. the timeout of the current thread on another thread
+   *
+   * @param timeoutMillis timeout, or 0 for the client default
+   */
+  static <R> R callWithTimeout(long timeoutMillis, CancellationToken.CheckedSupplier<R> call) throws Exception {
+    if (timeoutMillis <= 0) {
+      return call.get();
+    }
+    Long previous = CURRENT.get();
+    CURRENT.set(timeoutMillis);
+    try {
+      return call.get();
+    } finally {
+      if (previous != null) {
+        CURRENT.set(previous);
+      } else {
+        CURRENT.remove();
+      }
+    }
+  }
+
+  /**
+   * Returns the timeout for requests sent by the current thread, or 0 for the client default
+   */
+  static long currentTimeoutMillis() {
+    Long timeout = CURRENT.get();
+    return timeout != null ? timeout : 0;
+  }
+}
@@ -1,33 +1,83 @@
 package com.apag.p2plus.management.plugins.mrp.service;
 
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
-import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import jakarta.ws.rs.WebApplicationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
- * Base service for configuration loading via RESTEasy Client
+ * Base service for configuration loading via RESTEasy Client.
+ * The client proxy is shared between services and owned by the {@link ServiceFactory}.
+ * Loaded configurations are cached per key; expired entries are served while
+ * a background refresh revalidates them (stale-while-revalidate). Requests are
+ * sent as conditional GETs via the {@link ValidatorStore}. Data restored from the
+ * local {@link SnapshotStore} is served like a stale entry and is the first
+ * fallback when the API is not available. Load durations ({@code service.<endpoint>.load},
+ * including the wait for the endpoint limiter and parsing), errors, fallbacks
+ * and cache counters are recorded in the {@link MetricsRegistry}. Requests of
+ * loads pass the {@link CircuitBreaker} of their endpoint, so they fail fast
+ * into the snapshot or fallback while the endpoint is unavailable, and use
+ * the {@link AdaptiveTimeout}. Asynchronous saves go through the shared
+ * {@link WriteBehindQueue}.
  */
 public abstract class BaseConfigService<T> {
 
   private static final Logger logger = LoggerFactory.getLogger(BaseConfigService.class);
-  private static final String BASE_URL = "https://80ab19d6-cfd5-42b4-889e-714dd9f0d184.mock.pstmn.io";
 
-  protected final Client client;
   protected final MRPConfigClient configClient;
+  protected final Executor executor;
+  protected final EndpointLimiter endpointLimiter;
+  protected final ConfigCache<String, List<T>> cache;
+  protected final ValidatorStore validators;
+  protected final SingleFlight<String, List<T>> singleFlight = new SingleFlight<>();
+  protected final SnapshotStore snapshotStore;
+  protected final MetricsRegistry metrics;
+  protected final WriteBehindQueue writeQueue;
+  protected final CircuitBreakerRegistry circuitBreakers;
+  protected final AdaptiveTimeout adaptiveTimeout;
 
-  public BaseConfigService() {
-    // RESTEasy Client - Jackson is automatically detected
-    this.client = ClientBuilder.newBuilder().build();
-    
-    // Create proxy for the MRP Config API
-    ResteasyWebTarget target = (ResteasyWebTarget) client.target(BASE_URL);
-    this.configClient = target.proxy(MRPConfigClient.class);
+  private final List<BiConsumer<String, List<T>>> refreshListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * @param name name of the service in metrics, e.g. its endpoint
+   */
+  protected BaseConfigService(ServiceContext context, String name) {
+    this.configClient = context.getConfigClient();
+    this.executor = context.getExecutor();
+    this.endpointLimiter = context.getEndpointLimiter();
+    this.cache = new ConfigCache<>(context.getCacheSettings());
+    this.validators = new ValidatorStore(context.getCacheSettings().getMaxEntries());
+    this.snapshotStore = context.getSnapshotStore();
+    this.metrics = context.getMetrics();
+    this.writeQueue = context.getWriteQueue();
+    this.circuitBreakers = context.getCircuitBreakers();
+    this.adaptiveTimeout = context.getAdaptiveTimeout();
+    registerCacheGauges(name);
+  }
+
+  private void registerCacheGauges(String name) {
+    String prefix = "cache." + name + ".";
+    metrics.gauge(prefix + "hits", () -> cache.getStats().getHits());
+    metrics.gauge(prefix + "staleHits", () -> cache.getStats().getStaleHits());
+    metrics.gauge(prefix + "misses", () -> cache.getStats().getMisses());
+    metrics.gauge(prefix + "evictions", () -> cache.getStats().getEvictions());
+    metrics.gauge(prefix + "size", () -> cache.getStats().getSize());
+    metrics.gauge("service." + name + ".coalesced", singleFlight::getCoalescedCount);
+    metrics.gauge("timeout." + name + ".readMillis", () -> adaptiveTimeout.getTimeoutMillis("http." + name + ".GET"));
   }
 
   /**
@@ -41,33 +91,327 @@ public abstract class BaseConfigService<T> {
   public abstract CompletableFuture<List<T>> loadAsync();
 
   /**
-   * Generic method to load configuration asynchronously with fallback
+   * Generic method to load configuration asynchronously with cache and fallback.
+   * Cache misses run on the service executor and are limited per endpoint;
+   * concurrent misses for the same key share one request. Cancelling the
+   * returned future aborts the in-flight HTTP request once no other caller
+   * is waiting for it.
    */
-  protected CompletableFuture<List<T>> loadConfigAsync(Supplier<List<T>> configSupplier) {
-    return CompletableFuture.supplyAsync(() -> {
-      try {
-        return configSupplier.get();
-      } catch (Exception e) {
-        logger.warn("API error, using fallback: {}", e.getMessage());
-        return createFallbackConfig();
-      }
-    });
+  protected CompletableFuture<List<T>> loadConfigAsync(String endpoint, String cacheKey, Supplier<List<T>> configSupplier) {
+    return loadConfigAsync(endpoint, cacheKey, chunkListener -> configSupplier.get(), null);
+  }
+
+  /**
+   * Loads configuration asynchronously like {@link #loadConfigAsync(String, String, Supplier)},
+   * passing items to the chunk listener while the response is still being read.
+   * The listener is called on a worker thread and only if this call starts a
+   * request; cached, snapshot and coalesced results are delivered through the
+   * returned future only.
+   */
+  protected CompletableFuture<List<T>> loadConfigAsync(String endpoint, String cacheKey, StreamingLoader<T> loader,
+                                                       Consumer<List<T>> chunkListener) {
+    Supplier<List<T>> configSupplier = () -> loader.load(chunkListener);
+    // Background refreshes replace displayed data through the refresh listeners instead
+    Supplier<List<T>> refreshSupplier = () -> loader.load(null);
+    ConfigCache.Lookup<List<T>> lookup = cache.get(cacheKey);
+    switch (lookup.getState()) {
+      case FRESH:
+        return CompletableFuture.completedFuture(lookup.getValue());
+      case STALE:
+        refreshInBackground(endpoint, cacheKey, lookup.getValue(), refreshSupplier);
+        return CompletableFuture.completedFuture(lookup.getValue());
+      default:
+        List<T> snapshot = readSnapshot(cacheKey);
+        if (snapshot != null) {
+          cache.putStale(cacheKey, snapshot);
+          refreshInBackground(endpoint, cacheKey, snapshot, refreshSupplier);
+          return CompletableFuture.completedFuture(snapshot);
+        }
+        return singleFlight.execute(cacheKey,
+            () -> fetchAsync(endpoint, cacheKey, configSupplier),
+            throwable -> fallbackFor(endpoint, cacheKey, throwable));
+    }
+  }
+
+  /**
+   * Generic method to load configuration synchronously with cache and fallback
+   */
+  protected List<T> loadConfig(String endpoint, String cacheKey, Supplier<List<T>> configSupplier) {
+    return loadConfigAsync(endpoint, cacheKey, configSupplier).join();
+  }
+
+  /**
+   * Loads configuration from the API on the calling thread, bypassing cache,
+   * snapshot and fallback, and stores the result like a regular load. Errors
+   * are thrown, so bulk operations never act on fallback data.
+   *
+   * @throws WebApplicationException if the server answered with an error status
+   */
+  protected List<T> loadFromServer(String endpoint, String cacheKey, Supplier<List<T>> configSupplier) {
+    List<T> items;
+    long start = System.nanoTime();
+    try {
+      items = callEndpoint(endpoint, configSupplier::get);
+    } catch (RuntimeException e) {
+      recordLoadError(endpoint);
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for '" + endpoint + "'");
+    } catch (Exception e) {
+      recordLoadError(endpoint);
+      throw new CompletionException(e);
+    }
+    metrics.timer("service." + endpoint + ".load").recordSince(start);
+    storeLoaded(cacheKey, items);
+    return items;
+  }
+
+  /**
+   * Loads configuration asynchronously from the API, bypassing cache and
+   * snapshot, and stores the result like a regular load. Concurrent loads of
+   * the key share one request, but a failure is not replaced by snapshot or
+   * fallback data.
+   */
+  protected CompletableFuture<List<T>> loadFromServerAsync(String endpoint, String cacheKey,
+                                                           Supplier<List<T>> configSupplier) {
+    return singleFlight.execute(cacheKey, () -> fetchAsync(endpoint, cacheKey, configSupplier), null);
   }
 
   /**
-   * Generic method to load configuration synchronously with fallback
+   * Returns whether requests of the endpoint are let through, i.e. its circuit breaker is closed
    */
-  protected List<T> loadConfig(Supplier<List<T>> configSupplier) {
+  protected boolean isAvailable(String endpoint) {
+    return circuitBreakers.get(endpoint).getState() == CircuitBreaker.State.CLOSED;
+  }
+
+  /**
+   * Sends a GET request of the endpoint, see {@link #callEndpoint(String, String, CancellationToken.CheckedSupplier)}
+   */
+  protected <R> R callEndpoint(String endpoint, CancellationToken.CheckedSupplier<R> call) throws Exception {
+    return callEndpoint(endpoint, "http." + endpoint + ".GET", call);
+  }
+
+  /**
+   * Sends a request of the endpoint unless its circuit breaker is open, once
+   * a permit of the endpoint limiter is available, with the adaptive timeout
+   *
+   * @param latencyMetric HTTP timer of the request the timeout is derived from
+   * @throws CircuitBreakerOpenException if the endpoint is considered unavailable
+   */
+  protected <R> R callEndpoint(String endpoint, String latencyMetric, CancellationToken.CheckedSupplier<R> call)
+      throws Exception {
+    CircuitBreaker breaker = circuitBreakers.get(endpoint);
+    breaker.acquire();
+    R result;
     try {
-      return configSupplier.get();
+      result = endpointLimiter.call(endpoint, () -> adaptiveTimeout.call(latencyMetric, call));
     } catch (Exception e) {
-      logger.warn("API error, using fallback: {}", e.getMessage());
-      return createFallbackConfig();
+      breaker.onResult(e);
+      throw e;
+    }
+    breaker.onResult(null);
+    return result;
+  }
+
+  private List<T> fallbackFor(String endpoint, String cacheKey, Throwable throwable) {
+    // Expected while the circuit is open, the reason was logged when it opened
+    boolean circuitOpen = throwable instanceof CircuitBreakerOpenException;
+    List<T> snapshot = readSnapshot(cacheKey);
+    if (snapshot != null) {
+      metrics.counter("service." + endpoint + ".snapshotFallbacks").increment();
+      if (circuitOpen) {
+        logger.debug("Endpoint unavailable, using snapshot: {}", throwable.getMessage());
+      } else {
+        logger.warn("API error, using snapshot: {}", throwable.getMessage());
+      }
+      return snapshot;
+    }
+    metrics.counter("service." + endpoint + ".fallbacks").increment();
+    if (circuitOpen) {
+      logger.debug("Endpoint unavailable, using fallback: {}", throwable.getMessage());
+    } else {
+      logger.warn("API error, using fallback: {}", throwable.getMessage());
+    }
+    return createFallbackConfig();
+  }
+
+  /**
+   * Counts a failed request to the endpoint, including failures without a response
+   */
+  protected void recordLoadError(String endpoint) {
+    metrics.counter("service." + endpoint + ".errors").increment();
+  }
+
+  /**
+   * Queues a save in the write-behind queue. A final failure is counted as
+   * save error of the endpoint and reported as RuntimeException.
+   *
+   * @param action describes the save in messages, e.g. "save technical configuration"
+   * @see WriteBehindQueue#submit
+   */
+  protected <P, R> CompletableFuture<R> writeBehind(String endpoint, String key, P payload, BinaryOperator<P> merge,
+                                                    Function<P, R> writer, boolean idempotent, String action) {
+    return writeQueue.submit(key, endpoint, payload, merge, writer, idempotent)
+        .handle((result, throwable) -> {
+          if (throwable == null) {
+            return result;
+          }
+          Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+              ? throwable.getCause()
+              : throwable;
+          metrics.counter("service." + endpoint + ".saveErrors").increment();
+          logger.error("Failed to {} ('{}')", action, key, cause);
+          throw new CompletionException(new RuntimeException("Failed to " + action + ": " + cause.getMessage(), cause));
+        });
+  }
+
+  private CancellableFuture<List<T>> fetchAsync(String endpoint, String cacheKey, Supplier<List<T>> configSupplier) {
+    CancellationToken token = new CancellationToken();
+    CancellableFuture<List<T>> future = new CancellableFuture<>(token);
+    try {
+      executor.execute(() -> {
+        if (future.isDone()) {
+          return;
+        }
+        long start = System.nanoTime();
+        try {
+          List<T> items = token.callBound(() -> callEndpoint(endpoint, configSupplier::get));
+          metrics.timer("service." + endpoint + ".load").recordSince(start);
+          storeLoaded(cacheKey, items);
+          future.complete(items);
+        } catch (Exception e) {
+          if (token.isCancelled()) {
+            logger.debug("Load from '{}' cancelled", endpoint);
+          } else {
+            recordLoadError(endpoint);
+            future.completeExceptionally(e);
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private void refreshInBackground(String endpoint, String cacheKey, List<T> staleItems,
+                                   Supplier<List<T>> configSupplier) {
+    if (!cache.startRefresh(cacheKey)) {
+      return;
     }
+    logger.debug("Revalidating stale '{}' entry '{}'", endpoint, cacheKey);
+    CompletableFuture<List<T>> refresh = singleFlight.execute(cacheKey,
+        () -> fetchAsync(endpoint, cacheKey, configSupplier), null);
+    refresh.whenComplete((items, throwable) -> {
+      if (throwable != null) {
+        cache.endRefresh(cacheKey);
+        logger.debug("Background refresh of '{}' failed: {}", cacheKey, throwable.getMessage());
+      } else if (!Objects.equals(staleItems, items)) {
+        for (BiConsumer<String, List<T>> listener : refreshListeners) {
+          listener.accept(cacheKey, items);
+        }
+      }
+    });
+  }
+
+  /**
+   * Stores items loaded from the API in the cache and the local snapshot
+   */
+  protected void storeLoaded(String cacheKey, List<T> items) {
+    cache.put(cacheKey, items);
+    writeSnapshot(cacheKey, items);
+  }
+
+  /**
+   * Returns the cached items for the key if they have not expired, otherwise null
+   */
+  protected List<T> getFresh(String cacheKey) {
+    ConfigCache.Lookup<List<T>> lookup = cache.get(cacheKey);
+    return lookup.getState() == ConfigCache.State.FRESH ? lookup.getValue() : null;
+  }
+
+  /**
+   * Returns whether items for the key are cached and have not expired
+   */
+  protected boolean isFresh(String cacheKey) {
+    return cache.isFresh(cacheKey);
+  }
+
+  /**
+   * Registers a listener notified when a background refresh replaced a stale
+   * entry with different data. Called on a worker thread with the cache key
+   * and the new items.
+   */
+  public void addRefreshListener(BiConsumer<String, List<T>> listener) {
+    refreshListeners.add(listener);
+  }
+
+  /**
+   * Drops a cached entry, e.g. after the configuration was saved. The snapshot
+   * section and the validators are dropped too, so the next load neither shows
+   * the data from before nor gets it confirmed by a 304.
+   */
+  public void invalidate(String cacheKey) {
+    cache.invalidate(cacheKey);
+    validators.invalidate(validatorKey(cacheKey));
+    removeSnapshot(cacheKey);
+  }
+
+  /**
+   * Returns the key the validators of the cache key are stored under. Defaults
+   * to the cache key itself.
+   */
+  protected String validatorKey(String cacheKey) {
+    return cacheKey;
   }
 
   /**
-   * Creates fallback configuration when API is not available
+   * Returns hit, miss and eviction counters of this service's cache
+   */
+  public CacheStats getCacheStats() {
+    return cache.getStats();
+  }
+
+  /**
+   * Returns how many load calls joined an identical request already in flight
+   */
+  public long getCoalescedCount() {
+    return singleFlight.getCoalescedCount();
+  }
+
+  /**
+   * Returns how many loads were answered with 304 Not Modified
+   */
+  public long getNotModifiedCount() {
+    return validators.getNotModifiedCount();
+  }
+
+  /**
+   * Loader that reports parsed items in chunks before returning all of them
+   */
+  @FunctionalInterface
+  protected interface StreamingLoader<T> {
+    List<T> load(Consumer<List<T>> chunkListener);
+  }
+
+  /**
+   * Returns the locally persisted items for the cache key, or null if none
+   */
+  protected abstract List<T> readSnapshot(String cacheKey);
+
+  /**
+   * Persists successfully loaded items for the cache key in the local snapshot
+   */
+  protected abstract void writeSnapshot(String cacheKey, List<T> items);
+
+  /**
+   * Removes the locally persisted items for the cache key
+   */
+  protected abstract void removeSnapshot(String cacheKey);
+
+  /**
+   * Creates fallback configuration when API is not available and no snapshot exists
    */
   protected abstract List<T> createFallbackConfig();
 
@@ -81,15 +425,11 @@ public abstract class BaseConfigService<T> {
   }
 
   /**
-   * Closes the client
+   * Releases resources held by this service. The shared HTTP client and
+   * executor are not closed here, see {@link ServiceFactory#shutdown()}.
    */
   public void close() {
-    if (client != null) {
-      try {
-        client.close();
-      } catch (Exception e) {
-        logger.warn("Error closing client: {}", e.getMessage());
-      }
-    }
+    logger.debug("Closing {}, cache: {}", getClass().getSimpleName(), cache.getStats());
+    cache.invalidateAll();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Size and time limits for the service caches.
+ * Values are read from system properties (e.g. -Dmrp.cache.ttlMillis=30000).
+ */
+public class CacheSettings {
+
+  private static final String PREFIX = "mrp.cache.";
+
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final long staleMillis;
+
+  /**
+   * @param maxEntries maximum number of cached entries, least recently used entries are evicted first
+   * @param ttlMillis time an entry is served without revalidation
+   * @param staleMillis additional time an expired entry is still served while a background refresh runs
+   */
+  public CacheSettings(int maxEntries, long ttlMillis, long staleMillis) {
+    this.maxEntries = maxEntries;
+    this.ttlMillis = ttlMillis;
+    this.staleMillis = staleMillis;
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing values
+   */
+  public static CacheSettings fromSystemProperties() {
+    return new CacheSettings(
+        SettingsSupport.intProperty(PREFIX + "maxEntries", 50),
+        SettingsSupport.longProperty(PREFIX + "ttlMillis", 60_000L),
+        SettingsSupport.longProperty(PREFIX + "staleMillis", 600_000L)
+    );
+  }
+
+  public int getMaxEntries() {
+    return maxEntries;
+  }
+
+  public long getTtlMillis() {
+    return ttlMillis;
+  }
+
+  public long getStaleMillis() {
+    return staleMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheSettings{" +
+           "maxEntries=" + maxEntries +
+           ", ttlMillis=" + ttlMillis +
+           ", staleMillis=" + staleMillis +
+           '}';
+  }
+}
@@ -0,0 +1,61 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Snapshot of cache counters
+ */
+public class CacheStats {
+
+  private final long hits;
+  private final long staleHits;
+  private final long misses;
+  private final long evictions;
+  private final int size;
+
+  public CacheStats(long hits, long staleHits, long misses, long evictions, int size) {
+    this.hits = hits;
+    this.staleHits = staleHits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.size = size;
+  }
+
+  /**
+   * Lookups answered with a fresh entry
+   */
+  public long getHits() {
+    return hits;
+  }
+
+  /**
+   * Lookups answered with an expired entry while it was revalidated in the background
+   */
+  public long getStaleHits() {
+    return staleHits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Entries dropped because the cache was full or the stale window had passed
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{" +
+           "hits=" + hits +
+           ", staleHits=" + staleHits +
+           ", misses=" + misses +
+           ", evictions=" + evictions +
+           ", size=" + size +
+           '}';
+  }
+}
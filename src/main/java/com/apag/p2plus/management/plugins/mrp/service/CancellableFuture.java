@@ -0,0 +1,28 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Future whose {@link #cancel(boolean)} aborts the underlying HTTP request
+ */
+public class CancellableFuture<T> extends CompletableFuture<T> {
+
+  private final CancellationToken token;
+
+  public CancellableFuture(CancellationToken token) {
+    this.token = token;
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    boolean cancelled = super.cancel(mayInterruptIfRunning);
+    if (cancelled) {
+      token.cancel();
+    }
+    return cancelled;
+  }
+
+  public CancellationToken getToken() {
+    return token;
+  }
+}
@@ -0,0 +1,40 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient43Engine;
+
+/**
+ * Apache HttpClient engine that lets a {@link CancellationToken} abort the
+ * request running on the current thread, and applies the timeout set by
+ * {@link AdaptiveTimeout} for the current thread.
+ */
+class CancellableHttpEngine extends ApacheHttpClient43Engine {
+
+  private final RequestConfig defaultConfig;
+
+  /**
+   * @param defaultConfig configuration of the client, adapted per request
+   */
+  CancellableHttpEngine(HttpClient httpClient, RequestConfig defaultConfig) {
+    super(httpClient);
+    this.defaultConfig = defaultConfig;
+  }
+
+  @Override
+  protected HttpRequestBase createHttpMethod(String url, String restVerb) {
+    HttpRequestBase method = super.createHttpMethod(url, restVerb);
+    CancellationToken.onCancelCurrent(method::abort);
+    long timeoutMillis = AdaptiveTimeout.currentTimeoutMillis();
+    if (timeoutMillis > 0) {
+      int timeout = (int) timeoutMillis;
+      int connectTimeout = defaultConfig.getConnectTimeout() > 0 ? Math.min(timeout, defaultConfig.getConnectTimeout()) : timeout;
+      method.setConfig(RequestConfig.copy(defaultConfig)
+          .setSocketTimeout(timeout)
+          .setConnectTimeout(connectTimeout)
+          .build());
+    }
+    return method;
+  }
+}
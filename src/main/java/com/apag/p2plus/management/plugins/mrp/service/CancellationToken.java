@@ -0,0 +1,131 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancellation handle for a single asynchronous load.
+ * While a load runs, its token is bound to the worker thread so that the HTTP
+ * engine can register an abort action for the in-flight request. A child token
+ * cancels a single request of the load, e.g. the slower of two hedged requests,
+ * and is cancelled together with its parent.
+ */
+public class CancellationToken {
+
+  private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+  private final CancellationToken parent;
+  private final List<Runnable> abortActions = new ArrayList<>();
+  private Thread boundThread;
+  private boolean cancelled;
+
+  public CancellationToken() {
+    this(null);
+  }
+
+  /**
+   * Creates a token that is cancelled when the parent is
+   *
+   * @param parent token of the enclosing load, or null
+   */
+  public CancellationToken(CancellationToken parent) {
+    this.parent = parent;
+    if (parent != null) {
+      parent.onCancel(this::cancel);
+    }
+  }
+
+  /**
+   * Returns the token bound to the current thread, or null if none
+   */
+  public static CancellationToken current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Registers an action aborting a request with the token bound to the current
+   * thread and its parents. The parents keep it registered while the response
+   * body is read after a hedged request. Does nothing without a bound token.
+   */
+  public static void onCancelCurrent(Runnable abortAction) {
+    for (CancellationToken token = current(); token != null; token = token.parent) {
+      token.onCancel(abortAction);
+    }
+  }
+
+  /**
+   * Registers an action that aborts the running request. Runs immediately if
+   * the token is already cancelled.
+   */
+  public void onCancel(Runnable abortAction) {
+    synchronized (this) {
+      if (!cancelled) {
+        abortActions.add(abortAction);
+        return;
+      }
+    }
+    abortAction.run();
+  }
+
+  /**
+   * Cancels the load: aborts registered requests and interrupts the worker thread
+   */
+  public void cancel() {
+    List<Runnable> actions;
+    synchronized (this) {
+      if (cancelled) {
+        return;
+      }
+      cancelled = true;
+      actions = new ArrayList<>(abortActions);
+      abortActions.clear();
+      if (boundThread != null) {
+        boundThread.interrupt();
+      }
+    }
+    for (Runnable action : actions) {
+      action.run();
+    }
+  }
+
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Runs the given call with this token bound to the current thread
+   */
+  public <R> R callBound(CheckedSupplier<R> call) throws Exception {
+    synchronized (this) {
+      if (cancelled) {
+        throw new InterruptedException("Load cancelled");
+      }
+      boundThread = Thread.currentThread();
+    }
+    CancellationToken previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return call.get();
+    } finally {
+      if (previous != null) {
+        CURRENT.set(previous);
+      } else {
+        CURRENT.remove();
+      }
+      synchronized (this) {
+        boundThread = null;
+        abortActions.clear();
+      }
+      // do not leak a cancellation interrupt into the next task of a pooled thread
+      Thread.interrupted();
+    }
+  }
+
+  /**
+   * Supplier that may throw checked exceptions
+   */
+  @FunctionalInterface
+  public interface CheckedSupplier<R> {
+    R get() throws Exception;
+  }
+}
@@ -0,0 +1,216 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JacksonException;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Circuit breaker of one endpoint. The outcomes of the most recent requests
+ * are kept in a window; once enough of them failed because the server was
+ * unreachable, timed out or answered with 429 or 5xx, the circuit opens and
+ * requests fail fast with a {@link CircuitBreakerOpenException} instead of
+ * waiting for the timeout. After the open time a single probe request is let
+ * through (half-open): if it succeeds the circuit closes, otherwise it opens
+ * again. Other error responses such as 404 show that the server is available
+ * and count as success.
+ */
+public class CircuitBreaker {
+
+  private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  /**
+   * State of a circuit breaker; the ordinal is published as metric
+   */
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private final String endpoint;
+  private final CircuitBreakerSettings settings;
+  private final MetricsRegistry metrics;
+  private final BiConsumer<String, State> transitionListener;
+  // Ring buffer of the latest outcomes, true for a failure
+  private final boolean[] outcomes;
+  private int outcomeCount;
+  private int nextOutcome;
+  private int failureCount;
+  private State state = State.CLOSED;
+  private long openedAtNanos;
+  private boolean probeInFlight;
+
+  /**
+   * @param transitionListener notified with endpoint and new state after every state change
+   */
+  public CircuitBreaker(String endpoint, CircuitBreakerSettings settings, MetricsRegistry metrics,
+                        BiConsumer<String, State> transitionListener) {
+    this.endpoint = endpoint;
+    this.settings = settings;
+    this.metrics = metrics;
+    this.transitionListener = transitionListener;
+    this.outcomes = new boolean[settings.getWindowSize()];
+    metrics.gauge("breaker." + endpoint + ".state", () -> getState().ordinal());
+  }
+
+  /**
+   * Checks whether a request may be sent; must be followed by {@link #onResult}
+   *
+   * @throws CircuitBreakerOpenException if the circuit is open or a probe request is already running
+   */
+  public void acquire() {
+    if (!settings.isEnabled()) {
+      return;
+    }
+    long retryAfterMillis = 0;
+    boolean probe = false;
+    synchronized (this) {
+      if (state == State.CLOSED) {
+        return;
+      }
+      if (state == State.OPEN) {
+        retryAfterMillis = settings.getOpenMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - openedAtNanos);
+        probe = retryAfterMillis <= 0;
+        if (probe) {
+          state = State.HALF_OPEN;
+        }
+      } else if (!probeInFlight) {
+        // The previous probe was cancelled, let the next request probe
+        probeInFlight = true;
+        return;
+      }
+      if (probe) {
+        probeInFlight = true;
+      }
+    }
+    if (probe) {
+      logger.info("Probing endpoint '{}'", endpoint);
+      transitionListener.accept(endpoint, State.HALF_OPEN);
+      return;
+    }
+    metrics.counter("breaker." + endpoint + ".rejected").increment();
+    throw new CircuitBreakerOpenException(endpoint, Math.max(0, retryAfterMillis));
+  }
+
+  /**
+   * Records the outcome of a request let through by {@link #acquire}
+   *
+   * @param failure exception of the request, or null if it succeeded
+   */
+  public void onResult(Throwable failure) {
+    if (!settings.isEnabled()) {
+      return;
+    }
+    if (failure != null && isCancellation(failure)) {
+      synchronized (this) {
+        probeInFlight = false;
+      }
+      return;
+    }
+    boolean failed = failure != null && isUnavailable(failure);
+    State changed = null;
+    synchronized (this) {
+      switch (state) {
+        case HALF_OPEN:
+          probeInFlight = false;
+          changed = failed ? open() : close();
+          break;
+        case CLOSED:
+          record(failed);
+          if (outcomeCount >= settings.getMinimumCalls()
+              && failureCount >= settings.getFailureRateThreshold() * outcomeCount) {
+            logger.warn("Endpoint '{}' unavailable: {} of the last {} requests failed, failing fast for {} ms",
+                endpoint, failureCount, outcomeCount, settings.getOpenMillis());
+            changed = open();
+          }
+          break;
+        default:
+          // Requests started before the circuit opened
+          break;
+      }
+    }
+    if (changed != null) {
+      transitionListener.accept(endpoint, changed);
+    }
+  }
+
+  private State open() {
+    state = State.OPEN;
+    openedAtNanos = System.nanoTime();
+    metrics.counter("breaker." + endpoint + ".opened").increment();
+    return state;
+  }
+
+  private State close() {
+    state = State.CLOSED;
+    outcomeCount = 0;
+    nextOutcome = 0;
+    failureCount = 0;
+    logger.info("Endpoint '{}' available again", endpoint);
+    return state;
+  }
+
+  private void record(boolean failed) {
+    if (outcomeCount == outcomes.length) {
+      if (outcomes[nextOutcome]) {
+        failureCount--;
+      }
+    } else {
+      outcomeCount++;
+    }
+    outcomes[nextOutcome] = failed;
+    if (failed) {
+      failureCount++;
+    }
+    nextOutcome = (nextOutcome + 1) % outcomes.length;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Returns whether the request was cancelled rather than failed
+   */
+  static boolean isCancellation(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof InterruptedException || cause instanceof CancellationException) {
+        return true;
+      }
+    }
+    CancellationToken token = CancellationToken.current();
+    return token != null && token.isCancelled();
+  }
+
+  /**
+   * Returns whether the failure shows that the server is unreachable or overloaded
+   */
+  static boolean isUnavailable(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof JacksonException) {
+        // The server answered, but with a body that could not be parsed
+        return false;
+      }
+    }
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof WebApplicationException) {
+        int status = ((WebApplicationException) cause).getResponse().getStatus();
+        return status == 429 || status >= 500;
+      }
+      if (cause instanceof ProcessingException || cause instanceof IOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
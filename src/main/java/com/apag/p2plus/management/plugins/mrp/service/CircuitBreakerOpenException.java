@@ -0,0 +1,28 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker of the
+ * endpoint is open
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+  private final String endpoint;
+  private final long retryAfterMillis;
+
+  public CircuitBreakerOpenException(String endpoint, long retryAfterMillis) {
+    super("Endpoint '" + endpoint + "' is unavailable, requests are paused for " + retryAfterMillis + " ms");
+    this.endpoint = endpoint;
+    this.retryAfterMillis = retryAfterMillis;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Returns the time until a probe request is let through
+   */
+  public long getRetryAfterMillis() {
+    return retryAfterMillis;
+  }
+}
@@ -0,0 +1,62 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Holds the {@link CircuitBreaker} of every endpoint, created on first use,
+ * and notifies listeners of their state changes
+ */
+public class CircuitBreakerRegistry {
+
+  private final CircuitBreakerSettings settings;
+  private final MetricsRegistry metrics;
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+  private final List<BiConsumer<String, CircuitBreaker.State>> listeners = new CopyOnWriteArrayList<>();
+
+  public CircuitBreakerRegistry(CircuitBreakerSettings settings, MetricsRegistry metrics) {
+    this.settings = settings;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the circuit breaker of the endpoint
+   */
+  public CircuitBreaker get(String endpoint) {
+    return breakers.computeIfAbsent(endpoint, key -> new CircuitBreaker(key, settings, metrics, this::fireTransition));
+  }
+
+  /**
+   * Returns the current state per endpoint, sorted by endpoint
+   */
+  public Map<String, CircuitBreaker.State> getStates() {
+    Map<String, CircuitBreaker.State> states = new TreeMap<>();
+    breakers.forEach((endpoint, breaker) -> states.put(endpoint, breaker.getState()));
+    return states;
+  }
+
+  /**
+   * Registers a listener called with endpoint and new state whenever a
+   * circuit opens, starts probing or closes. Called on the thread of the
+   * request that caused the change.
+   */
+  public void addStateListener(BiConsumer<String, CircuitBreaker.State> listener) {
+    listeners.add(listener);
+  }
+
+  public void removeStateListener(BiConsumer<String, CircuitBreaker.State> listener) {
+    listeners.remove(listener);
+  }
+
+  private void fireTransition(String endpoint, CircuitBreaker.State state) {
+    for (BiConsumer<String, CircuitBreaker.State> listener : listeners) {
+      listener.accept(endpoint, state);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Settings for the per-endpoint circuit breakers of loads.
+ * Values are read from system properties (e.g. -Dmrp.breaker.openMillis=30000).
+ */
+public class CircuitBreakerSettings {
+
+  private static final String PREFIX = "mrp.breaker.";
+
+  private final boolean enabled;
+  private final int windowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final long openMillis;
+
+  /**
+   * @param enabled whether loads fail fast while an endpoint is unavailable
+   * @param windowSize number of most recent requests the failure rate is computed from
+   * @param minimumCalls requests needed in the window before the circuit can open
+   * @param failureRateThreshold share of failed requests that opens the circuit, 0 to 1
+   * @param openMillis time requests fail fast before a probe request is let through
+   */
+  public CircuitBreakerSettings(boolean enabled, int windowSize, int minimumCalls, double failureRateThreshold,
+                                long openMillis) {
+    this.enabled = enabled;
+    this.windowSize = Math.max(1, windowSize);
+    this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+    this.failureRateThreshold = failureRateThreshold;
+    this.openMillis = openMillis;
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing values
+   */
+  public static CircuitBreakerSettings fromSystemProperties() {
+    return new CircuitBreakerSettings(
+        Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", "true")),
+        SettingsSupport.intProperty(PREFIX + "windowSize", 10),
+        SettingsSupport.intProperty(PREFIX + "minimumCalls", 5),
+        SettingsSupport.doubleProperty(PREFIX + "failureRateThreshold", 0.5),
+        SettingsSupport.longProperty(PREFIX + "openMillis", 10_000)
+    );
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  public int getMinimumCalls() {
+    return minimumCalls;
+  }
+
+  public double getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public long getOpenMillis() {
+    return openMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "CircuitBreakerSettings{" +
+           "enabled=" + enabled +
+           ", windowSize=" + windowSize +
+           ", minimumCalls=" + minimumCalls +
+           ", failureRateThreshold=" + failureRateThreshold +
+           ", openMillis=" + openMillis +
+           '}';
+  }
+}
@@ -0,0 +1,171 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe LRU cache with time-based expiry and a stale-while-revalidate window.
+ * Entries younger than the TTL are fresh; older entries are served as stale until
+ * the stale window has passed as well, after which they are dropped.
+ */
+public class ConfigCache<K, V> {
+
+  /**
+   * Freshness of a cache lookup
+   */
+  public enum State {
+    FRESH,
+    STALE,
+    MISS
+  }
+
+  private final CacheSettings settings;
+  private final Map<K, Entry<V>> entries;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong staleHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public ConfigCache(CacheSettings settings) {
+    this.settings = settings;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        if (size() > settings.getMaxEntries()) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Looks up a value and records a hit, stale hit or miss
+   */
+  public synchronized Lookup<V> get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      misses.incrementAndGet();
+      return new Lookup<>(State.MISS, null);
+    }
+    long age = System.currentTimeMillis() - entry.storedAt;
+    if (age <= settings.getTtlMillis()) {
+      hits.incrementAndGet();
+      return new Lookup<>(State.FRESH, entry.value);
+    }
+    if (age <= settings.getTtlMillis() + settings.getStaleMillis()) {
+      staleHits.incrementAndGet();
+      return new Lookup<>(State.STALE, entry.value);
+    }
+    entries.remove(key);
+    evictions.incrementAndGet();
+    misses.incrementAndGet();
+    return new Lookup<>(State.MISS, null);
+  }
+
+  /**
+   * Returns whether a value is cached and has not expired, without touching statistics
+   */
+  public synchronized boolean isFresh(K key) {
+    Entry<V> entry = entries.get(key);
+    return entry != null && System.currentTimeMillis() - entry.storedAt <= settings.getTtlMillis();
+  }
+
+  /**
+   * Returns the cached value regardless of its age without touching statistics,
+   * or null if none is cached
+   */
+  public synchronized V peek(K key) {
+    Entry<V> entry = entries.get(key);
+    return entry != null ? entry.value : null;
+  }
+
+  public synchronized void put(K key, V value) {
+    entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+  }
+
+  /**
+   * Stores a value that is already due for revalidation, e.g. one restored
+   * from a local snapshot
+   */
+  public synchronized void putStale(K key, V value) {
+    entries.put(key, new Entry<>(value, System.currentTimeMillis() - settings.getTtlMillis() - 1));
+  }
+
+  /**
+   * Marks a stale entry as being refreshed
+   *
+   * @return true if the caller should start the refresh, false if one is already running
+   */
+  public synchronized boolean startRefresh(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null || entry.refreshing) {
+      return false;
+    }
+    entry.refreshing = true;
+    return true;
+  }
+
+  /**
+   * Clears the refreshing mark after a failed refresh
+   */
+  public synchronized void endRefresh(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry != null) {
+      entry.refreshing = false;
+    }
+  }
+
+  public synchronized void invalidate(K key) {
+    entries.remove(key);
+  }
+
+  public synchronized void invalidateAll() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public CacheStats getStats() {
+    return new CacheStats(hits.get(), staleHits.get(), misses.get(), evictions.get(), size());
+  }
+
+  /**
+   * Result of a cache lookup
+   */
+  public static class Lookup<V> {
+
+    private final State state;
+    private final V value;
+
+    Lookup(State state, V value) {
+      this.state = state;
+      this.value = value;
+    }
+
+    public State getState() {
+      return state;
+    }
+
+    public V getValue() {
+      return value;
+    }
+  }
+
+  private static class Entry<V> {
+
+    final V value;
+    final long storedAt;
+    boolean refreshing;
+
+    Entry(V value, long storedAt) {
+      this.value = value;
+      this.storedAt = storedAt;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changed items of a configuration, as sent by a {@link DeltaSave}
+ */
+final class ConfigChanges {
+
+  private final List<ConfigItem> changedItems;
+
+  ConfigChanges(List<ConfigItem> changedItems) {
+    this.changedItems = changedItems;
+  }
+
+  /**
+   * Combines two saves of the same configuration: changes of the newer save
+   * replace those of the older one for the same item
+   */
+  static ConfigChanges merge(ConfigChanges older, ConfigChanges newer) {
+    Map<String, ConfigItem> changed = new LinkedHashMap<>();
+    older.changedItems.forEach(item -> changed.put(item.getName(), item));
+    newer.changedItems.forEach(item -> changed.put(item.getName(), item));
+    return new ConfigChanges(new ArrayList<>(changed.values()));
+  }
+
+  List<ConfigItem> getChangedItems() {
+    return changedItems;
+  }
+}
@@ -0,0 +1,70 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a JSON or Smile array of configuration items incrementally from a
+ * response stream. Items are handed to a listener in chunks while the body is still
+ * being received; the first chunk is small so the UI can show rows early,
+ * later chunks grow to keep the number of UI updates low.
+ */
+class ConfigItemStreamReader {
+
+  private static final int FIRST_CHUNK_SIZE = 16;
+  private static final int MAX_CHUNK_SIZE = 512;
+
+  private ConfigItemStreamReader() {
+  }
+
+  /**
+   * @param in response body containing a JSON array of items
+   * @param chunkListener receives consecutive chunks of parsed items, or null
+   * @return all items of the array
+   */
+  static List<ConfigItem> read(InputStream in, Consumer<List<ConfigItem>> chunkListener) throws IOException {
+    return read(in, WireFormat.JSON, chunkListener);
+  }
+
+  /**
+   * @param in response body containing an array of items
+   * @param format encoding of the body
+   * @param chunkListener receives consecutive chunks of parsed items, or null
+   * @return all items of the array
+   */
+  static List<ConfigItem> read(InputStream in, WireFormat format, Consumer<List<ConfigItem>> chunkListener)
+      throws IOException {
+    ObjectMapper mapper = format.getMapper();
+    try (JsonParser parser = mapper.getFactory().createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Expected an array of configuration items");
+      }
+      List<ConfigItem> items = new ArrayList<>();
+      int chunkStart = 0;
+      int chunkSize = FIRST_CHUNK_SIZE;
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (parser.currentToken() == null) {
+          throw new IOException("Unexpected end of configuration item array");
+        }
+        items.add(mapper.readValue(parser, ConfigItem.class));
+        if (chunkListener != null && items.size() - chunkStart == chunkSize) {
+          chunkListener.accept(List.copyOf(items.subList(chunkStart, items.size())));
+          chunkStart = items.size();
+          chunkSize = Math.min(chunkSize * 2, MAX_CHUNK_SIZE);
+        }
+      }
+      if (chunkListener != null && chunkStart < items.size()) {
+        chunkListener.accept(List.copyOf(items.subList(chunkStart, items.size())));
+      }
+      return items;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Snapshot of the shared HTTP connection pool
+ */
+public class ConnectionPoolStats {
+
+  private final int leased;
+  private final int available;
+  private final int pending;
+  private final int max;
+
+  public ConnectionPoolStats(int leased, int available, int pending, int max) {
+    this.leased = leased;
+    this.available = available;
+    this.pending = pending;
+    this.max = max;
+  }
+
+  /**
+   * Connections currently in use by a request
+   */
+  public int getLeased() {
+    return leased;
+  }
+
+  /**
+   * Idle keep-alive connections ready for reuse
+   */
+  public int getAvailable() {
+    return available;
+  }
+
+  /**
+   * Requests waiting for a connection
+   */
+  public int getPending() {
+    return pending;
+  }
+
+  public int getMax() {
+    return max;
+  }
+
+  @Override
+  public String toString() {
+    return "ConnectionPoolStats{" +
+           "leased=" + leased +
+           ", available=" + available +
+           ", pending=" + pending +
+           ", max=" + max +
+           '}';
+  }
+}
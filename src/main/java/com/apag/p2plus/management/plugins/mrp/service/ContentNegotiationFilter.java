@@ -0,0 +1,53 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Requests responses in the configured {@link WireFormat}, with JSON as the
+ * less preferred alternative, so servers without support for it keep answering
+ * in JSON. Request bodies are only sent in the format once the server has
+ * answered in it, as a server that does not know it would reject them.
+ */
+class ContentNegotiationFilter implements ClientRequestFilter, ClientResponseFilter {
+
+  private static final Logger logger = LoggerFactory.getLogger(ContentNegotiationFilter.class);
+
+  private final WireFormat format;
+  private final String accept;
+  private final AtomicBoolean serverSupportsFormat = new AtomicBoolean();
+
+  ContentNegotiationFilter(WireFormat format) {
+    this.format = format;
+    this.accept = format.getMediaType() + ", " + MediaType.APPLICATION_JSON + ";q=0.9";
+  }
+
+  @Override
+  public void filter(ClientRequestContext requestContext) {
+    if (format == WireFormat.JSON) {
+      return;
+    }
+    requestContext.getHeaders().putSingle(HttpHeaders.ACCEPT, accept);
+    if (requestContext.hasEntity() && serverSupportsFormat.get()
+        && WireFormat.of(requestContext.getMediaType()) != format
+        && MediaType.APPLICATION_JSON_TYPE.isCompatible(requestContext.getMediaType())) {
+      requestContext.setEntity(requestContext.getEntity(), requestContext.getEntityAnnotations(), format.getMediaType());
+    }
+  }
+
+  @Override
+  public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+    if (format != WireFormat.JSON && WireFormat.of(responseContext.getMediaType()) == format
+        && serverSupportsFormat.compareAndSet(false, true)) {
+      logger.info("Server answers in {}, sending request bodies in it as well", format);
+    }
+  }
+}
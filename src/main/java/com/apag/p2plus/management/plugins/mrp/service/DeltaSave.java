@@ -0,0 +1,84 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Saves configuration changes as a delta (PATCH) containing only the changed
+ * items. If the server does not support PATCH for the resource, the full
+ * configuration is sent with PUT instead and later saves go straight to PUT.
+ * The full configuration is loaded from the server right before the PUT and
+ * the changes are applied to it. The items shown to the user may come from the
+ * snapshot, which holds no passwords, or from fallback data; a PUT of those
+ * would overwrite the server with them.
+ */
+class DeltaSave {
+
+  private static final Logger logger = LoggerFactory.getLogger(DeltaSave.class);
+
+  private final String resource;
+  private volatile boolean patchSupported = true;
+
+  DeltaSave(String resource) {
+    this.resource = resource;
+  }
+
+  /**
+   * @param changedItems items whose value differs from the loaded configuration
+   * @param patch sends a delta
+   * @param put sends the full configuration
+   * @param loadCurrent loads the configuration from the server without snapshot or fallback data
+   */
+  void save(List<ConfigItem> changedItems, Consumer<List<ConfigItem>> patch, Consumer<List<ConfigItem>> put,
+            Supplier<List<ConfigItem>> loadCurrent) {
+    if (patchSupported) {
+      try {
+        patch.accept(changedItems);
+        logger.debug("Patched {} items of '{}'", changedItems.size(), resource);
+        return;
+      } catch (WebApplicationException e) {
+        if (!isPatchUnsupported(e.getResponse())) {
+          throw e;
+        }
+        patchSupported = false;
+        logger.info("PATCH not supported for '{}' (HTTP {}), using PUT", resource, e.getResponse().getStatus());
+      }
+    }
+    List<ConfigItem> fullConfig = apply(loadCurrent.get(), changedItems);
+    put.accept(fullConfig);
+    logger.debug("Saved all {} items of '{}'", fullConfig.size(), resource);
+  }
+
+  /**
+   * Returns the current items with the changed items replacing those of the
+   * same name; changed items without a current one are appended
+   */
+  static List<ConfigItem> apply(List<ConfigItem> currentItems, List<ConfigItem> changedItems) {
+    Map<String, ConfigItem> changedByName = new LinkedHashMap<>();
+    changedItems.forEach(item -> changedByName.put(item.getName(), item));
+    List<ConfigItem> fullConfig = new ArrayList<>(currentItems.size() + changedItems.size());
+    for (ConfigItem item : currentItems) {
+      ConfigItem changed = changedByName.remove(item.getName());
+      fullConfig.add(changed != null ? changed : item);
+    }
+    fullConfig.addAll(changedByName.values());
+    return fullConfig;
+  }
+
+  private static boolean isPatchUnsupported(Response response) {
+    int status = response.getStatus();
+    return status == Response.Status.METHOD_NOT_ALLOWED.getStatusCode()
+        || status == Response.Status.NOT_IMPLEMENTED.getStatusCode()
+        || status == Response.Status.UNSUPPORTED_MEDIA_TYPE.getStatusCode();
+  }
+}
@@ -0,0 +1,79 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Body encoding settings of the shared HTTP client: wire format and compression.
+ * Values are read from system properties (e.g. -Dmrp.encoding.format=smile).
+ */
+public class EncodingSettings {
+
+  private static final String PREFIX = "mrp.encoding.";
+
+  private final WireFormat format;
+  private final boolean compressResponses;
+  private final boolean compressRequests;
+  private final int compressMinBytes;
+
+  /**
+   * @param format format requested for responses and, once the server answered in it, used for request bodies
+   * @param compressResponses whether gzip and deflate encoded responses are accepted
+   * @param compressRequests whether large request bodies are sent gzip encoded
+   * @param compressMinBytes size from which request bodies are compressed
+   */
+  public EncodingSettings(WireFormat format, boolean compressResponses, boolean compressRequests,
+                          int compressMinBytes) {
+    this.format = format;
+    this.compressResponses = compressResponses;
+    this.compressRequests = compressRequests;
+    this.compressMinBytes = compressMinBytes;
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing or invalid values
+   */
+  public static EncodingSettings fromSystemProperties() {
+    return new EncodingSettings(
+        formatProperty(PREFIX + "format", WireFormat.JSON),
+        Boolean.parseBoolean(System.getProperty(PREFIX + "compressResponses", "true")),
+        Boolean.parseBoolean(System.getProperty(PREFIX + "compressRequests", "false")),
+        SettingsSupport.intProperty(PREFIX + "compressMinBytes", 8192)
+    );
+  }
+
+  private static WireFormat formatProperty(String name, WireFormat defaultValue) {
+    String value = System.getProperty(name);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      return WireFormat.parse(value);
+    } catch (IllegalArgumentException e) {
+      return defaultValue;
+    }
+  }
+
+  public WireFormat getFormat() {
+    return format;
+  }
+
+  public boolean isCompressResponses() {
+    return compressResponses;
+  }
+
+  public boolean isCompressRequests() {
+    return compressRequests;
+  }
+
+  public int getCompressMinBytes() {
+    return compressMinBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "EncodingSettings{" +
+           "format=" + format +
+           ", compressResponses=" + compressResponses +
+           ", compressRequests=" + compressRequests +
+           ", compressMinBytes=" + compressMinBytes +
+           '}';
+  }
+}
@@ -0,0 +1,48 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the number of concurrent requests per API endpoint
+ */
+public class EndpointLimiter {
+
+  private final int maxConcurrentPerEndpoint;
+  private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+  public EndpointLimiter(int maxConcurrentPerEndpoint) {
+    if (maxConcurrentPerEndpoint < 1) {
+      throw new IllegalArgumentException("maxConcurrentPerEndpoint must be at least 1");
+    }
+    this.maxConcurrentPerEndpoint = maxConcurrentPerEndpoint;
+  }
+
+  /**
+   * Runs the call once a permit for the endpoint is available
+   *
+   * @throws InterruptedException if the waiting thread is interrupted, e.g. by cancellation
+   */
+  public <R> R call(String endpoint, CancellationToken.CheckedSupplier<R> call) throws Exception {
+    Semaphore semaphore = permits.computeIfAbsent(endpoint, key -> new Semaphore(maxConcurrentPerEndpoint, true));
+    semaphore.acquire();
+    try {
+      return call.get();
+    } finally {
+      semaphore.release();
+    }
+  }
+
+  /**
+   * Returns the number of requests currently running against the endpoint
+   */
+  public int getActiveCount(String endpoint) {
+    Semaphore semaphore = permits.get(endpoint);
+    return semaphore != null ? maxConcurrentPerEndpoint - semaphore.availablePermits() : 0;
+  }
+
+  public int getMaxConcurrentPerEndpoint() {
+    return maxConcurrentPerEndpoint;
+  }
+}
@@ -0,0 +1,118 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import java.net.http.HttpClient;
+
+/**
+ * Connection pool and timeout settings for the shared HTTP client.
+ * Values are read from system properties (e.g. -Dmrp.http.maxConnectionsPerRoute=20)
+ * and fall back to defaults suitable for a single desktop client. The protocol
+ * selects the engine: HTTP/1.1 uses the Apache connection pool, HTTP/2 the JDK
+ * client multiplexing all requests over one connection per host.
+ */
+public class HttpClientSettings {
+
+  private static final String PREFIX = "mrp.http.";
+
+  private final int maxConnectionsPerRoute;
+  private final int maxConnectionsTotal;
+  private final long idleEvictionMillis;
+  private final long connectTimeoutMillis;
+  private final long readTimeoutMillis;
+  private final HttpClient.Version protocol;
+
+  public HttpClientSettings(int maxConnectionsPerRoute,
+                            int maxConnectionsTotal,
+                            long idleEvictionMillis,
+                            long connectTimeoutMillis,
+                            long readTimeoutMillis,
+                            HttpClient.Version protocol) {
+    this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    this.maxConnectionsTotal = maxConnectionsTotal;
+    this.idleEvictionMillis = idleEvictionMillis;
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    this.readTimeoutMillis = readTimeoutMillis;
+    this.protocol = protocol;
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing values
+   */
+  public static HttpClientSettings fromSystemProperties() {
+    return new HttpClientSettings(
+        intProperty("maxConnectionsPerRoute", 10),
+        intProperty("maxConnectionsTotal", 20),
+        longProperty("idleEvictionMillis", 30_000L),
+        longProperty("connectTimeoutMillis", 5_000L),
+        longProperty("readTimeoutMillis", 15_000L),
+        protocolProperty("protocol", HttpClient.Version.HTTP_1_1)
+    );
+  }
+
+  private static int intProperty(String name, int defaultValue) {
+    return SettingsSupport.intProperty(PREFIX + name, defaultValue);
+  }
+
+  private static long longProperty(String name, long defaultValue) {
+    return SettingsSupport.longProperty(PREFIX + name, defaultValue);
+  }
+
+  /**
+   * Accepts "1.1", "2", "h2" and the enum names such as "HTTP_2"
+   */
+  private static HttpClient.Version protocolProperty(String name, HttpClient.Version defaultValue) {
+    String value = System.getProperty(PREFIX + name);
+    if (value == null) {
+      return defaultValue;
+    }
+    switch (value.trim().toUpperCase().replace('/', '_')) {
+      case "1.1":
+      case "HTTP_1.1":
+      case "HTTP_1_1":
+      case "HTTP1":
+        return HttpClient.Version.HTTP_1_1;
+      case "2":
+      case "H2":
+      case "HTTP_2":
+      case "HTTP2":
+        return HttpClient.Version.HTTP_2;
+      default:
+        return defaultValue;
+    }
+  }
+
+  public int getMaxConnectionsPerRoute() {
+    return maxConnectionsPerRoute;
+  }
+
+  public int getMaxConnectionsTotal() {
+    return maxConnectionsTotal;
+  }
+
+  public long getIdleEvictionMillis() {
+    return idleEvictionMillis;
+  }
+
+  public long getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  public long getReadTimeoutMillis() {
+    return readTimeoutMillis;
+  }
+
+  public HttpClient.Version getProtocol() {
+    return protocol;
+  }
+
+  @Override
+  public String toString() {
+    return "HttpClientSettings{" +
+           "maxConnectionsPerRoute=" + maxConnectionsPerRoute +
+           ", maxConnectionsTotal=" + maxConnectionsTotal +
+           ", idleEvictionMillis=" + idleEvictionMillis +
+           ", connectTimeoutMillis=" + connectTimeoutMillis +
+           ", readTimeoutMillis=" + readTimeoutMillis +
+           ", protocol=" + protocol +
+           '}';
+  }
+}
@@ -0,0 +1,180 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.Histogram;
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Records every REST call of the shared client per endpoint:
+ * <ul>
+ *   <li>{@code http.<endpoint>.<method>}: timer up to the response headers</li>
+ *   <li>{@code http.<endpoint>.<method>.2xx}: the same for successful responses only,
+ *       the base of the {@link AdaptiveTimeout}</li>
+ *   <li>{@code http.<endpoint>.errors} and {@code http.<endpoint>.notModified}: counters of 4xx/5xx and 304 responses</li>
+ *   <li>{@code http.<endpoint>.responseBytes} and {@code http.<endpoint>.requestBytes}: histograms of payload sizes</li>
+ * </ul>
+ * Endpoints are the first path segment below {@code /config} (scenarios,
+ * technical, operational) plus {@code operational.batch}. Requests failing
+ * without a response are counted by the services.
+ */
+class HttpMetricsFilter implements ClientRequestFilter, ClientResponseFilter, WriterInterceptor {
+
+  private static final String START_PROPERTY = HttpMetricsFilter.class.getName() + ".start";
+  private static final String ENDPOINT_PROPERTY = HttpMetricsFilter.class.getName() + ".endpoint";
+  private static final String API_PATH = "/config/";
+
+  private final MetricsRegistry metrics;
+
+  HttpMetricsFilter(MetricsRegistry metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void filter(ClientRequestContext requestContext) {
+    requestContext.setProperty(ENDPOINT_PROPERTY, endpointOf(requestContext.getUri().getPath()));
+    requestContext.setProperty(START_PROPERTY, System.nanoTime());
+  }
+
+  @Override
+  public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+    Object start = requestContext.getProperty(START_PROPERTY);
+    String endpoint = (String) requestContext.getProperty(ENDPOINT_PROPERTY);
+    if (!(start instanceof Long) || endpoint == null) {
+      return;
+    }
+    String timer = "http." + endpoint + "." + requestContext.getMethod();
+    metrics.timer(timer).recordSince((Long) start);
+    int status = responseContext.getStatus();
+    if (status >= 200 && status < 300) {
+      metrics.timer(successTimer(timer)).recordSince((Long) start);
+    }
+    if (status >= 400) {
+      metrics.counter("http." + endpoint + ".errors").increment();
+    } else if (status == 304) {
+      metrics.counter("http." + endpoint + ".notModified").increment();
+    }
+    InputStream entity = responseContext.getEntityStream();
+    if (entity != null && status >= 200 && status < 300 && status != 204) {
+      responseContext.setEntityStream(new CountingInputStream(entity, metrics.histogram("http." + endpoint + ".responseBytes")));
+    }
+  }
+
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+    Object endpoint = context.getProperty(ENDPOINT_PROPERTY);
+    if (endpoint == null) {
+      context.proceed();
+      return;
+    }
+    CountingOutputStream counting = new CountingOutputStream(context.getOutputStream());
+    context.setOutputStream(counting);
+    try {
+      context.proceed();
+    } finally {
+      metrics.histogram("http." + endpoint + ".requestBytes").update(counting.count);
+    }
+  }
+
+  /**
+   * Returns the name of the timer recording only the 2xx responses of a request timer
+   */
+  static String successTimer(String timer) {
+    return timer + ".2xx";
+  }
+
+  /**
+   * Maps a request path to its endpoint name, e.g. /config/operational/S1 to "operational"
+   */
+  static String endpointOf(String path) {
+    int apiStart = path != null ? path.indexOf(API_PATH) : -1;
+    if (apiStart < 0) {
+      return "other";
+    }
+    String[] segments = path.substring(apiStart + API_PATH.length()).split("/");
+    if (segments[0].equals("operational") && segments.length == 2 && segments[1].equals("batch")) {
+      return "operational.batch";
+    }
+    return segments[0].isEmpty() ? "other" : segments[0];
+  }
+
+  /**
+   * Counts the bytes read from a response body and records them when the body is closed
+   */
+  private static class CountingInputStream extends FilterInputStream {
+
+    private final Histogram sizes;
+    private long count;
+    private boolean closed;
+
+    CountingInputStream(InputStream in, Histogram sizes) {
+      super(in);
+      this.sizes = sizes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int value = super.read();
+      if (value >= 0) {
+        count++;
+      }
+      return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        sizes.update(count);
+      }
+      super.close();
+    }
+  }
+
+  private static class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+      out.write(value);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+      out.write(buffer, offset, length);
+      count += length;
+    }
+  }
+}
@@ -0,0 +1,368 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Invocation;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.jboss.resteasy.client.jaxrs.internal.ClientResponse;
+import org.jboss.resteasy.util.CaseInsensitiveMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * RESTEasy engine on the JDK {@link HttpClient}. With HTTP/2 all requests to a
+ * host are multiplexed as streams over one connection with compressed headers,
+ * so the startup loads do not wait for free connections; servers that do not
+ * offer HTTP/2 are talked to with HTTP/1.1. Like {@link CancellableHttpEngine}
+ * it lets a {@link CancellationToken} abort the request of the current thread
+ * and applies the {@link AdaptiveTimeout}, here as time until the response
+ * headers and as longest pause while the body is read; a stalled body aborts
+ * the exchange with a {@link SocketTimeoutException} like a socket timeout of
+ * the Apache client. The JDK client does not decode compressed responses, so
+ * gzip and deflate are requested and decoded here if enabled.
+ */
+class JdkHttpClientEngine implements ClientHttpEngine {
+
+  private static final Logger logger = LoggerFactory.getLogger(JdkHttpClientEngine.class);
+
+  // Headers set by the JDK client itself, which it does not allow to be set
+  private static final Set<String> RESTRICTED_HEADERS = caseInsensitiveSet(
+      "Connection", "Content-Length", "Expect", "Host", "Upgrade");
+
+  private final HttpClient httpClient;
+  // Aborts response bodies that stopped arriving
+  private final ScheduledExecutorService readTimeouts;
+  private final long readTimeoutMillis;
+  private final boolean decompress;
+  private final MetricsRegistry metrics;
+
+  /**
+   * @param version preferred protocol version
+   * @param readTimeoutMillis time to wait for the response headers, and for each part of the
+   *                          body, if no adaptive timeout is set
+   * @param decompress whether gzip and deflate encoded responses are requested and decoded
+   */
+  JdkHttpClientEngine(HttpClient.Version version, long connectTimeoutMillis, long readTimeoutMillis,
+                      boolean decompress, MetricsRegistry metrics) {
+    this.httpClient = HttpClient.newBuilder()
+        .version(version)
+        .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+    ScheduledThreadPoolExecutor timeoutExecutor =
+        new ScheduledThreadPoolExecutor(1, LoadExecutors.daemonThreadFactory("mrp-http-read-timeout"));
+    timeoutExecutor.setRemoveOnCancelPolicy(true);
+    this.readTimeouts = timeoutExecutor;
+    this.readTimeoutMillis = readTimeoutMillis;
+    this.decompress = decompress;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public Response invoke(Invocation invocation) {
+    ClientInvocation request = (ClientInvocation) invocation;
+    long timeoutMillis = AdaptiveTimeout.currentTimeoutMillis();
+    if (timeoutMillis <= 0) {
+      timeoutMillis = readTimeoutMillis;
+    }
+    HttpRequest httpRequest = createRequest(request, timeoutMillis);
+    CompletableFuture<HttpResponse<InputStream>> future =
+        httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+    CancellationToken.onCancelCurrent(() -> {
+      future.cancel(true);
+      // Closing the body stream aborts a response that is still being received
+      future.thenAccept(response -> closeQuietly(response.body()));
+    });
+    HttpResponse<InputStream> httpResponse;
+    try {
+      httpResponse = future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ProcessingException("Request interrupted: " + httpRequest.uri(), e);
+    } catch (CancellationException e) {
+      throw new ProcessingException("Request cancelled: " + httpRequest.uri(), e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      throw new ProcessingException("Unable to invoke request: " + cause, cause);
+    }
+    metrics.counter("http.protocol." + httpResponse.version()).increment();
+    return createResponse(request, httpResponse, timeoutMillis);
+  }
+
+  private HttpRequest createRequest(ClientInvocation request, long timeoutMillis) {
+    HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.noBody();
+    if (request.getEntity() != null) {
+      // Serialized first, so interceptors can still change the headers
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      request.getDelegatingOutputStream().setDelegate(buffer);
+      try {
+        request.writeRequestBody(request.getEntityStream());
+      } catch (IOException e) {
+        throw new ProcessingException("Unable to write request body: " + e, e);
+      }
+      body = HttpRequest.BodyPublishers.ofByteArray(buffer.toByteArray());
+    }
+
+    HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri())
+        .method(request.getMethod(), body)
+        .timeout(Duration.ofMillis(timeoutMillis));
+    for (Map.Entry<String, List<String>> header : request.getHeaders().asMap().entrySet()) {
+      if (RESTRICTED_HEADERS.contains(header.getKey())) {
+        continue;
+      }
+      for (String value : header.getValue()) {
+        builder.header(header.getKey(), value);
+      }
+    }
+    if (decompress && request.getHeaders().getHeader(HttpHeaders.ACCEPT_ENCODING) == null) {
+      builder.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+    }
+    return builder.build();
+  }
+
+  private ClientResponse createResponse(ClientInvocation request, HttpResponse<InputStream> httpResponse,
+                                        long timeoutMillis) {
+    MultivaluedMap<String, String> headers = new CaseInsensitiveMap<>();
+    httpResponse.headers().map().forEach((name, values) -> {
+      if (!name.startsWith(":")) {
+        headers.addAll(name, values);
+      }
+    });
+    String contentEncoding = decompress ? headers.getFirst(HttpHeaders.CONTENT_ENCODING) : null;
+    if (contentEncoding != null) {
+      // Decoded below, like the Apache client does
+      headers.remove(HttpHeaders.CONTENT_ENCODING);
+      headers.remove(HttpHeaders.CONTENT_LENGTH);
+    }
+
+    ClientResponse response = new ClientResponse(request.getClientConfiguration(), request.getTracingLogger()) {
+      private InputStream stream;
+
+      @Override
+      protected InputStream getInputStream() {
+        if (stream == null) {
+          try {
+            stream = decode(new ReadTimeoutInputStream(httpResponse.body(), timeoutMillis), contentEncoding);
+          } catch (IOException e) {
+            throw new ProcessingException("Unable to read response body: " + e, e);
+          }
+        }
+        return stream;
+      }
+
+      @Override
+      protected void setInputStream(InputStream is) {
+        stream = is;
+      }
+
+      @Override
+      public void releaseConnection() throws IOException {
+        releaseConnection(false);
+      }
+
+      @Override
+      public void releaseConnection(boolean consumeInputStream) throws IOException {
+        // Closing the body returns an HTTP/1.1 connection to the pool or ends the HTTP/2 stream;
+        // the stream may be a decoder or a buffered copy of it
+        if (stream != null) {
+          closeQuietly(stream);
+        }
+        closeQuietly(httpResponse.body());
+      }
+    };
+    response.setStatus(httpResponse.statusCode());
+    response.setHeaders(headers);
+    return response;
+  }
+
+  /**
+   * Wraps the body in a decoder for the content encoding; empty bodies are returned as they are
+   */
+  private static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+    if (contentEncoding == null) {
+      return body;
+    }
+    PushbackInputStream in = new PushbackInputStream(body, 1);
+    int first = in.read();
+    if (first < 0) {
+      return in;
+    }
+    in.unread(first);
+    switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(in);
+      case "deflate":
+        return new InflaterInputStream(in);
+      default:
+        logger.warn("Unsupported content encoding '{}', passing the body on undecoded", contentEncoding);
+        return in;
+    }
+  }
+
+  private static void closeQuietly(InputStream in) {
+    try {
+      in.close();
+    } catch (IOException e) {
+      logger.debug("Error closing response body: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Response body that is aborted if a read waits longer than the timeout for data
+   */
+  private final class ReadTimeoutInputStream extends FilterInputStream {
+
+    private final long timeoutMillis;
+    private volatile boolean timedOut;
+
+    ReadTimeoutInputStream(InputStream in, long timeoutMillis) {
+      super(in);
+      this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public int read() throws IOException {
+      ScheduledFuture<?> abort = scheduleAbort();
+      try {
+        return super.read();
+      } catch (IOException e) {
+        throw timedOut ? timeout(e) : e;
+      } finally {
+        cancel(abort);
+      }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      ScheduledFuture<?> abort = scheduleAbort();
+      try {
+        return super.read(buffer, offset, length);
+      } catch (IOException e) {
+        throw timedOut ? timeout(e) : e;
+      } finally {
+        cancel(abort);
+      }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      ScheduledFuture<?> abort = scheduleAbort();
+      try {
+        return super.skip(n);
+      } catch (IOException e) {
+        throw timedOut ? timeout(e) : e;
+      } finally {
+        cancel(abort);
+      }
+    }
+
+    private ScheduledFuture<?> scheduleAbort() throws IOException {
+      if (timedOut) {
+        throw timeout(null);
+      }
+      try {
+        return readTimeouts.schedule(() -> {
+          timedOut = true;
+          // Closing the body cancels the HTTP/2 stream or closes the HTTP/1.1 connection
+          closeQuietly(in);
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        // Engine closed, read without a timeout
+        return null;
+      }
+    }
+
+    private void cancel(ScheduledFuture<?> abort) {
+      if (abort != null) {
+        abort.cancel(false);
+      }
+    }
+
+    private SocketTimeoutException timeout(IOException cause) {
+      SocketTimeoutException timeout = new SocketTimeoutException("Read timed out after " + timeoutMillis + " ms");
+      if (cause != null) {
+        timeout.initCause(cause);
+      }
+      return timeout;
+    }
+  }
+
+  private static Set<String> caseInsensitiveSet(String... values) {
+    Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    set.addAll(List.of(values));
+    return set;
+  }
+
+  @Override
+  public SSLContext getSslContext() {
+    return httpClient.sslContext();
+  }
+
+  @Override
+  public HostnameVerifier getHostnameVerifier() {
+    // The JDK client always verifies host names against the certificate
+    return null;
+  }
+
+  @Override
+  public boolean isFollowRedirects() {
+    return false;
+  }
+
+  @Override
+  public void setFollowRedirects(boolean followRedirects) {
+    if (followRedirects) {
+      logger.warn("Redirects are not followed by the JDK HTTP client engine");
+    }
+  }
+
+  /**
+   * Closes the connections on Java 21+, where the JDK client can be closed;
+   * before, they are closed once the client is garbage collected
+   */
+  @Override
+  public void close() {
+    readTimeouts.shutdownNow();
+    if (httpClient instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) httpClient).close();
+      } catch (Exception e) {
+        logger.debug("Error closing JDK HTTP client: {}", e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors for blocking service calls, keeping them off the common ForkJoinPool
+ */
+public final class LoadExecutors {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoadExecutors.class);
+
+  private LoadExecutors() {
+    // prevent instantiation
+  }
+
+  /**
+   * Creates the default executor: one virtual thread per task when the runtime
+   * supports it (Java 21+), otherwise a cached pool of daemon threads.
+   * Virtual threads can be disabled with -Dmrp.load.virtualThreads=false.
+   */
+  public static ExecutorService newDefaultExecutor() {
+    if (Boolean.parseBoolean(System.getProperty("mrp.load.virtualThreads", "true"))) {
+      try {
+        Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        ExecutorService executor = (ExecutorService) factory.invoke(null);
+        logger.info("Using virtual threads for service calls");
+        return executor;
+      } catch (ReflectiveOperationException e) {
+        logger.debug("Virtual threads not available on this runtime");
+      }
+    }
+    logger.info("Using cached daemon thread pool for service calls");
+    return Executors.newCachedThreadPool(daemonThreadFactory("mrp-load"));
+  }
+
+  /**
+   * Creates a thread factory for named daemon threads
+   */
+  public static ThreadFactory daemonThreadFactory(String prefix) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
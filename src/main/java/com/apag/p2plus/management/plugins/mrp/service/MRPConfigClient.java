@@ -4,15 +4,20 @@ import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
 import com.apag.p2plus.management.plugins.mrp.model.Scenario;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * JAX-RS Client Interface for MRP Configuration APIs
@@ -30,6 +35,33 @@ public interface MRPConfigClient {
   @Path("/scenarios")
   List<Scenario> getScenarios();
 
+  /**
+   * Loads one page of the scenarios matching a search term. The total number
+   * of matching scenarios is returned in the X-Total-Count header.
+   * 
+   * @param offset index of the first scenario to return
+   * @param limit maximum number of scenarios to return
+   * @param search case-insensitive term matched against ID and description, or null for all
+   * @return Response with the scenarios of the page
+   */
+  @GET
+  @Path("/scenarios")
+  Response getScenarioPage(@QueryParam("offset") int offset,
+                           @QueryParam("limit") int limit,
+                           @QueryParam("search") String search);
+
+  /**
+   * Loads all available scenarios if they changed since the given validators
+   * 
+   * @param ifNoneMatch ETag of the locally held list, or null
+   * @param ifModifiedSince Last-Modified date of the locally held list, or null
+   * @return Response with the scenario list (200) or without body (304)
+   */
+  @GET
+  @Path("/scenarios")
+  Response getScenariosConditional(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                   @HeaderParam(HttpHeaders.IF_MODIFIED_SINCE) String ifModifiedSince);
+
   /**
    * Loads technical configuration items
    * 
@@ -39,6 +71,18 @@ public interface MRPConfigClient {
   @Path("/technical")
   List<ConfigItem> getTechnicalConfig();
 
+  /**
+   * Loads technical configuration items if they changed since the given validators
+   * 
+   * @param ifNoneMatch ETag of the locally held configuration, or null
+   * @param ifModifiedSince Last-Modified date of the locally held configuration, or null
+   * @return Response with the configuration items (200) or without body (304)
+   */
+  @GET
+  @Path("/technical")
+  Response getTechnicalConfigConditional(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                         @HeaderParam(HttpHeaders.IF_MODIFIED_SINCE) String ifModifiedSince);
+
   /**
    * Loads operational configuration items for a specific scenario
    * 
@@ -49,6 +93,32 @@ public interface MRPConfigClient {
   @Path("/operational/{scenarioId}")
   List<ConfigItem> getOperationalConfig(@PathParam("scenarioId") String scenarioId);
 
+  /**
+   * Loads operational configuration items for a specific scenario if they
+   * changed since the given validators
+   * 
+   * @param scenarioId ID of the scenario
+   * @param ifNoneMatch ETag of the locally held configuration, or null
+   * @param ifModifiedSince Last-Modified date of the locally held configuration, or null
+   * @return Response with the configuration items (200) or without body (304)
+   */
+  @GET
+  @Path("/operational/{scenarioId}")
+  Response getOperationalConfigConditional(@PathParam("scenarioId") String scenarioId,
+                                           @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+                                           @HeaderParam(HttpHeaders.IF_MODIFIED_SINCE) String ifModifiedSince);
+
+  /**
+   * Loads operational configuration items for several scenarios in one request
+   * 
+   * @param scenarioIds IDs of the scenarios
+   * @return Configuration items by scenario ID; unknown scenarios are omitted
+   */
+  @POST
+  @Path("/operational/batch")
+  @Consumes(MediaType.APPLICATION_JSON)
+  Map<String, List<ConfigItem>> getOperationalConfigs(List<String> scenarioIds);
+
   /**
    * Saves technical configuration items
    * 
@@ -59,6 +129,38 @@ public interface MRPConfigClient {
   @Consumes(MediaType.APPLICATION_JSON)
   void saveTechnicalConfig(List<ConfigItem> configItems);
 
+  /**
+   * Updates only the given technical configuration items
+   * 
+   * @param changedItems Configuration items that changed
+   */
+  @PATCH
+  @Path("/technical")
+  @Consumes(MediaType.APPLICATION_JSON)
+  void patchTechnicalConfig(List<ConfigItem> changedItems);
+
+  /**
+   * Saves operational configuration items for a specific scenario
+   * 
+   * @param scenarioId ID of the scenario
+   * @param configItems List of configuration items to save
+   */
+  @PUT
+  @Path("/operational/{scenarioId}")
+  @Consumes(MediaType.APPLICATION_JSON)
+  void saveOperationalConfig(@PathParam("scenarioId") String scenarioId, List<ConfigItem> configItems);
+
+  /**
+   * Updates only the given operational configuration items of a scenario
+   * 
+   * @param scenarioId ID of the scenario
+   * @param changedItems Configuration items that changed
+   */
+  @PATCH
+  @Path("/operational/{scenarioId}")
+  @Consumes(MediaType.APPLICATION_JSON)
+  void patchOperationalConfig(@PathParam("scenarioId") String scenarioId, List<ConfigItem> changedItems);
+
   /**
    * Creates a new scenario
    * 
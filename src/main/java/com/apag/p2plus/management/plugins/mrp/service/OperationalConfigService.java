@@ -1,16 +1,46 @@
 package com.apag.p2plus.management.plugins.mrp.service;
 
 import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigSchema;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigValues;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
- * Service for loading operational configuration
+ * Service for loading and saving operational configuration. Configurations
+ * of all scenarios are cached as {@link ConfigValues} sharing an interned
+ * {@link ConfigSchema}, so only their values are stored per scenario.
  */
 public class OperationalConfigService extends BaseConfigService<ConfigItem> {
 
+  private static final Logger logger = LoggerFactory.getLogger(OperationalConfigService.class);
+  private static final String ENDPOINT = "operational";
+  private static final String BATCH_METRIC = "operational.batch";
+  private static final int MAX_BATCH_SIZE = 100;
+
+  private final DeltaSave deltaSave = new DeltaSave(ENDPOINT);
+  private final SchemaRegistry schemaRegistry = new SchemaRegistry();
+  private volatile boolean batchSupported = true;
+  private final AtomicInteger userLoadsInFlight = new AtomicInteger();
+
+  public OperationalConfigService(ServiceContext context) {
+    super(context, ENDPOINT);
+  }
+
   @Override
   public List<ConfigItem> load() {
     throw new UnsupportedOperationException("Use load(String scenarioId) instead");
@@ -22,25 +52,316 @@ public class OperationalConfigService extends BaseConfigService<ConfigItem> {
   }
 
   /**
-   * Loads operational configuration for a specific scenario
+   * Loads operational configuration for a specific scenario.
+   * Results are cached per scenario ID.
    */
   public List<ConfigItem> load(String scenarioId) {
-    return loadConfig(() -> configClient.getOperationalConfig(scenarioId));
+    return loadConfig(ENDPOINT, scenarioId, () -> fetchOperationalConfig(scenarioId));
+  }
+
+  /**
+   * Loads the operational configuration of a scenario from the server without
+   * falling back to snapshot or fallback data, see {@link #loadFromServer}
+   */
+  public List<ConfigItem> loadFromServer(String scenarioId) {
+    return loadFromServer(ENDPOINT, scenarioId, () -> fetchOperationalConfig(scenarioId));
   }
 
   /**
    * Loads operational configuration asynchronously for a specific scenario
    */
   public CompletableFuture<List<ConfigItem>> loadAsync(String scenarioId) {
-    return loadConfigAsync(() -> configClient.getOperationalConfig(scenarioId));
+    return loadAsync(scenarioId, null);
+  }
+
+  /**
+   * Loads operational configuration asynchronously for a specific scenario.
+   * If the configuration has to be requested, parsed items are passed to the
+   * chunk listener on a worker thread while the response is still being received.
+   * 
+   * @param chunkListener receives consecutive chunks of items, or null
+   */
+  public CompletableFuture<List<ConfigItem>> loadAsync(String scenarioId, Consumer<List<ConfigItem>> chunkListener) {
+    CompletableFuture<List<ConfigItem>> load = loadConfigAsync(ENDPOINT, scenarioId,
+        listener -> fetchOperationalConfig(scenarioId, listener), chunkListener);
+    if (!load.isDone()) {
+      userLoadsInFlight.incrementAndGet();
+      load.whenComplete((items, throwable) -> userLoadsInFlight.decrementAndGet());
+    }
+    return load;
+  }
+
+  /**
+   * Loads the operational configuration of a scenario from the server into the
+   * cache in the background. Unlike {@link #loadAsync(String)} this is not
+   * counted as a user load, see {@link #getUserLoadsInFlight()}, and the future
+   * fails instead of returning snapshot or fallback data.
+   */
+  public CompletableFuture<List<ConfigItem>> prefetch(String scenarioId) {
+    return loadFromServerAsync(ENDPOINT, scenarioId, () -> fetchOperationalConfig(scenarioId));
+  }
+
+  /**
+   * Returns whether operational configurations can be requested, i.e. the
+   * circuit breaker of the endpoint is closed
+   */
+  public boolean isAvailable() {
+    return isAvailable(ENDPOINT);
+  }
+
+  /**
+   * Returns whether the configuration of a scenario is cached and has not expired
+   */
+  public boolean isCached(String scenarioId) {
+    return isFresh(scenarioId);
+  }
+
+  /**
+   * Returns the number of loads requested via {@link #loadAsync(String)} that
+   * are still waiting for the server
+   */
+  public int getUserLoadsInFlight() {
+    return userLoadsInFlight.get();
+  }
+
+  private List<ConfigItem> fetchOperationalConfig(String scenarioId) {
+    return fetchOperationalConfig(scenarioId, null);
+  }
+
+  private List<ConfigItem> fetchOperationalConfig(String scenarioId, Consumer<List<ConfigItem>> chunkListener) {
+    return validators.fetchStream(validatorKey(scenarioId),
+        (ifNoneMatch, ifModifiedSince) -> configClient.getOperationalConfigConditional(scenarioId, ifNoneMatch, ifModifiedSince),
+        (in, format) -> schemaRegistry.compact(ConfigItemStreamReader.read(in, format, chunkListener)));
+  }
+
+  /**
+   * Loads the operational configurations of several scenarios. Scenarios that
+   * are not cached are requested together via the batch endpoint, at most
+   * {@value #MAX_BATCH_SIZE} per request. If the server does not offer the
+   * batch endpoint, or a scenario is missing in its response, the scenarios
+   * are loaded with single requests that run in parallel within the endpoint
+   * limit and fall back like {@link #loadAsync(String)}.
+   * 
+   * @param scenarioIds IDs of the scenarios
+   * @return Configuration items by scenario ID, in the order of the given IDs
+   */
+  public CompletableFuture<Map<String, List<ConfigItem>>> loadAllAsync(Collection<String> scenarioIds) {
+    Map<String, List<ConfigItem>> loaded = new LinkedHashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (String scenarioId : new LinkedHashSet<>(scenarioIds)) {
+      List<ConfigItem> cached = getFresh(scenarioId);
+      loaded.put(scenarioId, cached);
+      if (cached == null) {
+        missing.add(scenarioId);
+      }
+    }
+
+    List<CompletableFuture<Map<String, List<ConfigItem>>>> requests = new ArrayList<>();
+    for (int start = 0; start < missing.size(); start += MAX_BATCH_SIZE) {
+      List<String> batch = missing.subList(start, Math.min(start + MAX_BATCH_SIZE, missing.size()));
+      requests.add(loadBatchAsync(new ArrayList<>(batch)));
+    }
+
+    return CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      for (CompletableFuture<Map<String, List<ConfigItem>>> request : requests) {
+        loaded.putAll(request.join());
+      }
+      return loaded;
+    });
+  }
+
+  private CompletableFuture<Map<String, List<ConfigItem>>> loadBatchAsync(List<String> scenarioIds) {
+    if (!batchSupported) {
+      return loadEachAsync(scenarioIds);
+    }
+    return CompletableFuture.supplyAsync(() -> fetchBatch(scenarioIds), executor)
+        .handle((batch, throwable) -> {
+          if (throwable != null) {
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+            if (isBatchUnsupported(cause)) {
+              batchSupported = false;
+              logger.info("Batch endpoint not available, loading scenarios with single requests");
+            } else {
+              recordLoadError(BATCH_METRIC);
+              logger.warn("Batch load of {} scenarios failed, loading them one by one: {}",
+                  scenarioIds.size(), cause.getMessage());
+            }
+            return loadEachAsync(scenarioIds);
+          }
+          List<String> omitted = new ArrayList<>();
+          for (String scenarioId : scenarioIds) {
+            if (!batch.containsKey(scenarioId)) {
+              omitted.add(scenarioId);
+            }
+          }
+          return omitted.isEmpty()
+              ? CompletableFuture.completedFuture(batch)
+              : loadEachAsync(omitted).thenApply(single -> {
+                  batch.putAll(single);
+                  return batch;
+                });
+        })
+        .thenCompose(future -> future);
+  }
+
+  private Map<String, List<ConfigItem>> fetchBatch(List<String> scenarioIds) {
+    Map<String, List<ConfigItem>> response;
+    long start = System.nanoTime();
+    try {
+      response = callEndpoint(ENDPOINT, "http." + BATCH_METRIC + ".POST", () -> configClient.getOperationalConfigs(scenarioIds));
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    }
+    metrics.timer("service." + BATCH_METRIC + ".load").recordSince(start);
+    Map<String, List<ConfigItem>> batch = new LinkedHashMap<>();
+    for (String scenarioId : scenarioIds) {
+      List<ConfigItem> items = response != null ? response.get(scenarioId) : null;
+      if (items != null) {
+        ConfigValues compact = schemaRegistry.compact(items);
+        storeLoaded(scenarioId, compact);
+        batch.put(scenarioId, compact);
+      }
+    }
+    logger.debug("Loaded {} of {} scenarios with one batch request", batch.size(), scenarioIds.size());
+    return batch;
+  }
+
+  /**
+   * Loads the scenarios with single requests, keeping at most as many loads
+   * outstanding as the endpoint limit allows; each finished load starts the
+   * next one, so waiting requests never queue up in the limiter.
+   */
+  private CompletableFuture<Map<String, List<ConfigItem>>> loadEachAsync(List<String> scenarioIds) {
+    Map<String, List<ConfigItem>> loaded = new ConcurrentHashMap<>();
+    AtomicInteger next = new AtomicInteger();
+    int window = Math.min(Math.max(1, endpointLimiter.getMaxConcurrentPerEndpoint()), scenarioIds.size());
+    CompletableFuture<?>[] lanes = new CompletableFuture<?>[window];
+    for (int i = 0; i < window; i++) {
+      lanes[i] = loadRemaining(scenarioIds, next, loaded);
+    }
+    return CompletableFuture.allOf(lanes).thenApply(ignored -> {
+      Map<String, List<ConfigItem>> result = new LinkedHashMap<>();
+      for (String scenarioId : scenarioIds) {
+        result.put(scenarioId, loaded.get(scenarioId));
+      }
+      return result;
+    });
+  }
+
+  private CompletableFuture<Void> loadRemaining(List<String> scenarioIds, AtomicInteger next,
+                                                Map<String, List<ConfigItem>> loaded) {
+    int index = next.getAndIncrement();
+    if (index >= scenarioIds.size()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    String scenarioId = scenarioIds.get(index);
+    return loadAsync(scenarioId)
+        .thenAccept(items -> {
+          if (items != null) {
+            loaded.put(scenarioId, items);
+          }
+        })
+        .thenCompose(ignored -> loadRemaining(scenarioIds, next, loaded));
+  }
+
+  private static boolean isBatchUnsupported(Throwable throwable) {
+    if (!(throwable instanceof WebApplicationException)) {
+      return false;
+    }
+    int status = ((WebApplicationException) throwable).getResponse().getStatus();
+    return status == Response.Status.NOT_FOUND.getStatusCode()
+        || status == Response.Status.METHOD_NOT_ALLOWED.getStatusCode()
+        || status == Response.Status.NOT_IMPLEMENTED.getStatusCode();
+  }
+
+  @Override
+  protected List<ConfigItem> readSnapshot(String cacheKey) {
+    List<ConfigItem> items = snapshotStore.getConfigItems(ENDPOINT + "/" + cacheKey);
+    return items != null ? schemaRegistry.compact(items) : null;
+  }
+
+  @Override
+  protected void writeSnapshot(String cacheKey, List<ConfigItem> items) {
+    snapshotStore.putConfigItems(ENDPOINT + "/" + cacheKey, items);
+  }
+
+  @Override
+  protected void removeSnapshot(String cacheKey) {
+    snapshotStore.remove(ENDPOINT + "/" + cacheKey);
+  }
+
+  @Override
+  protected String validatorKey(String cacheKey) {
+    return ENDPOINT + "/" + cacheKey;
+  }
+
+  /**
+   * Returns the number of distinct configuration layouts among the loaded scenarios
+   */
+  public int getSchemaCount() {
+    return schemaRegistry.getSchemaCount();
   }
 
   @Override
   protected List<ConfigItem> createFallbackConfig() {
     List<ConfigItem> fallbackConfig = new ArrayList<>();
-    fallbackConfig.add(new ConfigItem("batchSize", "string", "1000", "Batch size"));
+    fallbackConfig.add(new ConfigItem("batchSize", "int", 1000, "Batch size"));
     fallbackConfig.add(new ConfigItem("enableLogging", "boolean", true, "Enable logging"));
-    fallbackConfig.add(new ConfigItem("retryCount", "string", "3", "Retry count"));
+    fallbackConfig.add(new ConfigItem("retryCount", "int", 3, "Retry count"));
     return fallbackConfig;
   }
-}
\ No newline at end of file
+
+  /**
+   * Saves only the changed operational configuration items of a scenario.
+   * Falls back to saving the full configuration if the server does not
+   * accept deltas.
+   * 
+   * @param scenarioId ID of the scenario
+   * @param changedItems Configuration items that changed
+   */
+  public void saveOperationalChanges(String scenarioId, List<ConfigItem> changedItems) {
+    if (changedItems.isEmpty()) {
+      return;
+    }
+    try {
+      writeOperationalChanges(scenarioId, new ConfigChanges(changedItems));
+    } catch (Exception e) {
+      metrics.counter("service." + ENDPOINT + ".saveErrors").increment();
+      logger.error("Error saving operational configuration for '{}'", scenarioId, e);
+      throw new RuntimeException("Failed to save operational configuration: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Saves only the changed operational configuration items of a scenario in
+   * the background, see {@link WriteBehindQueue}. Changes saved while an
+   * earlier save of the scenario is queued or waiting for a retry are sent
+   * together with it.
+   * 
+   * @param scenarioId ID of the scenario
+   * @param changedItems Configuration items that changed
+   * @return future completed once the changes are saved, or failed with a RuntimeException
+   */
+  public CompletableFuture<Void> saveOperationalChangesAsync(String scenarioId, List<ConfigItem> changedItems) {
+    if (changedItems.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return writeBehind(ENDPOINT, ENDPOINT + ":" + scenarioId, new ConfigChanges(changedItems),
+        ConfigChanges::merge, changes -> {
+          writeOperationalChanges(scenarioId, changes);
+          return null;
+        }, true, "save operational configuration");
+  }
+
+  private void writeOperationalChanges(String scenarioId, ConfigChanges changes) {
+    logger.info("Saving {} changed operational configuration items for '{}'", changes.getChangedItems().size(), scenarioId);
+    deltaSave.save(changes.getChangedItems(),
+        items -> configClient.patchOperationalConfig(scenarioId, items),
+        items -> configClient.saveOperationalConfig(scenarioId, items),
+        () -> loadFromServer(scenarioId));
+    invalidate(scenarioId);
+    logger.info("Operational configuration for '{}' saved successfully", scenarioId);
+  }
+}
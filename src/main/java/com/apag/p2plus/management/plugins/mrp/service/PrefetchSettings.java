@@ -0,0 +1,66 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Settings for prefetching operational configurations of likely next scenarios.
+ * Values are read from system properties (e.g. -Dmrp.prefetch.maxScenarios=4).
+ */
+public class PrefetchSettings {
+
+  private static final String PREFIX = "mrp.prefetch.";
+
+  private final boolean enabled;
+  private final int maxScenarios;
+  private final int recentCount;
+  private final int neighbours;
+
+  /**
+   * @param enabled whether scenarios are prefetched at all
+   * @param maxScenarios maximum number of scenarios queued for prefetching at a time
+   * @param recentCount number of most recently used scenarios remembered across sessions
+   * @param neighbours number of scenarios before and after the selection to prefetch
+   */
+  public PrefetchSettings(boolean enabled, int maxScenarios, int recentCount, int neighbours) {
+    this.enabled = enabled;
+    this.maxScenarios = maxScenarios;
+    this.recentCount = recentCount;
+    this.neighbours = neighbours;
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing values
+   */
+  public static PrefetchSettings fromSystemProperties() {
+    return new PrefetchSettings(
+        Boolean.parseBoolean(System.getProperty(PREFIX + "enabled", "true")),
+        SettingsSupport.intProperty(PREFIX + "maxScenarios", 6),
+        SettingsSupport.intProperty(PREFIX + "recentCount", 10),
+        SettingsSupport.intProperty(PREFIX + "neighbours", 2)
+    );
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public int getMaxScenarios() {
+    return maxScenarios;
+  }
+
+  public int getRecentCount() {
+    return recentCount;
+  }
+
+  public int getNeighbours() {
+    return neighbours;
+  }
+
+  @Override
+  public String toString() {
+    return "PrefetchSettings{" +
+           "enabled=" + enabled +
+           ", maxScenarios=" + maxScenarios +
+           ", recentCount=" + recentCount +
+           ", neighbours=" + neighbours +
+           '}';
+  }
+}
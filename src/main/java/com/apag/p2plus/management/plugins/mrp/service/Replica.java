@@ -0,0 +1,145 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.apag.p2plus.management.plugins.mrp.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One backend replica known to the {@link ReplicaRouter}: its API proxy, the
+ * smoothed latency and number of running requests used to choose it, and its
+ * health. A replica failing repeatedly because it is unreachable or overloaded
+ * is skipped for a while.
+ */
+class Replica {
+
+  private static final Logger logger = LoggerFactory.getLogger(Replica.class);
+
+  // Weight of the newest latency in the moving average
+  private static final double LATENCY_SMOOTHING = 0.2;
+  // A replica not used for this long is tried again regardless of its old latency
+  private static final long STALE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final String baseUrl;
+  private final String name;
+  private final MRPConfigClient client;
+  private final RoutingSettings settings;
+  private final Timer latency;
+  private final MetricsRegistry metrics;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private double averageLatencyMillis;
+  private boolean answered;
+  private long lastAnsweredNanos;
+  private int consecutiveFailures;
+  private long ejectedUntilNanos;
+
+  Replica(String baseUrl, MRPConfigClient client, RoutingSettings settings, MetricsRegistry metrics) {
+    this.baseUrl = baseUrl;
+    this.name = metricName(baseUrl);
+    this.client = client;
+    this.settings = settings;
+    this.metrics = metrics;
+    this.latency = metrics.timer("replica." + name + ".latency");
+    metrics.gauge("replica." + name + ".healthy", () -> isHealthy(System.nanoTime()) ? 1 : 0);
+    metrics.gauge("replica." + name + ".inFlight", inFlight::get);
+  }
+
+  MRPConfigClient getClient() {
+    return client;
+  }
+
+  String getBaseUrl() {
+    return baseUrl;
+  }
+
+  /**
+   * Returns the latency recorded for the requests answered by this replica
+   */
+  Timer getLatency() {
+    return latency;
+  }
+
+  synchronized boolean isHealthy(long nowNanos) {
+    return ejectedUntilNanos == 0 || nowNanos - ejectedUntilNanos >= 0;
+  }
+
+  synchronized long getEjectedUntilNanos() {
+    return ejectedUntilNanos;
+  }
+
+  /**
+   * Returns the expected cost of sending a request here, lower is better:
+   * the smoothed latency scaled by the requests already running
+   */
+  synchronized double score(long nowNanos) {
+    double latencyMillis = answered && nowNanos - lastAnsweredNanos <= STALE_NANOS ? averageLatencyMillis : 0;
+    return (latencyMillis + 1) * (inFlight.get() + 1);
+  }
+
+  void onStart() {
+    inFlight.incrementAndGet();
+  }
+
+  void onSuccess(long durationNanos) {
+    inFlight.decrementAndGet();
+    latency.record(durationNanos);
+    double millis = durationNanos / 1_000_000.0;
+    boolean recovered;
+    synchronized (this) {
+      long now = System.nanoTime();
+      averageLatencyMillis = answered && now - lastAnsweredNanos <= STALE_NANOS
+          ? averageLatencyMillis + LATENCY_SMOOTHING * (millis - averageLatencyMillis)
+          : millis;
+      answered = true;
+      lastAnsweredNanos = now;
+      recovered = ejectedUntilNanos != 0;
+      consecutiveFailures = 0;
+      ejectedUntilNanos = 0;
+    }
+    if (recovered) {
+      logger.info("Replica {} available again", baseUrl);
+    }
+  }
+
+  /**
+   * Records a request that failed because the replica was unreachable or overloaded
+   */
+  void onFailure() {
+    inFlight.decrementAndGet();
+    metrics.counter("replica." + name + ".failures").increment();
+    boolean ejected = false;
+    synchronized (this) {
+      consecutiveFailures++;
+      if (consecutiveFailures >= settings.getEjectAfterFailures()) {
+        ejected = ejectedUntilNanos == 0;
+        ejectedUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getEjectMillis());
+      }
+    }
+    if (ejected) {
+      logger.warn("Replica {} unavailable after {} failed requests, skipping it for {} ms",
+          baseUrl, settings.getEjectAfterFailures(), settings.getEjectMillis());
+    }
+  }
+
+  /**
+   * Records a request that was cancelled before the replica answered
+   */
+  void onCancelled() {
+    inFlight.decrementAndGet();
+  }
+
+  @Override
+  public String toString() {
+    return baseUrl;
+  }
+
+  private static String metricName(String baseUrl) {
+    URI uri = URI.create(baseUrl);
+    String name = uri.getHost() != null ? uri.getHost() + (uri.getPort() > 0 ? "_" + uri.getPort() : "") : baseUrl;
+    return name.replaceAll("[^A-Za-z0-9.-]", "_");
+  }
+}
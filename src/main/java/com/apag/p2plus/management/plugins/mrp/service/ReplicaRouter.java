@@ -0,0 +1,423 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.apag.p2plus.management.plugins.mrp.metrics.Timer;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * API client spreading the requests across several replicas of the backend.
+ * Every request goes to the healthy replica with the lowest smoothed latency,
+ * weighted by the requests already running there; replicas that failed
+ * repeatedly are skipped for a while, see {@link Replica}.
+ * Reads are repeated on another replica if the chosen one is unreachable or
+ * overloaded. GETs are hedged: if the chosen replica has not answered within
+ * the 95th percentile of its latency, the request is also sent to the next
+ * best replica, the first answer is used and the other request aborted. Hedges
+ * are limited to a share of the reads, so a slow backend does not get twice the
+ * load. Writes go to a single replica; the write-behind queue retries them.
+ */
+class ReplicaRouter implements MRPConfigClient, AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaRouter.class);
+
+  // Hedges that can be saved up while the replicas answer fast
+  private static final double MAX_HEDGE_CREDIT = 10;
+
+  private final List<Replica> replicas;
+  private final RoutingSettings settings;
+  private final MetricsRegistry metrics;
+  private final ExecutorService hedgeExecutor;
+  private final ScheduledExecutorService hedgeTimer;
+  private final AtomicInteger nextStart = new AtomicInteger();
+  private double hedgeCredit;
+
+  ReplicaRouter(List<Replica> replicas, RoutingSettings settings, MetricsRegistry metrics) {
+    if (replicas.isEmpty()) {
+      throw new IllegalArgumentException("No replicas to route to");
+    }
+    this.replicas = List.copyOf(replicas);
+    this.settings = settings;
+    this.metrics = metrics;
+    this.hedgeExecutor = Executors.newCachedThreadPool(LoadExecutors.daemonThreadFactory("mrp-hedge"));
+    this.hedgeTimer = Executors.newSingleThreadScheduledExecutor(LoadExecutors.daemonThreadFactory("mrp-hedge-timer"));
+    logger.info("Routing requests across {} with {}", this.replicas, settings);
+  }
+
+  @Override
+  public List<Scenario> getScenarios() {
+    return read(client -> client.getScenarios(), true);
+  }
+
+  @Override
+  public Response getScenarioPage(int offset, int limit, String search) {
+    return read(client -> client.getScenarioPage(offset, limit, search), true);
+  }
+
+  @Override
+  public Response getScenariosConditional(String ifNoneMatch, String ifModifiedSince) {
+    return read(client -> client.getScenariosConditional(ifNoneMatch, ifModifiedSince), true);
+  }
+
+  @Override
+  public List<ConfigItem> getTechnicalConfig() {
+    return read(client -> client.getTechnicalConfig(), true);
+  }
+
+  @Override
+  public Response getTechnicalConfigConditional(String ifNoneMatch, String ifModifiedSince) {
+    return read(client -> client.getTechnicalConfigConditional(ifNoneMatch, ifModifiedSince), true);
+  }
+
+  @Override
+  public List<ConfigItem> getOperationalConfig(String scenarioId) {
+    return read(client -> client.getOperationalConfig(scenarioId), true);
+  }
+
+  @Override
+  public Response getOperationalConfigConditional(String scenarioId, String ifNoneMatch, String ifModifiedSince) {
+    return read(client -> client.getOperationalConfigConditional(scenarioId, ifNoneMatch, ifModifiedSince), true);
+  }
+
+  @Override
+  public Map<String, List<ConfigItem>> getOperationalConfigs(List<String> scenarioIds) {
+    // Read-only, but a POST with a large body: failed over, not hedged
+    return read(client -> client.getOperationalConfigs(scenarioIds), false);
+  }
+
+  @Override
+  public void saveTechnicalConfig(List<ConfigItem> configItems) {
+    write(client -> {
+      client.saveTechnicalConfig(configItems);
+      return null;
+    });
+  }
+
+  @Override
+  public void patchTechnicalConfig(List<ConfigItem> changedItems) {
+    write(client -> {
+      client.patchTechnicalConfig(changedItems);
+      return null;
+    });
+  }
+
+  @Override
+  public void saveOperationalConfig(String scenarioId, List<ConfigItem> configItems) {
+    write(client -> {
+      client.saveOperationalConfig(scenarioId, configItems);
+      return null;
+    });
+  }
+
+  @Override
+  public void patchOperationalConfig(String scenarioId, List<ConfigItem> changedItems) {
+    write(client -> {
+      client.patchOperationalConfig(scenarioId, changedItems);
+      return null;
+    });
+  }
+
+  @Override
+  public Response createScenario(Scenario scenario) {
+    return write(client -> client.createScenario(scenario));
+  }
+
+  /**
+   * Stops the hedge threads; requests running on them are aborted
+   */
+  @Override
+  public void close() {
+    hedgeTimer.shutdownNow();
+    hedgeExecutor.shutdownNow();
+  }
+
+  private <R> R write(Function<MRPConfigClient, R> call) {
+    try {
+      return invoke(select(null), call);
+    } catch (UnavailableResponseException e) {
+      return e.getResult();
+    }
+  }
+
+  private <R> R read(Function<MRPConfigClient, R> call, boolean hedge) {
+    try {
+      return route(call, hedge);
+    } catch (UnavailableResponseException e) {
+      return e.getResult();
+    }
+  }
+
+  private <R> R route(Function<MRPConfigClient, R> call, boolean hedge) {
+    Replica primary = select(null);
+    Replica secondary = select(primary);
+    if (secondary == null) {
+      return invoke(primary, call);
+    }
+    long hedgeDelayMillis = hedge ? hedgeDelayMillis(primary) : -1;
+    if (hedgeDelayMillis >= 0) {
+      return hedged(primary, secondary, call, hedgeDelayMillis);
+    }
+    try {
+      return invoke(primary, call);
+    } catch (RuntimeException e) {
+      if (!canFailover(e)) {
+        throw e;
+      }
+      return failover(primary, secondary, call, e);
+    }
+  }
+
+  /**
+   * Sends the request to the primary replica and, if it has not answered after
+   * the delay, also to the secondary one; returns the first answer
+   */
+  private <R> R hedged(Replica primary, Replica secondary, Function<MRPConfigClient, R> call, long delayMillis) {
+    CancellationToken parent = CancellationToken.current();
+    CancellationToken primaryToken = new CancellationToken(parent);
+    CancellationToken hedgeToken = new CancellationToken(parent);
+    CompletableFuture<R> hedgeResult = new CompletableFuture<>();
+    // Set once the hedge is sent, or once the primary request ended without it
+    AtomicBoolean hedgeDecided = new AtomicBoolean();
+    long timeoutMillis = AdaptiveTimeout.currentTimeoutMillis();
+
+    ScheduledFuture<?> timer = hedgeTimer.schedule(() -> {
+      if (hedgeDecided.get() || !spendHedgeCredit()) {
+        return;
+      }
+      if (!hedgeDecided.compareAndSet(false, true)) {
+        return;
+      }
+      metrics.counter("hedge.sent").increment();
+      try {
+        hedgeExecutor.execute(() -> {
+          try {
+            R result = hedgeToken.callBound(
+                () -> AdaptiveTimeout.callWithTimeout(timeoutMillis, () -> invoke(secondary, call)));
+            if (hedgeResult.complete(result)) {
+              primaryToken.cancel();
+            } else {
+              discard(result);
+            }
+          } catch (Exception e) {
+            if (!hedgeResult.completeExceptionally(e)) {
+              discardFailure(e);
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        hedgeResult.completeExceptionally(e);
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+
+    R result;
+    try {
+      result = primaryToken.callBound(() -> invoke(primary, call));
+    } catch (Exception e) {
+      timer.cancel(false);
+      RuntimeException failure = asRuntimeException(e);
+      if (parent != null && parent.isCancelled()) {
+        throw failure;
+      }
+      if (hedgeDecided.compareAndSet(false, true)) {
+        // The hedge was not sent yet
+        if (!canFailover(failure)) {
+          throw failure;
+        }
+        return failover(primary, secondary, call, failure);
+      }
+      return awaitHedge(hedgeResult, hedgeToken, failure);
+    }
+    timer.cancel(false);
+    if (!hedgeDecided.compareAndSet(false, true)) {
+      hedgeToken.cancel();
+      if (!hedgeResult.completeExceptionally(new CancellationException("Primary request answered first"))) {
+        hedgeResult.thenAccept(this::discard);
+      }
+    }
+    return result;
+  }
+
+  private <R> R awaitHedge(CompletableFuture<R> hedgeResult, CancellationToken hedgeToken,
+                           RuntimeException primaryFailure) {
+    try {
+      R result = hedgeResult.get();
+      metrics.counter("hedge.won").increment();
+      discardFailure(primaryFailure);
+      return result;
+    } catch (InterruptedException e) {
+      hedgeToken.cancel();
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Load cancelled");
+    } catch (ExecutionException e) {
+      discardFailure(e.getCause());
+      throw primaryFailure;
+    }
+  }
+
+  private <R> R failover(Replica failed, Replica next, Function<MRPConfigClient, R> call, RuntimeException failure) {
+    logger.debug("Request to {} failed ({}), sending it to {}", failed, failure.getMessage(), next);
+    metrics.counter("replica.failovers").increment();
+    discardFailure(failure);
+    return invoke(next, call);
+  }
+
+  /**
+   * Sends the request to the replica and records the outcome in its health and latency
+   *
+   * @throws UnavailableResponseException if the replica returned a response with status 429 or 5xx
+   */
+  private <R> R invoke(Replica replica, Function<MRPConfigClient, R> call) {
+    long start = System.nanoTime();
+    replica.onStart();
+    R result;
+    try {
+      result = call.apply(replica.getClient());
+    } catch (RuntimeException e) {
+      if (CircuitBreaker.isCancellation(e)) {
+        replica.onCancelled();
+      } else if (CircuitBreaker.isUnavailable(e)) {
+        replica.onFailure();
+      } else {
+        // The replica answered, e.g. with 404
+        replica.onSuccess(System.nanoTime() - start);
+      }
+      throw e;
+    }
+    if (result instanceof Response && isUnavailableStatus(((Response) result).getStatus())) {
+      replica.onFailure();
+      throw new UnavailableResponseException((Response) result);
+    }
+    replica.onSuccess(System.nanoTime() - start);
+    return result;
+  }
+
+  /**
+   * Returns the healthy replica with the lowest score, or the one skipped the
+   * shortest if all are unhealthy; null if there is no other replica
+   *
+   * @param excluded replica not to choose, or null
+   */
+  private Replica select(Replica excluded) {
+    long now = System.nanoTime();
+    // Rotate the start, so replicas with equal scores take turns
+    int start = Math.floorMod(nextStart.getAndIncrement(), replicas.size());
+    Replica best = null;
+    double bestScore = 0;
+    Replica soonest = null;
+    for (int i = 0; i < replicas.size(); i++) {
+      Replica replica = replicas.get((start + i) % replicas.size());
+      if (replica == excluded) {
+        continue;
+      }
+      if (replica.isHealthy(now)) {
+        double score = replica.score(now);
+        if (best == null || score < bestScore) {
+          best = replica;
+          bestScore = score;
+        }
+      } else if (soonest == null || replica.getEjectedUntilNanos() - soonest.getEjectedUntilNanos() < 0) {
+        soonest = replica;
+      }
+    }
+    return best != null ? best : soonest;
+  }
+
+  /**
+   * Returns how long to wait for the replica before hedging, or -1 not to hedge
+   */
+  private long hedgeDelayMillis(Replica replica) {
+    if (!settings.isHedging()) {
+      return -1;
+    }
+    earnHedgeCredit();
+    Timer latency = replica.getLatency();
+    if (latency.getCount() < settings.getHedgeMinSamples()) {
+      return -1;
+    }
+    return Math.round(latency.getP95Millis());
+  }
+
+  private synchronized void earnHedgeCredit() {
+    hedgeCredit = Math.min(MAX_HEDGE_CREDIT, hedgeCredit + settings.getHedgeBudget());
+  }
+
+  private synchronized boolean spendHedgeCredit() {
+    if (hedgeCredit < 1) {
+      metrics.counter("hedge.overBudget").increment();
+      return false;
+    }
+    hedgeCredit--;
+    return true;
+  }
+
+  private static boolean canFailover(RuntimeException failure) {
+    return !CircuitBreaker.isCancellation(failure) && CircuitBreaker.isUnavailable(failure);
+  }
+
+  private static boolean isUnavailableStatus(int status) {
+    return status == 429 || status >= 500;
+  }
+
+  private static RuntimeException asRuntimeException(Exception e) {
+    if (e instanceof RuntimeException) {
+      return (RuntimeException) e;
+    }
+    CancellationException cancelled = new CancellationException(e.getMessage());
+    cancelled.initCause(e);
+    return cancelled;
+  }
+
+  /**
+   * Releases the connection of a response that is not used
+   */
+  private void discard(Object result) {
+    if (result instanceof Response) {
+      try {
+        ((Response) result).close();
+      } catch (RuntimeException e) {
+        logger.debug("Error closing unused response: {}", e.getMessage());
+      }
+    }
+  }
+
+  private void discardFailure(Throwable failure) {
+    if (failure instanceof UnavailableResponseException) {
+      discard(((UnavailableResponseException) failure).getResponse());
+    }
+  }
+
+  /**
+   * Carries a 429 or 5xx response of a method returning {@link Response} while
+   * another replica is tried; the caller gets the response if none answers better
+   */
+  private static class UnavailableResponseException extends WebApplicationException {
+
+    UnavailableResponseException(Response response) {
+      super(response);
+    }
+
+    @SuppressWarnings("unchecked")
+    <R> R getResult() {
+      return (R) getResponse();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sends request bodies gzip encoded once they reach a minimum size, e.g. a
+ * complete configuration saved with PUT. Smaller bodies are sent as they are,
+ * as compression would not pay off. The body is serialized into a buffer
+ * first, so the Content-Encoding header can still be set. Registered with
+ * the entity coder priority, so it wraps the other interceptors.
+ */
+class RequestCompressionInterceptor implements WriterInterceptor {
+
+  private final int minBytes;
+
+  /**
+   * @param minBytes size from which bodies are compressed
+   */
+  RequestCompressionInterceptor(int minBytes) {
+    this.minBytes = minBytes;
+  }
+
+  @Override
+  public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+    if (context.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+      context.proceed();
+      return;
+    }
+    OutputStream target = context.getOutputStream();
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    context.setOutputStream(buffer);
+    context.proceed();
+    context.setOutputStream(target);
+    if (buffer.size() < minBytes) {
+      buffer.writeTo(target);
+      return;
+    }
+    context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+    // Closing the gzip stream releases its native memory, but must leave the request stream open
+    try (GZIPOutputStream gzip = new GZIPOutputStream(new FilterOutputStream(target) {
+      @Override
+      public void close() throws IOException {
+        flush();
+      }
+    })) {
+      buffer.writeTo(gzip);
+    }
+  }
+}
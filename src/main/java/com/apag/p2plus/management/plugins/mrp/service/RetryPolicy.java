@@ -0,0 +1,101 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether a failed request is retried and how long to wait before.
+ * Requests are retried if the server is overloaded (429, 502, 503, 504) or
+ * the connection fails. The wait doubles with every retry up to a maximum;
+ * with jitter a random part of it is left out, so clients failing at the
+ * same time do not retry at the same time. A Retry-After header sent by the
+ * server is used instead of the backoff. Requests rejected by an open
+ * {@link CircuitBreaker} are retried no earlier than its next probe.
+ */
+public class RetryPolicy {
+
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final boolean jitter;
+
+  /**
+   * @param initialBackoffMillis wait before the first retry
+   * @param maxBackoffMillis upper limit of the wait, also for Retry-After
+   * @param jitter whether up to half of the wait is randomly left out
+   */
+  public RetryPolicy(long initialBackoffMillis, long maxBackoffMillis, boolean jitter) {
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+    this.jitter = jitter;
+  }
+
+  /**
+   * Returns how long to wait before retrying, or -1 if the error is not retryable
+   *
+   * @param retry number of the retry, starting at 1
+   * @param idempotent whether the request may be repeated if it is unknown whether
+   *                   the server received it. Otherwise only failures that prove it
+   *                   did not process the request are retried.
+   */
+  public long delayMillis(Throwable failure, int retry, boolean idempotent) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof CircuitBreakerOpenException) {
+        long probeMillis = ((CircuitBreakerOpenException) cause).getRetryAfterMillis();
+        return Math.min(maxBackoffMillis, Math.max(probeMillis, backoffMillis(retry)));
+      }
+      if (cause instanceof WebApplicationException) {
+        Response response = ((WebApplicationException) cause).getResponse();
+        if (!isRetryableStatus(response.getStatus())) {
+          return -1;
+        }
+        Long retryAfterMillis = retryAfterMillis(response.getHeaderString(HttpHeaders.RETRY_AFTER));
+        return retryAfterMillis != null ? Math.min(retryAfterMillis, maxBackoffMillis) : backoffMillis(retry);
+      }
+      if (cause instanceof ConnectException) {
+        return backoffMillis(retry);
+      }
+      if (cause instanceof ProcessingException || cause instanceof IOException) {
+        if (!idempotent && !(cause.getCause() instanceof ConnectException)) {
+          return -1;
+        }
+        return backoffMillis(retry);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns whether the status means the server is overloaded or restarting
+   */
+  public static boolean isRetryableStatus(int status) {
+    return status == 429 || status == 502 || status == 503 || status == 504;
+  }
+
+  private long backoffMillis(int retry) {
+    long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(Math.max(retry - 1, 0), 16));
+    if (!jitter || backoff < 2) {
+      return backoff;
+    }
+    long half = backoff / 2;
+    return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+  }
+
+  private static Long retryAfterMillis(String retryAfter) {
+    if (retryAfter == null) {
+      return null;
+    }
+    try {
+      return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+    } catch (NumberFormatException e) {
+      // HTTP dates are not worth the parsing here, use the backoff instead
+      return null;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Settings for routing requests across several backend replicas.
+ * Values are read from system properties (e.g. -Dmrp.routing.hedgeBudget=0.05).
+ */
+public class RoutingSettings {
+
+  private static final String PREFIX = "mrp.routing.";
+
+  private final boolean hedging;
+  private final double hedgeBudget;
+  private final int hedgeMinSamples;
+  private final int ejectAfterFailures;
+  private final long ejectMillis;
+
+  /**
+   * @param hedging whether slow reads are repeated on a second replica
+   * @param hedgeBudget share of reads that may be hedged, 0 to 1
+   * @param hedgeMinSamples requests a replica must have answered before reads sent to it are hedged
+   * @param ejectAfterFailures consecutive failures after which a replica is skipped
+   * @param ejectMillis time a failing replica is skipped before it gets requests again
+   */
+  public RoutingSettings(boolean hedging, double hedgeBudget, int hedgeMinSamples, int ejectAfterFailures,
+                         long ejectMillis) {
+    this.hedging = hedging;
+    this.hedgeBudget = Math.max(0, Math.min(1, hedgeBudget));
+    this.hedgeMinSamples = Math.max(1, hedgeMinSamples);
+    this.ejectAfterFailures = Math.max(1, ejectAfterFailures);
+    this.ejectMillis = ejectMillis;
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing values
+   */
+  public static RoutingSettings fromSystemProperties() {
+    return new RoutingSettings(
+        Boolean.parseBoolean(System.getProperty(PREFIX + "hedging", "true")),
+        SettingsSupport.doubleProperty(PREFIX + "hedgeBudget", 0.1),
+        SettingsSupport.intProperty(PREFIX + "hedgeMinSamples", 20),
+        SettingsSupport.intProperty(PREFIX + "ejectAfterFailures", 2),
+        SettingsSupport.longProperty(PREFIX + "ejectMillis", 5_000)
+    );
+  }
+
+  public boolean isHedging() {
+    return hedging;
+  }
+
+  public double getHedgeBudget() {
+    return hedgeBudget;
+  }
+
+  public int getHedgeMinSamples() {
+    return hedgeMinSamples;
+  }
+
+  public int getEjectAfterFailures() {
+    return ejectAfterFailures;
+  }
+
+  public long getEjectMillis() {
+    return ejectMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "RoutingSettings{" +
+           "hedging=" + hedging +
+           ", hedgeBudget=" + hedgeBudget +
+           ", hedgeMinSamples=" + hedgeMinSamples +
+           ", ejectAfterFailures=" + ejectAfterFailures +
+           ", ejectMillis=" + ejectMillis +
+           '}';
+  }
+}
@@ -0,0 +1,57 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Settings for the write-behind queue of saves and scenario creation.
+ * Values are read from system properties (e.g. -Dmrp.save.retryCount=5).
+ */
+public class SaveSettings {
+
+  private static final String PREFIX = "mrp.save.";
+
+  private final int retryCount;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+
+  /**
+   * @param retryCount retries of a failed write before it is reported as failed
+   * @param initialBackoffMillis wait before the first retry, doubled for every further retry
+   * @param maxBackoffMillis upper limit of the wait between retries
+   */
+  public SaveSettings(int retryCount, long initialBackoffMillis, long maxBackoffMillis) {
+    this.retryCount = retryCount;
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing values
+   */
+  public static SaveSettings fromSystemProperties() {
+    return new SaveSettings(
+        SettingsSupport.intProperty(PREFIX + "retryCount", 3),
+        SettingsSupport.longProperty(PREFIX + "initialBackoffMillis", 500),
+        SettingsSupport.longProperty(PREFIX + "maxBackoffMillis", 10_000)
+    );
+  }
+
+  public int getRetryCount() {
+    return retryCount;
+  }
+
+  public long getInitialBackoffMillis() {
+    return initialBackoffMillis;
+  }
+
+  public long getMaxBackoffMillis() {
+    return maxBackoffMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "SaveSettings{" +
+           "retryCount=" + retryCount +
+           ", initialBackoffMillis=" + initialBackoffMillis +
+           ", maxBackoffMillis=" + maxBackoffMillis +
+           '}';
+  }
+}
@@ -0,0 +1,281 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Warms the operational configuration cache with scenarios the user is likely
+ * to select next: the neighbours of the current selection, the most recently
+ * used scenarios (remembered across sessions) and entries hovered in the
+ * scenario list. At most {@link PrefetchSettings#getMaxScenarios()} scenarios
+ * are queued, they are loaded one at a time on a background thread, and
+ * prefetching pauses while a load requested by the user is in flight. A
+ * running prefetch is cancelled when the user starts a load, so it does not
+ * hold a connection the user's load waits for. Prefetches only load from the
+ * server and pause while its circuit breaker is open.
+ */
+public class ScenarioPrefetcher implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(ScenarioPrefetcher.class);
+  private static final String RECENT_KEY = "recentScenarios";
+  private static final String RECENT_SEPARATOR = "\n";
+  private static final long YIELD_DELAY_MILLIS = 100;
+  private static final long UNAVAILABLE_DELAY_MILLIS = 1000;
+
+  private final OperationalConfigService operationalConfigService;
+  private final PrefetchSettings settings;
+  private final Preferences preferences;
+  private final ScheduledExecutorService worker;
+  // Most recently used first
+  private final Deque<String> recentScenarios = new ArrayDeque<>();
+  // Pending scenarios in priority order
+  private final Set<String> queue = new LinkedHashSet<>();
+  private final AtomicLong prefetchedCount = new AtomicLong();
+  private boolean drainScheduled;
+
+  /**
+   * @param preferences node the most recently used scenarios are persisted in, or null to keep them in memory only
+   */
+  public ScenarioPrefetcher(OperationalConfigService operationalConfigService, PrefetchSettings settings,
+                            Preferences preferences) {
+    this.operationalConfigService = operationalConfigService;
+    this.settings = settings;
+    this.preferences = preferences;
+    this.worker = Executors.newSingleThreadScheduledExecutor(LoadExecutors.daemonThreadFactory("mrp-prefetch"));
+    loadRecentScenarios();
+  }
+
+  private void loadRecentScenarios() {
+    String stored = preferences != null ? preferences.get(RECENT_KEY, "") : "";
+    for (String scenarioId : stored.split(RECENT_SEPARATOR)) {
+      if (!scenarioId.isBlank() && recentScenarios.size() < settings.getRecentCount()) {
+        recentScenarios.addLast(scenarioId);
+      }
+    }
+  }
+
+  /**
+   * Records that the user selected a scenario
+   */
+  public synchronized void recordSelection(String scenarioId) {
+    recentScenarios.remove(scenarioId);
+    recentScenarios.addFirst(scenarioId);
+    while (recentScenarios.size() > settings.getRecentCount()) {
+      recentScenarios.removeLast();
+    }
+    queue.remove(scenarioId);
+    if (preferences != null) {
+      preferences.put(RECENT_KEY, String.join(RECENT_SEPARATOR, recentScenarios));
+    }
+  }
+
+  /**
+   * Returns the most recently used scenarios, most recent first
+   */
+  public synchronized List<String> getRecentScenarios() {
+    return new ArrayList<>(recentScenarios);
+  }
+
+  /**
+   * Replaces the queue with the likely next scenarios for the current selection:
+   * the direct neighbours first, then the most recently used scenarios and
+   * then further neighbours
+   *
+   * @param scenarioIds IDs of all scenarios in display order
+   * @param selectedId ID of the selected scenario, or null
+   */
+  public void prefetchAround(List<String> scenarioIds, String selectedId) {
+    if (!settings.isEnabled()) {
+      return;
+    }
+    Set<String> candidates = new LinkedHashSet<>();
+    int selectedIndex = selectedId != null ? scenarioIds.indexOf(selectedId) : -1;
+    addNeighbours(candidates, scenarioIds, selectedIndex, 1, 1);
+    Set<String> known = new HashSet<>(scenarioIds);
+    for (String scenarioId : getRecentScenarios()) {
+      if (known.contains(scenarioId)) {
+        candidates.add(scenarioId);
+      }
+    }
+    addNeighbours(candidates, scenarioIds, selectedIndex, 2, settings.getNeighbours());
+    candidates.remove(selectedId);
+
+    synchronized (this) {
+      queue.clear();
+      Iterator<String> iterator = candidates.iterator();
+      while (iterator.hasNext() && queue.size() < settings.getMaxScenarios()) {
+        queue.add(iterator.next());
+      }
+      scheduleDrain(0);
+    }
+  }
+
+  private static void addNeighbours(Set<String> candidates, List<String> scenarioIds, int index, int from, int to) {
+    if (index < 0) {
+      return;
+    }
+    for (int distance = from; distance <= to; distance++) {
+      if (index + distance < scenarioIds.size()) {
+        candidates.add(scenarioIds.get(index + distance));
+      }
+      if (index - distance >= 0) {
+        candidates.add(scenarioIds.get(index - distance));
+      }
+    }
+  }
+
+  /**
+   * Moves a scenario the user is pointing at, e.g. a hovered list entry, to
+   * the front of the queue
+   */
+  public void hint(String scenarioId) {
+    if (!settings.isEnabled() || scenarioId == null) {
+      return;
+    }
+    synchronized (this) {
+      moveToFront(scenarioId);
+      scheduleDrain(0);
+    }
+  }
+
+  private synchronized void moveToFront(String scenarioId) {
+    List<String> pending = new ArrayList<>(queue);
+    pending.remove(scenarioId);
+    queue.clear();
+    queue.add(scenarioId);
+    for (String queued : pending) {
+      if (queue.size() >= settings.getMaxScenarios()) {
+        break;
+      }
+      queue.add(queued);
+    }
+  }
+
+  private synchronized void scheduleDrain(long delayMillis) {
+    if (drainScheduled || queue.isEmpty()) {
+      return;
+    }
+    try {
+      worker.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+      drainScheduled = true;
+    } catch (RejectedExecutionException e) {
+      queue.clear();
+    }
+  }
+
+  private void drain() {
+    String scenarioId;
+    synchronized (this) {
+      drainScheduled = false;
+      if (queue.isEmpty()) {
+        return;
+      }
+      if (operationalConfigService.getUserLoadsInFlight() > 0) {
+        // Leave the connections to the user's load and try again shortly
+        scheduleDrain(YIELD_DELAY_MILLIS);
+        return;
+      }
+      if (!operationalConfigService.isAvailable()) {
+        // Prefetches would fail fast; user loads probe the server until the circuit closes
+        scheduleDrain(UNAVAILABLE_DELAY_MILLIS);
+        return;
+      }
+      Iterator<String> iterator = queue.iterator();
+      scenarioId = iterator.next();
+      iterator.remove();
+      drainScheduled = true;
+    }
+
+    try {
+      if (!operationalConfigService.isCached(scenarioId) && !awaitPrefetch(scenarioId)) {
+        logger.debug("Prefetch of '{}' cancelled for a user load", scenarioId);
+        synchronized (this) {
+          drainScheduled = false;
+          moveToFront(scenarioId);
+          scheduleDrain(YIELD_DELAY_MILLIS);
+        }
+        return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    } catch (ExecutionException e) {
+      logger.debug("Prefetch of '{}' failed: {}", scenarioId, e.getCause().getMessage());
+    }
+
+    synchronized (this) {
+      drainScheduled = false;
+      scheduleDrain(0);
+    }
+  }
+
+  /**
+   * Prefetches a scenario and cancels the prefetch as soon as the user starts a load
+   *
+   * @return false if the prefetch was cancelled
+   */
+  private boolean awaitPrefetch(String scenarioId) throws InterruptedException, ExecutionException {
+    CompletableFuture<?> prefetch = operationalConfigService.prefetch(scenarioId);
+    try {
+      while (true) {
+        try {
+          prefetch.get(YIELD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+          prefetchedCount.incrementAndGet();
+          logger.debug("Prefetched operational configuration for '{}'", scenarioId);
+          return true;
+        } catch (TimeoutException e) {
+          if (operationalConfigService.getUserLoadsInFlight() > 0) {
+            // Frees the permit of the endpoint limiter; a user load of the same scenario keeps the request
+            prefetch.cancel(true);
+            return false;
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      prefetch.cancel(true);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns how many configurations were loaded from the server by prefetching
+   */
+  public long getPrefetchedCount() {
+    return prefetchedCount.get();
+  }
+
+  /**
+   * Stops prefetching and persists the most recently used scenarios
+   */
+  @Override
+  public void close() {
+    worker.shutdownNow();
+    if (preferences != null) {
+      try {
+        preferences.flush();
+      } catch (BackingStoreException e) {
+        logger.warn("Could not store recent scenarios: {}", e.getMessage());
+      }
+    }
+    logger.debug("Closing scenario prefetcher, prefetched {} configurations", prefetchedCount.get());
+  }
+}
@@ -1,29 +1,159 @@
 package com.apag.p2plus.management.plugins.mrp.service;
 
 import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.model.ScenarioPage;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * Service for loading and creating scenarios
+ * Service for loading and creating scenarios. Scenarios can be loaded in pages
+ * filtered by the server; if the server ignores the paging parameters, the
+ * complete list is cached and paged locally.
  */
 public class ScenarioService extends BaseConfigService<Scenario> {
 
   private static final Logger logger = LoggerFactory.getLogger(ScenarioService.class);
+  private static final String ENDPOINT = "scenarios";
+  private static final GenericType<List<Scenario>> SCENARIO_LIST = new GenericType<>() { };
+  private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+  private volatile boolean pagingSupported = true;
+
+  public ScenarioService(ServiceContext context) {
+    super(context, ENDPOINT);
+  }
 
   @Override
   public List<Scenario> load() {
-    return loadConfig(() -> configClient.getScenarios());
+    return loadConfig(ENDPOINT, ENDPOINT, this::fetchScenarios);
   }
 
   @Override
   public CompletableFuture<List<Scenario>> loadAsync() {
-    return loadConfigAsync(() -> configClient.getScenarios());
+    return loadConfigAsync(ENDPOINT, ENDPOINT, this::fetchScenarios);
+  }
+
+  private List<Scenario> fetchScenarios() {
+    return validators.fetch(ENDPOINT, configClient::getScenariosConditional, SCENARIO_LIST);
+  }
+
+  /**
+   * Loads all scenarios from the server without falling back to snapshot or
+   * fallback data, see {@link #loadFromServer}
+   */
+  public List<Scenario> loadFromServer() {
+    return loadFromServer(ENDPOINT, ENDPOINT, this::fetchScenarios);
+  }
+
+  /**
+   * Loads one page of the scenarios matching a search term. Cancelling the
+   * returned future aborts the request, e.g. when the search term changed.
+   * If the request fails, the page is taken from the complete list with the
+   * usual snapshot and fallback handling.
+   * 
+   * @param search case-insensitive term matched against ID and description, or null for all
+   * @param offset index of the first scenario of the page
+   * @param limit maximum number of scenarios of the page
+   */
+  public CompletableFuture<ScenarioPage> loadPageAsync(String search, int offset, int limit) {
+    String term = search != null && !search.isBlank() ? search.trim() : null;
+    if (!pagingSupported) {
+      return loadAsync().thenApply(scenarios -> slice(scenarios, term, offset, limit));
+    }
+
+    CancellationToken token = new CancellationToken();
+    CancellableFuture<ScenarioPage> future = new CancellableFuture<>(token);
+    try {
+      executor.execute(() -> {
+        if (future.isDone()) {
+          return;
+        }
+        try {
+          future.complete(token.callBound(() -> callEndpoint(ENDPOINT, () -> fetchPage(term, offset, limit))));
+        } catch (Exception e) {
+          if (token.isCancelled()) {
+            logger.debug("Scenario page request cancelled");
+          } else {
+            recordLoadError(ENDPOINT);
+            logger.warn("Error loading scenario page, using complete list: {}", e.getMessage());
+            loadAsync().thenApply(scenarios -> slice(scenarios, term, offset, limit))
+                .whenComplete((page, throwable) -> {
+                  if (throwable != null) {
+                    future.completeExceptionally(throwable);
+                  } else {
+                    future.complete(page);
+                  }
+                });
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private ScenarioPage fetchPage(String term, int offset, int limit) {
+    try (Response response = configClient.getScenarioPage(offset, limit, term)) {
+      if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+        throw new WebApplicationException("HTTP " + response.getStatus() + " for scenario page", response.getStatus());
+      }
+      List<Scenario> scenarios = response.readEntity(SCENARIO_LIST);
+      String total = response.getHeaderString(TOTAL_COUNT_HEADER);
+      if (total == null) {
+        // The server ignored the paging parameters and sent the complete list
+        pagingSupported = false;
+        logger.info("Scenario paging not supported by the server, paging locally");
+        storeLoaded(ENDPOINT, scenarios);
+        return slice(scenarios, term, offset, limit);
+      }
+      return new ScenarioPage(scenarios, offset, Integer.parseInt(total.trim()));
+    }
+  }
+
+  private static ScenarioPage slice(List<Scenario> scenarios, String term, int offset, int limit) {
+    List<Scenario> matching = scenarios;
+    if (term != null) {
+      String lowerTerm = term.toLowerCase(Locale.ROOT);
+      matching = new ArrayList<>();
+      for (Scenario scenario : scenarios) {
+        if (contains(scenario.getScenarioId(), lowerTerm) || contains(scenario.getDescription(), lowerTerm)) {
+          matching.add(scenario);
+        }
+      }
+    }
+    int from = Math.min(offset, matching.size());
+    int to = Math.min(from + limit, matching.size());
+    return new ScenarioPage(new ArrayList<>(matching.subList(from, to)), offset, matching.size());
+  }
+
+  private static boolean contains(String text, String lowerTerm) {
+    return text != null && text.toLowerCase(Locale.ROOT).contains(lowerTerm);
+  }
+
+  @Override
+  protected List<Scenario> readSnapshot(String cacheKey) {
+    return snapshotStore.getScenarios(cacheKey);
+  }
+
+  @Override
+  protected void writeSnapshot(String cacheKey, List<Scenario> items) {
+    snapshotStore.putScenarios(cacheKey, items);
+  }
+
+  @Override
+  protected void removeSnapshot(String cacheKey) {
+    snapshotStore.remove(cacheKey);
   }
 
   @Override
@@ -42,24 +172,47 @@ public class ScenarioService extends BaseConfigService<Scenario> {
    */
   public boolean createScenario(Scenario scenario) {
     try {
-      logger.info("Creating new scenario: {}", scenario.getScenarioId());
-      
-      try (Response response = configClient.createScenario(scenario)) {
-        int statusCode = response.getStatus();
-        logger.info("Create scenario response status: {}", statusCode);
-        
-        if (statusCode == 201) {
-          logger.info("Scenario '{}' created successfully", scenario.getScenarioId());
-          return true;
-        } else {
-          logger.warn("Failed to create scenario '{}', status code: {}", scenario.getScenarioId(), statusCode);
-          return false;
-        }
-      }
-      
+      return postScenario(scenario);
     } catch (Exception e) {
+      metrics.counter("service." + ENDPOINT + ".saveErrors").increment();
       logger.error("Error creating scenario '{}'", scenario.getScenarioId(), e);
       throw new RuntimeException("Failed to create scenario: " + e.getMessage(), e);
     }
   }
+
+  /**
+   * Creates a new scenario in the background, see {@link WriteBehindQueue}.
+   * The request is only retried if the server answered that it is overloaded,
+   * as a repeated request could create the scenario twice otherwise.
+   * 
+   * @param scenario Scenario object to create
+   * @return future completed with true if the scenario was created (HTTP 201),
+   *         false if the server refused it, or failed with a RuntimeException
+   */
+  public CompletableFuture<Boolean> createScenarioAsync(Scenario scenario) {
+    return writeBehind(ENDPOINT, "scenario:" + scenario.getScenarioId(), scenario, (older, newer) -> newer,
+        this::postScenario, false, "create scenario");
+  }
+
+  private boolean postScenario(Scenario scenario) {
+    logger.info("Creating new scenario: {}", scenario.getScenarioId());
+    
+    try (Response response = configClient.createScenario(scenario)) {
+      int statusCode = response.getStatus();
+      logger.info("Create scenario response status: {}", statusCode);
+      
+      if (statusCode == 201) {
+        invalidate(ENDPOINT);
+        logger.info("Scenario '{}' created successfully", scenario.getScenarioId());
+        return true;
+      }
+      if (RetryPolicy.isRetryableStatus(statusCode)) {
+        // The server did not create it; fail with the status so the request can be retried
+        throw new WebApplicationException("Server unavailable, status code: " + statusCode,
+            Response.status(statusCode).header(HttpHeaders.RETRY_AFTER, response.getHeaderString(HttpHeaders.RETRY_AFTER)).build());
+      }
+      logger.warn("Failed to create scenario '{}', status code: {}", scenario.getScenarioId(), statusCode);
+      return false;
+    }
+  }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigSchema;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigValues;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Interns configuration schemas so that cached configurations of many
+ * scenarios share one instance of their names, types and descriptions.
+ * Strings are pooled as well, so schemas that differ in a few items still
+ * share the strings of the others. Both pools only hold weak references, so
+ * schemas and strings no longer used by any cached configuration are
+ * garbage collected.
+ */
+public class SchemaRegistry {
+
+  private final Map<ConfigSchema, WeakReference<ConfigSchema>> schemas = new WeakHashMap<>();
+  private final Map<String, WeakReference<String>> strings = new WeakHashMap<>();
+
+  /**
+   * Returns the canonical instance of the schema
+   */
+  public synchronized ConfigSchema intern(ConfigSchema schema) {
+    ConfigSchema canonical = get(schemas, schema);
+    if (canonical == null) {
+      canonical = schema.withStrings(this::pooled);
+      schemas.put(canonical, new WeakReference<>(canonical));
+    }
+    return canonical;
+  }
+
+  private String pooled(String value) {
+    if (value == null) {
+      return null;
+    }
+    String existing = get(strings, value);
+    if (existing == null) {
+      strings.put(value, new WeakReference<>(value));
+      return value;
+    }
+    return existing;
+  }
+
+  private static <T> T get(Map<T, WeakReference<T>> pool, T key) {
+    WeakReference<T> reference = pool.get(key);
+    return reference != null ? reference.get() : null;
+  }
+
+  /**
+   * Converts items into their compact representation with an interned schema
+   */
+  public ConfigValues compact(List<ConfigItem> items) {
+    if (items instanceof ConfigValues) {
+      return (ConfigValues) items;
+    }
+    return ConfigValues.of(intern(ConfigSchema.of(items)), items);
+  }
+
+  public synchronized int getSchemaCount() {
+    return schemas.size();
+  }
+}
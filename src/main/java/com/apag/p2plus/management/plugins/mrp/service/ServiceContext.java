@@ -0,0 +1,95 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Shared infrastructure handed to every config service
+ */
+public class ServiceContext {
+
+  private final MRPConfigClient configClient;
+  private final Executor executor;
+  private final EndpointLimiter endpointLimiter;
+  private final CacheSettings cacheSettings;
+  private final SnapshotStore snapshotStore;
+  private final MetricsRegistry metrics;
+  private final WriteBehindQueue writeQueue;
+  private final CircuitBreakerRegistry circuitBreakers;
+  private final AdaptiveTimeout adaptiveTimeout;
+
+  public ServiceContext(MRPConfigClient configClient,
+                        Executor executor,
+                        EndpointLimiter endpointLimiter,
+                        CacheSettings cacheSettings,
+                        SnapshotStore snapshotStore,
+                        MetricsRegistry metrics,
+                        WriteBehindQueue writeQueue,
+                        CircuitBreakerRegistry circuitBreakers,
+                        AdaptiveTimeout adaptiveTimeout) {
+    this.configClient = configClient;
+    this.executor = executor;
+    this.endpointLimiter = endpointLimiter;
+    this.cacheSettings = cacheSettings;
+    this.snapshotStore = snapshotStore;
+    this.metrics = metrics;
+    this.writeQueue = writeQueue;
+    this.circuitBreakers = circuitBreakers;
+    this.adaptiveTimeout = adaptiveTimeout;
+  }
+
+  public MRPConfigClient getConfigClient() {
+    return configClient;
+  }
+
+  /**
+   * Executor running blocking REST calls for asynchronous loads
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  public EndpointLimiter getEndpointLimiter() {
+    return endpointLimiter;
+  }
+
+  public CacheSettings getCacheSettings() {
+    return cacheSettings;
+  }
+
+  /**
+   * Local snapshot of the last known configurations
+   */
+  public SnapshotStore getSnapshotStore() {
+    return snapshotStore;
+  }
+
+  /**
+   * Registry for load timings, errors, fallbacks and cache counters
+   */
+  public MetricsRegistry getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Queue sending saves in the background with retries
+   */
+  public WriteBehindQueue getWriteQueue() {
+    return writeQueue;
+  }
+
+  /**
+   * Circuit breakers letting loads fail fast while an endpoint is unavailable
+   */
+  public CircuitBreakerRegistry getCircuitBreakers() {
+    return circuitBreakers;
+  }
+
+  /**
+   * Read timeouts of loads derived from the observed latencies
+   */
+  public AdaptiveTimeout getAdaptiveTimeout() {
+    return adaptiveTimeout;
+  }
+}
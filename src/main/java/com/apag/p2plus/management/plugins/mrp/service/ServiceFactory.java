@@ -1,36 +1,217 @@
 package com.apag.p2plus.management.plugins.mrp.service;
 
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.Preferences;
+
 /**
  * Factory for creating service instances for the MRP application.
+ * All services share one connection-pooled HTTP client, one load executor
+ * and one write-behind queue owned by this factory.
  */
 public class ServiceFactory {
 
+  private static final String DEFAULT_BASE_URL = "https://80ab19d6-cfd5-42b4-889e-714dd9f0d184.mock.pstmn.io";
+
+  private static final int DEFAULT_MAX_CONCURRENT_PER_ENDPOINT = 4;
+
+  private static MetricsRegistry metricsRegistry;
+  private static SharedHttpClient sharedHttpClient;
+  private static ExecutorService loadExecutor;
+  private static SnapshotStore snapshotStore;
+  private static WriteBehindQueue writeQueue;
+  private static CircuitBreakerRegistry circuitBreakers;
+  private static ServiceContext serviceContext;
   private static ScenarioService scenarioService;
   private static TechnicalConfigService technicalConfigService;
   private static OperationalConfigService operationalConfigService;
+  private static ScenarioPrefetcher scenarioPrefetcher;
 
   private ServiceFactory() {
     // prevent instantiation
   }
 
-  public static ScenarioService getScenarioService() {
+  /**
+   * Returns the base URLs of the API replicas, set with -Dmrp.baseUrl as a comma-separated
+   * list (e.g. http://localhost:8089 for the local stub server), defaulting to the public mock
+   */
+  public static List<String> getBaseUrls() {
+    List<String> baseUrls = new ArrayList<>();
+    for (String baseUrl : System.getProperty("mrp.baseUrl", "").split(",")) {
+      if (!baseUrl.isBlank()) {
+        baseUrls.add(baseUrl.trim());
+      }
+    }
+    return baseUrls.isEmpty() ? List.of(DEFAULT_BASE_URL) : baseUrls;
+  }
+
+  /**
+   * Returns the base URL of the first API replica, see {@link #getBaseUrls()}
+   */
+  public static String getBaseUrl() {
+    return getBaseUrls().get(0);
+  }
+
+  /**
+   * Returns the registry of all application metrics, published via JMX
+   */
+  public static synchronized MetricsRegistry getMetricsRegistry() {
+    if (metricsRegistry == null) {
+      metricsRegistry = MetricsRegistry.fromSystemProperties();
+    }
+    return metricsRegistry;
+  }
+
+  public static synchronized SharedHttpClient getSharedHttpClient() {
+    if (sharedHttpClient == null) {
+      sharedHttpClient = new SharedHttpClient(getBaseUrls(), HttpClientSettings.fromSystemProperties(),
+          RoutingSettings.fromSystemProperties(), EncodingSettings.fromSystemProperties(), getMetricsRegistry());
+    }
+    return sharedHttpClient;
+  }
+
+  /**
+   * Returns the context shared by all services. The per-endpoint concurrency
+   * limit can be set with -Dmrp.load.maxConcurrentPerEndpoint, retries of
+   * saves with the {@link SaveSettings}, circuit breakers with the
+   * {@link CircuitBreakerSettings}; the adaptive read timeouts of loads are
+   * limited by the configured read timeout.
+   */
+  public static synchronized ServiceContext getServiceContext() {
+    if (serviceContext == null) {
+      loadExecutor = LoadExecutors.newDefaultExecutor();
+      snapshotStore = SnapshotStore.fromSystemProperties();
+      snapshotStore.open();
+      writeQueue = new WriteBehindQueue(loadExecutor, SaveSettings.fromSystemProperties(), getMetricsRegistry());
+      int maxConcurrent = SettingsSupport.intProperty("mrp.load.maxConcurrentPerEndpoint", DEFAULT_MAX_CONCURRENT_PER_ENDPOINT);
+      serviceContext = new ServiceContext(
+          getSharedHttpClient().getConfigClient(),
+          loadExecutor,
+          new EndpointLimiter(maxConcurrent),
+          CacheSettings.fromSystemProperties(),
+          snapshotStore,
+          getMetricsRegistry(),
+          writeQueue,
+          getCircuitBreakers(),
+          AdaptiveTimeout.fromSystemProperties(getSharedHttpClient().getSettings().getReadTimeoutMillis(), getMetricsRegistry())
+      );
+    }
+    return serviceContext;
+  }
+
+  public static synchronized ScenarioService getScenarioService() {
     if (scenarioService == null) {
-      scenarioService = new ScenarioService();
+      scenarioService = new ScenarioService(getServiceContext());
     }
     return scenarioService;
   }
 
-  public static TechnicalConfigService getTechnicalConfigService() {
+  public static synchronized TechnicalConfigService getTechnicalConfigService() {
     if (technicalConfigService == null) {
-      technicalConfigService = new TechnicalConfigService();
+      technicalConfigService = new TechnicalConfigService(getServiceContext());
     }
     return technicalConfigService;
   }
 
-  public static OperationalConfigService getOperationalConfigService() {
+  public static synchronized OperationalConfigService getOperationalConfigService() {
     if (operationalConfigService == null) {
-      operationalConfigService = new OperationalConfigService();
+      operationalConfigService = new OperationalConfigService(getServiceContext());
     }
     return operationalConfigService;
   }
-}
\ No newline at end of file
+
+  /**
+   * Returns the prefetcher for operational configurations. Recently used
+   * scenarios are persisted in the user preferences.
+   */
+  public static synchronized ScenarioPrefetcher getScenarioPrefetcher() {
+    if (scenarioPrefetcher == null) {
+      scenarioPrefetcher = new ScenarioPrefetcher(getOperationalConfigService(),
+          PrefetchSettings.fromSystemProperties(), Preferences.userNodeForPackage(ScenarioPrefetcher.class));
+    }
+    return scenarioPrefetcher;
+  }
+
+  /**
+   * Returns the circuit breakers of all endpoints, e.g. to show their state
+   */
+  public static synchronized CircuitBreakerRegistry getCircuitBreakers() {
+    if (circuitBreakers == null) {
+      circuitBreakers = new CircuitBreakerRegistry(CircuitBreakerSettings.fromSystemProperties(), getMetricsRegistry());
+    }
+    return circuitBreakers;
+  }
+
+  /**
+   * Returns the usage of the shared connection pool
+   */
+  public static synchronized ConnectionPoolStats getPoolStats() {
+    return getSharedHttpClient().getPoolStats();
+  }
+
+  /**
+   * Waits up to 30 seconds for queued saves, see {@link #shutdown(long, TimeUnit)}
+   */
+  public static void shutdown() {
+    shutdown(30, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Waits up to the timeout for queued saves, closes all services, writes the
+   * local snapshot, closes the load executor and the shared HTTP client and
+   * unpublishes the metrics. The factory is not locked while waiting, so other
+   * threads, e.g. the EDT, are not blocked by a slow drain.
+   */
+  public static void shutdown(long timeout, TimeUnit unit) {
+    WriteBehindQueue queue;
+    synchronized (ServiceFactory.class) {
+      queue = writeQueue;
+    }
+    if (queue != null) {
+      queue.close(timeout, unit);
+    }
+    closeAll();
+  }
+
+  private static synchronized void closeAll() {
+    writeQueue = null;
+    if (scenarioPrefetcher != null) {
+      scenarioPrefetcher.close();
+      scenarioPrefetcher = null;
+    }
+    if (scenarioService != null) {
+      scenarioService.close();
+      scenarioService = null;
+    }
+    if (technicalConfigService != null) {
+      technicalConfigService.close();
+      technicalConfigService = null;
+    }
+    if (operationalConfigService != null) {
+      operationalConfigService.close();
+      operationalConfigService = null;
+    }
+    serviceContext = null;
+    circuitBreakers = null;
+    if (snapshotStore != null) {
+      snapshotStore.close();
+      snapshotStore = null;
+    }
+    if (loadExecutor != null) {
+      loadExecutor.shutdownNow();
+      loadExecutor = null;
+    }
+    if (sharedHttpClient != null) {
+      sharedHttpClient.close();
+      sharedHttpClient = null;
+    }
+    if (metricsRegistry != null) {
+      metricsRegistry.close();
+      metricsRegistry = null;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+/**
+ * Reads numeric settings from system properties. Invalid values fall back to the default.
+ */
+public final class SettingsSupport {
+
+  private SettingsSupport() {
+    // prevent instantiation
+  }
+
+  public static int intProperty(String name, int defaultValue) {
+    return (int) longProperty(name, defaultValue);
+  }
+
+  public static long longProperty(String name, long defaultValue) {
+    String value = System.getProperty(name);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+
+  public static double doubleProperty(String name, double defaultValue) {
+    String value = System.getProperty(name);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      return defaultValue;
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.client.Client;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep-alive, connection-pooled RESTEasy client shared by all config services.
+ * One instance is owned by the {@link ServiceFactory}, so every service proxy
+ * reuses the same connections and TLS sessions. Calls and pool usage are
+ * recorded in the {@link MetricsRegistry}, see {@link HttpMetricsFilter}.
+ * With several base URLs the requests are spread across the replicas by a
+ * {@link ReplicaRouter}. Body encoding and compression follow the
+ * {@link EncodingSettings}. With HTTP/2 configured, the requests are sent by
+ * the {@link JdkHttpClientEngine} instead and there is no connection pool.
+ */
+public class SharedHttpClient implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedHttpClient.class);
+
+  private final HttpClientSettings settings;
+  // Only used with HTTP/1.1
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final CloseableHttpClient httpClient;
+  private final Client client;
+  private final MRPConfigClient configClient;
+  private final ReplicaRouter router;
+
+  /**
+   * @param baseUrls base URLs of the backend replicas, at least one
+   */
+  public SharedHttpClient(List<String> baseUrls, HttpClientSettings settings, RoutingSettings routingSettings,
+                          EncodingSettings encodingSettings, MetricsRegistry metrics) {
+    this.settings = settings;
+
+    ClientHttpEngine engine;
+    if (settings.getProtocol() == HttpClient.Version.HTTP_1_1) {
+      this.connectionManager = new PoolingHttpClientConnectionManager();
+      connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+      connectionManager.setMaxTotal(settings.getMaxConnectionsTotal());
+
+      RequestConfig requestConfig = RequestConfig.custom()
+          .setConnectTimeout((int) settings.getConnectTimeoutMillis())
+          .setSocketTimeout((int) settings.getReadTimeoutMillis())
+          .setConnectionRequestTimeout((int) settings.getConnectTimeoutMillis())
+          .build();
+
+      HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+          .setConnectionManager(connectionManager)
+          .setDefaultRequestConfig(requestConfig)
+          .evictExpiredConnections()
+          .evictIdleConnections(settings.getIdleEvictionMillis(), TimeUnit.MILLISECONDS);
+      if (!encodingSettings.isCompressResponses()) {
+        // Otherwise gzip and deflate are accepted and decoded transparently
+        httpClientBuilder.disableContentCompression();
+      }
+      this.httpClient = httpClientBuilder.build();
+      engine = new CancellableHttpEngine(httpClient, requestConfig);
+
+      metrics.gauge("http.pool.leased", () -> connectionManager.getTotalStats().getLeased());
+      metrics.gauge("http.pool.available", () -> connectionManager.getTotalStats().getAvailable());
+      metrics.gauge("http.pool.pending", () -> connectionManager.getTotalStats().getPending());
+    } else {
+      this.connectionManager = null;
+      this.httpClient = null;
+      engine = new JdkHttpClientEngine(settings.getProtocol(), settings.getConnectTimeoutMillis(),
+          settings.getReadTimeoutMillis(), encodingSettings.isCompressResponses(), metrics);
+    }
+
+    // RESTEasy Client - Jackson is automatically detected for JSON
+    ResteasyClientBuilder clientBuilder = ((ResteasyClientBuilder) ResteasyClientBuilder.newBuilder())
+        .httpEngine(engine);
+    clientBuilder.register(new HttpMetricsFilter(metrics));
+    if (encodingSettings.getFormat() != WireFormat.JSON) {
+      clientBuilder.register(new SmileProvider());
+      clientBuilder.register(new ContentNegotiationFilter(encodingSettings.getFormat()));
+    }
+    if (encodingSettings.isCompressRequests()) {
+      clientBuilder.register(new RequestCompressionInterceptor(encodingSettings.getCompressMinBytes()),
+          Priorities.ENTITY_CODER);
+    }
+    this.client = clientBuilder.build();
+
+    // Create proxies for the MRP Config API, one per replica
+    if (baseUrls.size() == 1) {
+      this.router = null;
+      this.configClient = proxy(baseUrls.get(0));
+    } else {
+      List<Replica> replicas = new ArrayList<>();
+      for (String baseUrl : baseUrls) {
+        replicas.add(new Replica(baseUrl, proxy(baseUrl), routingSettings, metrics));
+      }
+      this.router = new ReplicaRouter(replicas, routingSettings, metrics);
+      this.configClient = router;
+    }
+
+    logger.info("Shared HTTP client created for {} with {} and {}", baseUrls, settings, encodingSettings);
+  }
+
+  private MRPConfigClient proxy(String baseUrl) {
+    ResteasyWebTarget target = (ResteasyWebTarget) client.target(baseUrl);
+    return target.proxy(MRPConfigClient.class);
+  }
+
+  /**
+   * Returns the API proxy bound to the shared connection pool, routing across the replicas
+   */
+  public MRPConfigClient getConfigClient() {
+    return configClient;
+  }
+
+  public HttpClientSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * Returns the current connection pool usage, all zero with HTTP/2
+   */
+  public ConnectionPoolStats getPoolStats() {
+    if (connectionManager == null) {
+      return new ConnectionPoolStats(0, 0, 0, 0);
+    }
+    PoolStats stats = connectionManager.getTotalStats();
+    return new ConnectionPoolStats(stats.getLeased(), stats.getAvailable(), stats.getPending(), stats.getMax());
+  }
+
+  /**
+   * Closes the RESTEasy client and releases all pooled connections
+   */
+  @Override
+  public void close() {
+    logger.info("Closing shared HTTP client, pool: {}", getPoolStats());
+    if (router != null) {
+      router.close();
+    }
+    try {
+      client.close();
+    } catch (Exception e) {
+      logger.warn("Error closing client: {}", e.getMessage());
+    }
+    if (httpClient != null) {
+      try {
+        httpClient.close();
+      } catch (Exception e) {
+        logger.warn("Error closing HTTP client: {}", e.getMessage());
+      }
+      connectionManager.close();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical loads: while a load for a key is in flight,
+ * further callers subscribe to it instead of starting another request.
+ * Every caller gets its own future; the shared load is only cancelled once
+ * all subscribers have cancelled.
+ */
+public class SingleFlight<K, V> {
+
+  private final Map<K, Flight<V>> inFlight = new HashMap<>();
+  private final AtomicLong started = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Joins the in-flight load for the key or starts a new one
+   *
+   * @param key identity of the load
+   * @param loader starts the load; only called if none is in flight
+   * @param recovery maps a failure of the shared load to a value for this caller,
+   *                 or null to propagate the failure. Cancellation is always propagated.
+   */
+  public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader, Function<Throwable, V> recovery) {
+    Flight<V> flight;
+    Subscriber<V> subscriber;
+    synchronized (this) {
+      flight = inFlight.get(key);
+      // A finished flight may not be removed yet, as subscribers are completed first; never join it
+      if (flight == null || flight.shared.isDone()) {
+        flight = new Flight<>(loader.get());
+        inFlight.put(key, flight);
+        started.incrementAndGet();
+        Flight<V> startedFlight = flight;
+        flight.shared.whenComplete((value, throwable) -> remove(key, startedFlight));
+      } else {
+        coalesced.incrementAndGet();
+      }
+      subscriber = new Subscriber<>(this, key, flight);
+      flight.subscribers++;
+    }
+
+    flight.shared.whenComplete((value, throwable) -> {
+      if (throwable == null) {
+        subscriber.complete(value);
+        return;
+      }
+      Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+          ? throwable.getCause()
+          : throwable;
+      if (recovery != null && !(cause instanceof CancellationException)) {
+        subscriber.complete(recovery.apply(cause));
+      } else {
+        subscriber.completeExceptionally(cause);
+      }
+    });
+    return subscriber;
+  }
+
+  private synchronized void remove(K key, Flight<V> flight) {
+    inFlight.remove(key, flight);
+  }
+
+  private void unsubscribe(K key, Flight<V> flight) {
+    boolean cancelShared;
+    synchronized (this) {
+      flight.subscribers--;
+      cancelShared = flight.subscribers == 0;
+      if (cancelShared) {
+        inFlight.remove(key, flight);
+      }
+    }
+    if (cancelShared) {
+      flight.shared.cancel(true);
+    }
+  }
+
+  /**
+   * Number of loads actually started
+   */
+  public long getStartedCount() {
+    return started.get();
+  }
+
+  /**
+   * Number of calls that joined an already running load
+   */
+  public long getCoalescedCount() {
+    return coalesced.get();
+  }
+
+  public synchronized int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  private static class Flight<V> {
+
+    final CompletableFuture<V> shared;
+    int subscribers;
+
+    Flight(CompletableFuture<V> shared) {
+      this.shared = shared;
+    }
+  }
+
+  private static class Subscriber<V> extends CompletableFuture<V> {
+
+    private final SingleFlight<Object, V> owner;
+    private final Object key;
+    private final Flight<V> flight;
+
+    @SuppressWarnings("unchecked")
+    Subscriber(SingleFlight<?, V> owner, Object key, Flight<V> flight) {
+      this.owner = (SingleFlight<Object, V>) owner;
+      this.key = key;
+      this.flight = flight;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        owner.unsubscribe(key, flight);
+      }
+      return cancelled;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Reads and writes entities in the {@link WireFormat#SMILE} encoding with the
+ * same Jackson data binding the JSON provider uses
+ */
+@Consumes("application/x-jackson-smile")
+@Produces("application/x-jackson-smile")
+class SmileProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+  private final ObjectMapper mapper = WireFormat.SMILE.getMapper();
+
+  @Override
+  public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return WireFormat.of(mediaType) == WireFormat.SMILE && !InputStream.class.isAssignableFrom(type);
+  }
+
+  @Override
+  public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                         MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+    return mapper.readValue(entityStream, mapper.constructType(genericType != null ? genericType : type));
+  }
+
+  @Override
+  public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    return WireFormat.of(mediaType) == WireFormat.SMILE;
+  }
+
+  @Override
+  public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                      MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+    mapper.writerFor(mapper.constructType(genericType != null ? genericType : type))
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .writeValue(entityStream, value);
+  }
+}
@@ -0,0 +1,251 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.model.ValueType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of snapshot files.
+ * <p>
+ * Layout (version 1): magic, version, a table of all distinct strings, then the
+ * scenario and config item sections. Strings are referenced by varint index into
+ * the table, so names, types and descriptions shared by many scenarios are stored once.
+ * Values of type "password" are never written.
+ */
+final class SnapshotCodec {
+
+  static final int MAGIC = 0x4D525053; // "MRPS"
+  static final short VERSION = 1;
+
+  private static final int NULL_INDEX = 0;
+
+  private static final byte VALUE_NULL = 0;
+  private static final byte VALUE_FALSE = 1;
+  private static final byte VALUE_TRUE = 2;
+  private static final byte VALUE_STRING = 3;
+  private static final byte VALUE_LONG = 4;
+  private static final byte VALUE_DOUBLE = 5;
+
+  private SnapshotCodec() {
+    // prevent instantiation
+  }
+
+  /**
+   * Decoded snapshot content
+   */
+  static class Content {
+
+    final Map<String, List<Scenario>> scenarioSections;
+    final Map<String, List<ConfigItem>> itemSections;
+
+    Content(Map<String, List<Scenario>> scenarioSections, Map<String, List<ConfigItem>> itemSections) {
+      this.scenarioSections = scenarioSections;
+      this.itemSections = itemSections;
+    }
+  }
+
+  static byte[] encode(Map<String, List<Scenario>> scenarioSections,
+                       Map<String, List<ConfigItem>> itemSections) throws IOException {
+    StringTable strings = new StringTable();
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(body);
+
+    writeVarInt(out, scenarioSections.size());
+    for (Map.Entry<String, List<Scenario>> section : scenarioSections.entrySet()) {
+      writeVarInt(out, strings.indexOf(section.getKey()));
+      writeVarInt(out, section.getValue().size());
+      for (Scenario scenario : section.getValue()) {
+        writeVarInt(out, strings.indexOf(scenario.getScenarioId()));
+        writeVarInt(out, strings.indexOf(scenario.getDescription()));
+      }
+    }
+
+    writeVarInt(out, itemSections.size());
+    for (Map.Entry<String, List<ConfigItem>> section : itemSections.entrySet()) {
+      writeVarInt(out, strings.indexOf(section.getKey()));
+      writeVarInt(out, section.getValue().size());
+      for (ConfigItem item : section.getValue()) {
+        writeVarInt(out, strings.indexOf(item.getName()));
+        writeVarInt(out, strings.indexOf(item.getType()));
+        writeVarInt(out, strings.indexOf(item.getDescription()));
+        writeValue(out, strings, item.getValueType() == ValueType.PASSWORD ? null : item.getValue());
+      }
+    }
+    out.flush();
+
+    ByteArrayOutputStream file = new ByteArrayOutputStream(body.size() + 1024);
+    DataOutputStream header = new DataOutputStream(file);
+    header.writeInt(MAGIC);
+    header.writeShort(VERSION);
+    writeVarInt(header, strings.values.size());
+    for (String value : strings.values) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(header, bytes.length);
+      header.write(bytes);
+    }
+    header.flush();
+    body.writeTo(file);
+    return file.toByteArray();
+  }
+
+  /**
+   * Decodes a snapshot
+   *
+   * @throws IOException if the data is not a snapshot of the supported version
+   */
+  static Content decode(ByteBuffer buffer) throws IOException {
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("Not a snapshot file");
+      }
+      short version = buffer.getShort();
+      if (version != VERSION) {
+        throw new IOException("Unsupported snapshot version " + version);
+      }
+
+      // Every string takes at least its length byte
+      int stringCount = readLength(buffer, 1);
+      String[] strings = new String[stringCount + 1];
+      for (int i = 1; i <= stringCount; i++) {
+        byte[] bytes = new byte[readLength(buffer, 1)];
+        buffer.get(bytes);
+        strings[i] = bytes.length == 0 ? "" : new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      Map<String, List<Scenario>> scenarioSections = new LinkedHashMap<>();
+      int scenarioSectionCount = readLength(buffer, 2);
+      for (int s = 0; s < scenarioSectionCount; s++) {
+        String key = strings[readVarInt(buffer)];
+        int count = readLength(buffer, 2);
+        List<Scenario> scenarios = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          scenarios.add(new Scenario(strings[readVarInt(buffer)], strings[readVarInt(buffer)]));
+        }
+        scenarioSections.put(key, scenarios);
+      }
+
+      Map<String, List<ConfigItem>> itemSections = new LinkedHashMap<>();
+      int itemSectionCount = readLength(buffer, 2);
+      for (int s = 0; s < itemSectionCount; s++) {
+        String key = strings[readVarInt(buffer)];
+        int count = readLength(buffer, 4);
+        List<ConfigItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          String name = strings[readVarInt(buffer)];
+          String type = strings[readVarInt(buffer)];
+          String description = strings[readVarInt(buffer)];
+          items.add(new ConfigItem(name, type, readValue(buffer, strings), description));
+        }
+        itemSections.put(key, items);
+      }
+      return new Content(scenarioSections, itemSections);
+    } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+      throw new IOException("Truncated or corrupt snapshot", e);
+    }
+  }
+
+  private static void writeValue(DataOutputStream out, StringTable strings, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(VALUE_NULL);
+    } else if (value instanceof Boolean) {
+      out.writeByte((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+    } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+      out.writeByte(VALUE_LONG);
+      out.writeLong(((Number) value).longValue());
+    } else if (value instanceof Number) {
+      out.writeByte(VALUE_DOUBLE);
+      out.writeDouble(((Number) value).doubleValue());
+    } else {
+      out.writeByte(VALUE_STRING);
+      writeVarInt(out, strings.indexOf(value.toString()));
+    }
+  }
+
+  private static Object readValue(ByteBuffer buffer, String[] strings) throws IOException {
+    byte tag = buffer.get();
+    switch (tag) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_STRING:
+        return strings[readVarInt(buffer)];
+      case VALUE_LONG:
+        return buffer.getLong();
+      case VALUE_DOUBLE:
+        return buffer.getDouble();
+      default:
+        throw new IOException("Unknown value tag " + tag);
+    }
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  /**
+   * Reads a length or count and checks it against the remaining data, so a
+   * corrupt value fails with an IOException instead of a huge allocation
+   *
+   * @param minBytesPerElement bytes each counted element takes at least
+   */
+  private static int readLength(ByteBuffer buffer, int minBytesPerElement) throws IOException {
+    int length = readVarInt(buffer);
+    if (length < 0 || length > buffer.remaining() / minBytesPerElement) {
+      throw new IOException("Invalid length " + length + " with " + buffer.remaining() + " bytes left");
+    }
+    return length;
+  }
+
+  private static int readVarInt(ByteBuffer buffer) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  /**
+   * Assigns indices to distinct strings; index 0 stands for null
+   */
+  private static class StringTable {
+
+    final List<String> values = new ArrayList<>();
+    final Map<String, Integer> indices = new HashMap<>();
+
+    int indexOf(String value) {
+      if (value == null) {
+        return NULL_INDEX;
+      }
+      Integer index = indices.get(value);
+      if (index == null) {
+        values.add(value);
+        index = values.size();
+        indices.put(value, index);
+      }
+      return index;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigValues;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local on-disk snapshot of the last known scenarios, technical configuration
+ * and operational configurations. The snapshot is read at startup so the UI
+ * can render immediately, and is rewritten in the background whenever the
+ * services load newer data. It keeps a limited number of sections, least
+ * recently used sections are dropped first. An unreadable file is deleted.
+ */
+public class SnapshotStore implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+  private static final long FLUSH_INTERVAL_SECONDS = 30;
+  private static final int DEFAULT_MAX_SECTIONS = 50;
+
+  private final Path file;
+  private final Map<String, List<Scenario>> scenarioSections;
+  private final Map<String, List<ConfigItem>> itemSections;
+  private ScheduledExecutorService flusher;
+  private boolean dirty;
+
+  /**
+   * @param file snapshot file, or null to keep the snapshot in memory only
+   */
+  public SnapshotStore(Path file) {
+    this(file, DEFAULT_MAX_SECTIONS);
+  }
+
+  /**
+   * @param file snapshot file, or null to keep the snapshot in memory only
+   * @param maxSections maximum number of scenario lists and of configurations each
+   */
+  public SnapshotStore(Path file, int maxSections) {
+    this.file = file;
+    this.scenarioSections = lruMap(maxSections);
+    this.itemSections = lruMap(maxSections);
+  }
+
+  private static <V> Map<String, V> lruMap(int maxSections) {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+        return size() > maxSections;
+      }
+    };
+  }
+
+  /**
+   * Creates a store for the file given by -Dmrp.snapshot.file, defaulting to
+   * ~/.mrp-config/snapshot.bin, keeping -Dmrp.snapshot.maxSections sections.
+   * Persistence is disabled with -Dmrp.snapshot.enabled=false.
+   */
+  public static SnapshotStore fromSystemProperties() {
+    int maxSections = SettingsSupport.intProperty("mrp.snapshot.maxSections", DEFAULT_MAX_SECTIONS);
+    if (!Boolean.parseBoolean(System.getProperty("mrp.snapshot.enabled", "true"))) {
+      return new SnapshotStore(null, maxSections);
+    }
+    String configured = System.getProperty("mrp.snapshot.file");
+    Path file = configured != null && !configured.isBlank()
+        ? Paths.get(configured)
+        : Paths.get(System.getProperty("user.home"), ".mrp-config", "snapshot.bin");
+    return new SnapshotStore(file, maxSections);
+  }
+
+  /**
+   * Reads the snapshot file, if present, and starts the periodic background flush
+   */
+  public synchronized void open() {
+    if (file == null) {
+      return;
+    }
+    if (Files.isRegularFile(file)) {
+      // Read onto the heap; a mapped file could not be replaced on Windows while mapped
+      byte[] data = null;
+      try {
+        data = Files.readAllBytes(file);
+      } catch (IOException e) {
+        logger.warn("Ignoring unreadable snapshot {}: {}", file, e.getMessage());
+      }
+      if (data != null) {
+        try {
+          SnapshotCodec.Content content = SnapshotCodec.decode(ByteBuffer.wrap(data));
+          scenarioSections.putAll(content.scenarioSections);
+          itemSections.putAll(content.itemSections);
+          logger.info("Loaded snapshot {} ({} bytes, {} sections)",
+              file, data.length, scenarioSections.size() + itemSections.size());
+        } catch (IOException | RuntimeException e) {
+          logger.warn("Deleting corrupt snapshot {}: {}", file, e.toString());
+          scenarioSections.clear();
+          itemSections.clear();
+          deleteQuietly();
+        }
+      }
+    }
+    flusher = Executors.newSingleThreadScheduledExecutor(LoadExecutors.daemonThreadFactory("mrp-snapshot"));
+    flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+  }
+
+  public synchronized List<Scenario> getScenarios(String key) {
+    return scenarioSections.get(key);
+  }
+
+  public synchronized void putScenarios(String key, List<Scenario> scenarios) {
+    scenarioSections.put(key, new ArrayList<>(scenarios));
+    dirty = true;
+  }
+
+  public synchronized List<ConfigItem> getConfigItems(String key) {
+    return itemSections.get(key);
+  }
+
+  public synchronized void putConfigItems(String key, List<ConfigItem> items) {
+    // Compact configurations are immutable and would be expanded by copying
+    itemSections.put(key, items instanceof ConfigValues ? items : new ArrayList<>(items));
+    dirty = true;
+  }
+
+  /**
+   * Drops the section of the key, e.g. because it no longer matches the server after a save
+   */
+  public synchronized void remove(String key) {
+    boolean removed = scenarioSections.remove(key) != null;
+    removed |= itemSections.remove(key) != null;
+    if (removed) {
+      dirty = true;
+    }
+  }
+
+  /**
+   * Writes the snapshot if it changed since the last write. The file is written
+   * to a temporary file first and then moved into place.
+   */
+  public void flush() {
+    byte[] data;
+    synchronized (this) {
+      if (file == null || !dirty) {
+        return;
+      }
+      try {
+        data = SnapshotCodec.encode(scenarioSections, itemSections);
+        dirty = false;
+      } catch (IOException e) {
+        logger.warn("Could not encode snapshot: {}", e.getMessage());
+        return;
+      }
+    }
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.write(temp, data);
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      logger.debug("Snapshot written to {} ({} bytes)", file, data.length);
+    } catch (IOException e) {
+      synchronized (this) {
+        dirty = true;
+      }
+      logger.warn("Could not write snapshot {}: {}", file, e.getMessage());
+    }
+  }
+
+  private void deleteQuietly() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.warn("Could not delete snapshot {}: {}", file, e.getMessage());
+    }
+  }
+
+  /**
+   * Stops the background flush and writes pending changes
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (flusher != null) {
+        flusher.shutdownNow();
+        flusher = null;
+      }
+    }
+    flush();
+  }
+}
@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Service for loading and saving technical configuration
@@ -14,15 +15,65 @@ import java.util.concurrent.CompletableFuture;
 public class TechnicalConfigService extends BaseConfigService<ConfigItem> {
 
   private static final Logger logger = LoggerFactory.getLogger(TechnicalConfigService.class);
+  private static final String ENDPOINT = "technical";
+
+  private final DeltaSave deltaSave = new DeltaSave(ENDPOINT);
+
+  public TechnicalConfigService(ServiceContext context) {
+    super(context, ENDPOINT);
+  }
 
   @Override
   public List<ConfigItem> load() {
-    return loadConfig(() -> configClient.getTechnicalConfig());
+    return loadConfig(ENDPOINT, ENDPOINT, this::fetchTechnicalConfig);
+  }
+
+  /**
+   * Loads the technical configuration from the server without falling back
+   * to snapshot or fallback data, see {@link #loadFromServer}
+   */
+  public List<ConfigItem> loadFromServer() {
+    return loadFromServer(ENDPOINT, ENDPOINT, this::fetchTechnicalConfig);
   }
 
   @Override
   public CompletableFuture<List<ConfigItem>> loadAsync() {
-    return loadConfigAsync(() -> configClient.getTechnicalConfig());
+    return loadAsync(null);
+  }
+
+  /**
+   * Loads technical configuration asynchronously. If the configuration has to
+   * be requested, parsed items are passed to the chunk listener on a worker
+   * thread while the response is still being received.
+   * 
+   * @param chunkListener receives consecutive chunks of items, or null
+   */
+  public CompletableFuture<List<ConfigItem>> loadAsync(Consumer<List<ConfigItem>> chunkListener) {
+    return loadConfigAsync(ENDPOINT, ENDPOINT, this::fetchTechnicalConfig, chunkListener);
+  }
+
+  private List<ConfigItem> fetchTechnicalConfig() {
+    return fetchTechnicalConfig(null);
+  }
+
+  private List<ConfigItem> fetchTechnicalConfig(Consumer<List<ConfigItem>> chunkListener) {
+    return validators.fetchStream(ENDPOINT, configClient::getTechnicalConfigConditional,
+        (in, format) -> ConfigItemStreamReader.read(in, format, chunkListener));
+  }
+
+  @Override
+  protected List<ConfigItem> readSnapshot(String cacheKey) {
+    return snapshotStore.getConfigItems(cacheKey);
+  }
+
+  @Override
+  protected void writeSnapshot(String cacheKey, List<ConfigItem> items) {
+    snapshotStore.putConfigItems(cacheKey, items);
+  }
+
+  @Override
+  protected void removeSnapshot(String cacheKey) {
+    snapshotStore.remove(cacheKey);
   }
 
   @Override
@@ -45,10 +96,58 @@ public class TechnicalConfigService extends BaseConfigService<ConfigItem> {
     try {
       logger.info("Saving {} technical configuration items", configItems.size());
       configClient.saveTechnicalConfig(configItems);
+      invalidate(ENDPOINT);
       logger.info("Technical configuration saved successfully");
     } catch (Exception e) {
+      metrics.counter("service." + ENDPOINT + ".saveErrors").increment();
+      logger.error("Error saving technical configuration", e);
+      throw new RuntimeException("Failed to save technical configuration: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Saves only the changed technical configuration items. Falls back to
+   * saving the full configuration if the server does not accept deltas.
+   * 
+   * @param changedItems Configuration items that changed
+   */
+  public void saveTechnicalChanges(List<ConfigItem> changedItems) {
+    if (changedItems.isEmpty()) {
+      return;
+    }
+    try {
+      writeTechnicalChanges(new ConfigChanges(changedItems));
+    } catch (Exception e) {
+      metrics.counter("service." + ENDPOINT + ".saveErrors").increment();
       logger.error("Error saving technical configuration", e);
       throw new RuntimeException("Failed to save technical configuration: " + e.getMessage(), e);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Saves only the changed technical configuration items in the background,
+   * see {@link WriteBehindQueue}. Changes saved while an earlier save is
+   * queued or waiting for a retry are sent together with it.
+   * 
+   * @param changedItems Configuration items that changed
+   * @return future completed once the changes are saved, or failed with a RuntimeException
+   */
+  public CompletableFuture<Void> saveTechnicalChangesAsync(List<ConfigItem> changedItems) {
+    if (changedItems.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return writeBehind(ENDPOINT, ENDPOINT, new ConfigChanges(changedItems), ConfigChanges::merge,
+        changes -> {
+          writeTechnicalChanges(changes);
+          return null;
+        }, true, "save technical configuration");
+  }
+
+  private void writeTechnicalChanges(ConfigChanges changes) {
+    logger.info("Saving {} changed technical configuration items", changes.getChangedItems().size());
+    deltaSave.save(changes.getChangedItems(), configClient::patchTechnicalConfig, configClient::saveTechnicalConfig,
+        this::loadFromServer);
+    invalidate(ENDPOINT);
+    logger.info("Technical configuration saved successfully");
+  }
+}
@@ -0,0 +1,168 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Keeps ETag / Last-Modified validators together with the deserialized value per
+ * resource and issues conditional GET requests. A 304 response reuses the held
+ * value without reading or parsing a body. Bodies are either read as a whole
+ * entity or handed to a {@link StreamReader} that parses them incrementally.
+ */
+public class ValidatorStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(ValidatorStore.class);
+
+  private final Map<String, Validated> entries;
+  private final AtomicLong notModified = new AtomicLong();
+  private final AtomicLong modified = new AtomicLong();
+
+  /**
+   * @param maxEntries maximum number of resources to keep validators for
+   */
+  public ValidatorStore(int maxEntries) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Validated> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Performs a conditional GET for the resource
+   *
+   * @param resourceKey key identifying the resource, e.g. its path
+   * @param call request taking the If-None-Match and If-Modified-Since values (either may be null)
+   * @param type type of the response entity
+   * @return the freshly read value, or the held value if the server answered 304
+   * @throws WebApplicationException if the server answered with an error status
+   */
+  public <V> V fetch(String resourceKey, ConditionalCall call, GenericType<V> type) {
+    return fetch(resourceKey, call, response -> response.readEntity(type));
+  }
+
+  /**
+   * Performs a conditional GET for the resource and parses a modified body
+   * from the response stream while it is being received
+   *
+   * @param resourceKey key identifying the resource, e.g. its path
+   * @param call request taking the If-None-Match and If-Modified-Since values (either may be null)
+   * @param reader parses the response body
+   * @return the freshly read value, or the held value if the server answered 304
+   * @throws WebApplicationException if the server answered with an error status
+   * @throws ProcessingException if the body could not be read
+   */
+  public <V> V fetchStream(String resourceKey, ConditionalCall call, StreamReader<V> reader) {
+    return fetch(resourceKey, call, response -> {
+      try (InputStream in = response.readEntity(InputStream.class)) {
+        return reader.read(in, WireFormat.of(response.getMediaType()));
+      } catch (IOException e) {
+        throw new ProcessingException("Could not read '" + resourceKey + "': " + e.getMessage(), e);
+      }
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private <V> V fetch(String resourceKey, ConditionalCall call, Function<Response, V> entityReader) {
+    Validated held;
+    synchronized (this) {
+      held = entries.get(resourceKey);
+    }
+    String ifNoneMatch = held != null ? held.etag : null;
+    String ifModifiedSince = held != null ? held.lastModified : null;
+
+    try (Response response = call.execute(ifNoneMatch, ifModifiedSince)) {
+      int status = response.getStatus();
+      if (status == Response.Status.NOT_MODIFIED.getStatusCode() && held != null) {
+        notModified.incrementAndGet();
+        logger.debug("'{}' not modified", resourceKey);
+        return (V) held.value;
+      }
+      if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+        // Keep Retry-After so callers can back off as requested by the server
+        throw new WebApplicationException("HTTP " + status + " for '" + resourceKey + "'",
+            Response.status(status).header(HttpHeaders.RETRY_AFTER, response.getHeaderString(HttpHeaders.RETRY_AFTER)).build());
+      }
+
+      V value = entityReader.apply(response);
+      modified.incrementAndGet();
+      // Sent back as received in If-None-Match
+      String etag = response.getHeaderString(HttpHeaders.ETAG);
+      String lastModified = response.getHeaderString(HttpHeaders.LAST_MODIFIED);
+      synchronized (this) {
+        if (etag != null || lastModified != null) {
+          entries.put(resourceKey, new Validated(etag, lastModified, value));
+        } else {
+          entries.remove(resourceKey);
+        }
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Forgets the validators of a resource, e.g. after it was modified locally
+   */
+  public synchronized void invalidate(String resourceKey) {
+    entries.remove(resourceKey);
+  }
+
+  /**
+   * Number of requests answered with 304 Not Modified
+   */
+  public long getNotModifiedCount() {
+    return notModified.get();
+  }
+
+  /**
+   * Number of requests answered with a full body
+   */
+  public long getModifiedCount() {
+    return modified.get();
+  }
+
+  /**
+   * Request accepting the conditional request headers
+   */
+  @FunctionalInterface
+  public interface ConditionalCall {
+    Response execute(String ifNoneMatch, String ifModifiedSince);
+  }
+
+  /**
+   * Parser for a response body stream
+   */
+  @FunctionalInterface
+  public interface StreamReader<V> {
+    /**
+     * @param format encoding of the body, from its content type
+     */
+    V read(InputStream in, WireFormat format) throws IOException;
+  }
+
+  private static class Validated {
+
+    final String etag;
+    final String lastModified;
+    final Object value;
+
+    Validated(String etag, String lastModified, Object value) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Encoding of request and response bodies. JSON is the default; Smile is
+ * Jackson's binary encoding of the same data model, smaller and faster to
+ * parse, which the client requests if configured and the server supports it.
+ */
+public enum WireFormat {
+
+  JSON(MediaType.APPLICATION_JSON_TYPE, new ObjectMapper()),
+  SMILE(new MediaType("application", "x-jackson-smile"), new ObjectMapper(new SmileFactory()));
+
+  private final MediaType mediaType;
+  private final ObjectMapper mapper;
+
+  WireFormat(MediaType mediaType, ObjectMapper mapper) {
+    this.mediaType = mediaType;
+    this.mapper = mapper;
+  }
+
+  public MediaType getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Returns the mapper reading and writing this format; it must not be reconfigured
+   */
+  public ObjectMapper getMapper() {
+    return mapper;
+  }
+
+  /**
+   * Returns the format of a body of the given content type, JSON if unknown
+   */
+  public static WireFormat of(MediaType contentType) {
+    if (contentType != null && SMILE.mediaType.getType().equalsIgnoreCase(contentType.getType())
+        && SMILE.mediaType.getSubtype().equalsIgnoreCase(contentType.getSubtype())) {
+      return SMILE;
+    }
+    return JSON;
+  }
+
+  /**
+   * Parses a format name such as "smile", case-insensitive
+   *
+   * @throws IllegalArgumentException if the name is unknown
+   */
+  public static WireFormat parse(String name) {
+    return valueOf(name.trim().toUpperCase(Locale.ROOT));
+  }
+}
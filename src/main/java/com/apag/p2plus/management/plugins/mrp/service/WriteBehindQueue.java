@@ -0,0 +1,269 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Sends saves in the background and retries them if the server is overloaded
+ * or unreachable. Writes are keyed by the resource they change: writes of one
+ * resource are sent one after another, writes of different resources in
+ * parallel. A write submitted while another one of the same resource is
+ * queued, or waiting for a retry, is merged into it, so repeated saves are
+ * sent as one request. Retries wait with exponential backoff and jitter as
+ * defined by the {@link RetryPolicy}. Every caller gets its own future,
+ * completed once the write containing its changes succeeded or finally failed.
+ * Retries and merged writes are counted as {@code save.<endpoint>.retries}
+ * and {@code save.<endpoint>.coalesced}.
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+  private final Executor executor;
+  private final RetryPolicy retryPolicy;
+  private final int retryCount;
+  private final MetricsRegistry metrics;
+  private final ScheduledExecutorService retryScheduler =
+      Executors.newSingleThreadScheduledExecutor(LoadExecutors.daemonThreadFactory("mrp-save-retry"));
+  // Writes not started yet, at most one per resource
+  private final Map<String, Write<?, ?>> queued = new HashMap<>();
+  // Writes waiting for a retry, at most one per resource
+  private final Map<String, Write<?, ?>> retrying = new HashMap<>();
+  // Resources with a write running, waiting for a retry or queued
+  private final Set<String> busy = new HashSet<>();
+  private boolean closed;
+
+  /**
+   * @param executor runs the blocking REST calls
+   */
+  public WriteBehindQueue(Executor executor, SaveSettings settings, MetricsRegistry metrics) {
+    this.executor = executor;
+    this.retryPolicy = new RetryPolicy(settings.getInitialBackoffMillis(), settings.getMaxBackoffMillis(), true);
+    this.retryCount = settings.getRetryCount();
+    this.metrics = metrics;
+    metrics.gauge("save.queue.pending", this::getPendingCount);
+  }
+
+  /**
+   * Queues a write
+   *
+   * @param key resource changed by the write, e.g. "operational:Scenario_1"
+   * @param endpoint name of the endpoint in metrics
+   * @param payload changes to send
+   * @param merge combines the payload of a queued write (first argument) with a newer one
+   * @param writer sends a payload; runs on the executor and throws if the request failed
+   * @param idempotent whether the request may be repeated if it is unknown whether the
+   *                   server received it, see {@link RetryPolicy#delayMillis}
+   * @return future completed with the result of the writer, or the failure of the last attempt
+   */
+  public <P, R> CompletableFuture<R> submit(String key, String endpoint, P payload, BinaryOperator<P> merge,
+                                            Function<P, R> writer, boolean idempotent) {
+    CompletableFuture<R> result = new CompletableFuture<>();
+    Write<P, R> write = new Write<>(key, endpoint, payload, merge, writer, idempotent);
+    write.callers.add(result);
+    synchronized (this) {
+      if (closed) {
+        result.completeExceptionally(new RejectedExecutionException("Write-behind queue is closed"));
+        return result;
+      }
+      Write<?, ?> waiting = queued.get(key);
+      if (waiting != null) {
+        absorb(waiting, write);
+        return result;
+      }
+      queued.put(key, write);
+      if (!busy.add(key)) {
+        // Started once the running write of the resource is done
+        return result;
+      }
+    }
+    startQueued(key);
+    return result;
+  }
+
+  /**
+   * Returns the number of resources with unsaved writes
+   */
+  public synchronized int getPendingCount() {
+    return busy.size();
+  }
+
+  private void absorb(Write<?, ?> target, Write<?, ?> newer) {
+    target.absorb(newer);
+    metrics.counter("save." + target.endpoint + ".coalesced").increment();
+    logger.debug("Merged write of '{}' into the queued one", target.key);
+  }
+
+  private void startQueued(String key) {
+    Write<?, ?> write;
+    synchronized (this) {
+      write = queued.remove(key);
+    }
+    if (write != null) {
+      execute(write);
+    }
+  }
+
+  private void execute(Write<?, ?> write) {
+    try {
+      executor.execute(() -> attempt(write));
+    } catch (RejectedExecutionException e) {
+      complete(write, null, e);
+    }
+  }
+
+  private <P, R> void attempt(Write<P, R> write) {
+    R result;
+    try {
+      result = write.writer.apply(write.payload);
+    } catch (RuntimeException e) {
+      int retry = write.retries + 1;
+      long delayMillis = retry <= retryCount ? retryPolicy.delayMillis(e, retry, write.idempotent) : -1;
+      if (delayMillis >= 0 && scheduleRetry(write, delayMillis)) {
+        write.retries = retry;
+        metrics.counter("save." + write.endpoint + ".retries").increment();
+        logger.warn("Writing '{}' failed ({}), retry {} of {} in {} ms", write.key, e.getMessage(), retry, retryCount, delayMillis);
+        return;
+      }
+      complete(write, null, e);
+      return;
+    }
+    complete(write, result, null);
+  }
+
+  private boolean scheduleRetry(Write<?, ?> write, long delayMillis) {
+    synchronized (this) {
+      retrying.put(write.key, write);
+    }
+    try {
+      retryScheduler.schedule(() -> retry(write), delayMillis, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (RejectedExecutionException e) {
+      synchronized (this) {
+        retrying.remove(write.key);
+      }
+      return false;
+    }
+  }
+
+  private void retry(Write<?, ?> write) {
+    // Changes submitted during the backoff are sent with the retry
+    synchronized (this) {
+      if (retrying.remove(write.key) != write) {
+        // Already failed by close()
+        return;
+      }
+      Write<?, ?> newer = queued.remove(write.key);
+      if (newer != null) {
+        absorb(write, newer);
+      }
+    }
+    execute(write);
+  }
+
+  private <R> void complete(Write<?, R> write, R result, Throwable failure) {
+    boolean next;
+    synchronized (this) {
+      next = queued.containsKey(write.key);
+      if (!next) {
+        busy.remove(write.key);
+        notifyAll();
+      }
+    }
+    for (CompletableFuture<R> caller : write.callers) {
+      if (failure == null) {
+        caller.complete(result);
+      } else {
+        caller.completeExceptionally(failure);
+      }
+    }
+    if (next) {
+      startQueued(write.key);
+    }
+  }
+
+  /**
+   * Stops accepting writes and waits up to the timeout for queued writes and
+   * their retries, so changes are not lost when the application exits
+   */
+  public void close(long timeout, TimeUnit unit) {
+    List<Write<?, ?>> discarded = new ArrayList<>();
+    synchronized (this) {
+      closed = true;
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      try {
+        long remaining;
+        while (!busy.isEmpty() && (remaining = deadline - System.nanoTime()) > 0) {
+          TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (!busy.isEmpty()) {
+        logger.warn("Unsaved writes discarded on close: {}", busy);
+      }
+      // Rejects retries of writes still running, so they fail instead of waiting forever
+      retryScheduler.shutdownNow();
+      discarded.addAll(retrying.values());
+      discarded.addAll(queued.values());
+      retrying.clear();
+      queued.clear();
+    }
+    RejectedExecutionException closedException = new RejectedExecutionException("Write-behind queue was closed");
+    for (Write<?, ?> write : discarded) {
+      write.callers.forEach(caller -> caller.completeExceptionally(closedException));
+    }
+  }
+
+  @Override
+  public void close() {
+    close(30, TimeUnit.SECONDS);
+  }
+
+  private static final class Write<P, R> {
+
+    final String key;
+    final String endpoint;
+    final BinaryOperator<P> merge;
+    final Function<P, R> writer;
+    final boolean idempotent;
+    final List<CompletableFuture<R>> callers = new ArrayList<>();
+    P payload;
+    int retries;
+
+    Write(String key, String endpoint, P payload, BinaryOperator<P> merge, Function<P, R> writer, boolean idempotent) {
+      this.key = key;
+      this.endpoint = endpoint;
+      this.payload = payload;
+      this.merge = merge;
+      this.writer = writer;
+      this.idempotent = idempotent;
+    }
+
+    /**
+     * Takes over the payload and callers of a newer write of the same resource
+     */
+    @SuppressWarnings("unchecked")
+    void absorb(Write<?, ?> newer) {
+      Write<P, R> same = (Write<P, R>) newer;
+      payload = merge.apply(payload, same.payload);
+      callers.addAll(same.callers);
+    }
+  }
+}
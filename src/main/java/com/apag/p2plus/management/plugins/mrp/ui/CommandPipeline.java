@@ -0,0 +1,147 @@
+package com.apag.p2plus.management.plugins.mrp.ui;
+
+import com.apag.p2plus.management.plugins.mrp.service.LoadExecutors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs mutating operations such as saves and scenario creation off the EDT.
+ * Commands run one at a time in the order they were submitted, so a save
+ * never overtakes an earlier one. Operations already running in the
+ * background, e.g. saves in the write-behind queue of the services, can be
+ * tracked instead. Results are delivered on the EDT, and a progress listener
+ * is told which command is running and how many more are pending.
+ * Submit, track, listener and results are EDT-only.
+ */
+public class CommandPipeline implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(CommandPipeline.class);
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(LoadExecutors.daemonThreadFactory("mrp-command"));
+  private final Deque<String> pending = new ArrayDeque<>();
+  private Consumer<String> progressListener = status -> { };
+
+  /**
+   * Sets the listener receiving the description of the running command, or null when idle
+   */
+  public void setProgressListener(Consumer<String> progressListener) {
+    this.progressListener = progressListener;
+  }
+
+  /**
+   * Queues a command
+   *
+   * @param description shown while the command runs, e.g. "Saving configuration"
+   * @param command runs on the command thread
+   * @return future completed on the EDT with the result or failure of the command
+   */
+  public <R> CompletableFuture<R> submit(String description, Callable<R> command) {
+    CompletableFuture<R> result = new CompletableFuture<>();
+    pending.addLast(description);
+    fireProgress();
+    try {
+      executor.execute(() -> {
+        R value = null;
+        Exception failure = null;
+        try {
+          value = command.call();
+        } catch (Exception e) {
+          failure = e;
+        }
+        R completedValue = value;
+        Exception completedFailure = failure;
+        SwingUtilities.invokeLater(() -> {
+          pending.removeFirstOccurrence(description);
+          if (completedFailure == null) {
+            result.complete(completedValue);
+          } else {
+            result.completeExceptionally(completedFailure);
+          }
+          fireProgress();
+        });
+      });
+    } catch (RejectedExecutionException e) {
+      pending.pollLast();
+      result.completeExceptionally(e);
+      fireProgress();
+    }
+    return result;
+  }
+
+  /**
+   * Shows an operation running in the background as pending until it is done
+   *
+   * @param description shown while the operation runs, e.g. "Saving configuration"
+   * @return future completed on the EDT with the result or failure of the operation
+   */
+  public <R> CompletableFuture<R> track(String description, CompletableFuture<R> operation) {
+    CompletableFuture<R> result = new CompletableFuture<>();
+    pending.addLast(description);
+    fireProgress();
+    operation.whenComplete((value, throwable) -> SwingUtilities.invokeLater(() -> {
+      pending.removeFirstOccurrence(description);
+      if (throwable == null) {
+        result.complete(value);
+      } else {
+        result.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause()
+            : throwable);
+      }
+      fireProgress();
+    }));
+    return result;
+  }
+
+  /**
+   * Returns whether a command is running or queued
+   */
+  public boolean isBusy() {
+    return !pending.isEmpty();
+  }
+
+  private void fireProgress() {
+    String status = null;
+    if (!pending.isEmpty()) {
+      status = pending.peekFirst() + "...";
+      if (pending.size() > 1) {
+        status += " (" + (pending.size() - 1) + " more pending)";
+      }
+    }
+    progressListener.accept(status);
+  }
+
+  /**
+   * Lets running and queued commands finish for up to the timeout, so
+   * changes are not lost when the application exits. May be called off the
+   * EDT, which must stay free to receive the results of the commands.
+   */
+  public void close(long timeout, TimeUnit unit) {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(timeout, unit)) {
+        logger.warn("Commands still running after {} ms", unit.toMillis(timeout));
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public void close() {
+    close(30, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,239 @@
+package com.apag.p2plus.management.plugins.mrp.ui;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.ValueType;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Table model holding configuration items and their edited values.
+ * Only the item list and one value slot per row are kept, so memory and
+ * rebuild time do not depend on Swing components per item. Edited values are
+ * tracked against the loaded baseline so only changed items need to be saved.
+ */
+public class ConfigItemTableModel extends AbstractTableModel {
+
+  static final int DESCRIPTION_COLUMN = 0;
+  static final int VALUE_COLUMN = 1;
+
+  private static final String[] COLUMN_NAMES = {"Setting", "Value"};
+
+  private List<ConfigItem> items = new ArrayList<>();
+  private Object[] values = new Object[0];
+  private Object[] baseline = new Object[0];
+  private int dirtyCount;
+  // Incremented whenever the rows are replaced
+  private long generation;
+
+  /**
+   * Replaces all rows with the given items, which become the new baseline
+   */
+  public void setItems(List<ConfigItem> configItems) {
+    this.items = new ArrayList<>(configItems);
+    this.values = new Object[items.size()];
+    for (int row = 0; row < values.length; row++) {
+      values[row] = initialValue(items.get(row));
+    }
+    this.baseline = values.clone();
+    this.dirtyCount = 0;
+    this.generation++;
+    fireTableDataChanged();
+  }
+
+  /**
+   * Adds rows for items that arrived while the configuration is still loading
+   */
+  public void appendItems(List<ConfigItem> configItems) {
+    if (configItems.isEmpty()) {
+      return;
+    }
+    int firstRow = items.size();
+    items.addAll(configItems);
+    if (items.size() > values.length) {
+      int capacity = Math.max(items.size(), values.length * 2);
+      values = Arrays.copyOf(values, capacity);
+      baseline = Arrays.copyOf(baseline, capacity);
+    }
+    for (int row = firstRow; row < items.size(); row++) {
+      values[row] = initialValue(items.get(row));
+      baseline[row] = values[row];
+    }
+    fireTableRowsInserted(firstRow, items.size() - 1);
+  }
+
+  private static Object initialValue(ConfigItem item) {
+    if (item.getValueType() == ValueType.BOOLEAN) {
+      return item.getValueAsBoolean();
+    }
+    return item.getValueAsString();
+  }
+
+  public ConfigItem getItem(int row) {
+    return items.get(row);
+  }
+
+  /**
+   * Returns the current, possibly edited value of a row
+   */
+  public Object getCurrentValue(int row) {
+    return values[row];
+  }
+
+  public List<ConfigItem> getItems() {
+    return Collections.unmodifiableList(items);
+  }
+
+  /**
+   * Returns whether the value of a row differs from the loaded baseline
+   */
+  public boolean isDirty(int row) {
+    return !Objects.equals(values[row], baseline[row]);
+  }
+
+  public boolean hasChanges() {
+    return dirtyCount > 0;
+  }
+
+  /**
+   * Returns the changed items with their current values. Name, type and
+   * description are taken from the loaded items.
+   */
+  public List<ConfigItem> getChangedItems() {
+    List<ConfigItem> changedItems = new ArrayList<>(dirtyCount);
+    for (int row = 0; row < items.size() && changedItems.size() < dirtyCount; row++) {
+      if (isDirty(row)) {
+        changedItems.add(currentItem(row));
+      }
+    }
+    return changedItems;
+  }
+
+  /**
+   * Returns the loaded item, or for edited rows a copy with the edited value in the JSON form of the loaded one
+   */
+  private ConfigItem currentItem(int row) {
+    ConfigItem item = items.get(row);
+    return isDirty(row) ? item.withValue(values[row]) : item;
+  }
+
+  /**
+   * Captures the changed values for a save that runs in the background
+   */
+  public ChangeSet captureChanges() {
+    int[] rows = new int[dirtyCount];
+    Object[] savedValues = new Object[dirtyCount];
+    int count = 0;
+    for (int row = 0; row < items.size() && count < dirtyCount; row++) {
+      if (isDirty(row)) {
+        rows[count] = row;
+        savedValues[count] = values[row];
+        count++;
+      }
+    }
+    return new ChangeSet(generation, rows, savedValues, getChangedItems());
+  }
+
+  /**
+   * Returns whether the captured changes belong to the items shown now
+   */
+  public boolean isCurrent(ChangeSet changes) {
+    return changes.generation == generation;
+  }
+
+  /**
+   * Makes the saved values the new baseline. Rows edited again while the
+   * save was running stay dirty against the saved value. Ignored if other
+   * items have been shown since the changes were captured.
+   */
+  public void markSaved(ChangeSet changes) {
+    if (changes.generation != generation) {
+      return;
+    }
+    for (int i = 0; i < changes.rows.length; i++) {
+      int row = changes.rows[i];
+      boolean wasDirty = isDirty(row);
+      baseline[row] = changes.values[i];
+      items.set(row, changes.changedItems.get(i));
+      boolean dirty = isDirty(row);
+      if (dirty != wasDirty) {
+        dirtyCount += dirty ? 1 : -1;
+      }
+      fireTableRowsUpdated(row, row);
+    }
+  }
+
+  @Override
+  public int getRowCount() {
+    return items.size();
+  }
+
+  @Override
+  public int getColumnCount() {
+    return COLUMN_NAMES.length;
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    return COLUMN_NAMES[column];
+  }
+
+  @Override
+  public boolean isCellEditable(int row, int column) {
+    return column == VALUE_COLUMN;
+  }
+
+  @Override
+  public Object getValueAt(int row, int column) {
+    if (column == DESCRIPTION_COLUMN) {
+      return items.get(row).getDescription();
+    }
+    return values[row];
+  }
+
+  @Override
+  public void setValueAt(Object value, int row, int column) {
+    if (column == VALUE_COLUMN) {
+      boolean wasDirty = isDirty(row);
+      values[row] = value;
+      boolean dirty = isDirty(row);
+      if (dirty != wasDirty) {
+        dirtyCount += dirty ? 1 : -1;
+      }
+      fireTableRowsUpdated(row, row);
+    }
+  }
+
+  /**
+   * Changed values of a model at one point in time
+   */
+  public static final class ChangeSet {
+
+    private final long generation;
+    private final int[] rows;
+    private final Object[] values;
+    private final List<ConfigItem> changedItems;
+
+    private ChangeSet(long generation, int[] rows, Object[] values, List<ConfigItem> changedItems) {
+      this.generation = generation;
+      this.rows = rows;
+      this.values = values;
+      this.changedItems = changedItems;
+    }
+
+    public boolean isEmpty() {
+      return rows.length == 0;
+    }
+
+    /**
+     * Changed items with their values at capture time
+     */
+    public List<ConfigItem> getChangedItems() {
+      return changedItems;
+    }
+  }
+}
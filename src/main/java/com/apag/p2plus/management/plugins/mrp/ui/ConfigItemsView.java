@@ -0,0 +1,121 @@
+package com.apag.p2plus.management.plugins.mrp.ui;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Virtualized editor for a list of configuration items.
+ * Items are shown in a {@link JTable}, so only the visible rows are rendered
+ * regardless of how many items a configuration contains. A message card
+ * replaces the table while loading or after an error. Settings with unsaved
+ * changes are shown in bold.
+ */
+public class ConfigItemsView extends JPanel {
+
+  private static final String TABLE_CARD = "table";
+  private static final String MESSAGE_CARD = "message";
+
+  private final CardLayout cardLayout = new CardLayout();
+  private final ConfigItemTableModel tableModel = new ConfigItemTableModel();
+  private final JTable table;
+  private final JLabel messageLabel = new JLabel();
+
+  public ConfigItemsView() {
+    setLayout(cardLayout);
+
+    table = new JTable(tableModel);
+    table.getColumnModel().getColumn(ConfigItemTableModel.DESCRIPTION_COLUMN).setCellRenderer(new DefaultTableCellRenderer() {
+      @Override
+      public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                     boolean hasFocus, int row, int column) {
+        super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        boolean dirty = tableModel.isDirty(table.convertRowIndexToModel(row));
+        setFont(dirty ? table.getFont().deriveFont(Font.BOLD) : table.getFont());
+        return this;
+      }
+    });
+    TableColumn valueColumn = table.getColumnModel().getColumn(ConfigItemTableModel.VALUE_COLUMN);
+    valueColumn.setCellRenderer(new ConfigValueRenderer());
+    valueColumn.setCellEditor(new ConfigValueEditor());
+    table.setRowHeight(Math.max(table.getRowHeight(), new JTextField().getPreferredSize().height + 2));
+    table.setFillsViewportHeight(true);
+    table.setShowVerticalLines(false);
+    table.getTableHeader().setReorderingAllowed(false);
+    table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    table.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
+
+    JScrollPane scrollPane = new JScrollPane(table);
+    scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+    scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+    scrollPane.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+    messageLabel.setHorizontalAlignment(SwingConstants.CENTER);
+    messageLabel.setVerticalAlignment(SwingConstants.TOP);
+    messageLabel.setBorder(BorderFactory.createEmptyBorder(7, 7, 7, 7));
+
+    add(scrollPane, TABLE_CARD);
+    add(messageLabel, MESSAGE_CARD);
+  }
+
+  /**
+   * Shows the given items in the table
+   */
+  public void showItems(List<ConfigItem> configItems) {
+    cancelEditing();
+    tableModel.setItems(configItems);
+    cardLayout.show(this, TABLE_CARD);
+  }
+
+  /**
+   * Adds items to the table while a configuration is still loading
+   */
+  public void appendItems(List<ConfigItem> configItems) {
+    tableModel.appendItems(configItems);
+    cardLayout.show(this, TABLE_CARD);
+  }
+
+  /**
+   * Shows an informational message instead of the table
+   */
+  public void showMessage(String message) {
+    showMessageCard(message, UIManager.getColor("Label.foreground"));
+  }
+
+  /**
+   * Shows an error message instead of the table
+   */
+  public void showError(String message) {
+    showMessageCard(message, Color.RED);
+  }
+
+  private void showMessageCard(String message, Color color) {
+    cancelEditing();
+    messageLabel.setText(message);
+    messageLabel.setForeground(color);
+    cardLayout.show(this, MESSAGE_CARD);
+  }
+
+  /**
+   * Commits a value that is still being edited to the model
+   */
+  public void stopEditing() {
+    if (table.isEditing()) {
+      table.getCellEditor().stopCellEditing();
+    }
+  }
+
+  private void cancelEditing() {
+    if (table.isEditing()) {
+      table.getCellEditor().cancelCellEditing();
+    }
+  }
+
+  public ConfigItemTableModel getTableModel() {
+    return tableModel;
+  }
+}
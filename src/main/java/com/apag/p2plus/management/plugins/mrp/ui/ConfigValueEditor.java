@@ -0,0 +1,90 @@
+package com.apag.p2plus.management.plugins.mrp.ui;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.ValueType;
+
+import javax.swing.*;
+import javax.swing.border.Border;
+import javax.swing.border.LineBorder;
+import javax.swing.table.TableCellEditor;
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Edits configuration values with a text field, password field or checkbox
+ * depending on the item type. The editor components are shared by all rows.
+ * Input that is not valid for a numeric or duration item is not committed.
+ */
+class ConfigValueEditor extends AbstractCellEditor implements TableCellEditor {
+
+  private final JTextField textField = new JTextField();
+  private final JPasswordField passwordField = new JPasswordField();
+  private final JCheckBox checkBox = new JCheckBox();
+
+  private final Border textFieldBorder = textField.getBorder();
+  private final Border invalidBorder = new LineBorder(Color.RED);
+
+  private JComponent activeComponent;
+  private ValueType activeType;
+
+  ConfigValueEditor() {
+    textField.addActionListener(e -> stopCellEditing());
+    passwordField.addActionListener(e -> stopCellEditing());
+    checkBox.addActionListener(e -> stopCellEditing());
+    checkBox.setHorizontalAlignment(SwingConstants.LEFT);
+  }
+
+  @Override
+  public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
+    ConfigItem item = ((ConfigItemTableModel) table.getModel()).getItem(table.convertRowIndexToModel(row));
+
+    activeType = item.getValueType();
+    textField.setBorder(textFieldBorder);
+    switch (activeType) {
+      case PASSWORD:
+        passwordField.setText(value != null ? value.toString() : "");
+        passwordField.setName(item.getName());
+        activeComponent = passwordField;
+        break;
+
+      case BOOLEAN:
+        checkBox.setSelected(Boolean.TRUE.equals(value));
+        checkBox.setName(item.getName());
+        checkBox.setBackground(table.getSelectionBackground());
+        activeComponent = checkBox;
+        break;
+
+      default:
+        textField.setText(value != null ? value.toString() : "");
+        textField.setName(item.getName());
+        activeComponent = textField;
+        break;
+    }
+    return activeComponent;
+  }
+
+  @Override
+  public boolean stopCellEditing() {
+    if (activeComponent == textField && !activeType.isValid(textField.getText())) {
+      textField.setBorder(invalidBorder);
+      return false;
+    }
+    return super.stopCellEditing();
+  }
+
+  @Override
+  public Object getCellEditorValue() {
+    if (activeComponent == checkBox) {
+      return checkBox.isSelected();
+    }
+    if (activeComponent == passwordField) {
+      char[] password = passwordField.getPassword();
+      String passwordValue = new String(password);
+      // Clear password from memory for security
+      Arrays.fill(password, ' ');
+      passwordField.setText("");
+      return passwordValue;
+    }
+    return textField.getText();
+  }
+}
@@ -0,0 +1,46 @@
+package com.apag.p2plus.management.plugins.mrp.ui;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.ValueType;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+
+/**
+ * Renders configuration values by item type. One renderer component per type
+ * is reused for all rows, so only visible cells are ever painted.
+ */
+class ConfigValueRenderer implements TableCellRenderer {
+
+  private static final String PASSWORD_MASK = "••••••••";
+
+  private final DefaultTableCellRenderer textRenderer = new DefaultTableCellRenderer();
+  private final JCheckBox checkBoxRenderer = new JCheckBox();
+
+  ConfigValueRenderer() {
+    checkBoxRenderer.setBorderPainted(false);
+    checkBoxRenderer.setOpaque(true);
+  }
+
+  @Override
+  public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                 boolean hasFocus, int row, int column) {
+    ConfigItem item = ((ConfigItemTableModel) table.getModel()).getItem(table.convertRowIndexToModel(row));
+
+    switch (item.getValueType()) {
+      case BOOLEAN:
+        checkBoxRenderer.setSelected(Boolean.TRUE.equals(value));
+        checkBoxRenderer.setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
+        return checkBoxRenderer;
+
+      case PASSWORD:
+        String mask = value != null && !value.toString().isEmpty() ? PASSWORD_MASK : "";
+        return textRenderer.getTableCellRendererComponent(table, mask, isSelected, hasFocus, row, column);
+
+      default:
+        return textRenderer.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+    }
+  }
+}
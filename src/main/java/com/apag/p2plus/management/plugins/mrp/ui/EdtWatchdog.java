@@ -0,0 +1,116 @@
+package com.apag.p2plus.management.plugins.mrp.ui;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.apag.p2plus.management.plugins.mrp.service.LoadExecutors;
+import com.apag.p2plus.management.plugins.mrp.service.SettingsSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.EventQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects stalls of the Event Dispatch Thread. A heartbeat event is posted
+ * to the EDT periodically; if one is not dispatched within the threshold,
+ * the current stack of the EDT is logged as a warning, which shows the code
+ * blocking it. The dispatch delay of every heartbeat is recorded as
+ * {@code ui.edt.dispatchDelay} and every stall counted as {@code ui.edt.stalls}.
+ * Configured with -Dmrp.edt.watchdog (default true),
+ * -Dmrp.edt.stallThresholdMillis (default 500) and -Dmrp.edt.checkIntervalMillis (default 100).
+ */
+public class EdtWatchdog implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(EdtWatchdog.class);
+
+  private final boolean enabled;
+  private final long stallThresholdMillis;
+  private final long checkIntervalMillis;
+  private final MetricsRegistry metrics;
+  private ScheduledExecutorService scheduler;
+  private volatile Thread eventDispatchThread;
+  // Post time of the heartbeat not yet dispatched, 0 if none is pending
+  private volatile long pendingSince;
+  private volatile boolean stallReported;
+
+  public EdtWatchdog(boolean enabled, long stallThresholdMillis, long checkIntervalMillis, MetricsRegistry metrics) {
+    this.enabled = enabled;
+    this.stallThresholdMillis = stallThresholdMillis;
+    this.checkIntervalMillis = checkIntervalMillis;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Creates a watchdog configured by system properties
+   */
+  public static EdtWatchdog fromSystemProperties(MetricsRegistry metrics) {
+    return new EdtWatchdog(
+        Boolean.parseBoolean(System.getProperty("mrp.edt.watchdog", "true")),
+        SettingsSupport.longProperty("mrp.edt.stallThresholdMillis", 500),
+        SettingsSupport.longProperty("mrp.edt.checkIntervalMillis", 100),
+        metrics
+    );
+  }
+
+  public synchronized void start() {
+    if (!enabled || scheduler != null) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(LoadExecutors.daemonThreadFactory("mrp-edt-watchdog"));
+    scheduler.scheduleWithFixedDelay(this::check, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    logger.debug("EDT watchdog started, stall threshold {} ms", stallThresholdMillis);
+  }
+
+  private void check() {
+    long now = System.nanoTime();
+    long posted = pendingSince;
+    if (posted == 0) {
+      pendingSince = now;
+      EventQueue.invokeLater(() -> onHeartbeat(now));
+      return;
+    }
+    long stalledMillis = TimeUnit.NANOSECONDS.toMillis(now - posted);
+    if (!stallReported && stalledMillis >= stallThresholdMillis) {
+      stallReported = true;
+      metrics.counter("ui.edt.stalls").increment();
+      Thread edt = eventDispatchThread;
+      if (edt != null) {
+        EdtStall stall = new EdtStall(edt.getName());
+        stall.setStackTrace(edt.getStackTrace());
+        logger.warn("EDT blocked for {} ms", stalledMillis, stall);
+      } else {
+        logger.warn("EDT blocked for {} ms", stalledMillis);
+      }
+    }
+  }
+
+  private void onHeartbeat(long posted) {
+    eventDispatchThread = Thread.currentThread();
+    long delay = System.nanoTime() - posted;
+    metrics.timer("ui.edt.dispatchDelay").record(delay);
+    if (stallReported) {
+      stallReported = false;
+      logger.warn("EDT responsive again after {} ms", TimeUnit.NANOSECONDS.toMillis(delay));
+    }
+    pendingSince = 0;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  /**
+   * Carries the stack of the blocked EDT into the log
+   */
+  private static class EdtStall extends Exception {
+
+    EdtStall(String threadName) {
+      super("Stack of " + threadName + " while blocked");
+    }
+  }
+}
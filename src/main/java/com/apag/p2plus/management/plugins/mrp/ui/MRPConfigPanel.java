@@ -1,8 +1,12 @@
 package com.apag.p2plus.management.plugins.mrp.ui;
 
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
 import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
 import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.service.CircuitBreaker;
+import com.apag.p2plus.management.plugins.mrp.service.CircuitBreakerRegistry;
 import com.apag.p2plus.management.plugins.mrp.service.OperationalConfigService;
+import com.apag.p2plus.management.plugins.mrp.service.ScenarioPrefetcher;
 import com.apag.p2plus.management.plugins.mrp.service.ScenarioService;
 import com.apag.p2plus.management.plugins.mrp.service.TechnicalConfigService;
 import org.slf4j.Logger;
@@ -10,16 +14,29 @@ import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import javax.swing.plaf.basic.ComboPopup;
 import java.awt.*;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
- * Main panel of the MRP Configuration application
+ * Main panel of the MRP Configuration application. The time the EDT spends
+ * putting configurations into the views is recorded in the metrics as
+ * {@code ui.<view>.build} for complete configurations and {@code ui.<view>.chunk}
+ * for streamed rows; painting happens afterwards and is not included.
  */
 public class MRPConfigPanel extends JPanel {
 
@@ -34,40 +51,117 @@ public class MRPConfigPanel extends JPanel {
   private static final String INPUT_REQUIRED_TITLE = "Input Required";
   private static final String CREATE_SCENARIO_TITLE = "Create New Scenario";
   private static final String ERROR_TITLE = "Error";
+  private static final String UNSAVED_CHANGES_TITLE = "Unsaved Changes";
+
+  // Delay before a scenario selection triggers loading, so scrolling through the list only loads the final one
+  private static final int SCENARIO_SELECTION_DEBOUNCE_MILLIS = 250;
+  // Delay before a typed search term is sent to the server
+  private static final int SCENARIO_SEARCH_DEBOUNCE_MILLIS = 200;
+  // Typical scenario entry used to size the dropdown and its list cells
+  private static final Scenario SCENARIO_PROTOTYPE = new Scenario("SCENARIO", "Scenario description text");
   
   private final ScenarioService scenarioService;
   private final TechnicalConfigService technicalConfigService;
   private final OperationalConfigService operationalConfigService;
+  private final ScenarioPrefetcher scenarioPrefetcher;
+  private final MetricsRegistry metrics;
+  private final CircuitBreakerRegistry circuitBreakers;
+  private final BiConsumer<String, CircuitBreaker.State> circuitStateListener =
+      (endpoint, state) -> SwingUtilities.invokeLater(this::updateAvailability);
+  private final CommandPipeline commandPipeline = new CommandPipeline();
   
+  private ScenarioComboBoxModel scenarioModel;
   private JComboBox<Scenario> scenarioComboBox;
-  private JPanel technicalConfigPanel;
-  private JPanel operationalConfigPanel;
+  private JTextField scenarioSearchField;
+  private Timer scenarioSearchTimer;
+  private ConfigItemsView technicalConfigView;
+  private ConfigItemsView operationalConfigView;
   private JSplitPane splitPane;
-  private Map<String, JComponent> technicalConfigComponents;
-  private Map<String, JComponent> operationalConfigComponents;
+  private JProgressBar commandProgressBar;
+  private JLabel commandStatusLabel;
+  private JLabel availabilityLabel;
+  private Timer scenarioSelectionTimer;
+  private CompletableFuture<List<ConfigItem>> pendingOperationalLoad;
+  private long operationalLoadGeneration;
+  private String displayedScenarioId;
+  // Scenario whose operational configuration was last requested, selected again if a switch is cancelled
+  private Scenario displayedScenario;
 
   public MRPConfigPanel(ScenarioService scenarioService,
                        TechnicalConfigService technicalConfigService,
-                       OperationalConfigService operationalConfigService) {
+                       OperationalConfigService operationalConfigService,
+                       ScenarioPrefetcher scenarioPrefetcher,
+                       MetricsRegistry metrics,
+                       CircuitBreakerRegistry circuitBreakers) {
     this.scenarioService = scenarioService;
     this.technicalConfigService = technicalConfigService;
     this.operationalConfigService = operationalConfigService;
-    this.technicalConfigComponents = new HashMap<>();
-    this.operationalConfigComponents = new HashMap<>();
+    this.scenarioPrefetcher = scenarioPrefetcher;
+    this.metrics = metrics;
+    this.circuitBreakers = circuitBreakers;
     
     initializeComponents();
     layoutComponents();
+    registerRefreshListeners();
+    circuitBreakers.addStateListener(circuitStateListener);
     loadScenarios();
   }
 
   private void initializeComponents() {
     setLayout(new BorderLayout());
 
-    scenarioComboBox = new JComboBox<>();
+    scenarioModel = new ScenarioComboBoxModel(scenarioService::loadPageAsync);
+    scenarioComboBox = new JComboBox<>(scenarioModel);
     scenarioComboBox.setPreferredSize(new Dimension(200, 25));
+    // Sizes the combo box without measuring every loaded scenario
+    scenarioComboBox.setPrototypeDisplayValue(SCENARIO_PROTOTYPE);
+
+    scenarioSearchField = new JTextField(12);
+    scenarioSearchField.setToolTipText("Search scenarios by ID or name");
+    scenarioSearchTimer = new Timer(SCENARIO_SEARCH_DEBOUNCE_MILLIS, e -> onScenarioSearchSettled());
+    scenarioSearchTimer.setRepeats(false);
+
+    scenarioSelectionTimer = new Timer(SCENARIO_SELECTION_DEBOUNCE_MILLIS, e -> onScenarioSelectionSettled());
+    scenarioSelectionTimer.setRepeats(false);
+
+    technicalConfigView = new ConfigItemsView();
+    operationalConfigView = new ConfigItemsView();
+
+    commandProgressBar = new JProgressBar();
+    commandProgressBar.setIndeterminate(true);
+    commandProgressBar.setPreferredSize(new Dimension(80, 14));
+    commandProgressBar.setVisible(false);
+    commandStatusLabel = new JLabel();
+    commandPipeline.setProgressListener(this::onCommandProgress);
+
+    availabilityLabel = new JLabel();
+    availabilityLabel.setForeground(Color.RED.darker());
+    availabilityLabel.setToolTipText("Requests fail fast until a probe request succeeds; cached or fallback data is shown");
+    availabilityLabel.setVisible(false);
+  }
 
-    technicalConfigPanel = new JPanel(new GridBagLayout());
-    operationalConfigPanel = new JPanel(new GridBagLayout());
+  /**
+   * Re-renders the scenario list and configuration areas when cached or
+   * snapshot data that is currently displayed has been replaced by a
+   * background refresh. Configurations with unsaved changes are kept.
+   */
+  private void registerRefreshListeners() {
+    scenarioService.addRefreshListener((key, scenarios) ->
+        SwingUtilities.invokeLater(this::loadScenarios));
+
+    technicalConfigService.addRefreshListener((key, configItems) ->
+        SwingUtilities.invokeLater(() -> {
+          if (!technicalConfigView.getTableModel().hasChanges()) {
+            buildTechnicalConfigUI(configItems);
+          }
+        }));
+
+    operationalConfigService.addRefreshListener((scenarioId, configItems) ->
+        SwingUtilities.invokeLater(() -> {
+          if (scenarioId.equals(displayedScenarioId) && !operationalConfigView.getTableModel().hasChanges()) {
+            buildOperationalConfigUI(scenarioId, configItems);
+          }
+        }));
   }
 
   private void layoutComponents() {
@@ -85,9 +179,16 @@ public class MRPConfigPanel extends JPanel {
     scenarioLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
     leftPanel.add(scenarioLabel);
     leftPanel.add(scenarioComboBox);
+    JLabel searchLabel = new JLabel("Search:");
+    searchLabel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 5));
+    leftPanel.add(searchLabel);
+    leftPanel.add(scenarioSearchField);
 
     // Right area with buttons
     JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    rightPanel.add(availabilityLabel);
+    rightPanel.add(commandStatusLabel);
+    rightPanel.add(commandProgressBar);
     
     JButton createScenarioButton = new JButton("➕ Create Scenario");
     createScenarioButton.addActionListener(e -> onCreateScenarioClicked());
@@ -99,6 +200,9 @@ public class MRPConfigPanel extends JPanel {
     rightPanel.add(saveButton);
 
     scenarioComboBox.addActionListener(e -> onScenarioSelectionChanged());
+    registerPagingTrigger();
+    registerPrefetchTriggers();
+    registerSearchTriggers();
 
     toolbarPanel.add(leftPanel, BorderLayout.WEST);
     toolbarPanel.add(rightPanel, BorderLayout.EAST);
@@ -106,6 +210,124 @@ public class MRPConfigPanel extends JPanel {
     return toolbarPanel;
   }
 
+  /**
+   * Requests the next page of scenarios when the scenario list is scrolled
+   * close to its end. The list gets a fixed cell size, so laying it out does
+   * not read every loaded scenario.
+   */
+  private void registerPagingTrigger() {
+    Object popup = scenarioComboBox.getAccessibleContext().getAccessibleChild(0);
+    if (!(popup instanceof ComboPopup)) {
+      return;
+    }
+    JList<Object> list = ((ComboPopup) popup).getList();
+    list.setPrototypeCellValue(SCENARIO_PROTOTYPE);
+    JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, list);
+    if (scrollPane != null) {
+      scrollPane.getVerticalScrollBar().addAdjustmentListener(
+          e -> scenarioModel.loadNextPage(list.getLastVisibleIndex()));
+    }
+  }
+
+  /**
+   * Prefetches the likely next scenarios when the scenario list is opened and
+   * moves the entry under the mouse to the front of the prefetch queue
+   */
+  private void registerPrefetchTriggers() {
+    scenarioComboBox.addPopupMenuListener(new PopupMenuListener() {
+      @Override
+      public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+        prefetchAroundSelection();
+      }
+
+      @Override
+      public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+      }
+
+      @Override
+      public void popupMenuCanceled(PopupMenuEvent e) {
+      }
+    });
+
+    Object popup = scenarioComboBox.getAccessibleContext().getAccessibleChild(0);
+    if (popup instanceof ComboPopup) {
+      JList<?> list = ((ComboPopup) popup).getList();
+      list.addListSelectionListener(e -> {
+        Object hovered = list.getSelectedValue();
+        if (!e.getValueIsAdjusting() && scenarioComboBox.isPopupVisible() && hovered instanceof Scenario
+            && isRealScenario((Scenario) hovered)) {
+          scenarioPrefetcher.hint(((Scenario) hovered).getScenarioId());
+        }
+      });
+    }
+  }
+
+  /**
+   * Filters the scenario list while typing in the search field; Enter selects
+   * the first match
+   */
+  private void registerSearchTriggers() {
+    scenarioSearchField.getDocument().addDocumentListener(new DocumentListener() {
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+        scenarioSearchTimer.restart();
+      }
+
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+        scenarioSearchTimer.restart();
+      }
+
+      @Override
+      public void changedUpdate(DocumentEvent e) {
+        scenarioSearchTimer.restart();
+      }
+    });
+
+    scenarioSearchField.addActionListener(e -> {
+      if (scenarioSearchTimer.isRunning()) {
+        scenarioSearchTimer.stop();
+        loadScenarios().thenRun(this::selectFirstMatch);
+      } else {
+        selectFirstMatch();
+      }
+    });
+  }
+
+  private void onScenarioSearchSettled() {
+    loadScenarios().thenRun(() -> {
+      if (scenarioSearchField.hasFocus() && scenarioModel.getSize() > 0) {
+        scenarioComboBox.showPopup();
+      }
+    });
+  }
+
+  private void selectFirstMatch() {
+    if (scenarioModel.getSize() > 0) {
+      scenarioComboBox.setSelectedItem(scenarioModel.getElementAt(0));
+      scenarioComboBox.hidePopup();
+    }
+  }
+
+  private String getSearchTerm() {
+    String search = scenarioSearchField.getText().trim();
+    return search.isEmpty() ? null : search;
+  }
+
+  private void prefetchAroundSelection() {
+    List<Scenario> loadedScenarios = scenarioModel.getLoadedScenarios();
+    List<String> scenarioIds = new ArrayList<>(loadedScenarios.size());
+    for (Scenario scenario : loadedScenarios) {
+      scenarioIds.add(scenario.getScenarioId());
+    }
+    Scenario selectedScenario = getSelectedScenario();
+    scenarioPrefetcher.prefetchAround(scenarioIds, selectedScenario != null ? selectedScenario.getScenarioId() : null);
+  }
+
+  private static boolean isRealScenario(Scenario scenario) {
+    return scenario != null && !scenario.getScenarioId().equals("loading") && !scenario.getScenarioId().equals("error");
+  }
+
   private JPanel createContentPanel() {
     JPanel contentPanel = new JPanel(new BorderLayout());
 
@@ -135,45 +357,45 @@ public class MRPConfigPanel extends JPanel {
       new TitledBorder("Technical")
     ));
 
-    JPanel wrapperPanel = new JPanel();
-    wrapperPanel.setLayout(new BoxLayout(wrapperPanel, BoxLayout.Y_AXIS));
-    wrapperPanel.add(technicalConfigPanel);
-
-    JScrollPane scrollPane = new JScrollPane(wrapperPanel);
-    scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-    scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
-    scrollPane.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-
-    panel.add(scrollPane, BorderLayout.CENTER);
+    panel.add(technicalConfigView, BorderLayout.CENTER);
     loadTechnicalConfig();
 
     return panel;
   }
 
-  private void loadScenarios() {
-    scenarioComboBox.addItem(new Scenario("loading", "Loading scenarios..."));
-    scenarioComboBox.setEnabled(false);
-
-    scenarioService.loadAsync().thenAccept(scenarios -> {
-      SwingUtilities.invokeLater(() -> {
-        scenarioComboBox.removeAllItems();
+  /**
+   * Loads the first page of scenarios matching the search term. The current
+   * selection is kept; without one the first scenario is selected.
+   *
+   * @return future completed on the EDT once the page has been shown
+   */
+  private CompletableFuture<Void> loadScenarios() {
+    boolean hasSelection = isRealScenario(getSelectedScenario());
+    if (!hasSelection) {
+      scenarioModel.setSelectedItem(new Scenario("loading", "Loading scenarios..."));
+      scenarioComboBox.setEnabled(false);
+    }
 
-        if (scenarios != null && !scenarios.isEmpty()) {
-          for (Scenario scenario : scenarios) {
-            scenarioComboBox.addItem(scenario);
-          }
+    return scenarioModel.load(getSearchTerm()).handle((page, throwable) -> {
+      if (throwable instanceof CancellationException) {
+        // Superseded by a newer search
+        return null;
+      }
+      if (throwable != null) {
+        logger.error("Error loading scenarios", throwable);
+        if (!hasSelection) {
+          scenarioModel.setSelectedItem(new Scenario("error", "Network error"));
+        }
+      } else if (!isRealScenario(getSelectedScenario())) {
+        if (scenarioModel.getSize() > 0) {
+          scenarioModel.setSelectedItem(scenarioModel.getElementAt(0));
+        } else if (getSearchTerm() == null) {
+          scenarioModel.setSelectedItem(new Scenario("error", "Error loading scenarios"));
         } else {
-          scenarioComboBox.addItem(new Scenario("error", "Error loading scenarios"));
+          scenarioModel.setSelectedItem(null);
         }
-
-        scenarioComboBox.setEnabled(true);
-      });
-    }).exceptionally(throwable -> {
-      SwingUtilities.invokeLater(() -> {
-        scenarioComboBox.removeAllItems();
-        scenarioComboBox.addItem(new Scenario("error", "Network error"));
-        scenarioComboBox.setEnabled(true);
-      });
+      }
+      scenarioComboBox.setEnabled(true);
       return null;
     });
   }
@@ -183,126 +405,31 @@ public class MRPConfigPanel extends JPanel {
   }
 
   private void loadTechnicalConfig() {
-    technicalConfigPanel.removeAll();
-    technicalConfigComponents.clear();
-
-    addLoadingLabel(technicalConfigPanel, "Loading technical configuration...");
+    technicalConfigView.showMessage("Loading technical configuration...");
 
-    technicalConfigService.loadAsync().thenAccept(configItems -> {
+    ProgressiveRenderer renderer = new ProgressiveRenderer(technicalConfigView, () -> true, () -> { },
+        chunk -> metrics.time("ui.technical.chunk", chunk));
+    technicalConfigService.loadAsync(renderer).thenAccept(configItems -> {
       SwingUtilities.invokeLater(() -> {
         if (configItems != null) {
-          buildTechnicalConfigUI(configItems);
+          // Streamed rows stay in place, keeping edits made while the rest was loading
+          if (!configItems.equals(technicalConfigView.getTableModel().getItems())) {
+            buildTechnicalConfigUI(configItems);
+          }
         } else {
-          showErrorInPanel(technicalConfigPanel, "No technical configuration available");
+          technicalConfigView.showError("No technical configuration available");
         }
       });
     }).exceptionally(throwable -> {
       SwingUtilities.invokeLater(() -> {
-        showErrorInPanel(technicalConfigPanel, "Error loading technical configuration");
+        technicalConfigView.showError("Error loading technical configuration");
       });
       return null;
     });
   }
 
-  private void addLoadingLabel(JPanel panel, String text) {
-    JLabel loadingLabel = new JLabel(text);
-    loadingLabel.setHorizontalAlignment(SwingConstants.CENTER);
-    GridBagConstraints gbc = new GridBagConstraints();
-    gbc.gridx = 0;
-    gbc.gridy = 0;
-    gbc.gridwidth = 2;
-    gbc.fill = GridBagConstraints.HORIZONTAL;
-    gbc.insets = new Insets(2, 2, 2, 2);
-    panel.add(loadingLabel, gbc);
-    panel.revalidate();
-    panel.repaint();
-  }
-
-  private void showErrorInPanel(JPanel panel, String message) {
-    panel.removeAll();
-    JLabel errorLabel = new JLabel(message);
-    errorLabel.setHorizontalAlignment(SwingConstants.CENTER);
-    errorLabel.setForeground(Color.RED);
-    GridBagConstraints gbc = new GridBagConstraints();
-    gbc.gridx = 0;
-    gbc.gridy = 0;
-    gbc.gridwidth = 2;
-    gbc.fill = GridBagConstraints.HORIZONTAL;
-    gbc.insets = new Insets(2, 2, 2, 2);
-    panel.add(errorLabel, gbc);
-    panel.revalidate();
-    panel.repaint();
-  }
-
   private void buildTechnicalConfigUI(List<ConfigItem> configItems) {
-    technicalConfigPanel.removeAll();
-    technicalConfigComponents.clear();
-
-    GridBagConstraints gbc = new GridBagConstraints();
-    gbc.insets = new Insets(2, 2, 2, 2);
-    gbc.anchor = GridBagConstraints.WEST;
-
-    int row = 0;
-    for (ConfigItem item : configItems) {
-      JLabel label = new JLabel(item.getDescription() + ":");
-      gbc.gridx = 0;
-      gbc.gridy = row;
-      gbc.gridwidth = 1;
-      gbc.fill = GridBagConstraints.NONE;
-      gbc.weightx = 0.0;
-      technicalConfigPanel.add(label, gbc);
-
-      JComponent component = createComponentForType(item);
-      if (component != null) {
-        technicalConfigComponents.put(item.getName(), component);
-
-        gbc.gridx = 1;
-        gbc.gridy = row;
-        gbc.gridwidth = 1;
-        gbc.fill = GridBagConstraints.HORIZONTAL;
-        gbc.weightx = 1.0;
-        technicalConfigPanel.add(component, gbc);
-      }
-
-      row++;
-    }
-
-    // Add spacer
-    gbc.gridx = 0;
-    gbc.gridy = row;
-    gbc.gridwidth = 2;
-    gbc.fill = GridBagConstraints.BOTH;
-    gbc.weightx = 1.0;
-    gbc.weighty = 1.0;
-    technicalConfigPanel.add(new JPanel(), gbc);
-
-    technicalConfigPanel.revalidate();
-    technicalConfigPanel.repaint();
-  }
-
-  private JComponent createComponentForType(ConfigItem item) {
-    switch (item.getType().toLowerCase()) {
-      case "string":
-        JTextField textField = new JTextField(item.getValueAsString());
-        textField.setName(item.getName());
-        return textField;
-
-      case "password":
-        JPasswordField passwordField = new JPasswordField(item.getValueAsString());
-        passwordField.setName(item.getName());
-        return passwordField;
-
-      case "boolean":
-        JCheckBox checkBox = new JCheckBox();
-        checkBox.setSelected(item.getValueAsBoolean());
-        checkBox.setName(item.getName());
-        return checkBox;
-
-      default:
-        JTextField defaultField = new JTextField(item.getValueAsString());
-        defaultField.setName(item.getName());
-        return defaultField;
-    }
+    metrics.time("ui.technical.build", () -> technicalConfigView.showItems(configItems));
   }
 
   private JPanel createOperationalConfigPanel() {
@@ -312,93 +439,115 @@ public class MRPConfigPanel extends JPanel {
       new TitledBorder("Operational")
     ));
 
-    JPanel wrapperPanel = new JPanel();
-    wrapperPanel.setLayout(new BoxLayout(wrapperPanel, BoxLayout.Y_AXIS));
-    wrapperPanel.add(operationalConfigPanel);
-
-    JScrollPane scrollPane = new JScrollPane(wrapperPanel);
-    scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-    scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
-    scrollPane.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-
-    panel.add(scrollPane, BorderLayout.CENTER);
+    panel.add(operationalConfigView, BorderLayout.CENTER);
 
     return panel;
   }
 
   private void onScenarioSelectionChanged() {
+    // Restart the debounce timer; only the selection that is still current when it fires is loaded
+    scenarioSelectionTimer.restart();
+  }
+
+  private void onScenarioSelectionSettled() {
     Scenario selectedScenario = getSelectedScenario();
-    if (selectedScenario != null && !selectedScenario.getScenarioId().equals("loading") && !selectedScenario.getScenarioId().equals("error")) {
-      loadOperationalConfig(selectedScenario.getScenarioId());
+    if (!isRealScenario(selectedScenario)) {
+      return;
+    }
+    String scenarioId = selectedScenario.getScenarioId();
+    ConfigItemTableModel operationalModel = operationalConfigView.getTableModel();
+    if (scenarioId.equals(displayedScenarioId) && operationalModel.hasChanges()) {
+      // Still shown with its edits, e.g. after the switch away from it was cancelled
+      return;
+    }
+    if (!confirmLeavingOperationalChanges()) {
+      scenarioModel.setSelectedItem(displayedScenario);
+      return;
+    }
+    displayedScenario = selectedScenario;
+    loadOperationalConfig(scenarioId);
+    scenarioPrefetcher.recordSelection(scenarioId);
+    prefetchAroundSelection();
+  }
+
+  /**
+   * Asks whether unsaved operational changes are saved or discarded before
+   * another scenario is shown
+   *
+   * @return false if the user chose to stay on the current scenario
+   */
+  private boolean confirmLeavingOperationalChanges() {
+    operationalConfigView.stopEditing();
+    ConfigItemTableModel operationalModel = operationalConfigView.getTableModel();
+    String scenarioId = displayedScenarioId;
+    if (scenarioId == null || !operationalModel.hasChanges()) {
+      return true;
+    }
+    String[] options = {"Save", "Discard", "Cancel"};
+    int choice = JOptionPane.showOptionDialog(this,
+        "The operational configuration of '" + scenarioId + "' has unsaved changes.",
+        UNSAVED_CHANGES_TITLE, JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE,
+        null, options, options[0]);
+    if (choice == 0) {
+      saveOperationalChanges(scenarioId, operationalModel, operationalModel.captureChanges());
+      return true;
     }
+    return choice == 1;
   }
 
+  /**
+   * Loads the operational configuration of a scenario. A load that is still
+   * running for a previous selection is cancelled, and results of superseded
+   * loads are never applied.
+   */
   private void loadOperationalConfig(String scenarioId) {
-    operationalConfigPanel.removeAll();
-    operationalConfigComponents.clear();
+    if (pendingOperationalLoad != null) {
+      pendingOperationalLoad.cancel(true);
+    }
+    long generation = ++operationalLoadGeneration;
+
+    ProgressiveRenderer renderer = new ProgressiveRenderer(operationalConfigView,
+        () -> generation == operationalLoadGeneration, () -> displayedScenarioId = scenarioId,
+        chunk -> metrics.time("ui.operational.chunk", chunk));
+    CompletableFuture<List<ConfigItem>> load = operationalConfigService.loadAsync(scenarioId, renderer);
+    pendingOperationalLoad = load;
 
-    addLoadingLabel(operationalConfigPanel, "Loading operational configuration...");
+    if (!load.isDone()) {
+      displayedScenarioId = null;
+      operationalConfigView.showMessage("Loading operational configuration...");
+    }
 
-    operationalConfigService.loadAsync(scenarioId).thenAccept(configItems -> {
+    load.whenComplete((configItems, throwable) -> {
       SwingUtilities.invokeLater(() -> {
-        if (configItems != null) {
-          buildOperationalConfigUI(configItems);
+        if (generation != operationalLoadGeneration) {
+          return;
+        }
+        pendingOperationalLoad = null;
+        if (throwable != null) {
+          if (!(throwable instanceof CancellationException) && !(throwable.getCause() instanceof CancellationException)) {
+            logger.warn("Error loading operational configuration for '{}'", scenarioId, unwrap(throwable));
+            displayedScenarioId = null;
+            operationalConfigView.showError("Error loading operational configuration");
+          }
+        } else if (configItems != null) {
+          if (!scenarioId.equals(displayedScenarioId) || !configItems.equals(operationalConfigView.getTableModel().getItems())) {
+            buildOperationalConfigUI(scenarioId, configItems);
+          }
         } else {
-          showErrorInPanel(operationalConfigPanel, "No operational configuration available");
+          displayedScenarioId = null;
+          operationalConfigView.showError("No operational configuration available");
         }
       });
-    }).exceptionally(throwable -> {
-      SwingUtilities.invokeLater(() -> {
-        showErrorInPanel(operationalConfigPanel, "Error loading operational configuration");
-      });
-      return null;
     });
   }
 
-  private void buildOperationalConfigUI(List<ConfigItem> configItems) {
-    operationalConfigPanel.removeAll();
-    operationalConfigComponents.clear();
-
-    GridBagConstraints gbc = new GridBagConstraints();
-    gbc.insets = new Insets(2, 2, 2, 2);
-    gbc.anchor = GridBagConstraints.WEST;
-
-    int row = 0;
-    for (ConfigItem item : configItems) {
-      JLabel label = new JLabel(item.getDescription() + ":");
-      gbc.gridx = 0;
-      gbc.gridy = row;
-      gbc.gridwidth = 1;
-      gbc.fill = GridBagConstraints.NONE;
-      gbc.weightx = 0.0;
-      operationalConfigPanel.add(label, gbc);
-
-      JComponent component = createComponentForType(item);
-      if (component != null) {
-        operationalConfigComponents.put(item.getName(), component);
-
-        gbc.gridx = 1;
-        gbc.gridy = row;
-        gbc.gridwidth = 1;
-        gbc.fill = GridBagConstraints.HORIZONTAL;
-        gbc.weightx = 1.0;
-        operationalConfigPanel.add(component, gbc);
-      }
-
-      row++;
-    }
-
-    // Add spacer
-    gbc.gridx = 0;
-    gbc.gridy = row;
-    gbc.gridwidth = 2;
-    gbc.fill = GridBagConstraints.BOTH;
-    gbc.weightx = 1.0;
-    gbc.weighty = 1.0;
-    operationalConfigPanel.add(new JPanel(), gbc);
+  private static Throwable unwrap(Throwable throwable) {
+    return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+  }
 
-    operationalConfigPanel.revalidate();
-    operationalConfigPanel.repaint();
+  private void buildOperationalConfigUI(String scenarioId, List<ConfigItem> configItems) {
+    displayedScenarioId = scenarioId;
+    metrics.time("ui.operational.build", () -> operationalConfigView.showItems(configItems));
   }
 
   private void onCreateScenarioClicked() {
@@ -414,43 +563,54 @@ public class MRPConfigPanel extends JPanel {
       // Create new scenario object
       Scenario newScenario = new Scenario(result.scenarioId, result.scenarioName);
       
-      // Call service to create scenario
-      boolean success = scenarioService.createScenario(newScenario);
-      
-      if (success) {
-        // Show success dialog
-        JOptionPane.showMessageDialog(
-          this,
-          SCENARIO_CREATED_SUCCESS,
-          SCENARIO_CREATED_TITLE,
-          JOptionPane.INFORMATION_MESSAGE
-        );
-        
-        // Reload scenarios to include the new one
-        loadScenarios();
-        
-        logger.info("Scenario '{}' created successfully", newScenario.getScenarioId());
-      } else {
-        // Show error dialog
-        JOptionPane.showMessageDialog(
-          this,
-          SCENARIO_CREATION_ERROR,
-          SCENARIO_CREATION_ERROR_TITLE,
-          JOptionPane.ERROR_MESSAGE
-        );
-      }
+      // The request runs in the background and is retried while the server is overloaded
+      commandPipeline.track("Creating scenario '" + newScenario.getScenarioId() + "'",
+          scenarioService.createScenarioAsync(newScenario))
+          .whenComplete((success, throwable) -> onScenarioCreated(newScenario, success, throwable));
       
     } catch (Exception e) {
       logger.error("Error creating scenario", e);
+      showCreateScenarioError(e);
+    }
+  }
+
+  private void onScenarioCreated(Scenario newScenario, Boolean success, Throwable throwable) {
+    if (throwable != null) {
+      commandStatusLabel.setText("Creating scenario failed");
+      showCreateScenarioError(throwable);
+    } else if (success) {
+      commandStatusLabel.setText("Scenario '" + newScenario.getScenarioId() + "' created");
       JOptionPane.showMessageDialog(
         this,
-        "Error creating scenario: " + e.getMessage(),
-        ERROR_TITLE,
+        SCENARIO_CREATED_SUCCESS,
+        SCENARIO_CREATED_TITLE,
+        JOptionPane.INFORMATION_MESSAGE
+      );
+      
+      // Reload scenarios to include the new one
+      loadScenarios();
+      
+      logger.info("Scenario '{}' created successfully", newScenario.getScenarioId());
+    } else {
+      commandStatusLabel.setText("Creating scenario failed");
+      JOptionPane.showMessageDialog(
+        this,
+        SCENARIO_CREATION_ERROR,
+        SCENARIO_CREATION_ERROR_TITLE,
         JOptionPane.ERROR_MESSAGE
       );
     }
   }
 
+  private void showCreateScenarioError(Throwable throwable) {
+    JOptionPane.showMessageDialog(
+      this,
+      "Error creating scenario: " + unwrap(throwable).getMessage(),
+      ERROR_TITLE,
+      JOptionPane.ERROR_MESSAGE
+    );
+  }
+
   /**
    * Shows a custom dialog for creating a new scenario
    * 
@@ -533,84 +693,149 @@ public class MRPConfigPanel extends JPanel {
     }
   }
 
+  /**
+   * Shows chunks of a configuration that is still being received. Chunks are
+   * handed over from a worker thread and rendered on the EDT as long as the
+   * load is still current; the first chunk replaces the loading message.
+   */
+  private static class ProgressiveRenderer implements Consumer<List<ConfigItem>> {
+    private final ConfigItemsView view;
+    private final BooleanSupplier current;
+    private final Runnable onFirstChunk;
+    private final Consumer<Runnable> timing;
+    private boolean started;
+
+    /**
+     * @param timing runs the rendering of a chunk and records its duration
+     */
+    ProgressiveRenderer(ConfigItemsView view, BooleanSupplier current, Runnable onFirstChunk, Consumer<Runnable> timing) {
+      this.view = view;
+      this.current = current;
+      this.onFirstChunk = onFirstChunk;
+      this.timing = timing;
+    }
+
+    @Override
+    public void accept(List<ConfigItem> chunk) {
+      SwingUtilities.invokeLater(() -> {
+        if (!current.getAsBoolean()) {
+          return;
+        }
+        timing.accept(() -> {
+          if (started) {
+            view.appendItems(chunk);
+          } else {
+            started = true;
+            onFirstChunk.run();
+            view.showItems(chunk);
+          }
+        });
+      });
+    }
+  }
+
+  /**
+   * Saves the changed items in the background via the write-behind queue of
+   * the services, which retries failed requests. The technical and the
+   * operational configuration are saved separately, so a failure of one does
+   * not discard the other; edits made while a save is running stay marked as
+   * changed and failed changes can be saved again.
+   */
   private void onSaveConfigurationClicked() {
-    try {
-      // Collect technical configuration from UI components
-      List<ConfigItem> technicalConfigItems = collectTechnicalConfigFromUI();
-      
-      if (technicalConfigItems.isEmpty()) {
-        JOptionPane.showMessageDialog(this, "No technical configuration to save.", "Info", JOptionPane.INFORMATION_MESSAGE);
-        return;
-      }
-      
-      // Save technical configuration
-      technicalConfigService.saveTechnicalConfig(technicalConfigItems);
-      
-      logger.info("Technical configuration saved successfully");
-      JOptionPane.showMessageDialog(this, "Technical configuration saved successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-      
-    } catch (Exception e) {
-      logger.error("Error saving configuration", e);
-      JOptionPane.showMessageDialog(this, "Failed to save configuration: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+    technicalConfigView.stopEditing();
+    operationalConfigView.stopEditing();
+    ConfigItemTableModel technicalModel = technicalConfigView.getTableModel();
+    ConfigItemTableModel operationalModel = operationalConfigView.getTableModel();
+    ConfigItemTableModel.ChangeSet technicalChanges = technicalModel.captureChanges();
+    String scenarioId = displayedScenarioId;
+    ConfigItemTableModel.ChangeSet operationalChanges = scenarioId != null ? operationalModel.captureChanges() : null;
+    boolean operationalChanged = operationalChanges != null && !operationalChanges.isEmpty();
+
+    if (technicalChanges.isEmpty() && !operationalChanged) {
+      JOptionPane.showMessageDialog(this, "No configuration changes to save.", "Info", JOptionPane.INFORMATION_MESSAGE);
+      return;
+    }
+
+    // Only changed items are sent; descriptions of the loaded items are kept
+    if (!technicalChanges.isEmpty()) {
+      commandPipeline.track("Saving technical configuration", technicalConfigService.saveTechnicalChangesAsync(
+          technicalChanges.getChangedItems()))
+          .whenComplete((ignored, throwable) ->
+              onConfigurationSaved(technicalModel, technicalChanges, "Technical configuration", throwable));
+    }
+    if (operationalChanged) {
+      saveOperationalChanges(scenarioId, operationalModel, operationalChanges);
+    }
+  }
+
+  private void saveOperationalChanges(String scenarioId, ConfigItemTableModel model,
+                                      ConfigItemTableModel.ChangeSet changes) {
+    commandPipeline.track("Saving operational configuration of '" + scenarioId + "'",
+        operationalConfigService.saveOperationalChangesAsync(scenarioId, changes.getChangedItems()))
+        .whenComplete((ignored, throwable) ->
+            onConfigurationSaved(model, changes, "Operational configuration of '" + scenarioId + "'", throwable));
+  }
+
+  private void onConfigurationSaved(ConfigItemTableModel model, ConfigItemTableModel.ChangeSet changes,
+                                    String configuration, Throwable throwable) {
+    if (throwable == null) {
+      model.markSaved(changes);
+      commandStatusLabel.setText(configuration + " saved");
+    } else {
+      commandStatusLabel.setText("Saving failed");
+      // Changes saved when switching scenarios are no longer shown and cannot be saved again
+      String hint = model.isCurrent(changes)
+          ? configuration + " keeps the changes, they can be saved again."
+          : configuration + " could not be saved, the changes were discarded.";
+      JOptionPane.showMessageDialog(this, unwrap(throwable).getMessage() + "\n" + hint,
+          ERROR_TITLE, JOptionPane.ERROR_MESSAGE);
     }
   }
 
   /**
-   * Collects the current technical configuration from UI components
-   * 
-   * @return List of ConfigItem objects with current values from UI
+   * Shows the endpoints whose circuit breaker is open or probing
    */
-  private List<ConfigItem> collectTechnicalConfigFromUI() {
-    List<ConfigItem> configItems = new ArrayList<>();
-    
-    for (Map.Entry<String, JComponent> entry : technicalConfigComponents.entrySet()) {
-      String name = entry.getKey();
-      JComponent component = entry.getValue();
-      
-      try {
-        ConfigItem item = createConfigItemFromComponent(name, component);
-        if (item != null) {
-          configItems.add(item);
-        }
-      } catch (Exception e) {
-        logger.warn("Error reading value for {}: {}", name, e.getMessage());
+  private void updateAvailability() {
+    List<String> unavailable = new ArrayList<>();
+    circuitBreakers.getStates().forEach((endpoint, state) -> {
+      if (state != CircuitBreaker.State.CLOSED) {
+        unavailable.add(endpoint);
       }
-    }
-    
-    return configItems;
+    });
+    availabilityLabel.setVisible(!unavailable.isEmpty());
+    availabilityLabel.setText("⚠ Server unavailable (" + String.join(", ", unavailable) + ")");
   }
 
   /**
-   * Creates a ConfigItem from a UI component
-   * 
-   * @param name Component name (configuration parameter name)
-   * @param component UI component containing the value
-   * @return ConfigItem with current value from UI component
+   * Shows the running command, or hides the progress bar when all commands are done
    */
-  private ConfigItem createConfigItemFromComponent(String name, JComponent component) {
-    if (component instanceof JTextField) {
-      JTextField textField = (JTextField) component;
-      return new ConfigItem(name, "string", textField.getText(), null);
-      
-    } else if (component instanceof JPasswordField) {
-      JPasswordField passwordField = (JPasswordField) component;
-      char[] password = passwordField.getPassword();
-      String passwordValue = new String(password);
-      // Clear password from memory for security
-      java.util.Arrays.fill(password, ' ');
-      return new ConfigItem(name, "password", passwordValue, null);
-      
-    } else if (component instanceof JCheckBox) {
-      JCheckBox checkBox = (JCheckBox) component;
-      return new ConfigItem(name, "boolean", checkBox.isSelected(), null);
-      
-    } else {
-      logger.warn("Unknown component type for {}: {}", name, component.getClass().getSimpleName());
-      return null;
+  private void onCommandProgress(String status) {
+    commandProgressBar.setVisible(status != null);
+    if (status != null) {
+      commandStatusLabel.setText(status);
     }
   }
 
+  /**
+   * Stops loading and scenario switches; must be called on the EDT before
+   * {@link #closeCommands(long, TimeUnit)}
+   */
   public void cleanup() {
+    scenarioSelectionTimer.stop();
+    circuitBreakers.removeStateListener(circuitStateListener);
+    if (pendingOperationalLoad != null) {
+      pendingOperationalLoad.cancel(true);
+    }
+  }
+
+  /**
+   * Waits up to the timeout for running commands and closes the services.
+   * Blocks, so call it off the EDT; command results are still delivered on
+   * the EDT meanwhile. Saves still in the write-behind queue are sent when the
+   * {@code ServiceFactory} shuts down.
+   */
+  public void closeCommands(long timeout, TimeUnit unit) {
+    commandPipeline.close(timeout, unit);
     if (scenarioService != null) {
       scenarioService.close();
     }
@@ -0,0 +1,160 @@
+package com.apag.p2plus.management.plugins.mrp.ui;
+
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.model.ScenarioPage;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Combo box model that loads scenarios page by page for a search term. The
+ * view requests the next page via {@link #loadNextPage(int)} when its list is
+ * scrolled close to the end of the loaded scenarios; reading elements never
+ * loads anything. Each page is added with a single model event, and the
+ * selected scenario is kept independently of the loaded pages.
+ * All methods must be called on the EDT.
+ */
+public class ScenarioComboBoxModel extends AbstractListModel<Scenario> implements ComboBoxModel<Scenario> {
+
+  static final int PAGE_SIZE = 200;
+  // Remaining loaded rows below which the next page is requested
+  private static final int LOAD_AHEAD_ROWS = 50;
+
+  private final PageLoader pageLoader;
+  private final List<Scenario> scenarios = new ArrayList<>();
+  private Object selectedItem;
+  private String search;
+  private int total;
+  private long generation;
+  private CompletableFuture<ScenarioPage> pendingPage;
+
+  public ScenarioComboBoxModel(PageLoader pageLoader) {
+    this.pageLoader = pageLoader;
+  }
+
+  /**
+   * Replaces the loaded scenarios with the first page matching the search term.
+   * A page that is still loading for a previous term is cancelled.
+   *
+   * @param search search term, or null for all scenarios
+   * @return future completed on the EDT once the first page has been applied
+   */
+  public CompletableFuture<ScenarioPage> load(String search) {
+    this.search = search;
+    generation++;
+    if (pendingPage != null) {
+      pendingPage.cancel(true);
+      pendingPage = null;
+    }
+    total = 0;
+    return requestPage(0, true);
+  }
+
+  private CompletableFuture<ScenarioPage> requestPage(int offset, boolean replace) {
+    long requestGeneration = generation;
+    CompletableFuture<ScenarioPage> applied = new CompletableFuture<>();
+    CompletableFuture<ScenarioPage> page = pageLoader.load(search, offset, PAGE_SIZE);
+    pendingPage = page;
+    page.whenComplete((result, throwable) -> SwingUtilities.invokeLater(() -> {
+      if (requestGeneration != generation) {
+        applied.cancel(false);
+        return;
+      }
+      pendingPage = null;
+      if (throwable != null) {
+        applied.completeExceptionally(throwable);
+        return;
+      }
+      if (replace) {
+        replaceScenarios(result.getScenarios());
+      } else {
+        appendScenarios(result.getScenarios());
+      }
+      total = result.getTotal();
+      applied.complete(result);
+    }));
+    return applied;
+  }
+
+  private void replaceScenarios(List<Scenario> page) {
+    int previousSize = scenarios.size();
+    scenarios.clear();
+    scenarios.addAll(page);
+    if (previousSize > 0) {
+      fireIntervalRemoved(this, 0, previousSize - 1);
+    }
+    if (!page.isEmpty()) {
+      fireIntervalAdded(this, 0, page.size() - 1);
+    }
+  }
+
+  private void appendScenarios(List<Scenario> page) {
+    if (page.isEmpty()) {
+      return;
+    }
+    int firstIndex = scenarios.size();
+    scenarios.addAll(page);
+    fireIntervalAdded(this, firstIndex, scenarios.size() - 1);
+  }
+
+  /**
+   * Returns whether more scenarios match the search term than are loaded
+   */
+  public boolean hasMore() {
+    return scenarios.size() < total;
+  }
+
+  /**
+   * Returns the scenarios loaded so far without requesting further pages
+   */
+  public List<Scenario> getLoadedScenarios() {
+    return Collections.unmodifiableList(scenarios);
+  }
+
+  @Override
+  public int getSize() {
+    return scenarios.size();
+  }
+
+  /**
+   * Requests the next page if the given row is close to the end of the loaded
+   * scenarios and no page is loading yet
+   *
+   * @param lastVisibleIndex last row shown by the view, or -1 if none
+   */
+  public void loadNextPage(int lastVisibleIndex) {
+    if (pendingPage == null && hasMore() && lastVisibleIndex >= scenarios.size() - LOAD_AHEAD_ROWS) {
+      requestPage(scenarios.size(), false);
+    }
+  }
+
+  @Override
+  public Scenario getElementAt(int index) {
+    return scenarios.get(index);
+  }
+
+  @Override
+  public void setSelectedItem(Object item) {
+    if (!Objects.equals(selectedItem, item)) {
+      selectedItem = item;
+      fireContentsChanged(this, -1, -1);
+    }
+  }
+
+  @Override
+  public Object getSelectedItem() {
+    return selectedItem;
+  }
+
+  /**
+   * Loads a page of scenarios, see {@code ScenarioService#loadPageAsync}
+   */
+  @FunctionalInterface
+  public interface PageLoader {
+    CompletableFuture<ScenarioPage> load(String search, int offset, int limit);
+  }
+}
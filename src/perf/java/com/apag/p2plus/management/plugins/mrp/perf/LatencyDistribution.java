@@ -0,0 +1,33 @@
+package com.apag.p2plus.management.plugins.mrp.perf;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal latency given by its median and 99th percentile, which matches
+ * the long right tail of real service latencies. If the 99th percentile is
+ * not above the median, every sample is the median.
+ */
+class LatencyDistribution {
+
+  // Standard normal quantile of the 99th percentile
+  private static final double Z_99 = 2.326;
+
+  private final long medianMillis;
+  private final double mu;
+  private final double sigma;
+
+  LatencyDistribution(long medianMillis, long p99Millis) {
+    this.medianMillis = Math.max(0, medianMillis);
+    this.mu = this.medianMillis > 0 ? Math.log(this.medianMillis) : 0;
+    this.sigma = this.medianMillis > 0 && p99Millis > this.medianMillis
+        ? Math.log((double) p99Millis / this.medianMillis) / Z_99
+        : 0;
+  }
+
+  long sampleMillis() {
+    if (medianMillis == 0 || sigma == 0) {
+      return medianMillis;
+    }
+    return Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+  }
+}
@@ -0,0 +1,53 @@
+package com.apag.p2plus.management.plugins.mrp.perf;
+
+import java.util.Arrays;
+
+/**
+ * Collects the latencies of one operation of a load test. All samples are
+ * kept, so percentiles are exact.
+ */
+class LatencyRecorder {
+
+  private long[] samples = new long[1024];
+  private int count;
+  private long errorCount;
+
+  synchronized void record(long nanos) {
+    if (count == samples.length) {
+      samples = Arrays.copyOf(samples, count * 2);
+    }
+    samples[count++] = nanos;
+  }
+
+  synchronized void recordError() {
+    errorCount++;
+  }
+
+  synchronized int getCount() {
+    return count;
+  }
+
+  synchronized long getErrorCount() {
+    return errorCount;
+  }
+
+  /**
+   * Returns the recorded latencies in ascending order
+   */
+  synchronized long[] sortedSamples() {
+    long[] sorted = Arrays.copyOf(samples, count);
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  /**
+   * Returns the nearest-rank percentile of sorted samples, 0 if there are none
+   */
+  static long percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+    return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+  }
+}
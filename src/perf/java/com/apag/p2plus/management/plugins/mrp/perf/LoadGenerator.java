@@ -0,0 +1,274 @@
+package com.apag.p2plus.management.plugins.mrp.perf;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.model.ValueType;
+import com.apag.p2plus.management.plugins.mrp.service.LoadExecutors;
+import com.apag.p2plus.management.plugins.mrp.service.OperationalConfigService;
+import com.apag.p2plus.management.plugins.mrp.service.ScenarioService;
+import com.apag.p2plus.management.plugins.mrp.service.ServiceFactory;
+import com.apag.p2plus.management.plugins.mrp.service.TechnicalConfigService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives the services with a mix of server loads and saves from a number of
+ * concurrent virtual users and reports throughput and p50/p99 latency per
+ * operation. Loads always go to the server, so the numbers cover the HTTP
+ * client, endpoint limiter, conditional GETs and parsing, not the cache.
+ * Without -Dmrp.baseUrl embedded {@link StubServer}s are started, one per
+ * replica of {@link LoadSettings#getReplicas()}. Run once with
+ * -Dmrp.http.protocol=1.1 and once with 2 to compare the transports.
+ */
+public class LoadGenerator {
+
+  private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+  private static final int PAGE_SIZE = 200;
+
+  /**
+   * Operations of the mix with their share of the reads; saves are added by {@link LoadSettings#getSaveRatio()}
+   */
+  enum Operation {
+    SCENARIOS("scenarios", 0.05),
+    SCENARIO_PAGE("scenario page", 0.10),
+    TECHNICAL("technical", 0.10),
+    OPERATIONAL("operational", 0.75),
+    SAVE("save operational", 0);
+
+    private final String label;
+    private final double readShare;
+
+    Operation(String label, double readShare) {
+      this.label = label;
+      this.readShare = readShare;
+    }
+  }
+
+  private final LoadSettings settings;
+  private final ScenarioService scenarioService;
+  private final TechnicalConfigService technicalConfigService;
+  private final OperationalConfigService operationalConfigService;
+  private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+  private List<String> scenarioIds = Collections.emptyList();
+  private long measuredNanos;
+
+  public LoadGenerator(LoadSettings settings, ScenarioService scenarioService,
+                       TechnicalConfigService technicalConfigService,
+                       OperationalConfigService operationalConfigService) {
+    this.settings = settings;
+    this.scenarioService = scenarioService;
+    this.technicalConfigService = technicalConfigService;
+    this.operationalConfigService = operationalConfigService;
+    for (Operation operation : Operation.values()) {
+      recorders.put(operation, new LatencyRecorder());
+    }
+  }
+
+  /**
+   * Runs a load test configured by system properties and prints the report
+   */
+  public static void main(String[] args) throws Exception {
+    // The snapshot would only add disk writes to the measured path
+    System.getProperties().putIfAbsent("mrp.snapshot.enabled", "false");
+    LoadSettings settings = LoadSettings.fromSystemProperties();
+    List<StubServer> stubServers = new ArrayList<>();
+    if (System.getProperty("mrp.baseUrl") == null) {
+      System.getProperties().putIfAbsent("mrp.stub.port", "0");
+      List<String> baseUrls = new ArrayList<>();
+      for (int i = 0; i < settings.getReplicas(); i++) {
+        StubServer stubServer = new StubServer(StubSettings.fromSystemProperties());
+        stubServers.add(stubServer);
+        stubServer.start();
+        baseUrls.add(stubServer.getBaseUrl());
+      }
+      System.setProperty("mrp.baseUrl", String.join(",", baseUrls));
+    }
+    try {
+      LoadGenerator generator = new LoadGenerator(settings,
+          ServiceFactory.getScenarioService(), ServiceFactory.getTechnicalConfigService(),
+          ServiceFactory.getOperationalConfigService());
+      generator.run();
+      generator.printReport(System.out);
+      MetricsRegistry metrics = ServiceFactory.getMetricsRegistry();
+      System.out.println("Connection pool: " + ServiceFactory.getPoolStats());
+      HttpClient.Version protocol = ServiceFactory.getSharedHttpClient().getSettings().getProtocol();
+      if (protocol == HttpClient.Version.HTTP_1_1) {
+        System.out.println("Protocol: HTTP/1.1 over the connection pool");
+      } else {
+        // The server may not offer HTTP/2, then the JDK client falls back to HTTP/1.1
+        System.out.println("Protocol: " + protocol + " requested, responses over HTTP/2: "
+            + metrics.counter("http.protocol.HTTP_2").getCount() + ", HTTP/1.1: "
+            + metrics.counter("http.protocol.HTTP_1_1").getCount());
+      }
+      if (ServiceFactory.getBaseUrls().size() > 1) {
+        System.out.println("Replicas: " + metrics.counter("hedge.sent").getCount() + " hedges sent, "
+            + metrics.counter("hedge.won").getCount() + " won, "
+            + metrics.counter("replica.failovers").getCount() + " failovers");
+      }
+      for (StubServer stubServer : stubServers) {
+        System.out.println("Stub server " + stubServer.getBaseUrl() + ": " + stubServer.getRequestCount()
+            + " requests, " + stubServer.getInjectedErrorCount() + " injected errors, "
+            + stubServer.getBytesSent() / 1024 + " KiB sent");
+      }
+    } finally {
+      ServiceFactory.shutdown();
+      for (StubServer stubServer : stubServers) {
+        stubServer.close();
+      }
+    }
+  }
+
+  /**
+   * Runs the warmup and the measured phase; blocks until both are over
+   */
+  public void run() throws InterruptedException {
+    List<String> ids = new ArrayList<>();
+    for (Scenario scenario : scenarioService.loadFromServer()) {
+      ids.add(scenario.getScenarioId());
+    }
+    if (ids.isEmpty()) {
+      throw new IllegalStateException("The server has no scenarios to load");
+    }
+    scenarioIds = ids;
+    logger.info("Load test against {} with {} and {} scenarios", ServiceFactory.getBaseUrls(), settings, ids.size());
+
+    long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+    long end = measureStart + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+    ExecutorService users = Executors.newFixedThreadPool(settings.getThreads(),
+        LoadExecutors.daemonThreadFactory("mrp-loadtest"));
+    try {
+      for (int i = 0; i < settings.getThreads(); i++) {
+        users.execute(() -> runUser(measureStart, end));
+      }
+      users.shutdown();
+      long waitNanos = end - System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+      if (!users.awaitTermination(waitNanos, TimeUnit.NANOSECONDS)) {
+        logger.warn("Load test users did not finish in time");
+      }
+    } finally {
+      users.shutdownNow();
+    }
+    measuredNanos = end - measureStart;
+  }
+
+  private void runUser(long measureStart, long end) {
+    Random random = ThreadLocalRandom.current();
+    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+      Operation operation = nextOperation(random);
+      try {
+        Runnable call = prepare(operation, random);
+        long start = System.nanoTime();
+        call.run();
+        if (start >= measureStart) {
+          recorders.get(operation).record(System.nanoTime() - start);
+        }
+      } catch (RuntimeException e) {
+        if (System.nanoTime() >= measureStart) {
+          recorders.get(operation).recordError();
+        }
+        logger.debug("Load test operation '{}' failed", operation.label, e);
+      }
+    }
+  }
+
+  private Operation nextOperation(Random random) {
+    double saveRatio = settings.getSaveRatio();
+    double value = random.nextDouble();
+    if (value < saveRatio) {
+      return Operation.SAVE;
+    }
+    double read = (value - saveRatio) / (1 - saveRatio);
+    for (Operation operation : Operation.values()) {
+      read -= operation.readShare;
+      if (read < 0) {
+        return operation;
+      }
+    }
+    return Operation.OPERATIONAL;
+  }
+
+  /**
+   * Returns the timed call of an operation. A save first reads the current
+   * configuration, which is not part of its latency.
+   */
+  private Runnable prepare(Operation operation, Random random) {
+    String scenarioId = scenarioIds.get(random.nextInt(scenarioIds.size()));
+    switch (operation) {
+      case SCENARIOS:
+        return scenarioService::loadFromServer;
+      case SCENARIO_PAGE:
+        String search = random.nextBoolean() ? null : String.valueOf(random.nextInt(10));
+        return () -> scenarioService.loadPageAsync(search, 0, PAGE_SIZE).join();
+      case TECHNICAL:
+        return technicalConfigService::loadFromServer;
+      case SAVE:
+        return prepareSave(scenarioId, operationalConfigService.loadFromServer(scenarioId));
+      default:
+        return () -> operationalConfigService.loadFromServer(scenarioId);
+    }
+  }
+
+  /**
+   * Increments the first integer item, like a user editing one value
+   */
+  private Runnable prepareSave(String scenarioId, List<ConfigItem> config) {
+    for (ConfigItem item : config) {
+      if (item.getValueType() == ValueType.INT) {
+        ConfigItem changed = new ConfigItem(item.getName(), item.getType(), item.intValue() + 1, item.getDescription());
+        return () -> operationalConfigService.saveOperationalChanges(scenarioId, List.of(changed));
+      }
+    }
+    throw new IllegalStateException("No integer item to change in '" + scenarioId + "'");
+  }
+
+  /**
+   * Prints count, errors, throughput and latency percentiles per operation
+   */
+  public void printReport(PrintStream out) {
+    double seconds = measuredNanos / 1e9;
+    out.printf("%-18s %9s %7s %9s %9s %9s %9s%n", "Operation", "Count", "Errors", "Ops/s", "p50 ms", "p99 ms", "Max ms");
+    List<Long> all = new ArrayList<>();
+    long totalErrors = 0;
+    for (Operation operation : Operation.values()) {
+      LatencyRecorder recorder = recorders.get(operation);
+      long[] sorted = recorder.sortedSamples();
+      if (sorted.length == 0 && recorder.getErrorCount() == 0) {
+        continue;
+      }
+      printRow(out, operation.label, sorted, recorder.getErrorCount(), seconds);
+      for (long sample : sorted) {
+        all.add(sample);
+      }
+      totalErrors += recorder.getErrorCount();
+    }
+    long[] sortedAll = all.stream().mapToLong(Long::longValue).sorted().toArray();
+    printRow(out, "total", sortedAll, totalErrors, seconds);
+  }
+
+  private static void printRow(PrintStream out, String label, long[] sorted, long errors, double seconds) {
+    out.printf("%-18s %9d %7d %9.1f %9.2f %9.2f %9.2f%n", label, sorted.length, errors,
+        seconds > 0 ? sorted.length / seconds : 0,
+        millis(LatencyRecorder.percentile(sorted, 50)),
+        millis(LatencyRecorder.percentile(sorted, 99)),
+        millis(sorted.length > 0 ? sorted[sorted.length - 1] : 0));
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
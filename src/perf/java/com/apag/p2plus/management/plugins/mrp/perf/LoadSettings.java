@@ -0,0 +1,77 @@
+package com.apag.p2plus.management.plugins.mrp.perf;
+
+import com.apag.p2plus.management.plugins.mrp.service.SettingsSupport;
+
+/**
+ * Settings of the {@link LoadGenerator}. Values are read from system
+ * properties (e.g. -Dmrp.loadtest.threads=32).
+ */
+public class LoadSettings {
+
+  private static final String PREFIX = "mrp.loadtest.";
+
+  private final int threads;
+  private final int warmupSeconds;
+  private final int durationSeconds;
+  private final double saveRatio;
+  private final int replicas;
+
+  /**
+   * @param threads number of concurrent virtual users
+   * @param warmupSeconds seconds of load before measuring starts
+   * @param durationSeconds seconds of measured load
+   * @param saveRatio share of operations that save a changed operational configuration, 0 to 1
+   * @param replicas number of embedded stub servers started without a configured base URL
+   */
+  public LoadSettings(int threads, int warmupSeconds, int durationSeconds, double saveRatio, int replicas) {
+    this.threads = threads;
+    this.warmupSeconds = warmupSeconds;
+    this.durationSeconds = durationSeconds;
+    this.saveRatio = saveRatio;
+    this.replicas = Math.max(1, replicas);
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing values
+   */
+  public static LoadSettings fromSystemProperties() {
+    return new LoadSettings(
+        SettingsSupport.intProperty(PREFIX + "threads", 8),
+        SettingsSupport.intProperty(PREFIX + "warmupSeconds", 5),
+        SettingsSupport.intProperty(PREFIX + "durationSeconds", 30),
+        SettingsSupport.doubleProperty(PREFIX + "saveRatio", 0.05),
+        SettingsSupport.intProperty(PREFIX + "replicas", 1)
+    );
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public int getWarmupSeconds() {
+    return warmupSeconds;
+  }
+
+  public int getDurationSeconds() {
+    return durationSeconds;
+  }
+
+  public double getSaveRatio() {
+    return saveRatio;
+  }
+
+  public int getReplicas() {
+    return replicas;
+  }
+
+  @Override
+  public String toString() {
+    return "LoadSettings{" +
+           "threads=" + threads +
+           ", warmupSeconds=" + warmupSeconds +
+           ", durationSeconds=" + durationSeconds +
+           ", saveRatio=" + saveRatio +
+           ", replicas=" + replicas +
+           '}';
+  }
+}
@@ -0,0 +1,66 @@
+package com.apag.p2plus.management.plugins.mrp.perf;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic test data shaped like the responses of the REST API:
+ * configurations mixing all value types, and scenarios. Used by the
+ * {@link StubServer} and the benchmarks.
+ */
+public final class StubData {
+
+  private StubData() {
+    // prevent instantiation
+  }
+
+  /**
+   * Creates a configuration of the given size. Item names repeat per
+   * configuration, values depend on the seed, so configurations of different
+   * scenarios share their layout like on the server.
+   */
+  public static List<ConfigItem> configItems(int size, int seed) {
+    List<ConfigItem> items = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int value = i * 31 + seed;
+      switch (i % 8) {
+        case 0:
+          items.add(new ConfigItem("batchSize" + i, "int", value % 10_000, "Batch size of step " + i));
+          break;
+        case 1:
+          items.add(new ConfigItem("enableLogging" + i, "boolean", value % 2 == 0, "Enable logging of step " + i));
+          break;
+        case 2:
+          items.add(new ConfigItem("planningHorizon" + i, "long", 86_400_000L * (value % 365), "Planning horizon " + i));
+          break;
+        case 3:
+          items.add(new ConfigItem("safetyFactor" + i, "double", (value % 1000) / 100.0, "Safety factor " + i));
+          break;
+        case 4:
+          items.add(new ConfigItem("timeout" + i, "duration", (value % 120) + "s", "Timeout of step " + i));
+          break;
+        case 5:
+          items.add(new ConfigItem("mode" + i, "enum", value % 3 == 0 ? "FAST" : "EXACT", "Mode of step " + i));
+          break;
+        case 6:
+          items.add(new ConfigItem("retryCount" + i, "string", String.valueOf(value % 10), "Retry count " + i));
+          break;
+        default:
+          items.add(new ConfigItem("warehouse" + i, "string", "WH-" + (value % 500), "Warehouse of step " + i));
+          break;
+      }
+    }
+    return items;
+  }
+
+  public static List<Scenario> scenarios(int size) {
+    List<Scenario> scenarios = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      scenarios.add(new Scenario("Scenario_" + i, "Production run client " + (1000 + i % 50) + " variant " + i));
+    }
+    return scenarios;
+  }
+}
@@ -0,0 +1,470 @@
+package com.apag.p2plus.management.plugins.mrp.perf;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.service.LoadExecutors;
+import com.apag.p2plus.management.plugins.mrp.service.WireFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.ws.rs.core.MediaType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local HTTP server implementing every endpoint of the
+ * {@link com.apag.p2plus.management.plugins.mrp.service.MRPConfigClient} API
+ * with generated data, for load tests and offline development. Like the real
+ * server it answers conditional GETs with 304, pages and filters scenarios
+ * with an X-Total-Count header, merges PATCHed items and accepts batch loads.
+ * Every request is delayed by a sample of the configured latency
+ * distribution; a configurable share fails with 503 and Retry-After.
+ * Bodies are JSON or, if the client accepts it, Smile; large responses are
+ * gzip encoded for clients accepting it and gzip encoded requests are
+ * accepted. Responses can be throttled to the bandwidth of a slow link.
+ * Changes are kept in memory only.
+ */
+public class StubServer implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(StubServer.class);
+
+  private static final String CONTEXT = "/config";
+  private static final String OPERATIONAL = "/operational/";
+  private static final String GZIP = "gzip";
+  // Smaller responses are sent uncompressed, as most servers do
+  private static final int MIN_COMPRESS_BYTES = 1024;
+  private static final int THROTTLE_CHUNK_BYTES = 4096;
+
+  private static final TypeReference<List<ConfigItem>> CONFIG_ITEM_LIST = new TypeReference<>() { };
+  private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() { };
+  // Part of every ETag, so validators of an earlier run never match
+  private static final String RUN_ID = Long.toString(System.currentTimeMillis(), 36);
+
+  private final StubSettings settings;
+  private final LatencyDistribution latency;
+  private final Resource<Scenario> scenarios;
+  private final Resource<ConfigItem> technical;
+  private final Set<String> scenarioIds = ConcurrentHashMap.newKeySet();
+  private final Map<String, Resource<ConfigItem>> operational = new ConcurrentHashMap<>();
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong injectedErrorCount = new AtomicLong();
+  private final AtomicLong bytesSent = new AtomicLong();
+  private HttpServer server;
+  private ExecutorService executor;
+
+  public StubServer(StubSettings settings) {
+    this.settings = settings;
+    this.latency = new LatencyDistribution(settings.getLatencyMillis(), settings.getLatencyP99Millis());
+    this.scenarios = new Resource<>(StubData.scenarios(settings.getScenarios()));
+    this.technical = new Resource<>(StubData.configItems(settings.getTechnicalItems(), -1));
+    for (Scenario scenario : scenarios.current().value) {
+      scenarioIds.add(scenario.getScenarioId());
+    }
+  }
+
+  /**
+   * Starts the server as a standalone process, configured by system properties
+   */
+  public static void main(String[] args) throws Exception {
+    StubServer stubServer = new StubServer(StubSettings.fromSystemProperties());
+    stubServer.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(stubServer::close, "mrp-stub-shutdown"));
+    System.out.println("Stub server listening on " + stubServer.getBaseUrl()
+        + " - start the application with -Dmrp.baseUrl=" + stubServer.getBaseUrl());
+    Thread.currentThread().join();
+  }
+
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      return;
+    }
+    // Requests sleep for their latency, so every request needs its own thread
+    executor = Executors.newCachedThreadPool(LoadExecutors.daemonThreadFactory("mrp-stub"));
+    server = HttpServer.create(new InetSocketAddress("localhost", settings.getPort()), 512);
+    server.createContext(CONTEXT, this::handle);
+    server.setExecutor(executor);
+    server.start();
+    logger.info("Stub server started on {} with {}", getBaseUrl(), settings);
+  }
+
+  /**
+   * Returns the URL to use as -Dmrp.baseUrl
+   */
+  public synchronized String getBaseUrl() {
+    if (server == null) {
+      throw new IllegalStateException("Stub server not started");
+    }
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  public long getInjectedErrorCount() {
+    return injectedErrorCount.get();
+  }
+
+  /**
+   * Returns the number of response body bytes sent, after compression
+   */
+  public long getBytesSent() {
+    return bytesSent.get();
+  }
+
+  @Override
+  public synchronized void close() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+      server = null;
+      logger.info("Stub server stopped after {} requests", requestCount.get());
+    }
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requestCount.incrementAndGet();
+    try {
+      sleep(latency.sampleMillis());
+      if (settings.getErrorRate() > 0 && ThreadLocalRandom.current().nextDouble() < settings.getErrorRate()) {
+        injectedErrorCount.incrementAndGet();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendEmpty(exchange, 503);
+        return;
+      }
+      route(exchange);
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      sendEmpty(exchange, 400);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      logger.warn("Stub request {} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+      sendEmpty(exchange, 500);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void route(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+    String method = exchange.getRequestMethod();
+    if (path.equals("/scenarios")) {
+      if (method.equals("GET")) {
+        getScenarios(exchange);
+      } else if (method.equals("POST")) {
+        createScenario(exchange);
+      } else {
+        sendEmpty(exchange, 405);
+      }
+    } else if (path.equals("/technical")) {
+      handleConfig(exchange, technical);
+    } else if (path.equals(OPERATIONAL + "batch") && method.equals("POST")) {
+      getOperationalBatch(exchange);
+    } else if (path.startsWith(OPERATIONAL) && path.length() > OPERATIONAL.length()) {
+      Resource<ConfigItem> config = operationalConfig(path.substring(OPERATIONAL.length()));
+      if (config == null) {
+        sendEmpty(exchange, 404);
+      } else {
+        handleConfig(exchange, config);
+      }
+    } else {
+      sendEmpty(exchange, 404);
+    }
+  }
+
+  private void getScenarios(HttpExchange exchange) throws IOException {
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    if (!query.containsKey("offset") && !query.containsKey("limit")) {
+      sendRepresentation(exchange, scenarios.current());
+      return;
+    }
+    int offset = Math.max(0, Integer.parseInt(query.getOrDefault("offset", "0")));
+    int limit = Math.max(0, Integer.parseInt(query.getOrDefault("limit", String.valueOf(Integer.MAX_VALUE))));
+    String search = query.get("search");
+    List<Scenario> matching = new ArrayList<>();
+    for (Scenario scenario : scenarios.current().value) {
+      if (search == null || matches(scenario, search.toLowerCase(Locale.ROOT))) {
+        matching.add(scenario);
+      }
+    }
+    int from = Math.min(offset, matching.size());
+    int to = (int) Math.min((long) from + limit, matching.size());
+    exchange.getResponseHeaders().set("X-Total-Count", String.valueOf(matching.size()));
+    sendValue(exchange, 200, matching.subList(from, to));
+  }
+
+  private static boolean matches(Scenario scenario, String lowerTerm) {
+    return scenario.getScenarioId().toLowerCase(Locale.ROOT).contains(lowerTerm)
+        || (scenario.getDescription() != null && scenario.getDescription().toLowerCase(Locale.ROOT).contains(lowerTerm));
+  }
+
+  private void createScenario(HttpExchange exchange) throws IOException {
+    Scenario scenario = readValue(exchange, Scenario.class);
+    if (scenario.getScenarioId() == null || scenario.getScenarioId().isBlank()) {
+      throw new IllegalArgumentException("Scenario without ID");
+    }
+    boolean created;
+    synchronized (scenarios) {
+      created = !scenarioIds.contains(scenario.getScenarioId());
+      if (created) {
+        List<Scenario> updated = new ArrayList<>(scenarios.current().value);
+        updated.add(scenario);
+        scenarios.replace(updated);
+        scenarioIds.add(scenario.getScenarioId());
+      }
+    }
+    sendEmpty(exchange, created ? 201 : 409);
+  }
+
+  private void getOperationalBatch(HttpExchange exchange) throws IOException {
+    List<String> scenarioIds = readValue(exchange, STRING_LIST);
+    Map<String, List<ConfigItem>> configs = new LinkedHashMap<>();
+    for (String scenarioId : scenarioIds) {
+      Resource<ConfigItem> config = operationalConfig(scenarioId);
+      if (config != null) {
+        configs.put(scenarioId, config.current().value);
+      }
+    }
+    sendValue(exchange, 200, configs);
+  }
+
+  private void handleConfig(HttpExchange exchange, Resource<ConfigItem> config) throws IOException {
+    switch (exchange.getRequestMethod()) {
+      case "GET":
+        sendRepresentation(exchange, config.current());
+        break;
+      case "PUT":
+        config.replace(readValue(exchange, CONFIG_ITEM_LIST));
+        sendEmpty(exchange, 204);
+        break;
+      case "PATCH":
+        List<ConfigItem> changedItems = readValue(exchange, CONFIG_ITEM_LIST);
+        synchronized (config) {
+          config.replace(merge(config.current().value, changedItems));
+        }
+        sendEmpty(exchange, 204);
+        break;
+      default:
+        sendEmpty(exchange, 405);
+        break;
+    }
+  }
+
+  /**
+   * Replaces items with the same name and appends new ones
+   */
+  private static List<ConfigItem> merge(List<ConfigItem> items, List<ConfigItem> changedItems) {
+    Map<String, ConfigItem> merged = new LinkedHashMap<>();
+    for (ConfigItem item : items) {
+      merged.put(item.getName(), item);
+    }
+    for (ConfigItem item : changedItems) {
+      merged.put(item.getName(), item);
+    }
+    return new ArrayList<>(merged.values());
+  }
+
+  /**
+   * Returns the operational configuration of a known scenario, generating it on first access
+   */
+  private Resource<ConfigItem> operationalConfig(String scenarioId) {
+    if (!scenarioIds.contains(scenarioId)) {
+      return null;
+    }
+    return operational.computeIfAbsent(scenarioId,
+        id -> new Resource<>(StubData.configItems(settings.getOperationalItems(), id.hashCode())));
+  }
+
+  private void sendRepresentation(HttpExchange exchange, Representation<?> representation) throws IOException {
+    if (settings.isEtags()) {
+      exchange.getResponseHeaders().set("ETag", representation.etag);
+      if (representation.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        sendEmpty(exchange, 304);
+        return;
+      }
+    }
+    WireFormat format = responseFormat(exchange);
+    send(exchange, 200, format, format == WireFormat.SMILE ? representation.smile : representation.json);
+  }
+
+  private void sendValue(HttpExchange exchange, int status, Object value) throws IOException {
+    WireFormat format = responseFormat(exchange);
+    send(exchange, status, format, format.getMapper().writeValueAsBytes(value));
+  }
+
+  private void send(HttpExchange exchange, int status, WireFormat format, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", format.getMediaType().toString());
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    if (body.length >= MIN_COMPRESS_BYTES && acceptEncoding != null && acceptEncoding.contains(GZIP)) {
+      body = gzip(body);
+      exchange.getResponseHeaders().set("Content-Encoding", GZIP);
+    }
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      write(out, body);
+    }
+    bytesSent.addAndGet(body.length);
+  }
+
+  /**
+   * Writes the body, at the configured bandwidth if limited
+   */
+  private void write(OutputStream out, byte[] body) throws IOException {
+    long bandwidthKbps = settings.getBandwidthKbps();
+    if (bandwidthKbps <= 0) {
+      out.write(body);
+      return;
+    }
+    for (int offset = 0; offset < body.length; offset += THROTTLE_CHUNK_BYTES) {
+      int length = Math.min(THROTTLE_CHUNK_BYTES, body.length - offset);
+      out.write(body, offset, length);
+      out.flush();
+      try {
+        sleep(length * 8L / bandwidthKbps);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Response interrupted");
+      }
+    }
+  }
+
+  /**
+   * Returns the format the client prefers among the ones the server supports
+   */
+  private static WireFormat responseFormat(HttpExchange exchange) {
+    String accept = exchange.getRequestHeaders().getFirst("Accept");
+    return accept != null && accept.contains(WireFormat.SMILE.getMediaType().toString()) ? WireFormat.SMILE : WireFormat.JSON;
+  }
+
+  private static <T> T readValue(HttpExchange exchange, Class<T> type) throws IOException {
+    return requestFormat(exchange).getMapper().readValue(readBody(exchange), type);
+  }
+
+  private static <T> T readValue(HttpExchange exchange, TypeReference<T> type) throws IOException {
+    return requestFormat(exchange).getMapper().readValue(readBody(exchange), type);
+  }
+
+  private static WireFormat requestFormat(HttpExchange exchange) {
+    String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+    return contentType != null ? WireFormat.of(MediaType.valueOf(contentType)) : WireFormat.JSON;
+  }
+
+  private static byte[] gzip(byte[] body) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(body);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+    // The server closes the connection after a response without body unless the request was read to the end
+    readBody(exchange);
+    exchange.sendResponseHeaders(status, -1);
+  }
+
+  /**
+   * Reads the rest of the request body, decoding gzip; the stream is closed with the exchange
+   */
+  private static byte[] readBody(HttpExchange exchange) throws IOException {
+    byte[] body = exchange.getRequestBody().readAllBytes();
+    if (body.length > 0 && GZIP.equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+      try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+        return gzip.readAllBytes();
+      }
+    }
+    return body;
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    Map<String, String> parameters = new HashMap<>();
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return parameters;
+    }
+    for (String pair : rawQuery.split("&")) {
+      int separator = pair.indexOf('=');
+      String name = separator < 0 ? pair : pair.substring(0, separator);
+      String value = separator < 0 ? "" : pair.substring(separator + 1);
+      parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+
+  private static void sleep(long millis) throws InterruptedException {
+    if (millis > 0) {
+      Thread.sleep(millis);
+    }
+  }
+
+  private static byte[] serialize(WireFormat format, Object value) {
+    try {
+      return format.getMapper().writeValueAsBytes(value);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Current state of a resource, serialized once per change
+   */
+  private static final class Representation<T> {
+
+    final List<T> value;
+    final String etag;
+    final byte[] json;
+    final byte[] smile;
+
+    Representation(List<T> value, int version) {
+      this.value = value;
+      this.etag = "\"" + RUN_ID + "-" + version + "\"";
+      this.json = serialize(WireFormat.JSON, value);
+      this.smile = serialize(WireFormat.SMILE, value);
+    }
+  }
+
+  /**
+   * Resource that can be replaced; readers see a consistent representation without locking
+   */
+  private static final class Resource<T> {
+
+    private volatile Representation<T> current;
+    private int version;
+
+    Resource(List<T> value) {
+      this.current = new Representation<>(value, version);
+    }
+
+    Representation<T> current() {
+      return current;
+    }
+
+    synchronized void replace(List<T> value) {
+      current = new Representation<>(new ArrayList<>(value), ++version);
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.apag.p2plus.management.plugins.mrp.perf;
+
+import com.apag.p2plus.management.plugins.mrp.service.SettingsSupport;
+
+/**
+ * Settings of the {@link StubServer}: payload sizes, latency distribution,
+ * link bandwidth and injected errors. Values are read from system properties (e.g. -Dmrp.stub.items=5000).
+ */
+public class StubSettings {
+
+  private static final String PREFIX = "mrp.stub.";
+
+  private final int port;
+  private final int scenarios;
+  private final int technicalItems;
+  private final int operationalItems;
+  private final long latencyMillis;
+  private final long latencyP99Millis;
+  private final double errorRate;
+  private final boolean etags;
+  private final long bandwidthKbps;
+
+  /**
+   * @param port port to listen on, 0 for any free port
+   * @param scenarios number of scenarios the server knows initially
+   * @param technicalItems number of items of the technical configuration
+   * @param operationalItems number of items of each operational configuration
+   * @param latencyMillis median latency added to every request
+   * @param latencyP99Millis 99th percentile of the added latency; log-normal between median and p99
+   * @param errorRate share of requests answered with 503 and a Retry-After header, 0 to 1
+   * @param etags whether responses carry ETags and conditional GETs are answered with 304
+   * @param bandwidthKbps simulated bandwidth of each response in kbit/s, e.g. of a slow site link; 0 for unlimited
+   */
+  public StubSettings(int port, int scenarios, int technicalItems, int operationalItems,
+                      long latencyMillis, long latencyP99Millis, double errorRate, boolean etags,
+                      long bandwidthKbps) {
+    this.port = port;
+    this.scenarios = scenarios;
+    this.technicalItems = technicalItems;
+    this.operationalItems = operationalItems;
+    this.latencyMillis = latencyMillis;
+    this.latencyP99Millis = latencyP99Millis;
+    this.errorRate = errorRate;
+    this.etags = etags;
+    this.bandwidthKbps = bandwidthKbps;
+  }
+
+  /**
+   * Creates settings from system properties, using defaults for missing values
+   */
+  public static StubSettings fromSystemProperties() {
+    return new StubSettings(
+        SettingsSupport.intProperty(PREFIX + "port", 8089),
+        SettingsSupport.intProperty(PREFIX + "scenarios", 200),
+        SettingsSupport.intProperty(PREFIX + "technicalItems", 100),
+        SettingsSupport.intProperty(PREFIX + "items", 100),
+        SettingsSupport.longProperty(PREFIX + "latencyMillis", 20),
+        SettingsSupport.longProperty(PREFIX + "latencyP99Millis", 100),
+        SettingsSupport.doubleProperty(PREFIX + "errorRate", 0),
+        Boolean.parseBoolean(System.getProperty(PREFIX + "etags", "true")),
+        SettingsSupport.longProperty(PREFIX + "bandwidthKbps", 0)
+    );
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public int getScenarios() {
+    return scenarios;
+  }
+
+  public int getTechnicalItems() {
+    return technicalItems;
+  }
+
+  public int getOperationalItems() {
+    return operationalItems;
+  }
+
+  public long getLatencyMillis() {
+    return latencyMillis;
+  }
+
+  public long getLatencyP99Millis() {
+    return latencyP99Millis;
+  }
+
+  public double getErrorRate() {
+    return errorRate;
+  }
+
+  public boolean isEtags() {
+    return etags;
+  }
+
+  public long getBandwidthKbps() {
+    return bandwidthKbps;
+  }
+
+  @Override
+  public String toString() {
+    return "StubSettings{" +
+           "port=" + port +
+           ", scenarios=" + scenarios +
+           ", technicalItems=" + technicalItems +
+           ", operationalItems=" + operationalItems +
+           ", latencyMillis=" + latencyMillis +
+           ", latencyP99Millis=" + latencyP99Millis +
+           ", errorRate=" + errorRate +
+           ", etags=" + etags +
+           ", bandwidthKbps=" + bandwidthKbps +
+           '}';
+  }
+}
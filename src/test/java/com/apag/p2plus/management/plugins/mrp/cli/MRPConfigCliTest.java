@@ -0,0 +1,115 @@
+package com.apag.p2plus.management.plugins.mrp.cli;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.service.OperationalConfigService;
+import com.apag.p2plus.management.plugins.mrp.service.ScenarioService;
+import com.apag.p2plus.management.plugins.mrp.service.TechnicalConfigService;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.SocketTimeoutException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MRPConfigCliTest {
+
+  private final ScenarioService scenarioService = mock(ScenarioService.class);
+  private final TechnicalConfigService technicalConfigService = mock(TechnicalConfigService.class);
+  private final OperationalConfigService operationalConfigService = mock(OperationalConfigService.class);
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  @TempDir
+  Path exportRoot;
+
+  @BeforeEach
+  void setUp() {
+    when(scenarioService.loadFromServer()).thenReturn(List.of(new Scenario("S1", "First"), new Scenario("S2", "Second")));
+    when(operationalConfigService.loadFromServer("S1")).thenReturn(List.of(new ConfigItem("batchSize", "int", 10, null)));
+    when(operationalConfigService.loadFromServer("S2")).thenReturn(List.of(new ConfigItem("retryCount", "int", 3, null)));
+    when(technicalConfigService.loadFromServer()).thenReturn(List.of(new ConfigItem("timeout", "duration", "30s", null)));
+  }
+
+  private MRPConfigCli cli(String... args) {
+    return new MRPConfigCli(CliOptions.parse(args), new PrintStream(output, true), scenarioService,
+        technicalConfigService, operationalConfigService);
+  }
+
+  @Test
+  void namesFoundInAnySelectedConfigurationAreSet() throws Exception {
+    assertEquals(MRPConfigCli.EXIT_OK, cli("set", "batchSize=20", "retryCount=5").execute());
+
+    verify(operationalConfigService).saveOperationalChanges(eq("S1"), anyList());
+    verify(operationalConfigService).saveOperationalChanges(eq("S2"), anyList());
+  }
+
+  @Test
+  void unknownNameIsAUsageErrorAndSavesNothing() {
+    IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+        () -> cli("set", "batchSize=20", "batchSzie=30").execute());
+
+    assertTrue(thrown.getMessage().contains("batchSzie"));
+    verify(operationalConfigService, never()).saveOperationalChanges(anyString(), anyList());
+  }
+
+  @Test
+  void unknownTechnicalNameIsAUsageError() {
+    assertThrows(IllegalArgumentException.class, () -> cli("set", "batchSize=20", "--technical").execute());
+
+    verify(technicalConfigService, never()).saveTechnicalChanges(any());
+  }
+
+  private void exportWithNewScenario() throws IOException {
+    ExportDirectory directory = new ExportDirectory(exportRoot);
+    directory.writeScenarios(List.of(new Scenario("S1", "First"), new Scenario("S2", "Second"), new Scenario("S3", "Third")));
+    directory.writeOperational("S3", List.of(new ConfigItem("batchSize", "int", 30, null)));
+  }
+
+  @Test
+  void createIsRetriedOnlyIfTheScenarioDoesNotExistYet() throws Exception {
+    exportWithNewScenario();
+    // The gateway gave up, but the server created the scenario
+    when(scenarioService.createScenario(any()))
+        .thenThrow(new RuntimeException(new WebApplicationException(Response.status(504).build())));
+    when(scenarioService.loadFromServer()).thenReturn(
+        List.of(new Scenario("S1", "First"), new Scenario("S2", "Second")),
+        List.of(new Scenario("S1", "First"), new Scenario("S2", "Second"), new Scenario("S3", "Third")));
+
+    assertEquals(MRPConfigCli.EXIT_OK, cli("import", exportRoot.toString(), "--rate=0").execute());
+
+    verify(scenarioService, times(1)).createScenario(any());
+    verify(operationalConfigService).saveOperationalChanges(eq("S3"), anyList());
+  }
+
+  @Test
+  void createIsNotRepeatedAfterAReadTimeout() throws Exception {
+    exportWithNewScenario();
+    when(scenarioService.createScenario(any()))
+        .thenThrow(new RuntimeException(new ProcessingException(new SocketTimeoutException("Read timed out"))));
+
+    assertEquals(MRPConfigCli.EXIT_FAILED, cli("import", exportRoot.toString(), "--rate=0").execute());
+
+    verify(scenarioService, times(1)).createScenario(any());
+    verify(operationalConfigService, never()).saveOperationalChanges(eq("S3"), anyList());
+  }
+}
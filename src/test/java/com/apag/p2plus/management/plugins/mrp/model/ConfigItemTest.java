@@ -0,0 +1,103 @@
+package com.apag.p2plus.management.plugins.mrp.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigItemTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String JSON = "["
+      + "{\"name\":\"enabled\",\"type\":\"boolean\",\"value\":true,\"description\":\"Switch\"},"
+      + "{\"name\":\"enabledText\",\"type\":\"boolean\",\"value\":\"true\",\"description\":\"Switch as text\"},"
+      + "{\"name\":\"batchSize\",\"type\":\"int\",\"value\":100,\"description\":\"Items per batch\"},"
+      + "{\"name\":\"batchSizeText\",\"type\":\"int\",\"value\":\"100\",\"description\":\"Items per batch as text\"},"
+      + "{\"name\":\"big\",\"type\":\"long\",\"value\":10000000000,\"description\":null},"
+      + "{\"name\":\"ratio\",\"type\":\"double\",\"value\":0.25,\"description\":\"Ratio\"},"
+      + "{\"name\":\"wholeRatio\",\"type\":\"double\",\"value\":1,\"description\":\"Whole ratio\"},"
+      + "{\"name\":\"timeout\",\"type\":\"duration\",\"value\":\"30s\",\"description\":\"Timeout\"},"
+      + "{\"name\":\"timeoutMillis\",\"type\":\"duration\",\"value\":1500,\"description\":\"Timeout in ms\"},"
+      + "{\"name\":\"mode\",\"type\":\"enum\",\"value\":\"FAST\",\"description\":\"Mode\"},"
+      + "{\"name\":\"count\",\"type\":\"string\",\"value\":\"1000\",\"description\":\"Integer text\"},"
+      + "{\"name\":\"broken\",\"type\":\"int\",\"value\":\"many\",\"description\":\"Invalid\"},"
+      + "{\"name\":\"empty\",\"type\":\"int\",\"value\":null,\"description\":\"No value\"}"
+      + "]";
+
+  @Test
+  void jsonShapeIsUnchangedByRoundTrip() throws Exception {
+    List<ConfigItem> items = MAPPER.readValue(JSON, new TypeReference<List<ConfigItem>>() { });
+
+    assertEquals(MAPPER.readTree(JSON), MAPPER.readTree(MAPPER.writeValueAsString(items)));
+  }
+
+  @Test
+  void jsonShapeIsUnchangedWithTypeAfterValue() throws Exception {
+    String json = "[{\"value\":\"100\",\"type\":\"int\",\"name\":\"batchSize\",\"description\":null}]";
+    List<ConfigItem> items = MAPPER.readValue(json, new TypeReference<List<ConfigItem>>() { });
+
+    assertEquals(MAPPER.readTree(json), MAPPER.readTree(MAPPER.writeValueAsString(items)));
+    assertEquals(100, items.get(0).intValue());
+  }
+
+  @Test
+  void textValuesAreParsedForTypedAccess() throws Exception {
+    List<ConfigItem> items = MAPPER.readValue(JSON, new TypeReference<List<ConfigItem>>() { });
+
+    assertTrue(items.get(1).booleanValue());
+    assertEquals(100, items.get(3).intValue());
+    assertEquals(10_000_000_000L, items.get(4).longValue());
+    assertEquals(1.0, items.get(6).doubleValue());
+    assertEquals(Duration.ofSeconds(30), items.get(7).durationValue());
+    assertEquals(1500L, items.get(8).durationMillis());
+    assertEquals(1000, items.get(10).intValue());
+  }
+
+  @Test
+  void invalidValuesAreKeptAndReported() throws Exception {
+    List<ConfigItem> items = MAPPER.readValue(JSON, new TypeReference<List<ConfigItem>>() { });
+    ConfigItem broken = items.get(11);
+
+    assertEquals("many", broken.getValue());
+    assertFalse(broken.hasValidValue());
+    assertThrows(IllegalStateException.class, broken::intValue);
+  }
+
+  @Test
+  void typedValuesAreStoredWithoutTheirBox() {
+    ConfigItem item = new ConfigItem("batchSize", "int", 100L, null);
+
+    assertEquals(100, item.getValue());
+    assertEquals(null, item.rawValue());
+  }
+
+  @Test
+  void withValueKeepsTheJsonFormOfTheCurrentValue() {
+    assertEquals(200, new ConfigItem("batchSize", "int", 100, null).withValue("200").getValue());
+    assertEquals("200", new ConfigItem("batchSize", "int", "100", null).withValue("200").getValue());
+    assertEquals(false, new ConfigItem("enabled", "boolean", true, null).withValue(false).getValue());
+    assertEquals("false", new ConfigItem("enabled", "boolean", "true", null).withValue(false).getValue());
+    assertEquals("1m", new ConfigItem("timeout", "duration", "30s", null).withValue("1m").getValue());
+    assertEquals(60_000L, new ConfigItem("timeout", "duration", 1500, null).withValue("1m").getValue());
+    assertEquals(7, new ConfigItem("retries", "int", null, null).withValue("7").getValue());
+    assertEquals("seven", new ConfigItem("retries", "int", 3, null).withValue("seven").getValue());
+  }
+
+  @Test
+  void changingTheTypeReparsesTheValue() {
+    ConfigItem item = new ConfigItem("limit", "string", "250", null);
+
+    item.setType("int");
+
+    assertEquals(250, item.intValue());
+    assertEquals("250", item.getValue());
+  }
+}
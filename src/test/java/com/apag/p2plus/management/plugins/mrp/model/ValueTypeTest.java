@@ -0,0 +1,64 @@
+package com.apag.p2plus.management.plugins.mrp.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValueTypeTest {
+
+  @Test
+  void typeNamesAreMappedCaseInsensitive() {
+    assertEquals(ValueType.INT, ValueType.of("Integer"));
+    assertEquals(ValueType.INT, ValueType.of("int"));
+    assertEquals(ValueType.DOUBLE, ValueType.of("number"));
+    assertEquals(ValueType.BOOLEAN, ValueType.of("BOOLEAN"));
+    assertEquals(ValueType.PASSWORD, ValueType.of("password"));
+    assertEquals(ValueType.STRING, ValueType.of("whatever"));
+    assertEquals(ValueType.STRING, ValueType.of(null));
+  }
+
+  @Test
+  void primitiveValuesRoundTripThroughBits() {
+    assertEquals(true, ValueType.BOOLEAN.fromBits(ValueType.BOOLEAN.toBits("TRUE")));
+    assertEquals(false, ValueType.BOOLEAN.fromBits(ValueType.BOOLEAN.toBits("")));
+    assertEquals(42, ValueType.INT.fromBits(ValueType.INT.toBits(" 42 ")));
+    assertEquals(42, ValueType.INT.fromBits(ValueType.INT.toBits(42L)));
+    assertEquals(1L << 40, ValueType.LONG.fromBits(ValueType.LONG.toBits(1L << 40)));
+    assertEquals(-0.5, ValueType.DOUBLE.fromBits(ValueType.DOUBLE.toBits("-0.5")));
+    assertEquals(3.0, ValueType.DOUBLE.fromBits(ValueType.DOUBLE.toBits(3)));
+  }
+
+  @Test
+  void durationsAcceptIsoMillisAndShortForms() {
+    assertEquals(30_000L, ValueType.DURATION.toBits("PT30S"));
+    assertEquals(500L, ValueType.DURATION.toBits("500"));
+    assertEquals(500L, ValueType.DURATION.toBits("500ms"));
+    assertEquals(30_000L, ValueType.DURATION.toBits("30s"));
+    assertEquals(300_000L, ValueType.DURATION.toBits("5m"));
+    assertEquals(3_600_000L, ValueType.DURATION.toBits("1h"));
+    assertEquals(172_800_000L, ValueType.DURATION.toBits("2d"));
+    assertEquals(1500L, ValueType.DURATION.toBits(1500));
+  }
+
+  @Test
+  void invalidValuesAreRejected() {
+    assertThrows(IllegalArgumentException.class, () -> ValueType.BOOLEAN.toBits("yes"));
+    assertThrows(IllegalArgumentException.class, () -> ValueType.INT.toBits("1.5"));
+    assertThrows(ArithmeticException.class, () -> ValueType.INT.toBits(1L << 40));
+    assertThrows(IllegalArgumentException.class, () -> ValueType.DURATION.toBits("PT"));
+    assertThrows(IllegalArgumentException.class, () -> ValueType.DURATION.toBits("soon"));
+    assertThrows(IllegalArgumentException.class, () -> ValueType.STRING.toBits("x"));
+  }
+
+  @Test
+  void validityCheckCoversOnlyPrimitiveTypes() {
+    assertTrue(ValueType.STRING.isValid("anything"));
+    assertTrue(ValueType.INT.isValid(null));
+    assertTrue(ValueType.INT.isValid("12"));
+    assertFalse(ValueType.INT.isValid("twelve"));
+    assertFalse(ValueType.DOUBLE.isValid("1,5"));
+  }
+}
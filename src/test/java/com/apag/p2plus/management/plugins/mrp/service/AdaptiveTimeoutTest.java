@@ -0,0 +1,91 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import jakarta.ws.rs.ProcessingException;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveTimeoutTest {
+
+  private static final String METRIC = "http.operational.GET";
+
+  private final MetricsRegistry metrics = new MetricsRegistry(false);
+  private final AdaptiveTimeout timeout = new AdaptiveTimeout(true, 3, 100, 10_000, 5, metrics);
+
+  private void recordSuccesses(int count, long millis) {
+    for (int i = 0; i < count; i++) {
+      metrics.timer(HttpMetricsFilter.successTimer(METRIC)).record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+  }
+
+  @Test
+  void configuredTimeoutUntilEnoughSamples() {
+    recordSuccesses(4, 200);
+
+    assertEquals(10_000, timeout.getTimeoutMillis(METRIC));
+  }
+
+  @Test
+  void derivedFromSuccessfulResponses() {
+    recordSuccesses(20, 200);
+
+    assertEquals(600, timeout.getTimeoutMillis(METRIC), 30);
+  }
+
+  @Test
+  void keptAboveTheMinimum() {
+    recordSuccesses(20, 10);
+
+    assertEquals(100, timeout.getTimeoutMillis(METRIC));
+  }
+
+  @Test
+  void otherResponsesAreIgnored() {
+    recordSuccesses(20, 200);
+    // 304 and error responses are only recorded by the request timer
+    for (int i = 0; i < 100; i++) {
+      metrics.timer(METRIC).record(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    assertEquals(600, timeout.getTimeoutMillis(METRIC), 30);
+  }
+
+  @Test
+  void timeoutsWidenTheTimeout() {
+    recordSuccesses(20, 200);
+    long before = timeout.getTimeoutMillis(METRIC);
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(ProcessingException.class, () -> timeout.call(METRIC, () -> {
+        throw new ProcessingException(new SocketTimeoutException("Read timed out"));
+      }));
+    }
+
+    assertTrue(timeout.getTimeoutMillis(METRIC) > before);
+  }
+
+  @Test
+  void onlyReadTimeoutsAreRecorded() {
+    assertTrue(AdaptiveTimeout.isReadTimeout(new ProcessingException(new SocketTimeoutException())));
+    assertTrue(AdaptiveTimeout.isReadTimeout(new ProcessingException(new HttpTimeoutException("timed out"))));
+    assertFalse(AdaptiveTimeout.isReadTimeout(new ProcessingException(new HttpConnectTimeoutException("connect"))));
+    assertFalse(AdaptiveTimeout.isReadTimeout(new IllegalStateException()));
+  }
+
+  @Test
+  void disabledUsesTheConfiguredTimeout() {
+    AdaptiveTimeout disabled = new AdaptiveTimeout(false, 3, 100, 10_000, 5, metrics);
+    recordSuccesses(20, 200);
+
+    assertEquals(10_000, disabled.getTimeoutMillis(METRIC));
+  }
+}
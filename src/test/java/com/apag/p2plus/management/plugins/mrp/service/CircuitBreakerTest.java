@@ -0,0 +1,131 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+  private static final long OPEN_MILLIS = 50;
+
+  private final List<CircuitBreaker.State> transitions = new ArrayList<>();
+  private final CircuitBreaker breaker = new CircuitBreaker("operational",
+      new CircuitBreakerSettings(true, 4, 4, 0.5, OPEN_MILLIS), new MetricsRegistry(false),
+      (endpoint, state) -> transitions.add(state));
+
+  private static Throwable unavailable() {
+    return new ProcessingException(new ConnectException("Connection refused"));
+  }
+
+  private void request(Throwable failure) {
+    breaker.acquire();
+    breaker.onResult(failure);
+  }
+
+  private void open() {
+    request(unavailable());
+    request(null);
+    request(unavailable());
+    request(null);
+  }
+
+  @Test
+  void opensWhenTheFailureRateIsReached() {
+    request(unavailable());
+    request(null);
+    request(unavailable());
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+    request(null);
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    CircuitBreakerOpenException rejected = assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+    assertTrue(rejected.getRetryAfterMillis() <= OPEN_MILLIS);
+  }
+
+  @Test
+  void failuresOutsideTheWindowAreForgotten() {
+    request(unavailable());
+    for (int i = 0; i < 4; i++) {
+      request(null);
+    }
+    request(unavailable());
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void clientErrorsCountAsSuccess() {
+    for (int i = 0; i < 4; i++) {
+      request(new NotFoundException());
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void successfulProbeCloses() throws InterruptedException {
+    open();
+    Thread.sleep(OPEN_MILLIS + 10);
+
+    breaker.acquire();
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    // Only one probe at a time
+    assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+    breaker.onResult(null);
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED),
+        transitions);
+    // The window starts empty again
+    request(unavailable());
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void failedProbeOpensAgain() throws InterruptedException {
+    open();
+    Thread.sleep(OPEN_MILLIS + 10);
+
+    request(new ServiceUnavailableException());
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+  }
+
+  @Test
+  void cancelledProbeLetsTheNextRequestProbe() throws InterruptedException {
+    open();
+    Thread.sleep(OPEN_MILLIS + 10);
+    breaker.acquire();
+
+    breaker.onResult(new CancellationException());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+    request(null);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  void disabledBreakerNeverOpens() {
+    CircuitBreaker disabled = new CircuitBreaker("operational",
+        new CircuitBreakerSettings(false, 4, 4, 0.5, OPEN_MILLIS), new MetricsRegistry(false), (endpoint, state) -> { });
+    for (int i = 0; i < 10; i++) {
+      disabled.acquire();
+      disabled.onResult(unavailable());
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, disabled.getState());
+  }
+}
@@ -0,0 +1,76 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeltaSaveTest {
+
+  private static final List<ConfigItem> SERVER_ITEMS = List.of(
+      new ConfigItem("datasourcePassword", "password", "secret", "Password"),
+      new ConfigItem("batchSize", "int", 10, "Items per batch"));
+
+  private final DeltaSave deltaSave = new DeltaSave("technical");
+  private final List<List<ConfigItem>> puts = new ArrayList<>();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private void save(List<ConfigItem> changedItems, int patchStatus) {
+    deltaSave.save(changedItems, items -> {
+      if (patchStatus != 200) {
+        throw new WebApplicationException(patchStatus);
+      }
+    }, puts::add, () -> {
+      loads.incrementAndGet();
+      return SERVER_ITEMS;
+    });
+  }
+
+  @Test
+  void patchSendsNoFullConfiguration() {
+    save(List.of(new ConfigItem("batchSize", "int", 20, "Items per batch")), 200);
+
+    assertTrue(puts.isEmpty());
+    assertEquals(0, loads.get());
+  }
+
+  /**
+   * Items shown from the snapshot have no password; the PUT must carry the one on the server
+   */
+  @Test
+  void putAppliesTheChangesToTheConfigurationOnTheServer() {
+    ConfigItem changed = new ConfigItem("batchSize", "int", 20, "Items per batch");
+    ConfigItem added = new ConfigItem("mode", "enum", "FAST", "Mode");
+
+    save(List.of(changed, added), 405);
+
+    assertEquals(List.of(List.of(SERVER_ITEMS.get(0), changed, added)), puts);
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void laterSavesGoStraightToPut() {
+    save(List.of(new ConfigItem("batchSize", "int", 20, null)), 501);
+    save(List.of(new ConfigItem("batchSize", "int", 30, null)), 200);
+
+    assertEquals(2, puts.size());
+    assertEquals(30, puts.get(1).get(1).getValue());
+  }
+
+  @Test
+  void otherPatchErrorsAreNotSentWithPut() {
+    assertThrows(WebApplicationException.class, () -> save(List.of(new ConfigItem("batchSize", "int", 20, null)),
+        Response.Status.CONFLICT.getStatusCode()));
+
+    assertTrue(puts.isEmpty());
+    assertEquals(0, loads.get());
+  }
+}
@@ -0,0 +1,111 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.client.Client;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JdkHttpClientEngineTest {
+
+  private static final long READ_TIMEOUT_MILLIS = 300;
+
+  private final CountDownLatch stop = new CountDownLatch(1);
+  private HttpServer server;
+  private Client client;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/config/stalled", exchange -> {
+      exchange.sendResponseHeaders(200, 0);
+      OutputStream body = exchange.getResponseBody();
+      body.write("[{\"name\":".getBytes(StandardCharsets.UTF_8));
+      body.flush();
+      try {
+        stop.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.close();
+    });
+    server.createContext("/config/gzip", exchange -> {
+      byte[] body = gzip("[]");
+      exchange.getResponseHeaders().add("Content-Encoding", "GZIP");
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.start();
+    JdkHttpClientEngine engine = new JdkHttpClientEngine(HttpClient.Version.HTTP_1_1, 1000, READ_TIMEOUT_MILLIS,
+        true, new MetricsRegistry(false));
+    client = ((ResteasyClientBuilder) ResteasyClientBuilder.newBuilder()).httpEngine(engine).build();
+  }
+
+  @AfterEach
+  void tearDown() {
+    stop.countDown();
+    client.close();
+    server.stop(0);
+  }
+
+  private String url(String path) {
+    return "http://localhost:" + server.getAddress().getPort() + path;
+  }
+
+  private static byte[] gzip(String text) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  @Test
+  void stalledBodyTimesOut() {
+    Response response = client.target(url("/config/stalled")).request().get();
+    assertEquals(200, response.getStatus());
+
+    long start = System.nanoTime();
+    ProcessingException thrown = assertThrows(ProcessingException.class, () -> response.readEntity(String.class));
+
+    assertTrue(AdaptiveTimeout.isReadTimeout(thrown), thrown.toString());
+    assertTrue(hasCause(thrown, SocketTimeoutException.class));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+  }
+
+  @Test
+  void contentEncodingIsMatchedCaseInsensitive() {
+    Response response = client.target(url("/config/gzip")).request().get();
+
+    assertEquals("[]", response.readEntity(String.class));
+  }
+
+  private static boolean hasCause(Throwable throwable, Class<? extends Throwable> type) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+      if (type.isInstance(cause)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
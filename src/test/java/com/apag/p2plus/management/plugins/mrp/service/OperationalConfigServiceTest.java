@@ -0,0 +1,89 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OperationalConfigServiceTest {
+
+  private static final String ETAG = "\"v1\"";
+  private static final String LAST_MODIFIED = "Sun, 18 Oct 2026 10:00:00 GMT";
+  private static final String BODY = "[{\"name\":\"batchSize\",\"type\":\"int\",\"value\":10,\"description\":null}]";
+
+  private final MRPConfigClient client = mock(MRPConfigClient.class);
+  private final MetricsRegistry metrics = new MetricsRegistry(false);
+  private final WriteBehindQueue writeQueue = new WriteBehindQueue(Runnable::run, new SaveSettings(0, 0, 0), metrics);
+  private final OperationalConfigService service = new OperationalConfigService(new ServiceContext(client,
+      Runnable::run, new EndpointLimiter(4), new CacheSettings(100, TimeUnit.HOURS.toMillis(1), 0),
+      new SnapshotStore(null), metrics, writeQueue,
+      new CircuitBreakerRegistry(CircuitBreakerSettings.fromSystemProperties(), metrics),
+      new AdaptiveTimeout(false, 3, 1000, 15_000, 20, metrics)));
+
+  @AfterEach
+  void closeQueue() {
+    writeQueue.close();
+  }
+
+  private static Response okResponse() {
+    Response response = mock(Response.class);
+    when(response.getStatus()).thenReturn(200);
+    when(response.getStatusInfo()).thenReturn(Response.Status.OK);
+    when(response.getHeaderString(HttpHeaders.ETAG)).thenReturn(ETAG);
+    when(response.getHeaderString(HttpHeaders.LAST_MODIFIED)).thenReturn(LAST_MODIFIED);
+    when(response.readEntity(InputStream.class))
+        .thenReturn(new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)));
+    return response;
+  }
+
+  @Test
+  void reloadSendsTheValidatorsOfTheLastResponse() {
+    when(client.getOperationalConfigConditional(any(), any(), any())).thenAnswer(invocation -> okResponse());
+
+    service.loadFromServer("S1");
+    service.loadFromServer("S1");
+
+    verify(client).getOperationalConfigConditional("S1", null, null);
+    verify(client).getOperationalConfigConditional("S1", ETAG, LAST_MODIFIED);
+  }
+
+  @Test
+  void loadAfterInvalidateSendsNoValidators() {
+    when(client.getOperationalConfigConditional(any(), any(), any())).thenAnswer(invocation -> okResponse());
+
+    service.loadFromServer("S1");
+    service.invalidate("S1");
+    assertEquals(10, service.load("S1").get(0).intValue());
+
+    verify(client, times(2)).getOperationalConfigConditional("S1", null, null);
+  }
+
+  @Test
+  void failedPrefetchUsesNoFallback() {
+    when(client.getOperationalConfigConditional(any(), any(), any()))
+        .thenThrow(new ProcessingException(new ConnectException("Connection refused")));
+
+    assertThrows(CompletionException.class, () -> service.prefetch("S1").join());
+
+    assertEquals(0, metrics.counter("service.operational.fallbacks").getCount());
+    assertFalse(service.isCached("S1"));
+  }
+}
@@ -0,0 +1,190 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReplicaRouterTest {
+
+  private static final List<ConfigItem> ITEMS = List.of(new ConfigItem("batchSize", "int", 10, null));
+  private static final RoutingSettings NO_HEDGING = new RoutingSettings(false, 0, 1, 3, 60_000);
+  private static final RoutingSettings HEDGING = new RoutingSettings(true, 1, 1, 3, 60_000);
+
+  private final MetricsRegistry metrics = new MetricsRegistry(false);
+  // The first request goes to the first replica: both are unused, and the rotation starts there
+  private final MRPConfigClient first = mock(MRPConfigClient.class);
+  private final MRPConfigClient second = mock(MRPConfigClient.class);
+  private ReplicaRouter router;
+
+  @AfterEach
+  void tearDown() {
+    if (router != null) {
+      router.close();
+    }
+  }
+
+  private ReplicaRouter router(RoutingSettings settings, long seededLatencyMillis) {
+    Replica firstReplica = new Replica("http://first:8089", first, settings, metrics);
+    Replica secondReplica = new Replica("http://second:8089", second, settings, metrics);
+    if (seededLatencyMillis > 0) {
+      for (Replica replica : List.of(firstReplica, secondReplica)) {
+        replica.onStart();
+        replica.onSuccess(TimeUnit.MILLISECONDS.toNanos(seededLatencyMillis));
+      }
+    }
+    router = new ReplicaRouter(List.of(firstReplica, secondReplica), settings, metrics);
+    return router;
+  }
+
+  private static Response response(int status) {
+    Response response = mock(Response.class);
+    when(response.getStatus()).thenReturn(status);
+    when(response.getStatusInfo()).thenReturn(Response.Status.fromStatusCode(status));
+    return response;
+  }
+
+  private static RuntimeException connectionRefused() {
+    return new ProcessingException(new ConnectException("Connection refused"));
+  }
+
+  @Test
+  void unreachableReplicaFailsOver() {
+    when(first.getTechnicalConfig()).thenThrow(connectionRefused());
+    when(second.getTechnicalConfig()).thenReturn(ITEMS);
+
+    assertEquals(ITEMS, router(NO_HEDGING, 0).getTechnicalConfig());
+    assertEquals(1, metrics.counter("replica.failovers").getCount());
+    assertEquals(1, metrics.counter("replica.first_8089.failures").getCount());
+  }
+
+  @Test
+  void overloadedResponseFailsOverAndIsClosed() {
+    Response overloaded = response(503);
+    Response ok = response(200);
+    when(first.getTechnicalConfigConditional(any(), any())).thenReturn(overloaded);
+    when(second.getTechnicalConfigConditional(any(), any())).thenReturn(ok);
+
+    assertSame(ok, router(NO_HEDGING, 0).getTechnicalConfigConditional("\"v1\"", null));
+    verify(overloaded).close();
+  }
+
+  @Test
+  void lastOverloadedResponseIsReturned() {
+    Response overloaded = response(503);
+    Response alsoOverloaded = response(503);
+    when(first.getTechnicalConfigConditional(any(), any())).thenReturn(overloaded);
+    when(second.getTechnicalConfigConditional(any(), any())).thenReturn(alsoOverloaded);
+
+    assertSame(alsoOverloaded, router(NO_HEDGING, 0).getTechnicalConfigConditional(null, null));
+  }
+
+  @Test
+  void clientErrorsAreNotFailedOver() {
+    when(first.getTechnicalConfig()).thenThrow(new NotFoundException());
+
+    assertThrows(NotFoundException.class, () -> router(NO_HEDGING, 0).getTechnicalConfig());
+    verifyNoInteractions(second);
+  }
+
+  @Test
+  void writesAreNotFailedOver() {
+    router(NO_HEDGING, 0);
+    doThrow(connectionRefused()).when(first).patchTechnicalConfig(ITEMS);
+
+    assertThrows(ProcessingException.class, () -> router.patchTechnicalConfig(ITEMS));
+    verifyNoInteractions(second);
+  }
+
+  @Test
+  void hedgeAnswersForASlowPrimary() {
+    when(first.getTechnicalConfig()).thenAnswer(invocation -> {
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        throw new CancellationException("Aborted");
+      }
+      return List.of();
+    });
+    when(second.getTechnicalConfig()).thenReturn(ITEMS);
+
+    long start = System.nanoTime();
+    assertEquals(ITEMS, router(HEDGING, 5).getTechnicalConfig());
+
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "primary was not aborted");
+    assertEquals(1, metrics.counter("hedge.sent").getCount());
+    assertEquals(1, metrics.counter("hedge.won").getCount());
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  void primaryAnsweringFirstCancelsTheHedge() {
+    when(first.getTechnicalConfig()).thenReturn(ITEMS);
+
+    assertEquals(ITEMS, router(HEDGING, 500).getTechnicalConfig());
+
+    assertEquals(0, metrics.counter("hedge.sent").getCount());
+    verify(second, never()).getTechnicalConfig();
+  }
+
+  @Test
+  void slowerHedgeResponseIsClosed() throws InterruptedException {
+    Response primaryResponse = response(200);
+    Response hedgeResponse = response(200);
+    when(first.getTechnicalConfigConditional(any(), any())).thenAnswer(invocation -> {
+      // Answers after the hedge was sent, but before the hedge
+      Thread.sleep(100);
+      return primaryResponse;
+    });
+    when(second.getTechnicalConfigConditional(any(), any())).thenAnswer(invocation -> {
+      try {
+        Thread.sleep(300);
+      } catch (InterruptedException e) {
+        // Aborting the hedge does not stop a response that already arrived
+      }
+      return hedgeResponse;
+    });
+
+    assertSame(primaryResponse, router(HEDGING, 5).getTechnicalConfigConditional(null, null));
+
+    assertEquals(1, metrics.counter("hedge.sent").getCount());
+    verify(hedgeResponse, timeout(2000)).close();
+    verify(primaryResponse, never()).close();
+  }
+
+  @Test
+  void hedgesAreLimitedByTheBudget() {
+    when(first.getTechnicalConfig()).thenAnswer(invocation -> {
+      Thread.sleep(50);
+      return ITEMS;
+    });
+
+    assertEquals(ITEMS, router(new RoutingSettings(true, 0, 1, 3, 60_000), 5).getTechnicalConfig());
+
+    assertEquals(0, metrics.counter("hedge.sent").getCount());
+    assertEquals(1, metrics.counter("hedge.overBudget").getCount());
+    verifyNoInteractions(second);
+  }
+}
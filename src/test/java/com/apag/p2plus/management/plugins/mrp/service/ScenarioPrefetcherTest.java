@@ -0,0 +1,91 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScenarioPrefetcherTest {
+
+  private static final List<String> SCENARIO_IDS = List.of("S1", "S2", "S3");
+
+  private final OperationalConfigService service = mock(OperationalConfigService.class);
+  private final ScenarioPrefetcher prefetcher = new ScenarioPrefetcher(service, new PrefetchSettings(true, 1, 10, 1), null);
+  private final AtomicInteger userLoadsInFlight = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() {
+    when(service.isAvailable()).thenReturn(true);
+    when(service.getUserLoadsInFlight()).thenAnswer(invocation -> userLoadsInFlight.get());
+  }
+
+  @AfterEach
+  void closePrefetcher() {
+    prefetcher.close();
+  }
+
+  @Test
+  void loadedConfigurationIsCounted() {
+    when(service.prefetch("S2")).thenReturn(CompletableFuture.completedFuture(List.<ConfigItem>of()));
+
+    prefetcher.prefetchAround(SCENARIO_IDS, "S1");
+
+    await(() -> prefetcher.getPrefetchedCount() > 0);
+    assertEquals(1, prefetcher.getPrefetchedCount());
+  }
+
+  @Test
+  void failedPrefetchIsNotCounted() throws Exception {
+    when(service.prefetch("S2")).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("down")));
+
+    prefetcher.prefetchAround(SCENARIO_IDS, "S1");
+
+    verify(service, timeout(5000)).prefetch("S2");
+    Thread.sleep(200);
+    assertEquals(0, prefetcher.getPrefetchedCount());
+  }
+
+  @Test
+  void nothingIsPrefetchedWhileTheCircuitIsOpen() {
+    when(service.isAvailable()).thenReturn(false);
+
+    prefetcher.prefetchAround(SCENARIO_IDS, "S1");
+
+    verify(service, after(300).never()).prefetch(anyString());
+  }
+
+  @Test
+  void runningPrefetchIsCancelledForAUserLoad() {
+    CompletableFuture<List<ConfigItem>> prefetch = new CompletableFuture<>();
+    when(service.prefetch("S2")).thenReturn(prefetch);
+
+    prefetcher.prefetchAround(SCENARIO_IDS, "S1");
+    verify(service, timeout(5000)).prefetch("S2");
+    userLoadsInFlight.set(1);
+
+    await(prefetch::isDone);
+    assertTrue(prefetch.isCancelled());
+    assertEquals(0, prefetcher.getPrefetchedCount());
+  }
+
+  private static void await(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+      Thread.onSpinWait();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+  private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+  @Test
+  void concurrentCallsShareOneLoad() {
+    CompletableFuture<String> load = new CompletableFuture<>();
+    CompletableFuture<String> first = singleFlight.execute("key", () -> load, null);
+    CompletableFuture<String> second = singleFlight.execute("key", () -> {
+      throw new AssertionError("second load started");
+    }, null);
+
+    load.complete("value");
+
+    assertEquals("value", first.join());
+    assertEquals("value", second.join());
+    assertEquals(1, singleFlight.getStartedCount());
+    assertEquals(1, singleFlight.getCoalescedCount());
+    assertEquals(0, singleFlight.getInFlightCount());
+  }
+
+  @Test
+  void differentKeysLoadSeparately() {
+    singleFlight.execute("a", CompletableFuture::new, null);
+    singleFlight.execute("b", CompletableFuture::new, null);
+
+    assertEquals(2, singleFlight.getStartedCount());
+    assertEquals(2, singleFlight.getInFlightCount());
+  }
+
+  @Test
+  void cancellingOneSubscriberKeepsTheLoadRunning() {
+    CompletableFuture<String> load = new CompletableFuture<>();
+    CompletableFuture<String> first = singleFlight.execute("key", () -> load, null);
+    CompletableFuture<String> second = singleFlight.execute("key", () -> load, null);
+
+    assertTrue(first.cancel(true));
+    assertFalse(load.isCancelled());
+
+    load.complete("value");
+    assertEquals("value", second.join());
+  }
+
+  @Test
+  void cancellingTheLastSubscriberCancelsTheLoad() {
+    CompletableFuture<String> load = new CompletableFuture<>();
+    CompletableFuture<String> first = singleFlight.execute("key", () -> load, null);
+    CompletableFuture<String> second = singleFlight.execute("key", () -> load, null);
+
+    first.cancel(true);
+    second.cancel(true);
+
+    assertTrue(load.isCancelled());
+    assertEquals(0, singleFlight.getInFlightCount());
+  }
+
+  @Test
+  void callAfterCancellationStartsANewLoad() {
+    CompletableFuture<String> cancelled = singleFlight.execute("key", CompletableFuture::new, null);
+    cancelled.cancel(true);
+
+    CompletableFuture<String> next = singleFlight.execute("key", () -> CompletableFuture.completedFuture("new"), null);
+
+    assertEquals("new", next.join());
+    assertEquals(2, singleFlight.getStartedCount());
+  }
+
+  @Test
+  void failureIsRecoveredPerSubscriber() {
+    CompletableFuture<String> load = new CompletableFuture<>();
+    CompletableFuture<String> recovered = singleFlight.execute("key", () -> load, e -> "fallback: " + e.getMessage());
+    CompletableFuture<String> propagated = singleFlight.execute("key", () -> load, null);
+
+    load.completeExceptionally(new IllegalStateException("down"));
+
+    assertEquals("fallback: down", recovered.join());
+    CompletionException thrown = assertThrows(CompletionException.class, propagated::join);
+    assertTrue(thrown.getCause() instanceof IllegalStateException);
+  }
+
+  @Test
+  void cancellationOfTheLoadIsNotRecovered() {
+    CompletableFuture<String> load = new CompletableFuture<>();
+    CompletableFuture<String> subscriber = singleFlight.execute("key", () -> load, e -> "fallback");
+
+    load.cancel(true);
+
+    assertThrows(CancellationException.class, subscriber::join);
+  }
+
+  /**
+   * Subscribers are completed before the finished flight is removed; a call made
+   * from a completion callback, e.g. a reload right after invalidate(), must not
+   * get the old result
+   */
+  @Test
+  void finishedFlightIsNotJoined() {
+    CompletableFuture<String> load = new CompletableFuture<>();
+    AtomicReference<CompletableFuture<String>> reload = new AtomicReference<>();
+    singleFlight.execute("key", () -> load, null)
+        .thenRun(() -> reload.set(singleFlight.execute("key", () -> CompletableFuture.completedFuture("new"), null)));
+
+    load.complete("old");
+
+    assertEquals("new", reload.get().join());
+    assertEquals(2, singleFlight.getStartedCount());
+    assertEquals(0, singleFlight.getCoalescedCount());
+  }
+}
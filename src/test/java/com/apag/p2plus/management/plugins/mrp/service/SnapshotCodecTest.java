@@ -0,0 +1,133 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SnapshotCodecTest {
+
+  private static Map<String, List<Scenario>> scenarioSections() {
+    Map<String, List<Scenario>> sections = new LinkedHashMap<>();
+    sections.put("scenarios", List.of(new Scenario("S1", "First"), new Scenario("S2", null)));
+    return sections;
+  }
+
+  private static Map<String, List<ConfigItem>> itemSections() {
+    Map<String, List<ConfigItem>> sections = new LinkedHashMap<>();
+    sections.put("technical", List.of(
+        new ConfigItem("enabled", "boolean", true, "Switch"),
+        new ConfigItem("batchSize", "int", 1000, "Items per batch"),
+        new ConfigItem("ratio", "double", 0.25, null),
+        new ConfigItem("timeout", "duration", "30s", "Request timeout"),
+        new ConfigItem("mode", "enum", "FAST", "Mode"),
+        new ConfigItem("empty", "string", null, "")));
+    sections.put("operational/S1", List.of(
+        new ConfigItem("batchSize", "int", 10, "Items per batch"),
+        new ConfigItem("secret", "password", "hunter2", "Password")));
+    return sections;
+  }
+
+  @Test
+  void roundTripKeepsSectionsAndValues() throws IOException {
+    byte[] data = SnapshotCodec.encode(scenarioSections(), itemSections());
+
+    SnapshotCodec.Content content = SnapshotCodec.decode(ByteBuffer.wrap(data));
+
+    assertEquals(scenarioSections(), content.scenarioSections);
+    assertEquals(itemSections().get("technical"), content.itemSections.get("technical"));
+    List<ConfigItem> operational = content.itemSections.get("operational/S1");
+    assertEquals(new ConfigItem("batchSize", "int", 10, "Items per batch"), operational.get(0));
+    assertEquals(List.of("scenarios"), List.copyOf(content.scenarioSections.keySet()));
+    assertEquals(List.of("technical", "operational/S1"), List.copyOf(content.itemSections.keySet()));
+  }
+
+  @Test
+  void passwordsAreNotWritten() throws IOException {
+    byte[] data = SnapshotCodec.encode(scenarioSections(), itemSections());
+
+    SnapshotCodec.Content content = SnapshotCodec.decode(ByteBuffer.wrap(data));
+
+    assertNull(content.itemSections.get("operational/S1").get(1).getValue());
+  }
+
+  @Test
+  void rejectsOtherFiles() {
+    assertThrows(IOException.class, () -> SnapshotCodec.decode(ByteBuffer.wrap("not a snapshot".getBytes())));
+  }
+
+  @Test
+  void rejectsOtherVersions() throws IOException {
+    byte[] data = SnapshotCodec.encode(scenarioSections(), itemSections());
+    data[5]++;
+
+    assertThrows(IOException.class, () -> SnapshotCodec.decode(ByteBuffer.wrap(data)));
+  }
+
+  @Test
+  void rejectsEveryTruncation() throws IOException {
+    byte[] data = SnapshotCodec.encode(scenarioSections(), itemSections());
+
+    for (int length = 0; length < data.length; length++) {
+      byte[] truncated = Arrays.copyOf(data, length);
+      assertThrows(IOException.class, () -> SnapshotCodec.decode(ByteBuffer.wrap(truncated)),
+          "truncated to " + length + " bytes");
+    }
+  }
+
+  @Test
+  void corruptBytesFailOnlyWithIOException() throws IOException {
+    byte[] data = SnapshotCodec.encode(scenarioSections(), itemSections());
+
+    for (int position = 0; position < data.length; position++) {
+      for (int value : new int[] {0x00, 0x7F, 0x80, 0xFF}) {
+        byte[] corrupt = data.clone();
+        corrupt[position] = (byte) value;
+        try {
+          SnapshotCodec.decode(ByteBuffer.wrap(corrupt));
+        } catch (IOException e) {
+          // expected for most positions
+        } catch (RuntimeException e) {
+          fail("Byte " + position + " set to " + value + ": " + e);
+        }
+      }
+    }
+  }
+
+  @Test
+  void hugeLengthIsRejectedWithoutAllocating() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(SnapshotCodec.MAGIC);
+    out.writeShort(SnapshotCodec.VERSION);
+    // One string claiming 2^28 - 1 bytes
+    out.write(new byte[] {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F});
+
+    assertThrows(IOException.class, () -> SnapshotCodec.decode(ByteBuffer.wrap(bytes.toByteArray())));
+  }
+
+  @Test
+  void negativeCountIsRejected() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(SnapshotCodec.MAGIC);
+    out.writeShort(SnapshotCodec.VERSION);
+    // String count with the sign bit set
+    out.write(new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+
+    assertThrows(IOException.class, () -> SnapshotCodec.decode(ByteBuffer.wrap(bytes.toByteArray())));
+  }
+}
@@ -0,0 +1,104 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.model.ConfigItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SnapshotStoreTest {
+
+  private static final List<ConfigItem> ITEMS = List.of(new ConfigItem("batchSize", "int", 10, "Items per batch"));
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void flushedSnapshotIsReadOnOpen() {
+    Path file = directory.resolve("snapshot.bin");
+    SnapshotStore store = new SnapshotStore(file);
+    store.open();
+    store.putConfigItems("technical", ITEMS);
+    store.close();
+
+    SnapshotStore reopened = new SnapshotStore(file);
+    reopened.open();
+    try {
+      assertEquals(ITEMS, reopened.getConfigItems("technical"));
+    } finally {
+      reopened.close();
+    }
+  }
+
+  @Test
+  void corruptFileIsDeleted() throws IOException {
+    Path file = directory.resolve("snapshot.bin");
+    SnapshotStore store = new SnapshotStore(file);
+    store.putConfigItems("technical", ITEMS);
+    store.flush();
+    byte[] data = Files.readAllBytes(file);
+    // Claim far more strings than the file holds
+    data[6] = (byte) 0xFF;
+    data[7] = (byte) 0xFF;
+    data[8] = (byte) 0x7F;
+    Files.write(file, data);
+
+    SnapshotStore reopened = new SnapshotStore(file);
+    reopened.open();
+    try {
+      assertNull(reopened.getConfigItems("technical"));
+      assertFalse(Files.exists(file));
+    } finally {
+      reopened.close();
+    }
+  }
+
+  @Test
+  void leastRecentlyUsedSectionsAreDropped() {
+    SnapshotStore store = new SnapshotStore(null, 2);
+    store.putConfigItems("a", ITEMS);
+    store.putConfigItems("b", ITEMS);
+    store.getConfigItems("a");
+    store.putConfigItems("c", ITEMS);
+
+    assertNotNull(store.getConfigItems("a"));
+    assertNull(store.getConfigItems("b"));
+    assertNotNull(store.getConfigItems("c"));
+  }
+
+  @Test
+  void removedSectionIsGone() {
+    SnapshotStore store = new SnapshotStore(null);
+    store.putConfigItems("technical", ITEMS);
+
+    store.remove("technical");
+
+    assertNull(store.getConfigItems("technical"));
+  }
+
+  @Test
+  void removedSectionIsNotWrittenAgain() {
+    Path file = directory.resolve("snapshot.bin");
+    SnapshotStore store = new SnapshotStore(file);
+    store.putConfigItems("technical", ITEMS);
+    store.flush();
+    store.remove("technical");
+    store.close();
+
+    SnapshotStore reopened = new SnapshotStore(file);
+    reopened.open();
+    try {
+      assertNull(reopened.getConfigItems("technical"));
+    } finally {
+      reopened.close();
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package com.apag.p2plus.management.plugins.mrp.service;
+
+import com.apag.p2plus.management.plugins.mrp.metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteBehindQueueTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final MetricsRegistry metrics = new MetricsRegistry(false);
+  private final List<String> sent = new CopyOnWriteArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private WriteBehindQueue queue(long backoffMillis) {
+    return new WriteBehindQueue(executor, new SaveSettings(3, backoffMillis, backoffMillis), metrics);
+  }
+
+  private static RuntimeException connectionRefused() {
+    return new UncheckedIOException(new ConnectException("Connection refused"));
+  }
+
+  private CompletableFuture<String> submit(WriteBehindQueue queue, String payload, Function<String, String> writer) {
+    return queue.submit("operational:S1", "operational", payload, (older, newer) -> older + newer, writer, true);
+  }
+
+  /**
+   * Fails the first request and records all payloads
+   */
+  private Function<String, String> failingOnce() {
+    return payload -> {
+      sent.add(payload);
+      if (sent.size() == 1) {
+        throw connectionRefused();
+      }
+      return "saved " + payload;
+    };
+  }
+
+  @Test
+  void writesOfOneResourceAreSentInOrder() throws Exception {
+    WriteBehindQueue queue = queue(10);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> first = submit(queue, "a", payload -> {
+      await(release);
+      sent.add(payload);
+      return payload;
+    });
+    CompletableFuture<String> second = submit(queue, "b", payload -> {
+      sent.add(payload);
+      return payload;
+    });
+
+    release.countDown();
+
+    assertEquals("a", first.get(5, TimeUnit.SECONDS));
+    assertEquals("b", second.get(5, TimeUnit.SECONDS));
+    assertEquals(List.of("a", "b"), sent);
+  }
+
+  @Test
+  void writesSubmittedDuringBackoffAreMergedIntoTheRetry() throws Exception {
+    WriteBehindQueue queue = queue(300);
+    Function<String, String> writer = failingOnce();
+    CompletableFuture<String> first = submit(queue, "a", writer);
+    waitUntil(() -> sent.size() == 1);
+
+    CompletableFuture<String> second = submit(queue, "b", writer);
+    CompletableFuture<String> third = submit(queue, "c", writer);
+
+    assertEquals("saved abc", first.get(5, TimeUnit.SECONDS));
+    assertEquals("saved abc", second.get(5, TimeUnit.SECONDS));
+    assertEquals("saved abc", third.get(5, TimeUnit.SECONDS));
+    assertEquals(List.of("a", "abc"), sent);
+    assertEquals(1, metrics.counter("save.operational.retries").getCount());
+    assertEquals(2, metrics.counter("save.operational.coalesced").getCount());
+    assertEquals(0, queue.getPendingCount());
+  }
+
+  @Test
+  void writeFailsAfterTheLastRetry() {
+    WriteBehindQueue queue = queue(1);
+    CompletableFuture<String> write = submit(queue, "a", payload -> {
+      sent.add(payload);
+      throw connectionRefused();
+    });
+
+    ExecutionException thrown = assertThrows(ExecutionException.class, () -> write.get(5, TimeUnit.SECONDS));
+    assertTrue(thrown.getCause() instanceof UncheckedIOException);
+    assertEquals(4, sent.size());
+  }
+
+  @Test
+  void closeWaitsForRetries() throws Exception {
+    WriteBehindQueue queue = queue(200);
+    CompletableFuture<String> write = submit(queue, "a", failingOnce());
+    waitUntil(() -> sent.size() == 1);
+
+    queue.close(5, TimeUnit.SECONDS);
+
+    assertEquals(List.of("a", "a"), sent);
+    assertEquals(0, queue.getPendingCount());
+    assertEquals("saved a", write.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void closeFailsWritesThatDidNotFinishInTime() throws Exception {
+    WriteBehindQueue queue = queue(60_000);
+    CompletableFuture<String> retrying = submit(queue, "a", failingOnce());
+    waitUntil(() -> sent.size() == 1);
+
+    queue.close(50, TimeUnit.MILLISECONDS);
+
+    ExecutionException thrown = assertThrows(ExecutionException.class, () -> retrying.get(5, TimeUnit.SECONDS));
+    assertTrue(thrown.getCause() instanceof RejectedExecutionException);
+  }
+
+  @Test
+  void writesAfterCloseAreRejected() {
+    WriteBehindQueue queue = queue(10);
+    queue.close(0, TimeUnit.MILLISECONDS);
+
+    CompletableFuture<String> write = submit(queue, "a", payload -> payload);
+
+    ExecutionException thrown = assertThrows(ExecutionException.class, () -> write.get(5, TimeUnit.SECONDS));
+    assertTrue(thrown.getCause() instanceof RejectedExecutionException);
+    assertTrue(sent.isEmpty());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+}
@@ -0,0 +1,64 @@
+package com.apag.p2plus.management.plugins.mrp.ui;
+
+import com.apag.p2plus.management.plugins.mrp.model.Scenario;
+import com.apag.p2plus.management.plugins.mrp.model.ScenarioPage;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ScenarioComboBoxModelTest {
+
+  private static final int TOTAL = 1000;
+
+  private final List<Integer> requestedOffsets = new ArrayList<>();
+  private final ScenarioComboBoxModel model = new ScenarioComboBoxModel((search, offset, limit) -> {
+    requestedOffsets.add(offset);
+    List<Scenario> scenarios = new ArrayList<>();
+    for (int i = offset; i < Math.min(offset + limit, TOTAL); i++) {
+      scenarios.add(new Scenario("S" + i, "Scenario " + i));
+    }
+    return CompletableFuture.completedFuture(new ScenarioPage(scenarios, offset, TOTAL));
+  });
+
+  private void loadFirstPage() throws Exception {
+    SwingUtilities.invokeAndWait(() -> model.load(null));
+    // Wait for the page applied via invokeLater
+    SwingUtilities.invokeAndWait(() -> { });
+  }
+
+  @Test
+  void readingElementsLoadsNothing() throws Exception {
+    loadFirstPage();
+
+    SwingUtilities.invokeAndWait(() -> {
+      for (int i = 0; i < model.getSize(); i++) {
+        model.getElementAt(i);
+      }
+    });
+
+    assertEquals(List.of(0), requestedOffsets);
+  }
+
+  @Test
+  void nextPageIsLoadedOnlyCloseToTheEnd() throws Exception {
+    loadFirstPage();
+
+    SwingUtilities.invokeAndWait(() -> model.loadNextPage(10));
+    assertEquals(List.of(0), requestedOffsets);
+
+    SwingUtilities.invokeAndWait(() -> {
+      model.loadNextPage(ScenarioComboBoxModel.PAGE_SIZE - 1);
+      // Still loading, so no second request
+      model.loadNextPage(ScenarioComboBoxModel.PAGE_SIZE - 1);
+    });
+    SwingUtilities.invokeAndWait(() -> { });
+
+    assertEquals(List.of(0, ScenarioComboBoxModel.PAGE_SIZE), requestedOffsets);
+    assertEquals(2 * ScenarioComboBoxModel.PAGE_SIZE, model.getSize());
+  }
+}